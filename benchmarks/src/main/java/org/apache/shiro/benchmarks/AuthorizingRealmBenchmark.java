@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link org.apache.shiro.realm.AuthorizingRealm#isPermitted(PrincipalCollection, String)} and
+ * {@link org.apache.shiro.realm.AuthorizingRealm#hasAllRoles(PrincipalCollection, java.util.Collection)} against a
+ * cached {@code AuthorizationInfo}, using the realm's default behavior ({@code plain}), cached resolved permissions
+ * ({@code resolved}), or the permission index and role bit sets ({@code indexed}).
+ *
+ * @since 1.4.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizingRealmBenchmark {
+
+    private static final int MASK = PermissionDataSet.CHECK_COUNT - 1;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    @Param({"3"})
+    public int parts;
+
+    @Param({"0.2"})
+    public double wildcardDensity;
+
+    @Param({"plain", "resolved", "indexed"})
+    public String mode;
+
+    private SyntheticRealm realm;
+    private PrincipalCollection principals;
+    private String[] checks;
+    private int next;
+
+    @Setup
+    public void setup() {
+        PermissionDataSet dataSet = new PermissionDataSet(42, size, parts, wildcardDensity);
+        realm = new SyntheticRealm(dataSet.getGranted(), Arrays.asList("user", "printers", "admin"));
+        if ("resolved".equals(mode)) {
+            realm.setResolvedPermissionsCachingEnabled(true);
+        } else if ("indexed".equals(mode)) {
+            realm.setPermissionIndexEnabled(true);
+            realm.setRoleBitSetEnabled(true);
+        }
+        principals = new SimplePrincipalCollection("jsmith", realm.getName());
+        checks = dataSet.getChecks().toArray(new String[0]);
+    }
+
+    @Benchmark
+    public boolean isPermitted() {
+        return realm.isPermitted(principals, checks[next++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean hasAllRoles() {
+        return realm.hasAllRoles(principals, Arrays.asList("user", "admin"));
+    }
+}
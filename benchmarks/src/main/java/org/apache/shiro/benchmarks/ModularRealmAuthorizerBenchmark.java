@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.authz.ModularRealmAuthorizer;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single and batch permission checks through a {@link ModularRealmAuthorizer} consulting several realms,
+ * each granting a different share of the permissions.
+ *
+ * @since 1.4.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModularRealmAuthorizerBenchmark {
+
+    private static final int MASK = PermissionDataSet.CHECK_COUNT - 1;
+
+    @Param({"1", "3"})
+    public int realmCount;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"1", "10"})
+    public int batchSize;
+
+    private ModularRealmAuthorizer authorizer;
+    private PrincipalCollection principals;
+    private String[][] batches;
+    private int next;
+
+    @Setup
+    public void setup() {
+        PermissionDataSet dataSet = new PermissionDataSet(42, size, 3, 0.2);
+        List<String> granted = dataSet.getGranted();
+        List<Realm> realms = new ArrayList<Realm>(realmCount);
+        for (int i = 0; i < realmCount; i++) {
+            //realm i grants every realmCount-th permission, starting at i:
+            List<String> share = new ArrayList<String>();
+            for (int j = i; j < granted.size(); j += realmCount) {
+                share.add(granted.get(j));
+            }
+            SyntheticRealm realm = new SyntheticRealm(share, Collections.<String>emptySet());
+            realm.setName("realm" + i);
+            realms.add(realm);
+        }
+        authorizer = new ModularRealmAuthorizer(realms);
+        principals = new SimplePrincipalCollection("jsmith", "realm0");
+
+        List<String> checks = dataSet.getChecks();
+        batches = new String[PermissionDataSet.CHECK_COUNT][batchSize];
+        for (int i = 0; i < batches.length; i++) {
+            for (int j = 0; j < batchSize; j++) {
+                batches[i][j] = checks.get((i + j) & MASK);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean[] isPermitted() {
+        return authorizer.isPermitted(principals, batches[next++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean isPermittedAll() {
+        return authorizer.isPermittedAll(principals, batches[next++ & MASK]);
+    }
+}
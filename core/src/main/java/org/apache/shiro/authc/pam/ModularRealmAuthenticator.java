@@ -25,7 +25,18 @@ import org.apache.shiro.util.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A {@code ModularRealmAuthenticator} delegates account lookups to a pluggable (modular) collection of
@@ -54,6 +65,13 @@ import java.util.Collection;
  * <p/>
  * As most multi-realm applications require at least one Realm authenticates successfully, the default
  * implementation is the {@link AtLeastOneSuccessfulStrategy}.
+ * <h3>Concurrent realm consultation</h3>
+ * By default, realms are consulted one after the other, so the duration of a multi-realm authentication attempt is
+ * the sum of the durations of all realm lookups.  If an {@link #setExecutorService(ExecutorService) executorService}
+ * is configured, all realms supporting the token are instead consulted concurrently on that executor, optionally
+ * bounded by a {@link #setRealmTimeout(long) realm timeout}.  See
+ * {@link #doParallelMultiRealmAuthentication(java.util.Collection, org.apache.shiro.authc.AuthenticationToken)} for
+ * how this interacts with the {@code AuthenticationStrategy}.
  *
  * @see #setRealms
  * @see AtLeastOneSuccessfulStrategy
@@ -82,6 +100,16 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
      */
     private AuthenticationStrategy authenticationStrategy;
 
+    /**
+     * The executor used to consult multiple realms concurrently, {@code null} to consult them sequentially.
+     */
+    private ExecutorService executorService;
+
+    /**
+     * The maximum time in milliseconds to wait for realms consulted concurrently, {@code 0} to wait indefinitely.
+     */
+    private long realmTimeout;
+
     /*--------------------------------------------
     |         C O N S T R U C T O R S           |
     ============================================*/
@@ -143,6 +171,59 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
         this.authenticationStrategy = authenticationStrategy;
     }
 
+    /**
+     * Returns the executor used to consult multiple realms concurrently, or {@code null} (the default) if realms are
+     * consulted sequentially.
+     *
+     * @return the executor used to consult multiple realms concurrently, or {@code null} if realms are consulted
+     *         sequentially.
+     * @since 1.4.1
+     */
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the executor used to consult multiple realms concurrently during a multi-realm log-in attempt, or
+     * {@code null} to consult them sequentially (the default).
+     * <p/>
+     * The executor should provide at least as many threads as there are realms, otherwise realm lookups will
+     * queue up behind each other.  This authenticator does not manage the executor's lifecycle; it is the
+     * responsibility of the application to shut it down.
+     *
+     * @param executorService the executor used to consult multiple realms concurrently, or {@code null} to consult
+     *                        them sequentially.
+     * @since 1.4.1
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds to wait for realms that are consulted concurrently, or {@code 0}
+     * (the default) to wait indefinitely.
+     *
+     * @return the maximum time in milliseconds to wait for realms that are consulted concurrently.
+     * @since 1.4.1
+     */
+    public long getRealmTimeout() {
+        return realmTimeout;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds to wait for realms that are consulted concurrently.  A realm that has
+     * not responded within this time, measured from the start of the authentication attempt, is treated as a realm
+     * that threw an {@link AuthenticationException}.  A value of {@code 0} or less waits indefinitely.
+     * <p/>
+     * This property has no effect unless an {@link #setExecutorService(ExecutorService) executorService} is set.
+     *
+     * @param realmTimeout the maximum time in milliseconds to wait for realms that are consulted concurrently.
+     * @since 1.4.1
+     */
+    public void setRealmTimeout(long realmTimeout) {
+        this.realmTimeout = realmTimeout;
+    }
+
     /*--------------------------------------------
     |               M E T H O D S               |
 
@@ -197,6 +278,10 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
      */
     protected AuthenticationInfo doMultiRealmAuthentication(Collection<Realm> realms, AuthenticationToken token) {
 
+        if (getExecutorService() != null) {
+            return doParallelMultiRealmAuthentication(realms, token);
+        }
+
         AuthenticationStrategy strategy = getAuthenticationStrategy();
 
         AuthenticationInfo aggregate = strategy.beforeAllAttempts(realms, token);
@@ -237,6 +322,180 @@ public class ModularRealmAuthenticator extends AbstractAuthenticator {
         return aggregate;
     }
 
+    /**
+     * Performs the multi-realm authentication attempt by consulting all realms that support the token concurrently
+     * on the configured {@link #getExecutorService() executorService}.
+     * <p/>
+     * The {@link AuthenticationStrategy} is still called back on the calling thread, in realm order and with the same
+     * arguments as during a {@link #doMultiRealmAuthentication sequential} attempt, so any strategy produces the same
+     * aggregate in both modes.  Only the realm lookups themselves overlap.  If the strategy is a
+     * {@link ShortCircuitAuthenticationStrategy ShortCircuitAuthenticationStrategy}, pending lookups are cancelled as
+     * soon as the outcome is decided: either when the strategy reports the aggregate to be
+     * {@link ShortCircuitAuthenticationStrategy#isComplete complete} (e.g. {@link FirstSuccessfulStrategy}), or, for a
+     * {@link ShortCircuitAuthenticationStrategy#isFailFast() fail-fast} strategy (e.g. {@link AllSuccessfulStrategy}),
+     * when any realm fails, even if realms configured before it have not responded yet.
+     * <p/>
+     * A realm that has not responded within the {@link #getRealmTimeout() realm timeout} is reported to the strategy
+     * as having thrown an {@link AuthenticationException}.
+     * <p/>
+     * Note that realm lookups run on the executor's threads: realms relying on thread-bound state (such as the
+     * {@link org.apache.shiro.util.ThreadContext ThreadContext}) should be used with an executor that propagates it,
+     * such as a {@link org.apache.shiro.concurrent.SubjectAwareExecutorService SubjectAwareExecutorService}.
+     *
+     * @param realms the multiple realms configured on this Authenticator instance.
+     * @param token  the submitted AuthenticationToken representing the subject's (user's) log-in principals and credentials.
+     * @return an aggregated AuthenticationInfo instance representing account data across all the successfully
+     *         consulted realms.
+     * @since 1.4.1
+     */
+    protected AuthenticationInfo doParallelMultiRealmAuthentication(Collection<Realm> realms, final AuthenticationToken token) {
+
+        AuthenticationStrategy strategy = getAuthenticationStrategy();
+        ShortCircuitAuthenticationStrategy shortCircuit = null;
+        if (strategy instanceof ShortCircuitAuthenticationStrategy) {
+            shortCircuit = (ShortCircuitAuthenticationStrategy) strategy;
+        }
+
+        AuthenticationInfo aggregate = strategy.beforeAllAttempts(realms, token);
+
+        if (log.isTraceEnabled()) {
+            log.trace("Consulting {} realms concurrently for PAM authentication", realms.size());
+        }
+
+        List<Realm> realmList = new ArrayList<Realm>(realms);
+        int size = realmList.size();
+        long deadline = realmTimeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(realmTimeout) : 0;
+
+        CompletionService<AuthenticationInfo> completionService =
+                new ExecutorCompletionService<AuthenticationInfo>(getExecutorService());
+        List<Future<AuthenticationInfo>> futures = new ArrayList<Future<AuthenticationInfo>>(size);
+        Map<Future<AuthenticationInfo>, Integer> indexes = new HashMap<Future<AuthenticationInfo>, Integer>(size);
+        for (int i = 0; i < size; i++) {
+            final Realm realm = realmList.get(i);
+            Future<AuthenticationInfo> future = null;
+            if (realm.supports(token)) {
+                log.trace("Attempting to authenticate token [{}] using realm [{}]", token, realm);
+                future = completionService.submit(new Callable<AuthenticationInfo>() {
+                    public AuthenticationInfo call() throws Exception {
+                        return realm.getAuthenticationInfo(token);
+                    }
+                });
+                indexes.put(future, i);
+            }
+            futures.add(future);
+        }
+
+        RealmAttempt[] attempts = new RealmAttempt[size];
+        try {
+            for (int i = 0; i < size; i++) {
+                Realm realm = realmList.get(i);
+
+                aggregate = strategy.beforeAttempt(realm, token, aggregate);
+
+                if (futures.get(i) == null) {
+                    log.debug("Realm [{}] does not support token {}.  Skipping realm.", realm, token);
+                    continue;
+                }
+
+                while (attempts[i] == null) {
+                    Future<AuthenticationInfo> done = poll(completionService, deadline);
+                    if (done == null) {
+                        String msg = "Realm [" + realm + "] did not respond within " + realmTimeout + " ms.";
+                        log.debug(msg);
+                        attempts[i] = new RealmAttempt(null, new AuthenticationException(msg));
+                        break;
+                    }
+                    int index = indexes.get(done);
+                    if (attempts[index] != null) {
+                        //a realm that has already timed out
+                        continue;
+                    }
+                    RealmAttempt attempt = RealmAttempt.of(realmList.get(index), done);
+                    attempts[index] = attempt;
+                    if (index != i && attempt.isFailed() && shortCircuit != null && shortCircuit.isFailFast()) {
+                        //let the strategy fail the entire attempt right away:
+                        aggregate = strategy.afterAttempt(realmList.get(index), token, attempt.info, aggregate, attempt.t);
+                        attempt.processed = true;
+                    }
+                }
+
+                RealmAttempt attempt = attempts[i];
+                if (!attempt.processed) {
+                    aggregate = strategy.afterAttempt(realm, token, attempt.info, aggregate, attempt.t);
+                    attempt.processed = true;
+                }
+
+                if (shortCircuit != null && shortCircuit.isComplete(token, aggregate)) {
+                    log.trace("Authentication strategy completed after consulting realm [{}].  Skipping remaining " +
+                            "realms.", realm);
+                    break;
+                }
+            }
+        } finally {
+            for (Future<AuthenticationInfo> future : futures) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        aggregate = strategy.afterAllAttempts(token, aggregate);
+
+        return aggregate;
+    }
+
+    private static Future<AuthenticationInfo> poll(CompletionService<AuthenticationInfo> completionService, long deadline) {
+        try {
+            if (deadline == 0) {
+                return completionService.take();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return completionService.poll();
+            }
+            return completionService.poll(remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("Interrupted while waiting for realms to respond.", e);
+        }
+    }
+
+    /**
+     * The outcome of a single realm lookup performed during a concurrent multi-realm authentication attempt.
+     */
+    private static final class RealmAttempt {
+
+        private final AuthenticationInfo info;
+        private final Throwable t;
+        private boolean processed;
+
+        private RealmAttempt(AuthenticationInfo info, Throwable t) {
+            this.info = info;
+            this.t = t;
+        }
+
+        private static RealmAttempt of(Realm realm, Future<AuthenticationInfo> future) {
+            try {
+                return new RealmAttempt(future.get(), null);
+            } catch (ExecutionException e) {
+                Throwable t = e.getCause() != null ? e.getCause() : e;
+                if (log.isDebugEnabled()) {
+                    String msg = "Realm [" + realm + "] threw an exception during a multi-realm authentication attempt:";
+                    log.debug(msg, t);
+                }
+                return new RealmAttempt(null, t);
+            } catch (InterruptedException e) {
+                //cannot happen, the future is done:
+                Thread.currentThread().interrupt();
+                return new RealmAttempt(null, e);
+            }
+        }
+
+        private boolean isFailed() {
+            return t != null || info == null;
+        }
+    }
+
 
     /**
      * Attempts to authenticate the given token by iterating over the internal collection of
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authc.pam;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+
+/**
+ * An {@link AuthenticationStrategy} that can tell when the outcome of a multi-realm authentication attempt is
+ * already decided, allowing a {@link ModularRealmAuthenticator} that consults its realms
+ * {@link ModularRealmAuthenticator#setExecutorService(java.util.concurrent.ExecutorService) concurrently} to stop
+ * waiting for (and cancel) the remaining realm attempts.
+ *
+ * @see FirstSuccessfulStrategy
+ * @see AllSuccessfulStrategy
+ * @since 1.4.1
+ */
+public interface ShortCircuitAuthenticationStrategy extends AuthenticationStrategy {
+
+    /**
+     * Returns {@code true} if no subsequent realm attempt can change the specified aggregate, in which case the
+     * remaining attempts are skipped and {@link #afterAllAttempts afterAllAttempts} is called immediately.
+     *
+     * @param token     the token submitted for authentication.
+     * @param aggregate the aggregate returned by the most recent {@link #afterAttempt afterAttempt} call.
+     * @return {@code true} if no subsequent realm attempt can change the specified aggregate.
+     */
+    boolean isComplete(AuthenticationToken token, AuthenticationInfo aggregate);
+
+    /**
+     * Returns {@code true} if a single failed realm attempt (one that threw an exception or did not find any account
+     * data) fails the entire authentication attempt, that is, if {@link #afterAttempt afterAttempt} always throws an
+     * exception for such an attempt.  A fail-fast strategy is notified of a failed attempt as soon as it occurs, even
+     * if realms configured before the failing one have not responded yet.
+     *
+     * @return {@code true} if a single failed realm attempt fails the entire authentication attempt.
+     */
+    boolean isFailFast();
+}
@@ -24,19 +24,38 @@ import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.authz.permission.RolePermissionResolverAware;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * A <tt>ModularRealmAuthorizer</tt> is an <tt>Authorizer</tt> implementation that consults one or more configured
  * {@link Realm Realm}s during an authorization operation.
+ * <p/>
+ * By default, realms are consulted one after the other until one of them grants the requested permission or role.
+ * If an {@link #setExecutorService(ExecutorService) executorService} is configured, all realms are instead consulted
+ * concurrently on that executor: a check returns as soon as any realm grants it (cancelling the remaining realm
+ * calls), or once all realms have answered or the {@link #setRealmTimeout(long) realm timeout} has elapsed.
  *
  * @since 0.2
  */
 public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAware, RolePermissionResolverAware {
 
+    private static final Logger log = LoggerFactory.getLogger(ModularRealmAuthorizer.class);
+
     /**
      * The realms to consult during any authorization check.
      */
@@ -54,6 +73,16 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     protected RolePermissionResolver rolePermissionResolver;
 
+    /**
+     * The executor used to consult the realms concurrently, {@code null} to consult them sequentially.
+     */
+    protected ExecutorService executorService;
+
+    /**
+     * The maximum time in milliseconds to wait for realms consulted concurrently, {@code 0} to wait indefinitely.
+     */
+    protected long realmTimeout;
+
     /**
      * Default no-argument constructor, does nothing.
      */
@@ -90,6 +119,60 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
         applyRolePermissionResolverToRealms();
     }
 
+    /**
+     * Returns the executor used to consult the realms concurrently, or {@code null} (the default) if realms are
+     * consulted sequentially.
+     *
+     * @return the executor used to consult the realms concurrently, or {@code null} if realms are consulted
+     *         sequentially.
+     * @since 1.4.1
+     */
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the executor used to consult the realms concurrently during an authorization check, or {@code null} to
+     * consult them sequentially (the default).
+     * <p/>
+     * Realm calls run on the executor's threads: realms relying on thread-bound state (such as the
+     * {@link org.apache.shiro.util.ThreadContext ThreadContext}) should be used with an executor that propagates it,
+     * such as a {@link org.apache.shiro.concurrent.SubjectAwareExecutorService SubjectAwareExecutorService}.  This
+     * authorizer does not manage the executor's lifecycle.
+     *
+     * @param executorService the executor used to consult the realms concurrently, or {@code null} to consult them
+     *                        sequentially.
+     * @since 1.4.1
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds to wait for realms that are consulted concurrently, or {@code 0}
+     * (the default) to wait indefinitely.
+     *
+     * @return the maximum time in milliseconds to wait for realms that are consulted concurrently.
+     * @since 1.4.1
+     */
+    public long getRealmTimeout() {
+        return realmTimeout;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds to wait for realms that are consulted concurrently.  A realm that has not
+     * answered within this time, measured from the start of the check, is considered to have denied it.  A value of
+     * {@code 0} or less waits indefinitely.
+     * <p/>
+     * This property has no effect unless an {@link #setExecutorService(ExecutorService) executorService} is set.
+     *
+     * @param realmTimeout the maximum time in milliseconds to wait for realms that are consulted concurrently.
+     * @since 1.4.1
+     */
+    public void setRealmTimeout(long realmTimeout) {
+        this.realmTimeout = realmTimeout;
+    }
+
     /**
      * Returns the PermissionResolver to be used on <em>all</em> configured realms, or <code>null</code (the default)
      * if all realm instances will each configure their own permission resolver.
@@ -216,8 +299,15 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      * {@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, String)} returns <code>true</code>,
      * <code>false</code> otherwise.
      */
-    public boolean isPermitted(PrincipalCollection principals, String permission) {
+    public boolean isPermitted(final PrincipalCollection principals, final String permission) {
         assertRealmsConfigured();
+        if (getExecutorService() != null) {
+            return checkConcurrently(1, new RealmCheck() {
+                boolean[] check(Authorizer authorizer) {
+                    return new boolean[]{authorizer.isPermitted(principals, permission)};
+                }
+            })[0];
+        }
         for (Realm realm : getRealms()) {
             if (!(realm instanceof Authorizer)) continue;
             if (((Authorizer) realm).isPermitted(principals, permission)) {
@@ -232,8 +322,15 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      * {@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, Permission)} call returns <code>true</code>,
      * <code>false</code> otherwise.
      */
-    public boolean isPermitted(PrincipalCollection principals, Permission permission) {
+    public boolean isPermitted(final PrincipalCollection principals, final Permission permission) {
         assertRealmsConfigured();
+        if (getExecutorService() != null) {
+            return checkConcurrently(1, new RealmCheck() {
+                boolean[] check(Authorizer authorizer) {
+                    return new boolean[]{authorizer.isPermitted(principals, permission)};
+                }
+            })[0];
+        }
         for (Realm realm : getRealms()) {
             if (!(realm instanceof Authorizer)) continue;
             if (((Authorizer) realm).isPermitted(principals, permission)) {
@@ -244,16 +341,37 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     }
 
     /**
-     * Returns <code>true</code> if any of the configured realms'
-     * {@link #isPermittedAll(org.apache.shiro.subject.PrincipalCollection, String...)} call returns
-     * <code>true</code>, <code>false</code> otherwise.
+     * Returns an array where each element is <code>true</code> if any of the configured realms permits the
+     * respective string permission, <code>false</code> otherwise.
+     * <p/>
+     * The permissions are evaluated in batches: each realm's
+     * {@link Authorizer#isPermitted(org.apache.shiro.subject.PrincipalCollection, String...)} method is called once,
+     * with all permissions not already permitted by a previously consulted realm.  Realms therefore only need to
+     * look up the Subject's authorization data once per call, regardless of the number of permissions.
      */
-    public boolean[] isPermitted(PrincipalCollection principals, String... permissions) {
+    public boolean[] isPermitted(final PrincipalCollection principals, final String... permissions) {
         assertRealmsConfigured();
         if (permissions != null && permissions.length > 0) {
+            if (getExecutorService() != null) {
+                return checkConcurrently(permissions.length, new RealmCheck() {
+                    boolean[] check(Authorizer authorizer) {
+                        return authorizer.isPermitted(principals, permissions);
+                    }
+                });
+            }
             boolean[] isPermitted = new boolean[permissions.length];
-            for (int i = 0; i < permissions.length; i++) {
-                isPermitted[i] = isPermitted(principals, permissions[i]);
+            int[] pending = indexes(permissions.length);
+            String[] batch = permissions;
+            for (Realm realm : getRealms()) {
+                if (!(realm instanceof Authorizer)) continue;
+                pending = merge(isPermitted, pending, ((Authorizer) realm).isPermitted(principals, batch));
+                if (pending.length == 0) {
+                    break;
+                }
+                batch = new String[pending.length];
+                for (int i = 0; i < pending.length; i++) {
+                    batch[i] = permissions[pending[i]];
+                }
             }
             return isPermitted;
         }
@@ -261,17 +379,38 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     }
 
     /**
-     * Returns <code>true</code> if any of the configured realms'
-     * {@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, List)} call returns <code>true</code>,
-     * <code>false</code> otherwise.
+     * Returns an array where each element is <code>true</code> if any of the configured realms permits the
+     * respective Permission, <code>false</code> otherwise.
+     * <p/>
+     * The permissions are evaluated in batches: each realm's
+     * {@link Authorizer#isPermitted(org.apache.shiro.subject.PrincipalCollection, List)} method is called once,
+     * with all permissions not already permitted by a previously consulted realm.  Realms therefore only need to
+     * look up the Subject's authorization data once per call, regardless of the number of permissions.
      */
-    public boolean[] isPermitted(PrincipalCollection principals, List<Permission> permissions) {
+    public boolean[] isPermitted(final PrincipalCollection principals, List<Permission> permissions) {
         assertRealmsConfigured();
         if (permissions != null && !permissions.isEmpty()) {
-            boolean[] isPermitted = new boolean[permissions.size()];
-            int i = 0;
-            for (Permission p : permissions) {
-                isPermitted[i++] = isPermitted(principals, p);
+            final List<Permission> all = asList(permissions);
+            if (getExecutorService() != null) {
+                return checkConcurrently(all.size(), new RealmCheck() {
+                    boolean[] check(Authorizer authorizer) {
+                        return authorizer.isPermitted(principals, all);
+                    }
+                });
+            }
+            boolean[] isPermitted = new boolean[all.size()];
+            int[] pending = indexes(all.size());
+            List<Permission> batch = all;
+            for (Realm realm : getRealms()) {
+                if (!(realm instanceof Authorizer)) continue;
+                pending = merge(isPermitted, pending, ((Authorizer) realm).isPermitted(principals, batch));
+                if (pending.length == 0) {
+                    break;
+                }
+                batch = new ArrayList<Permission>(pending.length);
+                for (int index : pending) {
+                    batch.add(all.get(index));
+                }
             }
             return isPermitted;
         }
@@ -280,35 +419,27 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     }
 
     /**
-     * Returns <code>true</code> if any of the configured realms'
-     * {@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, String)} call returns <code>true</code>
-     * for <em>all</em> of the specified string permissions, <code>false</code> otherwise.
+     * Returns <code>true</code> if the configured realms permit <em>all</em> of the specified string permissions
+     * (each permission being permitted by at least one realm), <code>false</code> otherwise.  The permissions are
+     * evaluated as a single {@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, String...) batch}.
      */
     public boolean isPermittedAll(PrincipalCollection principals, String... permissions) {
         assertRealmsConfigured();
         if (permissions != null && permissions.length > 0) {
-            for (String perm : permissions) {
-                if (!isPermitted(principals, perm)) {
-                    return false;
-                }
-            }
+            return allTrue(isPermitted(principals, permissions));
         }
         return true;
     }
 
     /**
-     * Returns <code>true</code> if any of the configured realms'
-     * {@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, Permission)} call returns <code>true</code>
-     * for <em>all</em> of the specified Permissions, <code>false</code> otherwise.
+     * Returns <code>true</code> if the configured realms permit <em>all</em> of the specified Permissions
+     * (each permission being permitted by at least one realm), <code>false</code> otherwise.  The permissions are
+     * evaluated as a single {@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, List) batch}.
      */
     public boolean isPermittedAll(PrincipalCollection principals, Collection<Permission> permissions) {
         assertRealmsConfigured();
         if (permissions != null && !permissions.isEmpty()) {
-            for (Permission permission : permissions) {
-                if (!isPermitted(principals, permission)) {
-                    return false;
-                }
-            }
+            return allTrue(isPermitted(principals, asList(permissions)));
         }
         return true;
     }
@@ -337,27 +468,35 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
 
     /**
      * If !{@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, String...) isPermitted(permission)},
-     * throws an <code>UnauthorizedException</code> otherwise returns quietly.
+     * throws an <code>UnauthorizedException</code> for the first permission not permitted, otherwise returns quietly.
+     * The permissions are evaluated as a single batch.
      */
     public void checkPermissions(PrincipalCollection principals, String... permissions) throws AuthorizationException {
         assertRealmsConfigured();
         if (permissions != null && permissions.length > 0) {
-            for (String perm : permissions) {
-                checkPermission(principals, perm);
+            boolean[] isPermitted = isPermitted(principals, permissions);
+            for (int i = 0; i < isPermitted.length; i++) {
+                if (!isPermitted[i]) {
+                    throw new UnauthorizedException("Subject does not have permission [" + permissions[i] + "]");
+                }
             }
         }
     }
 
     /**
-     * If !{@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, Permission) isPermitted(permission)} for
-     * <em>all</em> the given Permissions, throws
-     * an <code>UnauthorizedException</code> otherwise returns quietly.
+     * If !{@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, List) isPermitted(permission)} for
+     * <em>all</em> the given Permissions, throws an <code>UnauthorizedException</code> for the first permission not
+     * permitted, otherwise returns quietly.  The permissions are evaluated as a single batch.
      */
     public void checkPermissions(PrincipalCollection principals, Collection<Permission> permissions) throws AuthorizationException {
         assertRealmsConfigured();
-        if (permissions != null) {
-            for (Permission permission : permissions) {
-                checkPermission(principals, permission);
+        if (permissions != null && !permissions.isEmpty()) {
+            List<Permission> all = asList(permissions);
+            boolean[] isPermitted = isPermitted(principals, all);
+            for (int i = 0; i < isPermitted.length; i++) {
+                if (!isPermitted[i]) {
+                    throw new UnauthorizedException("Subject does not have permission [" + all.get(i) + "]");
+                }
             }
         }
     }
@@ -367,8 +506,15 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      * {@link #hasRole(org.apache.shiro.subject.PrincipalCollection, String)} call returns <code>true</code>,
      * <code>false</code> otherwise.
      */
-    public boolean hasRole(PrincipalCollection principals, String roleIdentifier) {
+    public boolean hasRole(final PrincipalCollection principals, final String roleIdentifier) {
         assertRealmsConfigured();
+        if (getExecutorService() != null) {
+            return checkConcurrently(1, new RealmCheck() {
+                boolean[] check(Authorizer authorizer) {
+                    return new boolean[]{authorizer.hasRole(principals, roleIdentifier)};
+                }
+            })[0];
+        }
         for (Realm realm : getRealms()) {
             if (!(realm instanceof Authorizer)) continue;
             if (((Authorizer) realm).hasRole(principals, roleIdentifier)) {
@@ -379,16 +525,38 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
     }
 
     /**
-     * Calls {@link #hasRole(org.apache.shiro.subject.PrincipalCollection, String)} for each role name in the specified
-     * collection and places the return value from each call at the respective location in the returned array.
+     * Returns an array where each element is <code>true</code> if any of the configured realms assigns the
+     * respective role, <code>false</code> otherwise.
+     * <p/>
+     * As with {@link #isPermitted(org.apache.shiro.subject.PrincipalCollection, List) isPermitted}, the roles are
+     * evaluated in batches: each realm's
+     * {@link Authorizer#hasRoles(org.apache.shiro.subject.PrincipalCollection, List)} method is called once, with
+     * all roles not already assigned by a previously consulted realm.
      */
-    public boolean[] hasRoles(PrincipalCollection principals, List<String> roleIdentifiers) {
+    public boolean[] hasRoles(final PrincipalCollection principals, List<String> roleIdentifiers) {
         assertRealmsConfigured();
         if (roleIdentifiers != null && !roleIdentifiers.isEmpty()) {
-            boolean[] hasRoles = new boolean[roleIdentifiers.size()];
-            int i = 0;
-            for (String roleId : roleIdentifiers) {
-                hasRoles[i++] = hasRole(principals, roleId);
+            final List<String> all = asList(roleIdentifiers);
+            if (getExecutorService() != null) {
+                return checkConcurrently(all.size(), new RealmCheck() {
+                    boolean[] check(Authorizer authorizer) {
+                        return authorizer.hasRoles(principals, all);
+                    }
+                });
+            }
+            boolean[] hasRoles = new boolean[all.size()];
+            int[] pending = indexes(all.size());
+            List<String> batch = all;
+            for (Realm realm : getRealms()) {
+                if (!(realm instanceof Authorizer)) continue;
+                pending = merge(hasRoles, pending, ((Authorizer) realm).hasRoles(principals, batch));
+                if (pending.length == 0) {
+                    break;
+                }
+                batch = new ArrayList<String>(pending.length);
+                for (int index : pending) {
+                    batch.add(all.get(index));
+                }
             }
             return hasRoles;
         }
@@ -403,10 +571,8 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public boolean hasAllRoles(PrincipalCollection principals, Collection<String> roleIdentifiers) {
         assertRealmsConfigured();
-        for (String roleIdentifier : roleIdentifiers) {
-            if (!hasRole(principals, roleIdentifier)) {
-                return false;
-            }
+        if (roleIdentifiers != null && !roleIdentifiers.isEmpty()) {
+            return allTrue(hasRoles(principals, asList(roleIdentifiers)));
         }
         return true;
     }
@@ -435,10 +601,131 @@ public class ModularRealmAuthorizer implements Authorizer, PermissionResolverAwa
      */
     public void checkRoles(PrincipalCollection principals, String... roles) throws AuthorizationException {
         assertRealmsConfigured();
-        if (roles != null) {
-            for (String role : roles) {
-                checkRole(principals, role);
+        if (roles != null && roles.length > 0) {
+            boolean[] hasRoles = hasRoles(principals, Arrays.asList(roles));
+            for (int i = 0; i < hasRoles.length; i++) {
+                if (!hasRoles[i]) {
+                    throw new UnauthorizedException("Subject does not have role [" + roles[i] + "]");
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs the specified check against all realms concurrently on the configured executor and returns, for each
+     * of the {@code size} checked entries, whether any realm granted it.  Returns as soon as every entry has been
+     * granted, cancelling the remaining realm calls.  A realm that has not answered within the
+     * {@link #getRealmTimeout() realm timeout} is considered to have denied all entries.  If an entry has not been
+     * granted by any realm and a realm threw an exception, that exception is propagated.
+     */
+    private boolean[] checkConcurrently(int size, final RealmCheck check) {
+        CompletionService<boolean[]> completionService = new ExecutorCompletionService<boolean[]>(getExecutorService());
+        List<Future<boolean[]>> futures = new ArrayList<Future<boolean[]>>();
+        for (Realm realm : getRealms()) {
+            if (!(realm instanceof Authorizer)) continue;
+            final Authorizer authorizer = (Authorizer) realm;
+            futures.add(completionService.submit(new Callable<boolean[]>() {
+                public boolean[] call() throws Exception {
+                    return check.check(authorizer);
+                }
+            }));
+        }
+
+        long deadline = realmTimeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(realmTimeout) : 0;
+        boolean[] result = new boolean[size];
+        int granted = 0;
+        Throwable failure = null;
+        try {
+            for (int i = 0; i < futures.size() && granted < size; i++) {
+                Future<boolean[]> done;
+                if (deadline == 0) {
+                    done = completionService.take();
+                } else {
+                    done = completionService.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+                if (done == null) {
+                    log.warn("{} of {} realms did not answer an authorization check within {} ms.  Treating the " +
+                            "check as denied by these realms.", new Object[]{futures.size() - i, futures.size(), realmTimeout});
+                    break;
+                }
+                try {
+                    boolean[] realmResult = done.get();
+                    for (int j = 0; realmResult != null && j < size && j < realmResult.length; j++) {
+                        if (realmResult[j] && !result[j]) {
+                            result[j] = true;
+                            granted++;
+                        }
+                    }
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() != null ? e.getCause() : e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthorizationException("Interrupted while waiting for realms to answer an authorization check.", e);
+        } finally {
+            for (Future<boolean[]> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        if (granted < size && failure != null) {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new AuthorizationException(failure);
+        }
+        return result;
+    }
+
+    /**
+     * A single authorization check performed against one realm, returning one result per checked entry.
+     */
+    private static abstract class RealmCheck {
+        abstract boolean[] check(Authorizer authorizer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> asList(Collection<T> c) {
+        return c instanceof List && c instanceof RandomAccess ? (List<T>) c : new ArrayList<T>(c);
+    }
+
+    private static int[] indexes(int size) {
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+
+    /**
+     * Records the results of a single realm's batch call, which was made for the {@code pending} entries of the
+     * overall batch, in {@code results} and returns the indexes of the entries that are still not granted.
+     */
+    private static int[] merge(boolean[] results, int[] pending, boolean[] realmResults) {
+        int[] remaining = new int[pending.length];
+        int count = 0;
+        for (int i = 0; i < pending.length; i++) {
+            if (realmResults != null && i < realmResults.length && realmResults[i]) {
+                results[pending[i]] = true;
+            } else {
+                remaining[count++] = pending[i];
             }
         }
+        return count == pending.length ? pending : Arrays.copyOf(remaining, count);
+    }
+
+    private static boolean allTrue(boolean[] values) {
+        for (boolean value : values) {
+            if (!value) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz;
+
+import org.apache.shiro.authz.permission.WildcardPermissionIndex;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An {@link AuthorizationInfo} that wraps the info returned by a realm together with data derived from it: the
+ * immutable set of the account's roles, the immutable collection of all of the account's permissions as resolved by
+ * the realm (object permissions, string permissions and role permissions) and, optionally, a
+ * {@link WildcardPermissionIndex WildcardPermissionIndex} of those permissions.  Instances are created by
+ * {@link org.apache.shiro.realm.AuthorizingRealm AuthorizingRealm} and stored in its authorization cache in place of
+ * the original info, so the derived data only needs to be computed once per cached account.
+ * <p/>
+ * If a {@link RoleDictionary RoleDictionary} is specified, the roles are stored as a {@link BitSet} of role ids
+ * instead of a set of names, making {@link #hasAllRoles(Collection) hasAllRoles} a single bitwise operation and
+ * reducing the memory used per cached account: the realm's info is then not retained, only a copy of it holding its
+ * permissions and no role is wrapped.  Since role ids are only meaningful within the dictionary's JVM, the
+ * roles are serialized by name and a deserialized instance falls back to a set of names.
+ * <p/>
+ * {@link #getStringPermissions()} and {@link #getObjectPermissions()} delegate to the
+ * {@link #getAuthorizationInfo() wrapped info}.
+ *
+ * @see org.apache.shiro.realm.AuthorizingRealm#setPermissionIndexEnabled(boolean)
+ * @see org.apache.shiro.realm.AuthorizingRealm#setResolvedPermissionsCachingEnabled(boolean)
+ * @since 1.4.1
+ */
+public class ResolvedAuthorizationInfo implements AuthorizationInfo {
+
+    private final AuthorizationInfo authorizationInfo;
+    private transient Set<String> roles;
+    private transient RoleDictionary roleDictionary;
+    private transient BitSet roleIds;
+    private final Collection<Permission> permissions;
+    private final WildcardPermissionIndex permissionIndex;
+
+    /**
+     * Creates a new instance wrapping the specified info.
+     *
+     * @param authorizationInfo the info returned by the realm.
+     * @param permissions       all permissions assigned to the account, as resolved by the realm.
+     * @param permissionIndex   the compiled index of all permissions assigned to the account, may be {@code null}.
+     */
+    public ResolvedAuthorizationInfo(AuthorizationInfo authorizationInfo, Collection<Permission> permissions,
+                                     WildcardPermissionIndex permissionIndex) {
+        this(authorizationInfo, permissions, permissionIndex, null);
+    }
+
+    /**
+     * Creates a new instance wrapping the specified info, storing its roles as a set of ids of the specified
+     * dictionary if it is not {@code null}, in which case a copy of the info without its roles is wrapped instead.
+     *
+     * @param authorizationInfo the info returned by the realm.
+     * @param permissions       all permissions assigned to the account, as resolved by the realm.
+     * @param permissionIndex   the compiled index of all permissions assigned to the account, may be {@code null}.
+     * @param roleDictionary    the dictionary used to store the roles as a set of ids, may be {@code null}.
+     */
+    public ResolvedAuthorizationInfo(AuthorizationInfo authorizationInfo, Collection<Permission> permissions,
+                                     WildcardPermissionIndex permissionIndex, RoleDictionary roleDictionary) {
+        if (authorizationInfo == null) {
+            throw new IllegalArgumentException("AuthorizationInfo argument cannot be null.");
+        }
+        Collection<String> roles = authorizationInfo.getRoles();
+        if (roleDictionary != null) {
+            this.authorizationInfo = withoutRoles(authorizationInfo);
+            this.roleDictionary = roleDictionary;
+            this.roleIds = roleDictionary.register(roles);
+        } else {
+            this.authorizationInfo = authorizationInfo;
+            setRoles(roles);
+        }
+        if (permissions == null || permissions.isEmpty()) {
+            this.permissions = Collections.emptySet();
+        } else {
+            this.permissions = Collections.unmodifiableCollection(new ArrayList<Permission>(permissions));
+        }
+        this.permissionIndex = permissionIndex;
+    }
+
+    /**
+     * Returns the wrapped info as originally returned by the realm or, if the roles are stored as a set of ids, a copy
+     * of it holding only its permissions.
+     *
+     * @return the wrapped info.
+     */
+    public AuthorizationInfo getAuthorizationInfo() {
+        return authorizationInfo;
+    }
+
+    /**
+     * Returns all of the permissions assigned to the account as resolved by the realm when this instance was created.
+     *
+     * @return all of the permissions assigned to the account, never {@code null}.
+     */
+    public Collection<Permission> getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Returns the compiled index of all permissions assigned to the account, or {@code null} if no index was built.
+     *
+     * @return the compiled index of all permissions assigned to the account, or {@code null} if no index was built.
+     */
+    public WildcardPermissionIndex getPermissionIndex() {
+        return permissionIndex;
+    }
+
+    private static AuthorizationInfo withoutRoles(AuthorizationInfo info) {
+        SimpleAuthorizationInfo copy = new SimpleAuthorizationInfo();
+        Collection<String> stringPermissions = info.getStringPermissions();
+        if (stringPermissions != null) {
+            copy.setStringPermissions(stringPermissions instanceof Set ?
+                    (Set<String>) stringPermissions : new HashSet<String>(stringPermissions));
+        }
+        Collection<Permission> objectPermissions = info.getObjectPermissions();
+        if (objectPermissions != null) {
+            copy.setObjectPermissions(objectPermissions instanceof Set ?
+                    (Set<Permission>) objectPermissions : new HashSet<Permission>(objectPermissions));
+        }
+        return copy;
+    }
+
+    private void setRoles(Collection<String> roles) {
+        if (roles == null || roles.isEmpty()) {
+            this.roles = Collections.emptySet();
+        } else {
+            this.roles = Collections.unmodifiableSet(new LinkedHashSet<String>(roles));
+        }
+    }
+
+    /**
+     * Returns an immutable copy of the roles of the wrapped info, taken when this instance was created.
+     * <p/>
+     * If the roles are stored as a set of ids, a new set of names is built by every call, under the role
+     * dictionary's lock, so that no set of names is retained; role checks should use {@link #hasRole(String) hasRole}
+     * and {@link #hasAllRoles(Collection) hasAllRoles} instead, which do not build one.
+     *
+     * @return an immutable copy of the roles of the wrapped info, never {@code null}.
+     */
+    public Set<String> getRoles() {
+        if (roleIds != null) {
+            return roleDictionary.getRoles(roleIds);
+        }
+        return roles;
+    }
+
+    /**
+     * Returns {@code true} if the account has the specified role, {@code false} otherwise.
+     *
+     * @param roleIdentifier the role to check.
+     * @return {@code true} if the account has the specified role.
+     */
+    public boolean hasRole(String roleIdentifier) {
+        if (roleIds != null) {
+            int id = roleDictionary.getId(roleIdentifier);
+            return id >= 0 && roleIds.get(id);
+        }
+        return roles.contains(roleIdentifier);
+    }
+
+    /**
+     * Returns {@code true} if the account has all of the specified roles, {@code false} otherwise.
+     *
+     * @param roleIdentifiers the roles to check.
+     * @return {@code true} if the account has all of the specified roles.
+     */
+    public boolean hasAllRoles(Collection<String> roleIdentifiers) {
+        if (roleIdentifiers == null || roleIdentifiers.isEmpty()) {
+            return true;
+        }
+        if (roleIds != null) {
+            BitSet required = roleDictionary.getIds(roleIdentifiers);
+            if (required == null) {
+                return false;
+            }
+            required.andNot(roleIds);
+            return required.isEmpty();
+        }
+        return roles.containsAll(roleIdentifiers);
+    }
+
+    public Collection<String> getStringPermissions() {
+        return authorizationInfo.getStringPermissions();
+    }
+
+    public Collection<Permission> getObjectPermissions() {
+        return authorizationInfo.getObjectPermissions();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(new ArrayList<String>(getRoles()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        setRoles((Collection<String>) in.readObject());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns dense, stable {@code int} ids to role names, so that a set of roles can be represented as a compact
+ * {@link BitSet} and role membership tests become bit operations.
+ * <p/>
+ * Ids are assigned on first {@link #register registration} and are never reused or removed, so a dictionary is
+ * expected to be shared by all accounts of a realm, whose number of distinct roles is bounded.  Ids are only
+ * meaningful within the dictionary instance (and JVM) that assigned them.  This class is thread-safe; lookups of
+ * already registered roles do not lock.
+ *
+ * @see org.apache.shiro.realm.AuthorizingRealm#setRoleBitSetEnabled(boolean)
+ * @since 1.4.1
+ */
+public class RoleDictionary {
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    private final List<String> names = new ArrayList<String>();
+
+    /**
+     * Returns the id of the specified role, or {@code -1} if the role has never been registered.
+     *
+     * @param role the role name to look up.
+     * @return the id of the specified role, or {@code -1} if the role has never been registered.
+     */
+    public int getId(String role) {
+        Integer id = role != null ? ids.get(role) : null;
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the id of the specified role, assigning the next free id first if the role has never been registered.
+     *
+     * @param role the role name to register, cannot be {@code null}.
+     * @return the id of the specified role.
+     */
+    public int register(String role) {
+        if (role == null) {
+            throw new IllegalArgumentException("Role name cannot be null.");
+        }
+        Integer id = ids.get(role);
+        if (id != null) {
+            return id;
+        }
+        synchronized (names) {
+            id = ids.get(role);
+            if (id == null) {
+                id = names.size();
+                names.add(role);
+                ids.put(role, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the name of the role with the specified id.
+     *
+     * @param id a role id previously returned by {@link #register register}.
+     * @return the name of the role with the specified id.
+     */
+    public String getRole(int id) {
+        synchronized (names) {
+            return names.get(id);
+        }
+    }
+
+    /**
+     * Returns the number of registered roles.
+     *
+     * @return the number of registered roles.
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Registers all of the specified roles and returns the set of their ids.
+     *
+     * @param roles the role names to register, may be {@code null}.
+     * @return the set of ids of the specified roles, never {@code null}.
+     */
+    public BitSet register(Collection<String> roles) {
+        BitSet bits = new BitSet();
+        if (roles != null) {
+            for (String role : roles) {
+                if (role != null) {
+                    bits.set(register(role));
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the set of ids of the specified roles without registering them, or {@code null} if any of them has never
+     * been registered, in which case no set of registered roles can contain all of them.
+     *
+     * @param roles the role names to look up.
+     * @return the set of ids of the specified roles, or {@code null} if any of them has never been registered.
+     */
+    public BitSet getIds(Collection<String> roles) {
+        BitSet bits = new BitSet();
+        for (String role : roles) {
+            int id = getId(role);
+            if (id < 0) {
+                return null;
+            }
+            bits.set(id);
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the names of the roles whose ids are set in the specified set.
+     *
+     * @param bits a set of ids previously obtained from this dictionary.
+     * @return the immutable set of the corresponding role names, never {@code null}.
+     */
+    public Set<String> getRoles(BitSet bits) {
+        if (bits == null || bits.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> roles = new LinkedHashSet<String>(bits.cardinality() * 4 / 3 + 1);
+        synchronized (names) {
+            for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+                roles.add(names.get(id));
+            }
+        }
+        return Collections.unmodifiableSet(roles);
+    }
+}
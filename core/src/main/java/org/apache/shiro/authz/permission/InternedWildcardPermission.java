@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link WildcardPermission WildcardPermission} that additionally keeps its parts in a form that can be compared
+ * without allocating any objects.
+ * <p/>
+ * When the parts are set, every sub-part token is {@link String#intern() interned} and each part is stored as a
+ * sorted {@code String[]}.  Parts containing the {@link #WILDCARD_TOKEN wildcard token} are recorded in a bitmask,
+ * along with the index from which all remaining parts are wildcards.  When both permissions being compared are
+ * {@code InternedWildcardPermission}s, {@link #implies(Permission) implies} walks these arrays directly instead of
+ * iterating over the {@link #getParts() parts} sets; otherwise it falls back to the {@code WildcardPermission}
+ * algorithm.  In either case the result is identical to that of a plain {@code WildcardPermission} with the same
+ * wildcard string.
+ * <p/>
+ * Instances are created by a {@link WildcardPermissionResolver WildcardPermissionResolver} when its
+ * {@link WildcardPermissionResolver#setInterned(boolean) interned} property is enabled.
+ *
+ * @since 1.4.1
+ */
+public class InternedWildcardPermission extends WildcardPermission {
+
+    /*--------------------------------------------
+    |    I N S T A N C E   V A R I A B L E S    |
+    ============================================*/
+    // Note: these fields must not have initializers, since they are assigned from setParts during super construction
+    private transient String[][] tokens;
+    private transient long[] wildcardMask;
+    private transient int wildcardSuffixStart;
+
+    /*--------------------------------------------
+    |         C O N S T R U C T O R S           |
+    ============================================*/
+    /**
+     * Default no-arg constructor for subclasses only.
+     */
+    protected InternedWildcardPermission() {
+    }
+
+    public InternedWildcardPermission(String wildcardString) {
+        super(wildcardString);
+    }
+
+    public InternedWildcardPermission(String wildcardString, boolean caseSensitive) {
+        super(wildcardString, caseSensitive);
+    }
+
+    /*--------------------------------------------
+    |  A C C E S S O R S / M O D I F I E R S    |
+    ============================================*/
+    @Override
+    protected void setParts(String wildcardString, boolean caseSensitive) {
+        super.setParts(wildcardString, caseSensitive);
+        compile();
+    }
+
+    @Override
+    protected void setParts(List<Set<String>> parts) {
+        super.setParts(parts);
+        compile();
+    }
+
+    /*--------------------------------------------
+    |               M E T H O D S               |
+    ============================================*/
+
+    private void compile() {
+        List<Set<String>> parts = getParts();
+        int size = parts != null ? parts.size() : 0;
+        String[][] tokens = new String[size][];
+        long[] mask = new long[(size + 63) >>> 6];
+        int suffixStart = size;
+        for (int i = 0; i < size; i++) {
+            Set<String> part = parts.get(i);
+            String[] partTokens = new String[part.size()];
+            int j = 0;
+            for (String token : part) {
+                partTokens[j++] = token.intern();
+            }
+            Arrays.sort(partTokens);
+            tokens[i] = partTokens;
+            if (part.contains(WILDCARD_TOKEN)) {
+                mask[i >>> 6] |= 1L << i;
+            }
+        }
+        while (suffixStart > 0 && isWildcard(mask, suffixStart - 1)) {
+            suffixStart--;
+        }
+        this.tokens = tokens;
+        this.wildcardMask = mask;
+        this.wildcardSuffixStart = suffixStart;
+    }
+
+    private static boolean isWildcard(long[] mask, int i) {
+        return (mask[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Returns {@code true} if every token in {@code required} is also in {@code available}.  Both arrays must be
+     * sorted.
+     */
+    private static boolean containsAll(String[] available, String[] required) {
+        int j = 0;
+        for (int i = 0; i < required.length; i++) {
+            String token = required[i];
+            while (j < available.length && available[j] != token && available[j].compareTo(token) < 0) {
+                j++;
+            }
+            if (j == available.length || (available[j] != token && !available[j].equals(token))) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean implies(Permission p) {
+        if (!(p instanceof InternedWildcardPermission) || tokens == null) {
+            return super.implies(p);
+        }
+
+        String[][] otherTokens = ((InternedWildcardPermission) p).tokens;
+        if (otherTokens == null) {
+            return super.implies(p);
+        }
+
+        int common = Math.min(tokens.length, otherTokens.length);
+        for (int i = 0; i < common; i++) {
+            if (!isWildcard(wildcardMask, i) && !containsAll(tokens[i], otherTokens[i])) {
+                return false;
+            }
+        }
+
+        // If this permission has more parts than the other, only imply it if all of the remaining parts are wildcards
+        return tokens.length <= otherTokens.length || wildcardSuffixStart <= otherTokens.length;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        compile();
+    }
+}
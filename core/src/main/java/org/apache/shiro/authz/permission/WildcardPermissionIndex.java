@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@code WildcardPermissionIndex} is an immutable, pre-compiled view of a collection of granted permissions that
+ * can answer {@link #implies(Permission) implies} checks without having to test every granted permission one by one.
+ * <p/>
+ * {@link WildcardPermission WildcardPermission}s are compiled into a trie keyed on their
+ * {@link WildcardPermission#getParts() parts}: each level of the trie corresponds to one part, literal parts become
+ * token-addressable branches and any part containing the {@link WildcardPermission#WILDCARD_TOKEN wildcard token}
+ * becomes a single wildcard branch.  A check therefore costs roughly the number of parts in the requested permission,
+ * regardless of how many permissions were granted.
+ * <p/>
+ * Only permissions whose {@code implies} logic is the one defined by {@code WildcardPermission} itself can be
+ * compiled.  Any other permission (e.g. {@link AllPermission AllPermission} or a subclass that overrides
+ * {@code implies}) is retained as-is and evaluated linearly after the trie, so the result of
+ * {@code index.implies(p)} is always identical to iterating over the original collection and returning {@code true}
+ * on the first granted permission that {@code implies(p)}.
+ *
+ * @see org.apache.shiro.realm.AuthorizingRealm#setPermissionIndexEnabled(boolean)
+ * @since 1.4.1
+ */
+public class WildcardPermissionIndex implements Serializable {
+
+    private final Node root;
+    private final List<Permission> unindexed;
+
+    /**
+     * Compiles the specified granted permissions into a new index.
+     *
+     * @param permissions the granted permissions to compile, may be {@code null} or empty.
+     */
+    public WildcardPermissionIndex(Collection<? extends Permission> permissions) {
+        this.root = new Node(null);
+        List<Permission> unindexed = new ArrayList<Permission>();
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                if (isIndexable(permission)) {
+                    root.insert(((WildcardPermission) permission).getParts());
+                } else if (permission != null) {
+                    unindexed.add(permission);
+                }
+            }
+        }
+        root.compile();
+        this.unindexed = unindexed.isEmpty() ? Collections.<Permission>emptyList() : unindexed;
+    }
+
+    /**
+     * Returns {@code true} if any of the permissions compiled into this index implies the specified permission,
+     * {@code false} otherwise.
+     *
+     * @param permission the permission to check
+     * @return {@code true} if any of the permissions compiled into this index implies the specified permission.
+     */
+    public boolean implies(Permission permission) {
+        if (permission instanceof WildcardPermission) {
+            List<Set<String>> parts = ((WildcardPermission) permission).getParts();
+            if (parts != null && root.implies(parts, 0)) {
+                return true;
+            }
+        }
+        for (Permission granted : unindexed) {
+            if (granted.implies(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the specified permission can be compiled into the trie, that is, it is a
+     * {@code WildcardPermission} that has not redefined the {@code implies} semantics (an
+     * {@link InternedWildcardPermission InternedWildcardPermission} only optimizes them).
+     *
+     * @param permission the granted permission to inspect
+     * @return {@code true} if the specified permission can be compiled into the trie.
+     */
+    protected boolean isIndexable(Permission permission) {
+        if (!(permission instanceof WildcardPermission) || ((WildcardPermission) permission).getParts() == null) {
+            return false;
+        }
+        try {
+            Class<?> declaringClass = permission.getClass().getMethod("implies", Permission.class).getDeclaringClass();
+            return declaringClass == WildcardPermission.class || declaringClass == InternedWildcardPermission.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A single trie level.  The path from the root to a node represents a prefix of granted permission parts.
+     */
+    private static final class Node implements Serializable {
+
+        /**
+         * The (literal) part of the granted permission(s) this node was reached by, {@code null} for the root and
+         * wildcard nodes.
+         */
+        private final Set<String> part;
+
+        /**
+         * {@code true} if at least one granted permission has exactly as many parts as this node's depth.
+         */
+        private boolean terminal;
+
+        /**
+         * {@code true} if a granted permission ends at this node or continues from it using only wildcard parts.
+         * Such a node implies any requested permission whose parts are exhausted at this node's depth.
+         */
+        private boolean wildcardTail;
+
+        private Node wildcard;
+        private Map<Set<String>, Node> children;
+        private Map<String, List<Node>> childrenByToken;
+
+        private Node(Set<String> part) {
+            this.part = part;
+        }
+
+        private void insert(List<Set<String>> parts) {
+            Node node = this;
+            for (Set<String> part : parts) {
+                node = node.child(part);
+            }
+            node.terminal = true;
+        }
+
+        private Node child(Set<String> part) {
+            if (part.contains(WildcardPermission.WILDCARD_TOKEN)) {
+                if (wildcard == null) {
+                    wildcard = new Node(null);
+                }
+                return wildcard;
+            }
+            if (children == null) {
+                children = new LinkedHashMap<Set<String>, Node>();
+                childrenByToken = new HashMap<String, List<Node>>();
+            }
+            Node child = children.get(part);
+            if (child == null) {
+                Set<String> key = new HashSet<String>(part);
+                child = new Node(key);
+                children.put(key, child);
+                for (String token : key) {
+                    List<Node> nodes = childrenByToken.get(token);
+                    if (nodes == null) {
+                        nodes = new ArrayList<Node>(1);
+                        childrenByToken.put(token, nodes);
+                    }
+                    nodes.add(child);
+                }
+            }
+            return child;
+        }
+
+        private boolean compile() {
+            boolean wildcardOnly = wildcard != null && wildcard.compile();
+            if (children != null) {
+                for (Node child : children.values()) {
+                    child.compile();
+                }
+            }
+            this.wildcardTail = terminal || wildcardOnly;
+            return this.wildcardTail;
+        }
+
+        private boolean implies(List<Set<String>> parts, int i) {
+            // a granted permission with fewer (or the same number of) parts has matched every part so far:
+            if (terminal) {
+                return true;
+            }
+            // the requested permission has fewer parts - only implied if the rest of a granted permission is wildcards:
+            if (i >= parts.size()) {
+                return wildcardTail;
+            }
+            if (wildcard != null && wildcard.implies(parts, i + 1)) {
+                return true;
+            }
+            if (children != null) {
+                Set<String> requested = parts.get(i);
+                Collection<Node> candidates;
+                if (requested.isEmpty()) {
+                    candidates = children.values();
+                } else {
+                    candidates = childrenByToken.get(requested.iterator().next());
+                }
+                if (candidates != null) {
+                    for (Node child : candidates) {
+                        if (child.part.containsAll(requested) && child.implies(parts, i + 1)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -19,16 +19,23 @@
 package org.apache.shiro.authz.permission;
 
 import org.apache.shiro.authz.Permission;
+import org.apache.shiro.cache.LruCache;
 
 
 /**
  * <tt>PermissionResolver</tt> implementation that returns a new {@link WildcardPermission WildcardPermission}
  * based on the input string.
+ * <p/>
+ * If a {@link #setPermissionCacheSize(int) permission cache size} is configured, resolved permissions are kept in a
+ * bounded {@link LruCache LruCache} keyed by their permission string, so that frequently checked permission strings
+ * are only parsed once.  This is safe because {@code WildcardPermission}s are immutable.
  *
  * @since 0.9
  */
 public class WildcardPermissionResolver implements PermissionResolver {
     boolean caseSensitive;
+    boolean interned;
+    private LruCache<String, Permission> permissionCache;
     
     /**
      * Constructor to specify case sensitivity for the resolved premissions.
@@ -54,6 +61,7 @@ public class WildcardPermissionResolver implements PermissionResolver {
      */
     public void setCaseSensitive(boolean state) {
         this.caseSensitive = state;
+        clearPermissionCache();
     }
     /**
      * Return true if this resolver produces case sensitive permissions.
@@ -62,16 +70,107 @@ public class WildcardPermissionResolver implements PermissionResolver {
     public boolean isCaseSensitive() {
         return caseSensitive;
     }
-    
+
+    /**
+     * Returns {@code true} if this resolver produces {@link InternedWildcardPermission InternedWildcardPermission}s,
+     * {@code false} if it produces plain {@link WildcardPermission WildcardPermission}s.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if this resolver produces {@code InternedWildcardPermission}s.
+     * @since 1.4.1
+     */
+    public boolean isInterned() {
+        return interned;
+    }
+
+    /**
+     * Sets whether or not this resolver produces {@link InternedWildcardPermission InternedWildcardPermission}s
+     * instead of plain {@link WildcardPermission WildcardPermission}s.  Interned permissions imply one another
+     * without allocating any objects, at the expense of a slightly more costly construction.
+     *
+     * @param interned whether or not this resolver produces {@code InternedWildcardPermission}s.
+     * @since 1.4.1
+     */
+    public void setInterned(boolean interned) {
+        this.interned = interned;
+        clearPermissionCache();
+    }
+
+    /**
+     * Returns the maximum number of resolved permissions cached by this resolver, or {@code 0} if caching is
+     * disabled.
+     * <p/>
+     * The default value is {@code 0}.
+     *
+     * @return the maximum number of resolved permissions cached by this resolver, or {@code 0} if disabled.
+     * @since 1.4.1
+     */
+    public int getPermissionCacheSize() {
+        return permissionCache != null ? permissionCache.getMaxSize() : 0;
+    }
+
+    /**
+     * Sets the maximum number of resolved permissions cached by this resolver.  A value of {@code 0} (the default)
+     * or less disables caching.  Setting this property discards any previously cached permissions and statistics.
+     *
+     * @param permissionCacheSize the maximum number of resolved permissions cached by this resolver.
+     * @since 1.4.1
+     */
+    public void setPermissionCacheSize(int permissionCacheSize) {
+        if (permissionCacheSize > 0) {
+            this.permissionCache = new LruCache<String, Permission>(getClass().getName() + ".permissionCache",
+                    permissionCacheSize);
+        } else {
+            this.permissionCache = null;
+        }
+    }
+
+    /**
+     * Returns the cache of resolved permissions, or {@code null} if caching is disabled.  The returned cache
+     * exposes hit and miss statistics.
+     *
+     * @return the cache of resolved permissions, or {@code null} if caching is disabled.
+     * @since 1.4.1
+     */
+    public LruCache<String, Permission> getPermissionCache() {
+        return permissionCache;
+    }
+
+    private void clearPermissionCache() {
+        LruCache<String, Permission> cache = this.permissionCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
     /**
      * Returns a new {@link WildcardPermission WildcardPermission} instance constructed based on the specified
-     * <tt>permissionString</tt>.
+     * <tt>permissionString</tt>.  If this resolver is {@link #isInterned() interned}, the returned instance is an
+     * {@link InternedWildcardPermission InternedWildcardPermission}.  If caching is
+     * {@link #setPermissionCacheSize(int) enabled}, a previously resolved instance may be returned instead.
      *
      * @param permissionString the permission string to convert to a {@link Permission Permission} instance.
      * @return a new {@link WildcardPermission WildcardPermission} instance constructed based on the specified
      *         <tt>permissionString</tt>
      */
     public Permission resolvePermission(String permissionString) {
+        LruCache<String, Permission> cache = this.permissionCache;
+        if (cache == null || permissionString == null) {
+            return createPermission(permissionString);
+        }
+        Permission permission = cache.get(permissionString);
+        if (permission == null) {
+            permission = createPermission(permissionString);
+            cache.put(permissionString, permission);
+        }
+        return permission;
+    }
+
+    private Permission createPermission(String permissionString) {
+        if (interned) {
+            return new InternedWildcardPermission(permissionString, caseSensitive);
+        }
         return new WildcardPermission(permissionString, caseSensitive);
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.io;
+
+/**
+ * Encodes session attribute keys and values of an application specific type for a {@link SimpleSessionSerializer},
+ * typically far more compactly than the Java serialization the serializer otherwise falls back to.
+ * <p/>
+ * The {@link #getName() name} of the codec is written along with every value it encodes and identifies the codec
+ * that must decode it, so it must be unique among the codecs of a serializer and must not change as long as
+ * serialized sessions may be read.  If the encoding of a codec changes in an incompatible way, the new encoding
+ * should be given a new name.
+ *
+ * @param <T> the type of the values encoded by this codec.
+ * @see SimpleSessionSerializer#setAttributeCodecs(java.util.Collection)
+ * @since 1.4.1
+ */
+public interface SessionAttributeCodec<T> {
+
+    /**
+     * Returns the name identifying this codec in the serialized form.
+     *
+     * @return the name identifying this codec in the serialized form.
+     */
+    String getName();
+
+    /**
+     * Returns {@code true} if this codec can encode the specified value, {@code false} otherwise.
+     *
+     * @param value a non-{@code null} session attribute key or value.
+     * @return {@code true} if this codec can encode the specified value, {@code false} otherwise.
+     */
+    boolean supports(Object value);
+
+    /**
+     * Encodes the specified value.  Nested values, such as the elements of a collection, may be encoded with
+     * {@link SimpleSessionSerializer.Output#writeValue(Object) out.writeValue}.
+     *
+     * @param value the value to encode, {@link #supports(Object) supported} by this codec.
+     * @param out   the output to encode the value to.
+     * @throws SerializationException if the value cannot be encoded.
+     */
+    void write(T value, SimpleSessionSerializer.Output out) throws SerializationException;
+
+    /**
+     * Decodes a value previously encoded by {@link #write write}.
+     *
+     * @param in the input to decode the value from.
+     * @return the decoded value.
+     * @throws SerializationException if the value cannot be decoded.
+     */
+    T read(SimpleSessionSerializer.Input in) throws SerializationException;
+}
@@ -0,0 +1,656 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.io;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Serializer} of {@link SimpleSession}s producing a compact, versioned binary form, much smaller and faster
+ * to produce than the Java serialization of a {@code SimpleSession}, for session stores that hold sessions as bytes
+ * (distributed caches, key-value stores, databases).
+ * <p/>
+ * The serialized form starts with the {@link #VERSION version} of the format and a bitmask of the session fields
+ * present.  Timestamps are written as variable length integers, relative to the session start timestamp where
+ * possible, so a typical session's timestamps take a few bytes each.  Strings are written once per serialized
+ * session: any later occurrence of the same string, such as a realm name or an attribute value repeated under several
+ * keys, is written as a reference to the first one.
+ * <p/>
+ * Session attribute keys and values of the following types are encoded natively: {@code String}, {@code Boolean},
+ * {@code Integer}, {@code Long}, {@code Date}, {@code byte[]} and {@link SimplePrincipalCollection} (whose principals
+ * are encoded as attribute values themselves), which covers the attributes Shiro itself stores in a session.  Values
+ * of other types are encoded by the first {@link #setAttributeCodecs(Collection) attribute codec} that
+ * {@link SessionAttributeCodec#supports supports} them, and otherwise with Java serialization, unless
+ * {@link #setJavaSerializationEnabled(boolean) disabled}.  Codecs are consulted before the native encodings, so they
+ * may also replace them.
+ * <p/>
+ * Only the state of a {@code SimpleSession} is serialized: deserializing always produces a {@code SimpleSession},
+ * even if a subclass was serialized.  This class is thread-safe once configured.
+ *
+ * @see SessionAttributeCodec
+ * @since 1.4.1
+ */
+public class SimpleSessionSerializer implements Serializer<Session> {
+
+    /**
+     * The version of the serialized form produced by this serializer, written as its first byte.
+     */
+    public static final int VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    //session field bitmask, DO NOT CHANGE the values once released:
+    private static final int ID = 1;
+    private static final int START_TIMESTAMP = 1 << 1;
+    private static final int STOP_TIMESTAMP = 1 << 2;
+    private static final int LAST_ACCESS_TIME = 1 << 3;
+    private static final int TIMEOUT = 1 << 4;
+    private static final int EXPIRED = 1 << 5;
+    private static final int HOST = 1 << 6;
+    private static final int ATTRIBUTES = 1 << 7;
+
+    //value type tags, DO NOT CHANGE the values once released:
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int TRUE = 2;
+    private static final int FALSE = 3;
+    private static final int INTEGER = 4;
+    private static final int LONG = 5;
+    private static final int DATE = 6;
+    private static final int BYTES = 7;
+    private static final int PRINCIPALS = 8;
+    private static final int CODEC = 9;
+    private static final int SERIALIZED = 10;
+
+    private List<SessionAttributeCodec<?>> attributeCodecs;
+    private Map<String, SessionAttributeCodec<?>> attributeCodecsByName;
+    private boolean javaSerializationEnabled;
+    private final Serializer<Object> javaSerializer;
+
+    public SimpleSessionSerializer() {
+        this.attributeCodecs = Collections.emptyList();
+        this.attributeCodecsByName = Collections.emptyMap();
+        this.javaSerializationEnabled = true;
+        this.javaSerializer = new DefaultSerializer<Object>();
+    }
+
+    /**
+     * Returns the codecs encoding session attribute keys and values, in the order they are consulted.
+     *
+     * @return the codecs encoding session attribute keys and values, never {@code null}.
+     */
+    public Collection<SessionAttributeCodec<?>> getAttributeCodecs() {
+        return attributeCodecs;
+    }
+
+    /**
+     * Sets the codecs encoding session attribute keys and values, in the order they are consulted.  The codecs must
+     * have distinct {@link SessionAttributeCodec#getName() names}.
+     *
+     * @param attributeCodecs the codecs encoding session attribute keys and values.
+     */
+    public void setAttributeCodecs(Collection<SessionAttributeCodec<?>> attributeCodecs) {
+        List<SessionAttributeCodec<?>> codecs = new ArrayList<SessionAttributeCodec<?>>();
+        Map<String, SessionAttributeCodec<?>> codecsByName = new HashMap<String, SessionAttributeCodec<?>>();
+        if (attributeCodecs != null) {
+            for (SessionAttributeCodec<?> codec : attributeCodecs) {
+                if (codecsByName.put(codec.getName(), codec) != null) {
+                    throw new IllegalArgumentException("Duplicate session attribute codec name [" +
+                            codec.getName() + "].");
+                }
+                codecs.add(codec);
+            }
+        }
+        this.attributeCodecs = Collections.unmodifiableList(codecs);
+        this.attributeCodecsByName = codecsByName;
+    }
+
+    /**
+     * Returns {@code true} if session attribute keys and values that have neither a native encoding nor an
+     * {@link #getAttributeCodecs() attribute codec} are Java serialized, {@code false} if they cannot be serialized.
+     * The default value is {@code true}.
+     *
+     * @return {@code true} if session attribute keys and values may be Java serialized, {@code false} otherwise.
+     */
+    public boolean isJavaSerializationEnabled() {
+        return javaSerializationEnabled;
+    }
+
+    /**
+     * Sets whether session attribute keys and values that have neither a native encoding nor an
+     * {@link #getAttributeCodecs() attribute codec} are Java serialized.  When disabled, serializing a session holding
+     * such a value fails, and so does deserializing one holding a Java serialized value, which ensures no class outside
+     * of the configured codecs is ever instantiated from serialized bytes.
+     *
+     * @param javaSerializationEnabled whether session attribute keys and values may be Java serialized.
+     */
+    public void setJavaSerializationEnabled(boolean javaSerializationEnabled) {
+        this.javaSerializationEnabled = javaSerializationEnabled;
+    }
+
+    /**
+     * Serializes the specified {@link SimpleSession}.
+     *
+     * @param session the session to serialize, which must be a {@code SimpleSession}.
+     * @return the serialized session.
+     * @throws SerializationException if the argument is not a {@code SimpleSession} or if one of its attributes cannot
+     *                                be serialized.
+     */
+    public byte[] serialize(Session session) throws SerializationException {
+        if (session == null) {
+            String msg = "argument cannot be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        if (!(session instanceof SimpleSession)) {
+            String msg = "Unable to serialize session [" + session + "].  The " + getClass().getName() +
+                    " only supports " + SimpleSession.class.getName() + " instances.";
+            throw new SerializationException(msg);
+        }
+        SimpleSession s = (SimpleSession) session;
+        Date start = s.getStartTimestamp();
+        Date stop = s.getStopTimestamp();
+        Date lastAccess = s.getLastAccessTime();
+        Map<Object, Object> attributes = s.getAttributes();
+
+        int fields = 0;
+        fields |= s.getId() != null ? ID : 0;
+        fields |= start != null ? START_TIMESTAMP : 0;
+        fields |= stop != null ? STOP_TIMESTAMP : 0;
+        fields |= lastAccess != null ? LAST_ACCESS_TIME : 0;
+        fields |= s.getTimeout() != 0 ? TIMEOUT : 0;
+        fields |= s.isExpired() ? EXPIRED : 0;
+        fields |= s.getHost() != null ? HOST : 0;
+        fields |= attributes != null && !attributes.isEmpty() ? ATTRIBUTES : 0;
+
+        Output out = new Output(this);
+        out.writeByte(VERSION);
+        out.writeVarInt(fields);
+        if (s.getId() != null) {
+            out.writeValue(s.getId());
+        }
+        //the other timestamps are written relative to the start timestamp, making them a few bytes long:
+        long base = start != null ? start.getTime() : 0;
+        if (start != null) {
+            out.writeSignedVarLong(base);
+        }
+        if (stop != null) {
+            out.writeSignedVarLong(stop.getTime() - base);
+        }
+        if (lastAccess != null) {
+            out.writeSignedVarLong(lastAccess.getTime() - base);
+        }
+        if (s.getTimeout() != 0) {
+            out.writeSignedVarLong(s.getTimeout());
+        }
+        if (s.getHost() != null) {
+            out.writeString(s.getHost());
+        }
+        if ((fields & ATTRIBUTES) != 0) {
+            out.writeVarInt(attributes.size());
+            for (Map.Entry<Object, Object> entry : attributes.entrySet()) {
+                out.writeValue(entry.getKey());
+                out.writeValue(entry.getValue());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Deserializes a {@link SimpleSession} previously serialized by {@link #serialize(Session) serialize}.
+     *
+     * @param serialized the serialized session.
+     * @return the deserialized {@code SimpleSession}.
+     * @throws SerializationException if the argument is not a valid serialized session of a supported version.
+     */
+    public Session deserialize(byte[] serialized) throws SerializationException {
+        if (serialized == null) {
+            String msg = "argument cannot be null.";
+            throw new IllegalArgumentException(msg);
+        }
+        try {
+            Input in = new Input(this, serialized);
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported serialized session version [" + version + "].");
+            }
+            int fields = in.readVarInt();
+
+            SimpleSession session = new SimpleSession();
+            session.setId((fields & ID) != 0 ? (Serializable) in.readValue() : null);
+            long base = 0;
+            if ((fields & START_TIMESTAMP) != 0) {
+                base = in.readSignedVarLong();
+                session.setStartTimestamp(new Date(base));
+            } else {
+                session.setStartTimestamp(null);
+            }
+            session.setStopTimestamp((fields & STOP_TIMESTAMP) != 0 ? new Date(base + in.readSignedVarLong()) : null);
+            session.setLastAccessTime((fields & LAST_ACCESS_TIME) != 0 ? new Date(base + in.readSignedVarLong()) : null);
+            session.setTimeout((fields & TIMEOUT) != 0 ? in.readSignedVarLong() : 0);
+            session.setExpired((fields & EXPIRED) != 0);
+            session.setHost((fields & HOST) != 0 ? in.readString() : null);
+            if ((fields & ATTRIBUTES) != 0) {
+                int size = in.readLength();
+                Map<Object, Object> attributes = new HashMap<Object, Object>(Math.max(16, size * 4 / 3 + 1));
+                for (int i = 0; i < size; i++) {
+                    Object key = in.readValue();
+                    attributes.put(key, in.readValue());
+                }
+                session.setAttributes(attributes);
+            }
+            if (in.available() != 0) {
+                throw new SerializationException("Unexpected trailing data after the serialized session.");
+            }
+            return session;
+        } catch (SerializationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            String msg = "Unable to deserialize argument byte array.";
+            throw new SerializationException(msg, e);
+        }
+    }
+
+    private void writeValue(Object value, Output out) {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        for (SessionAttributeCodec<?> candidate : attributeCodecs) {
+            if (candidate.supports(value)) {
+                //supports(value) guarantees the codec accepts the value:
+                @SuppressWarnings("unchecked")
+                SessionAttributeCodec<Object> codec = (SessionAttributeCodec<Object>) candidate;
+                out.writeByte(CODEC);
+                out.writeString(codec.getName());
+                codec.write(value, out);
+                return;
+            }
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.writeByte(STRING);
+            out.writeString((String) value);
+        } else if (type == Boolean.class) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (type == Integer.class) {
+            out.writeByte(INTEGER);
+            out.writeSignedVarLong((Integer) value);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            out.writeSignedVarLong((Long) value);
+        } else if (type == Date.class) {
+            out.writeByte(DATE);
+            out.writeSignedVarLong(((Date) value).getTime());
+        } else if (type == byte[].class) {
+            out.writeByte(BYTES);
+            out.writeBytes((byte[]) value);
+        } else if (type == SimplePrincipalCollection.class) {
+            out.writeByte(PRINCIPALS);
+            writePrincipals((SimplePrincipalCollection) value, out);
+        } else if (javaSerializationEnabled && value instanceof Serializable) {
+            out.writeByte(SERIALIZED);
+            out.writeBytes(javaSerializer.serialize(value));
+        } else {
+            String msg = "Unable to serialize session attribute key or value of type [" + type.getName() + "].  " +
+                    "No session attribute codec supports it" +
+                    (javaSerializationEnabled ? " and it does not implement java.io.Serializable." :
+                            " and Java serialization is disabled.");
+            throw new SerializationException(msg);
+        }
+    }
+
+    private void writePrincipals(SimplePrincipalCollection principals, Output out) {
+        Set<String> realmNames = principals.getRealmNames();
+        out.writeVarInt(realmNames.size());
+        for (String realmName : realmNames) {
+            Collection<?> fromRealm = principals.fromRealm(realmName);
+            out.writeString(realmName);
+            out.writeVarInt(fromRealm.size());
+            for (Object principal : fromRealm) {
+                out.writeValue(principal);
+            }
+        }
+    }
+
+    private Object readValue(Input in) {
+        int tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readString();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INTEGER:
+                long value = in.readSignedVarLong();
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    throw new SerializationException("Invalid serialized integer [" + value + "].");
+                }
+                return (int) value;
+            case LONG:
+                return in.readSignedVarLong();
+            case DATE:
+                return new Date(in.readSignedVarLong());
+            case BYTES:
+                return in.readBytes();
+            case PRINCIPALS:
+                return readPrincipals(in);
+            case CODEC:
+                String name = in.readString();
+                SessionAttributeCodec<?> codec = attributeCodecsByName.get(name);
+                if (codec == null) {
+                    throw new SerializationException("No session attribute codec named [" + name + "] is configured.");
+                }
+                return codec.read(in);
+            case SERIALIZED:
+                if (!javaSerializationEnabled) {
+                    throw new SerializationException("Unable to deserialize a Java serialized session attribute key " +
+                            "or value: Java serialization is disabled.");
+                }
+                return javaSerializer.deserialize(in.readBytes());
+            default:
+                throw new SerializationException("Invalid serialized session attribute type [" + tag + "].");
+        }
+    }
+
+    private SimplePrincipalCollection readPrincipals(Input in) {
+        SimplePrincipalCollection principals = new SimplePrincipalCollection();
+        int realms = in.readLength();
+        for (int i = 0; i < realms; i++) {
+            String realmName = in.readString();
+            int size = in.readLength();
+            for (int j = 0; j < size; j++) {
+                principals.add(in.readValue(), realmName);
+            }
+        }
+        return principals;
+    }
+
+    /**
+     * The output a session is serialized to, used by {@link SessionAttributeCodec}s to encode attribute values.
+     */
+    public static final class Output {
+
+        private final SimpleSessionSerializer serializer;
+        private byte[] buffer = new byte[256];
+        private int count;
+        private Map<String, Integer> strings;
+
+        private Output(SimpleSessionSerializer serializer) {
+            this.serializer = serializer;
+        }
+
+        /**
+         * Writes the low 8 bits of the specified value.
+         *
+         * @param value the byte to write.
+         */
+        public void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[count++] = (byte) value;
+        }
+
+        /**
+         * Writes the specified value as an unsigned variable length integer: 7 bits per byte, 1 byte for values up to
+         * 127.
+         *
+         * @param value the value to write, interpreted as unsigned.
+         */
+        public void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[count++] = (byte) value;
+        }
+
+        /**
+         * Writes the specified value as a zig-zag encoded variable length integer, so that values close to zero,
+         * negative or positive, are short.
+         *
+         * @param value the value to write.
+         */
+        public void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        /**
+         * Writes the specified non-negative value as a variable length integer.
+         *
+         * @param value the value to write.
+         */
+        public void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Writes the specified bytes, preceded by their number.
+         *
+         * @param bytes the bytes to write.
+         */
+        public void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, count, bytes.length);
+            count += bytes.length;
+        }
+
+        /**
+         * Writes the specified string in UTF-8, or as a reference to its first occurrence if it has already been
+         * written to this output.
+         *
+         * @param string the string to write.
+         */
+        public void writeString(String string) {
+            if (strings == null) {
+                strings = new HashMap<String, Integer>();
+            }
+            Integer index = strings.get(string);
+            if (index != null) {
+                writeVarLong(((long) index << 1) | 1);
+                return;
+            }
+            byte[] utf8 = string.getBytes(UTF_8);
+            writeVarLong((long) utf8.length << 1);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, buffer, count, utf8.length);
+            count += utf8.length;
+            strings.put(string, strings.size());
+        }
+
+        /**
+         * Writes the specified value with its native encoding or with the codec of the serializer supporting it.
+         *
+         * @param value the value to write, may be {@code null}.
+         * @throws SerializationException if the value cannot be serialized.
+         */
+        public void writeValue(Object value) throws SerializationException {
+            serializer.writeValue(value, this);
+        }
+
+        private void ensureCapacity(int length) {
+            if (count + length > buffer.length) {
+                byte[] grown = new byte[Math.max(buffer.length << 1, count + length)];
+                System.arraycopy(buffer, 0, grown, 0, count);
+                buffer = grown;
+            }
+        }
+
+        private byte[] toByteArray() {
+            byte[] bytes = new byte[count];
+            System.arraycopy(buffer, 0, bytes, 0, count);
+            return bytes;
+        }
+    }
+
+    /**
+     * The input a session is deserialized from, used by {@link SessionAttributeCodec}s to decode attribute values.
+     */
+    public static final class Input {
+
+        private final SimpleSessionSerializer serializer;
+        private final byte[] buffer;
+        private int position;
+        private List<String> strings;
+
+        private Input(SimpleSessionSerializer serializer, byte[] buffer) {
+            this.serializer = serializer;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads a byte written by {@link Output#writeByte(int)}.
+         *
+         * @return the byte read, between 0 and 255.
+         * @throws SerializationException if the input is exhausted.
+         */
+        public int readByte() throws SerializationException {
+            if (position >= buffer.length) {
+                throw new SerializationException("Unexpected end of the serialized session.");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        /**
+         * Reads a value written by {@link Output#writeVarLong(long)}.
+         *
+         * @return the value read.
+         * @throws SerializationException if the input is exhausted or invalid.
+         */
+        public long readVarLong() throws SerializationException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Invalid variable length integer in the serialized session.");
+        }
+
+        /**
+         * Reads a value written by {@link Output#writeSignedVarLong(long)}.
+         *
+         * @return the value read.
+         * @throws SerializationException if the input is exhausted or invalid.
+         */
+        public long readSignedVarLong() throws SerializationException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * Reads a value written by {@link Output#writeVarInt(int)}.
+         *
+         * @return the value read.
+         * @throws SerializationException if the input is exhausted or invalid.
+         */
+        public int readVarInt() throws SerializationException {
+            long value = readVarLong();
+            if (value < 0 || value > 0xFFFFFFFFL) {
+                throw new SerializationException("Invalid variable length integer in the serialized session.");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Reads bytes written by {@link Output#writeBytes(byte[])}.
+         *
+         * @return the bytes read.
+         * @throws SerializationException if the input is exhausted or invalid.
+         */
+        public byte[] readBytes() throws SerializationException {
+            int length = readLength();
+            byte[] bytes = new byte[length];
+            System.arraycopy(buffer, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+
+        /**
+         * Reads a string written by {@link Output#writeString(String)}.
+         *
+         * @return the string read.
+         * @throws SerializationException if the input is exhausted or invalid.
+         */
+        public String readString() throws SerializationException {
+            if (strings == null) {
+                strings = new ArrayList<String>();
+            }
+            long header = readVarLong();
+            if ((header & 1) != 0) {
+                long index = header >>> 1;
+                if (index >= strings.size()) {
+                    throw new SerializationException("Invalid string reference in the serialized session.");
+                }
+                return strings.get((int) index);
+            }
+            long length = header >>> 1;
+            if (length > buffer.length - position) {
+                throw new SerializationException("Unexpected end of the serialized session.");
+            }
+            String string = new String(buffer, position, (int) length, UTF_8);
+            position += (int) length;
+            strings.add(string);
+            return string;
+        }
+
+        /**
+         * Reads a value written by {@link Output#writeValue(Object)}.
+         *
+         * @return the value read, may be {@code null}.
+         * @throws SerializationException if the input is exhausted or invalid.
+         */
+        public Object readValue() throws SerializationException {
+            return serializer.readValue(this);
+        }
+
+        /**
+         * Reads a count (of bytes or elements) written with {@link Output#writeVarInt(int)}, checked against the
+         * remaining input, since each counted item takes at least one byte.
+         */
+        private int readLength() {
+            int length = readVarInt();
+            if (length < 0 || length > buffer.length - position) {
+                throw new SerializationException("Unexpected end of the serialized session.");
+            }
+            return length;
+        }
+
+        private int available() {
+            return buffer.length - position;
+        }
+    }
+}
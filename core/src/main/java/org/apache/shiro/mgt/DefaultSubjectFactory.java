@@ -33,9 +33,38 @@ import org.apache.shiro.subject.support.DelegatingSubject;
  */
 public class DefaultSubjectFactory implements SubjectFactory {
 
+    private boolean authorizationDecisionCachingEnabled;
+
     public DefaultSubjectFactory() {
     }
 
+    /**
+     * Returns {@code true} if the created subjects remember their authorization decisions for as long as they are
+     * bound to the thread, {@code false} otherwise.  The default is {@code false}.
+     *
+     * @return {@code true} if the created subjects remember their authorization decisions for as long as they are
+     *         bound to the thread.
+     * @see DelegatingSubject#setAuthorizationDecisionCachingEnabled(boolean)
+     * @since 1.4.1
+     */
+    public boolean isAuthorizationDecisionCachingEnabled() {
+        return authorizationDecisionCachingEnabled;
+    }
+
+    /**
+     * Sets whether the created subjects remember their authorization decisions for as long as they are bound to the
+     * thread, typically for the duration of a single request.
+     *
+     * @param authorizationDecisionCachingEnabled
+     *         whether the created subjects remember their authorization decisions for as long as they are bound to
+     *         the thread.
+     * @see DelegatingSubject#setAuthorizationDecisionCachingEnabled(boolean)
+     * @since 1.4.1
+     */
+    public void setAuthorizationDecisionCachingEnabled(boolean authorizationDecisionCachingEnabled) {
+        this.authorizationDecisionCachingEnabled = authorizationDecisionCachingEnabled;
+    }
+
     public Subject createSubject(SubjectContext context) {
         SecurityManager securityManager = context.resolveSecurityManager();
         Session session = context.resolveSession();
@@ -44,7 +73,10 @@ public class DefaultSubjectFactory implements SubjectFactory {
         boolean authenticated = context.resolveAuthenticated();
         String host = context.resolveHost();
 
-        return new DelegatingSubject(principals, authenticated, host, session, sessionCreationEnabled, securityManager);
+        DelegatingSubject subject =
+                new DelegatingSubject(principals, authenticated, host, session, sessionCreationEnabled, securityManager);
+        subject.setAuthorizationDecisionCachingEnabled(isAuthorizationDecisionCachingEnabled());
+        return subject;
     }
 
     /**
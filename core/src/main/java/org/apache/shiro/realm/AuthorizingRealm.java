@@ -78,6 +78,10 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     private boolean authorizationCachingEnabled;
     private Cache<Object, AuthorizationInfo> authorizationCache;
     private String authorizationCacheName;
+    private boolean permissionIndexEnabled;
+    private boolean resolvedPermissionsCachingEnabled;
+    private boolean roleBitSetEnabled;
+    private final RoleDictionary roleDictionary = new RoleDictionary();
 
     private PermissionResolver permissionResolver;
 
@@ -173,6 +177,125 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         }
     }
 
+    /**
+     * Returns {@code true} if a {@link WildcardPermissionIndex WildcardPermissionIndex} should be compiled for each
+     * {@code AuthorizationInfo} placed in the authorization cache, {@code false} otherwise.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if a permission index should be compiled for each cached {@code AuthorizationInfo}.
+     * @since 1.4.1
+     */
+    public boolean isPermissionIndexEnabled() {
+        return permissionIndexEnabled;
+    }
+
+    /**
+     * Sets whether or not a {@link WildcardPermissionIndex WildcardPermissionIndex} should be compiled for each
+     * {@code AuthorizationInfo} placed in the authorization cache.
+     * <p/>
+     * When enabled, all of an account's permissions (object, string and role-based) are resolved and compiled once,
+     * when its {@code AuthorizationInfo} is first cached, and the resulting index is cached along with it as a
+     * {@link ResolvedAuthorizationInfo ResolvedAuthorizationInfo}.  Subsequent permission checks for that account
+     * then cost roughly the number of parts of the checked permission instead of one {@code implies} call per
+     * assigned permission.  Because the index is only useful when it can be reused, it is only built if
+     * {@link #isAuthorizationCachingEnabled() authorization caching} is available.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @param permissionIndexEnabled whether or not a permission index should be compiled for each cached
+     *                               {@code AuthorizationInfo}.
+     * @since 1.4.1
+     */
+    public void setPermissionIndexEnabled(boolean permissionIndexEnabled) {
+        this.permissionIndexEnabled = permissionIndexEnabled;
+    }
+
+    /**
+     * Returns {@code true} if the fully resolved permissions and roles of each account should be cached along with
+     * its {@code AuthorizationInfo}, {@code false} otherwise.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if the fully resolved permissions and roles of each account should be cached.
+     * @since 1.4.1
+     */
+    public boolean isResolvedPermissionsCachingEnabled() {
+        return resolvedPermissionsCachingEnabled;
+    }
+
+    /**
+     * Sets whether or not the fully resolved permissions and roles of each account should be cached along with its
+     * {@code AuthorizationInfo}.
+     * <p/>
+     * By default, {@link #getPermissions(org.apache.shiro.authz.AuthorizationInfo) getPermissions} resolves an
+     * account's string permissions via the {@link #getPermissionResolver() PermissionResolver} and its role
+     * permissions via the {@link #getRolePermissionResolver() RolePermissionResolver} on every permission check.
+     * When enabled, this is done once, when the account's {@code AuthorizationInfo} is first cached, and the
+     * resulting immutable permission collection and role set are cached along with it as a
+     * {@link ResolvedAuthorizationInfo ResolvedAuthorizationInfo}.  As with any other cached authorization data,
+     * {@link #clearCachedAuthorizationInfo(org.apache.shiro.subject.PrincipalCollection) clearCachedAuthorizationInfo}
+     * must be called when the account's roles, permissions or role definitions change.
+     * <p/>
+     * Resolved permissions can only be cached if {@link #isAuthorizationCachingEnabled() authorization caching} is
+     * available.  They are always cached if the {@link #setPermissionIndexEnabled(boolean) permission index} is
+     * enabled.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @param resolvedPermissionsCachingEnabled
+     *         whether or not the fully resolved permissions and roles of each account should be cached.
+     * @since 1.4.1
+     */
+    public void setResolvedPermissionsCachingEnabled(boolean resolvedPermissionsCachingEnabled) {
+        this.resolvedPermissionsCachingEnabled = resolvedPermissionsCachingEnabled;
+    }
+
+    /**
+     * Returns {@code true} if the roles of each cached {@code AuthorizationInfo} are stored as a bit set of ids of this
+     * realm's {@link #getRoleDictionary() role dictionary}, {@code false} otherwise.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if the roles of each cached {@code AuthorizationInfo} are stored as a bit set.
+     * @since 1.4.1
+     */
+    public boolean isRoleBitSetEnabled() {
+        return roleBitSetEnabled;
+    }
+
+    /**
+     * Sets whether or not the roles of each cached {@code AuthorizationInfo} are stored as a bit set of ids of this
+     * realm's {@link #getRoleDictionary() role dictionary}.
+     * <p/>
+     * When enabled, the {@code AuthorizationInfo} is cached as a {@link ResolvedAuthorizationInfo
+     * ResolvedAuthorizationInfo} (as if {@link #setResolvedPermissionsCachingEnabled(boolean) resolved permissions
+     * caching} were enabled) whose roles are a compact bit set instead of a set of names: {@code hasRole} becomes a
+     * single bit test and {@code hasAllRoles} a bitwise operation, regardless of the number of roles checked or
+     * assigned.  As with the other derived data, this requires {@link #isAuthorizationCachingEnabled() authorization
+     * caching} to be available.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @param roleBitSetEnabled whether or not the roles of each cached {@code AuthorizationInfo} are stored as a bit
+     *                          set.
+     * @since 1.4.1
+     */
+    public void setRoleBitSetEnabled(boolean roleBitSetEnabled) {
+        this.roleBitSetEnabled = roleBitSetEnabled;
+    }
+
+    /**
+     * Returns the dictionary assigning ids to the role names of this realm's accounts, used when
+     * {@link #isRoleBitSetEnabled() role bit sets} are enabled.
+     *
+     * @return the dictionary assigning ids to the role names of this realm's accounts.
+     * @since 1.4.1
+     */
+    public RoleDictionary getRoleDictionary() {
+        return roleDictionary;
+    }
+
     public PermissionResolver getPermissionResolver() {
         return permissionResolver;
     }
@@ -344,6 +467,7 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
                 if (log.isTraceEnabled()) {
                     log.trace("Caching authorization info for principals: [" + principals + "].");
                 }
+                info = resolveAuthorizationInfo(info);
                 Object key = getAuthorizationCacheKey(principals);
                 cache.put(key, info);
             }
@@ -352,6 +476,35 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
         return info;
     }
 
+    /**
+     * Returns the {@code AuthorizationInfo} that will be placed in the authorization cache for the specified info as
+     * returned by {@link #doGetAuthorizationInfo(org.apache.shiro.subject.PrincipalCollection)}.
+     * <p/>
+     * If {@link #isResolvedPermissionsCachingEnabled() resolved permissions caching}, the
+     * {@link #isPermissionIndexEnabled() permission index} or {@link #isRoleBitSetEnabled() role bit sets} are enabled,
+     * this implementation resolves all of the info's
+     * {@link #getPermissions(org.apache.shiro.authz.AuthorizationInfo) permissions} (compiling them into a
+     * {@link WildcardPermissionIndex WildcardPermissionIndex} if the index is enabled) and returns a
+     * {@link ResolvedAuthorizationInfo ResolvedAuthorizationInfo} wrapping the info and the derived data.  Otherwise
+     * the info is returned as-is.
+     *
+     * @param info the info returned by {@code doGetAuthorizationInfo}, never {@code null}.
+     * @return the info to cache.
+     * @since 1.4.1
+     */
+    protected AuthorizationInfo resolveAuthorizationInfo(AuthorizationInfo info) {
+        if (info instanceof ResolvedAuthorizationInfo ||
+                !(isPermissionIndexEnabled() || isResolvedPermissionsCachingEnabled() || isRoleBitSetEnabled())) {
+            return info;
+        }
+        Collection<Permission> permissions = getPermissions(info);
+        WildcardPermissionIndex index = null;
+        if (isPermissionIndexEnabled()) {
+            index = new WildcardPermissionIndex(permissions);
+        }
+        return new ResolvedAuthorizationInfo(info, permissions, index, isRoleBitSetEnabled() ? roleDictionary : null);
+    }
+
     protected Object getAuthorizationCacheKey(PrincipalCollection principals) {
         return principals;
     }
@@ -400,6 +553,10 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
     //visibility changed from private to protected per SHIRO-332
     protected Collection<Permission> getPermissions(AuthorizationInfo info) {
+        if (info instanceof ResolvedAuthorizationInfo) {
+            return ((ResolvedAuthorizationInfo) info).getPermissions();
+        }
+
         Set<Permission> permissions = new HashSet<Permission>();
 
         if (info != null) {
@@ -465,6 +622,12 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
 
     //visibility changed from private to protected per SHIRO-332
     protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+        if (info instanceof ResolvedAuthorizationInfo) {
+            WildcardPermissionIndex index = ((ResolvedAuthorizationInfo) info).getPermissionIndex();
+            if (index != null) {
+                return index.implies(permission);
+            }
+        }
         Collection<Permission> perms = getPermissions(info);
         if (perms != null && !perms.isEmpty()) {
             for (Permission perm : perms) {
@@ -549,10 +712,12 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     public void checkPermissions(PrincipalCollection subjectIdentifier, String... permissions) throws AuthorizationException {
-        if (permissions != null) {
+        if (permissions != null && permissions.length > 0) {
+            Collection<Permission> perms = new ArrayList<Permission>(permissions.length);
             for (String permString : permissions) {
-                checkPermission(subjectIdentifier, permString);
+                perms.add(getPermissionResolver().resolvePermission(permString));
             }
+            checkPermissions(subjectIdentifier, perms);
         }
     }
 
@@ -575,6 +740,9 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     protected boolean hasRole(String roleIdentifier, AuthorizationInfo info) {
+        if (info instanceof ResolvedAuthorizationInfo) {
+            return ((ResolvedAuthorizationInfo) info).hasRole(roleIdentifier);
+        }
         return info != null && info.getRoles() != null && info.getRoles().contains(roleIdentifier);
     }
 
@@ -608,6 +776,9 @@ public abstract class AuthorizingRealm extends AuthenticatingRealm
     }
 
     private boolean hasAllRoles(Collection<String> roleIdentifiers, AuthorizationInfo info) {
+        if (info instanceof ResolvedAuthorizationInfo) {
+            return ((ResolvedAuthorizationInfo) info).hasAllRoles(roleIdentifiers);
+        }
         if (roleIdentifiers != null && !roleIdentifiers.isEmpty()) {
             for (String roleName : roleIdentifiers) {
                 if (!hasRole(roleName, info)) {
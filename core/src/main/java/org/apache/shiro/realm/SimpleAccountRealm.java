@@ -26,14 +26,25 @@ import org.apache.shiro.authc.LockedAccountException;
 import org.apache.shiro.authc.SimpleAccount;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.ResolvedAuthorizationInfo;
 import org.apache.shiro.authz.SimpleRole;
+import org.apache.shiro.authz.permission.PermissionResolver;
+import org.apache.shiro.authz.permission.RolePermissionResolver;
+import org.apache.shiro.authz.permission.WildcardPermissionIndex;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -45,6 +56,16 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * <p/>
  * User accounts and roles are stored in two {@code Map}s in memory, so it is expected that the total number of either
  * is not sufficiently large.
+ * <p/>
+ * If the {@link #setAuthorizationSnapshotEnabled(boolean) authorization snapshot} is enabled, authorization data is
+ * served from an immutable snapshot that maps each username to a
+ * {@link ResolvedAuthorizationInfo ResolvedAuthorizationInfo} holding the account's roles and its flattened permissions
+ * (its own permissions plus those of its roles) compiled into a
+ * {@link WildcardPermissionIndex WildcardPermissionIndex}.  Authorization checks then neither acquire any lock nor
+ * iterate over the permissions of every role.  The snapshot is rebuilt on the first authorization check after
+ * accounts or roles were {@link #add(SimpleAccount) added} or (re)loaded, and replaced atomically.  Code that modifies
+ * previously added {@code SimpleAccount} or {@code SimpleRole} instances directly must call
+ * {@link #invalidateAuthorizationSnapshot()} afterwards.
  *
  * @since 0.1
  */
@@ -56,6 +77,10 @@ public class SimpleAccountRealm extends AuthorizingRealm {
     protected final ReadWriteLock USERS_LOCK;
     protected final ReadWriteLock ROLES_LOCK;
 
+    private boolean authorizationSnapshotEnabled;
+    private final AtomicLong modificationCount = new AtomicLong();
+    private volatile AuthorizationSnapshot authorizationSnapshot;
+
     public SimpleAccountRealm() {
         this.users = new LinkedHashMap<String, SimpleAccount>();
         this.roles = new LinkedHashMap<String, SimpleRole>();
@@ -71,6 +96,53 @@ public class SimpleAccountRealm extends AuthorizingRealm {
         setName(name);
     }
 
+    /**
+     * Returns {@code true} if authorization data is served from an immutable, pre-computed snapshot, {@code false}
+     * otherwise.  The default is {@code false}.
+     *
+     * @return {@code true} if authorization data is served from an immutable, pre-computed snapshot.
+     * @since 1.4.1
+     */
+    public boolean isAuthorizationSnapshotEnabled() {
+        return authorizationSnapshotEnabled;
+    }
+
+    /**
+     * Sets whether authorization data is served from an immutable snapshot mapping each user to its roles and
+     * flattened, indexed permissions, which is read without locking and rebuilt whenever accounts or roles change.
+     *
+     * @param authorizationSnapshotEnabled whether authorization data is served from an immutable, pre-computed
+     *                                     snapshot.
+     * @since 1.4.1
+     */
+    public void setAuthorizationSnapshotEnabled(boolean authorizationSnapshotEnabled) {
+        this.authorizationSnapshotEnabled = authorizationSnapshotEnabled;
+        invalidateAuthorizationSnapshot();
+    }
+
+    /**
+     * Discards the current authorization snapshot, if any, so that it is rebuilt from the current accounts and roles
+     * on the next authorization check.  This is done automatically when accounts or roles are added or loaded, but
+     * must be called explicitly after modifying an already added {@code SimpleAccount} or {@code SimpleRole}.
+     *
+     * @since 1.4.1
+     */
+    public void invalidateAuthorizationSnapshot() {
+        modificationCount.incrementAndGet();
+    }
+
+    @Override
+    public void setPermissionResolver(PermissionResolver permissionResolver) {
+        super.setPermissionResolver(permissionResolver);
+        invalidateAuthorizationSnapshot();
+    }
+
+    @Override
+    public void setRolePermissionResolver(RolePermissionResolver permissionRoleResolver) {
+        super.setRolePermissionResolver(permissionRoleResolver);
+        invalidateAuthorizationSnapshot();
+    }
+
     protected SimpleAccount getUser(String username) {
         USERS_LOCK.readLock().lock();
         try {
@@ -110,6 +182,7 @@ public class SimpleAccountRealm extends AuthorizingRealm {
         } finally {
             USERS_LOCK.writeLock().unlock();
         }
+        invalidateAuthorizationSnapshot();
     }
 
     protected SimpleRole getRole(String rolename) {
@@ -136,6 +209,7 @@ public class SimpleAccountRealm extends AuthorizingRealm {
         } finally {
             ROLES_LOCK.writeLock().unlock();
         }
+        invalidateAuthorizationSnapshot();
     }
 
     protected static Set<String> toSet(String delimited, String delimiter) {
@@ -176,6 +250,9 @@ public class SimpleAccountRealm extends AuthorizingRealm {
 
     protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
         String username = getUsername(principals);
+        if (isAuthorizationSnapshotEnabled()) {
+            return getAuthorizationSnapshot().get(username);
+        }
         USERS_LOCK.readLock().lock();
         try {
             return this.users.get(username);
@@ -183,4 +260,50 @@ public class SimpleAccountRealm extends AuthorizingRealm {
             USERS_LOCK.readLock().unlock();
         }
     }
+
+    /**
+     * Returns the current authorization snapshot, rebuilding it first if accounts or roles changed since it was built.
+     *
+     * @return the current authorization snapshot, mapping usernames to their resolved authorization data.
+     */
+    private Map<String, AuthorizationInfo> getAuthorizationSnapshot() {
+        AuthorizationSnapshot snapshot = this.authorizationSnapshot;
+        long modifications = modificationCount.get();
+        if (snapshot == null || snapshot.modifications != modifications) {
+            //built from the state as of 'modifications': if another change happens meanwhile, the snapshot is
+            //simply rebuilt again on the next call
+            snapshot = new AuthorizationSnapshot(modifications, buildAuthorizationSnapshot());
+            this.authorizationSnapshot = snapshot;
+        }
+        return snapshot.infos;
+    }
+
+    private Map<String, AuthorizationInfo> buildAuthorizationSnapshot() {
+        List<SimpleAccount> accounts;
+        USERS_LOCK.readLock().lock();
+        try {
+            accounts = new ArrayList<SimpleAccount>(this.users.values());
+        } finally {
+            USERS_LOCK.readLock().unlock();
+        }
+        Map<String, AuthorizationInfo> infos = new HashMap<String, AuthorizationInfo>(accounts.size() * 4 / 3 + 1);
+        for (SimpleAccount account : accounts) {
+            Collection<Permission> permissions = getPermissions(account);
+            infos.put(getUsername(account),
+                    new ResolvedAuthorizationInfo(account, permissions, new WildcardPermissionIndex(permissions),
+                            isRoleBitSetEnabled() ? getRoleDictionary() : null));
+        }
+        return Collections.unmodifiableMap(infos);
+    }
+
+    private static final class AuthorizationSnapshot {
+
+        private final long modifications;
+        private final Map<String, AuthorizationInfo> infos;
+
+        private AuthorizationSnapshot(long modifications, Map<String, AuthorizationInfo> infos) {
+            this.modifications = modifications;
+            this.infos = infos;
+        }
+    }
 }
\ No newline at end of file
@@ -160,6 +160,7 @@ public class TextConfigurationRealm extends SimpleAccountRealm {
             Set<Permission> permissions = PermissionUtils.resolveDelimitedPermissions(value, getPermissionResolver());
             role.setPermissions(permissions);
         }
+        invalidateAuthorizationSnapshot();
     }
 
     protected void processUserDefinitions() throws ParseException {
@@ -206,6 +207,7 @@ public class TextConfigurationRealm extends SimpleAccountRealm {
                 account.setRoles(null);
             }
         }
+        invalidateAuthorizationSnapshot();
     }
 
     protected static Set<String> toLines(String s) {
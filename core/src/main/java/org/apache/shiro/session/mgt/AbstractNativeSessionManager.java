@@ -50,8 +50,16 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
 
     private Collection<SessionListener> listeners;
 
+    /**
+     * The touch persistence interval applied to a session never exceeds its timeout divided by this value.
+     */
+    private static final int MAX_TOUCH_PERSISTENCE_TIMEOUT_FRACTION = 10;
+
+    private long touchPersistenceInterval;
+
     public AbstractNativeSessionManager() {
         this.listeners = new ArrayList<SessionListener>();
+        this.touchPersistenceInterval = 0;
     }
 
     public void setSessionListeners(Collection<SessionListener> listeners) {
@@ -95,6 +103,46 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
         }
     }
 
+    /**
+     * Returns the minimum time in milliseconds that must elapse between two persisted updates of a session's last
+     * access time caused by {@link #touch(SessionKey) touching} the session.  The default value is {@code 0}, meaning
+     * every touch is persisted.
+     *
+     * @return the minimum time in milliseconds between two persisted touches of a session.
+     * @see #setTouchPersistenceInterval(long)
+     * @since 1.4.1
+     */
+    public long getTouchPersistenceInterval() {
+        return touchPersistenceInterval;
+    }
+
+    /**
+     * Sets the minimum time in milliseconds that must elapse between two persisted updates of a session's last access
+     * time caused by {@link #touch(SessionKey) touching} the session.
+     * <p/>
+     * Web applications touch the session on every request, and persisting each touch (e.g. with
+     * {@link org.apache.shiro.session.mgt.eis.SessionDAO#update SessionDAO.update}) costs a write to the session store
+     * per request.  When this interval is positive, a touch still updates the session's last access time in memory,
+     * which is what validation sees for sessions held in memory (e.g. cached by a
+     * {@link org.apache.shiro.session.mgt.eis.CachingSessionDAO CachingSessionDAO}), but it is only persisted if the
+     * last access time changed by at least this interval since it was last persisted by a touch.  Any other change to
+     * the session is persisted immediately, along with its current last access time.
+     * <p/>
+     * The last access time seen by another node or a validation reading the session store may therefore lag by up to
+     * this interval, which may expire an idle session up to this interval early.  To keep that error small, the
+     * interval applied to a session never exceeds a tenth of its timeout.  The persisted last access time is only
+     * recorded once the session store has accepted the update, so a touch whose persistence failed is retried by the
+     * next touch.  This only applies to {@link SimpleSession}s; touches of other session implementations are always
+     * persisted.
+     *
+     * @param touchPersistenceInterval the minimum time in milliseconds between two persisted touches of a session,
+     *                                 {@code 0} or less to persist every touch.
+     * @since 1.4.1
+     */
+    public void setTouchPersistenceInterval(long touchPersistenceInterval) {
+        this.touchPersistenceInterval = touchPersistenceInterval;
+    }
+
     public Session start(SessionContext context) {
         Session session = createSession(context);
         applyGlobalSessionTimeout(session);
@@ -225,12 +273,70 @@ public abstract class AbstractNativeSessionManager extends AbstractSessionManage
         Session s = lookupRequiredSession(key);
         s.setTimeout(maxIdleTimeInMillis);
         onChange(s);
+        afterTimeoutChanged(s);
+    }
+
+    /**
+     * Template method called once the new timeout of the specified session has been applied and
+     * {@link #onChange(Session) persisted}, so that subclasses can react to it without looking the session up again.
+     * This implementation does nothing.
+     *
+     * @param session the session whose timeout has changed.
+     * @since 1.4.1
+     */
+    protected void afterTimeoutChanged(Session session) {
     }
 
     public void touch(SessionKey key) throws InvalidSessionException {
         Session s = lookupRequiredSession(key);
+        if (s instanceof SimpleSession && ((SimpleSession) s).getPersistedLastAccessTime() == null) {
+            //not persisted through this instance yet, so its current value is the persisted one:
+            ((SimpleSession) s).setPersistedLastAccessTime(s.getLastAccessTime());
+        }
         s.touch();
-        onChange(s);
+        if (isTouchPersistenceRequired(s)) {
+            onChange(s);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the touch of the specified session must be persisted, {@code false} if it only needs to
+     * be applied in memory, according to the {@link #getTouchPersistenceInterval() touchPersistenceInterval}.  This
+     * method only decides: the persisted last access time is recorded by {@link #touchPersisted(Session, Date)} once
+     * the session store has accepted the update.
+     *
+     * @param session the session that has just been touched.
+     * @return {@code true} if the touch of the specified session must be persisted, {@code false} otherwise.
+     * @since 1.4.1
+     */
+    protected boolean isTouchPersistenceRequired(Session session) {
+        long interval = getTouchPersistenceInterval();
+        if (interval <= 0 || !(session instanceof SimpleSession)) {
+            return true;
+        }
+        if (session.getTimeout() > 0) {
+            interval = Math.min(interval, session.getTimeout() / MAX_TOUCH_PERSISTENCE_TIMEOUT_FRACTION);
+        }
+        SimpleSession simple = (SimpleSession) session;
+        Date lastAccessTime = simple.getLastAccessTime();
+        Date persisted = simple.getPersistedLastAccessTime();
+        return persisted == null || lastAccessTime == null ||
+                lastAccessTime.getTime() - persisted.getTime() >= interval;
+    }
+
+    /**
+     * Records that the specified last access time of the session has been persisted, which is what the next
+     * {@link #isTouchPersistenceRequired(Session) touch} is compared to.  Subclasses call this method once the
+     * session store has accepted an update of the session.
+     *
+     * @param session        the session that has been persisted.
+     * @param lastAccessTime the last access time of the session when it was persisted.
+     * @since 1.4.1
+     */
+    protected void touchPersisted(Session session, Date lastAccessTime) {
+        if (session instanceof SimpleSession) {
+            ((SimpleSession) session).setPersistedLastAccessTime(lastAccessTime);
+        }
     }
 
     public String getHost(SessionKey key) {
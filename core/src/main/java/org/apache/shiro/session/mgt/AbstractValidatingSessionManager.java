@@ -23,12 +23,23 @@ import org.apache.shiro.session.ExpiredSessionException;
 import org.apache.shiro.session.InvalidSessionException;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.eis.SessionPage;
 import org.apache.shiro.util.Destroyable;
 import org.apache.shiro.util.LifecycleUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -49,6 +60,21 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
      */
     public static final long DEFAULT_SESSION_VALIDATION_INTERVAL = MILLIS_PER_HOUR;
 
+    /**
+     * The default interval at which all active sessions are validated when the
+     * {@link #setSessionExpiryIndexEnabled(boolean) session expiry index} is enabled (24 hours).
+     *
+     * @since 1.4.1
+     */
+    public static final long DEFAULT_SESSION_EXPIRY_INDEX_FULL_SCAN_INTERVAL = 24 * MILLIS_PER_HOUR;
+
+    /**
+     * The default number of sessions validated together (100).
+     *
+     * @since 1.4.1
+     */
+    public static final int DEFAULT_SESSION_VALIDATION_BATCH_SIZE = 100;
+
     protected boolean sessionValidationSchedulerEnabled;
 
     /**
@@ -58,9 +84,36 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
 
     protected long sessionValidationInterval;
 
+    private boolean sessionExpiryIndexEnabled;
+
+    private long sessionExpiryIndexFullScanInterval;
+
+    private volatile SessionExpiryIndex sessionExpiryIndex;
+
+    private volatile long lastFullValidation;
+
+    private int sessionValidationPageSize;
+
+    private long sessionValidationTimeBudget;
+
+    private volatile Object sessionValidationCursor;
+
+    private int sessionValidationBatchSize;
+
+    private int sessionValidationThreads;
+
+    private ExecutorService sessionValidationExecutor;
+
+    private ExecutorService defaultSessionValidationExecutor;
+
+    private volatile SessionValidationResult lastSessionValidationResult;
+
     public AbstractValidatingSessionManager() {
         this.sessionValidationSchedulerEnabled = true;
         this.sessionValidationInterval = DEFAULT_SESSION_VALIDATION_INTERVAL;
+        this.sessionExpiryIndexEnabled = false;
+        this.sessionExpiryIndexFullScanInterval = DEFAULT_SESSION_EXPIRY_INDEX_FULL_SCAN_INTERVAL;
+        this.sessionValidationBatchSize = DEFAULT_SESSION_VALIDATION_BATCH_SIZE;
     }
 
     public boolean isSessionValidationSchedulerEnabled() {
@@ -109,6 +162,290 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
         return sessionValidationInterval;
     }
 
+    /**
+     * Returns the number of active sessions loaded at a time by {@link #validateSessions() session validation}, if
+     * the underlying data store supports {@link #getActiveSessions(Object, int) paging}.  The default value is
+     * {@code 0}, meaning all active sessions are loaded at once.
+     *
+     * @return the number of active sessions loaded at a time by session validation, {@code 0} or less to load them
+     *         all at once.
+     * @since 1.4.1
+     */
+    public int getSessionValidationPageSize() {
+        return sessionValidationPageSize;
+    }
+
+    /**
+     * Sets the number of active sessions loaded at a time by {@link #validateSessions() session validation}.
+     * <p/>
+     * Loading every active session at once needs memory proportional to the number of sessions, which a persistent
+     * data store may hold millions of.  When positive, and if the underlying data store supports
+     * {@link #getActiveSessions(Object, int) paging} (e.g. with a
+     * {@link org.apache.shiro.session.mgt.eis.PagingSessionDAO PagingSessionDAO}), sessions are loaded and validated
+     * this many at a time instead, keeping the memory used by validation flat.  Combined with a
+     * {@link #setSessionValidationTimeBudget(long) time budget}, a validation run may also stop before the last page
+     * and resume from there on the next run.
+     *
+     * @param sessionValidationPageSize the number of active sessions loaded at a time by session validation,
+     *                                  {@code 0} or less to load them all at once.
+     * @since 1.4.1
+     */
+    public void setSessionValidationPageSize(int sessionValidationPageSize) {
+        this.sessionValidationPageSize = sessionValidationPageSize;
+    }
+
+    /**
+     * Returns the time in milliseconds after which a paged {@link #validateSessions() session validation} run stops
+     * loading pages, to resume on the next run.  The default value is {@code 0}, meaning each run validates every
+     * page.
+     *
+     * @return the time in milliseconds a paged session validation run may take, {@code 0} or less if unlimited.
+     * @since 1.4.1
+     */
+    public long getSessionValidationTimeBudget() {
+        return sessionValidationTimeBudget;
+    }
+
+    /**
+     * Sets the time in milliseconds after which a paged {@link #validateSessions() session validation} run stops
+     * loading pages, to resume with the next page on the next run.  The budget is checked between pages, so it only
+     * applies when the {@link #setSessionValidationPageSize(int) session validation page size} is positive and paging
+     * is supported; it spreads the validation of a large number of sessions over several runs instead of having a
+     * single run monopolize the data store.  When the paging cursor kept between runs is a live iterator, as with
+     * the in-memory {@code SessionDAO}s, the sessions created behind it are only validated by the next pass, which
+     * starts over from the first page.
+     *
+     * @param sessionValidationTimeBudget the time in milliseconds a paged session validation run may take,
+     *                                    {@code 0} or less if unlimited.
+     * @since 1.4.1
+     */
+    public void setSessionValidationTimeBudget(long sessionValidationTimeBudget) {
+        this.sessionValidationTimeBudget = sessionValidationTimeBudget;
+    }
+
+    /**
+     * Returns the number of sessions {@link #validateSessions() session validation} validates together, as a single
+     * task when validating in parallel.  The default value is {@link #DEFAULT_SESSION_VALIDATION_BATCH_SIZE}.
+     *
+     * @return the number of sessions validated together.
+     * @since 1.4.1
+     */
+    public int getSessionValidationBatchSize() {
+        return sessionValidationBatchSize;
+    }
+
+    /**
+     * Sets the number of sessions {@link #validateSessions() session validation} validates together: the sessions
+     * to validate are split in batches of this size, which are the tasks executed in parallel when a
+     * {@link #setSessionValidationExecutor(ExecutorService) session validation executor} is used, and whose invalid
+     * sessions subclasses may delete together (see
+     * {@link org.apache.shiro.session.mgt.eis.BatchSessionDAO BatchSessionDAO}).
+     *
+     * @param sessionValidationBatchSize the number of sessions validated together.
+     * @since 1.4.1
+     */
+    public void setSessionValidationBatchSize(int sessionValidationBatchSize) {
+        this.sessionValidationBatchSize = sessionValidationBatchSize;
+    }
+
+    /**
+     * Returns the number of threads validating sessions in parallel if no
+     * {@link #getSessionValidationExecutor() session validation executor} is set.  The default value is {@code 0},
+     * meaning sessions are validated sequentially by the thread calling {@link #validateSessions()}.
+     *
+     * @return the number of threads validating sessions in parallel.
+     * @since 1.4.1
+     */
+    public int getSessionValidationThreads() {
+        return sessionValidationThreads;
+    }
+
+    /**
+     * Sets the number of threads validating sessions in parallel, using a fixed size pool of daemon threads created
+     * on first use and shut down when this session manager is {@link #destroy() destroyed}.  Ignored if a
+     * {@link #setSessionValidationExecutor(ExecutorService) session validation executor} is set.
+     *
+     * @param sessionValidationThreads the number of threads validating sessions in parallel, {@code 1} or less to
+     *                                 validate sessions sequentially.
+     * @since 1.4.1
+     */
+    public void setSessionValidationThreads(int sessionValidationThreads) {
+        this.sessionValidationThreads = sessionValidationThreads;
+    }
+
+    /**
+     * Returns the executor validating session batches in parallel, or {@code null} if sessions are validated
+     * sequentially.
+     *
+     * @return the executor validating session batches in parallel, or {@code null}.
+     * @since 1.4.1
+     */
+    public synchronized ExecutorService getSessionValidationExecutor() {
+        if (sessionValidationExecutor != null) {
+            return sessionValidationExecutor;
+        }
+        if (defaultSessionValidationExecutor == null && sessionValidationThreads > 1) {
+            defaultSessionValidationExecutor = Executors.newFixedThreadPool(sessionValidationThreads,
+                    new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger(1);
+
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r);
+                            thread.setDaemon(true);
+                            thread.setName("SessionValidationWorker-" + count.getAndIncrement());
+                            return thread;
+                        }
+                    });
+        }
+        return defaultSessionValidationExecutor;
+    }
+
+    /**
+     * Sets the executor validating session batches in parallel.
+     * <p/>
+     * Validating sessions involves reading them and, for the invalid ones, notifying listeners and updating or
+     * deleting them, which with a remote data store is dominated by round trips.  When an executor is set, each
+     * {@link #setSessionValidationBatchSize(int) batch} of sessions is validated by a separate task, and
+     * {@link #validateSessions()} returns once every task completed.  Listeners are then notified on the executor's
+     * threads, which have no {@code Subject} bound.  The executor is owned by the caller and is not shut down by
+     * this session manager.
+     *
+     * @param sessionValidationExecutor the executor validating session batches in parallel, or {@code null} to
+     *                                  validate them sequentially (or with
+     *                                  {@link #setSessionValidationThreads(int) sessionValidationThreads}).
+     * @since 1.4.1
+     */
+    public synchronized void setSessionValidationExecutor(ExecutorService sessionValidationExecutor) {
+        this.sessionValidationExecutor = sessionValidationExecutor;
+    }
+
+    /**
+     * Returns the result of the last completed {@link #validateSessions() session validation} run, or {@code null}
+     * if no run completed yet.
+     *
+     * @return the result of the last completed session validation run, or {@code null}.
+     * @since 1.4.1
+     */
+    public SessionValidationResult getLastSessionValidationResult() {
+        return lastSessionValidationResult;
+    }
+
+    /**
+     * Returns {@code true} if {@link #validateSessions() session validation} only visits the sessions that may have
+     * expired, as recorded by a {@link SessionExpiryIndex}, {@code false} if it visits every active session.  The
+     * default value is {@code false}.
+     *
+     * @return {@code true} if session validation uses an expiry index, {@code false} otherwise.
+     * @since 1.4.1
+     */
+    public boolean isSessionExpiryIndexEnabled() {
+        return sessionExpiryIndexEnabled;
+    }
+
+    /**
+     * Sets whether {@link #validateSessions() session validation} only visits the sessions that may have expired,
+     * instead of every active session.
+     * <p/>
+     * Validating every {@link #getActiveSessions() active session} takes time proportional to the number of sessions,
+     * however few of them expire.  When enabled, this session manager indexes the sessions it creates by expiry time
+     * (last access time plus timeout), in a {@link SessionExpiryIndex} whose resolution is the
+     * {@link #getSessionValidationInterval() session validation interval}, and each validation only visits the
+     * sessions due.  Retrieving or touching a session does not update the index: a session whose expiry time moved
+     * later since it was last indexed is simply checked once more when it is due and re-indexed then.  A session
+     * whose timeout changes is re-indexed right away, since its expiry time may move earlier.
+     * <p/>
+     * The index only knows about the sessions this session manager instance created or validated, so the first
+     * validation and then one every {@link #getSessionExpiryIndexFullScanInterval() sessionExpiryIndexFullScanInterval}
+     * still visit every active session, indexing the sessions created elsewhere (e.g. before a restart or by another
+     * node sharing the {@code SessionDAO}).
+     *
+     * @param sessionExpiryIndexEnabled whether session validation uses an expiry index.
+     * @since 1.4.1
+     */
+    public void setSessionExpiryIndexEnabled(boolean sessionExpiryIndexEnabled) {
+        this.sessionExpiryIndexEnabled = sessionExpiryIndexEnabled;
+        if (!sessionExpiryIndexEnabled) {
+            this.sessionExpiryIndex = null;
+        }
+    }
+
+    /**
+     * Returns the interval in milliseconds at which every active session is validated when the
+     * {@link #isSessionExpiryIndexEnabled() session expiry index} is enabled.  The default value is
+     * {@link #DEFAULT_SESSION_EXPIRY_INDEX_FULL_SCAN_INTERVAL}.
+     *
+     * @return the interval in milliseconds at which every active session is validated, {@code 0} or less if only the
+     *         first validation visits every active session.
+     * @since 1.4.1
+     */
+    public long getSessionExpiryIndexFullScanInterval() {
+        return sessionExpiryIndexFullScanInterval;
+    }
+
+    /**
+     * Sets the interval in milliseconds at which every active session is validated when the
+     * {@link #isSessionExpiryIndexEnabled() session expiry index} is enabled, so that sessions which were never
+     * created nor validated by this session manager instance, e.g. those of a failed cluster node, are eventually
+     * validated too.
+     *
+     * @param sessionExpiryIndexFullScanInterval
+     *         the interval in milliseconds at which every active session is validated, {@code 0} or less if only the
+     *         first validation should visit every active session.
+     * @since 1.4.1
+     */
+    public void setSessionExpiryIndexFullScanInterval(long sessionExpiryIndexFullScanInterval) {
+        this.sessionExpiryIndexFullScanInterval = sessionExpiryIndexFullScanInterval;
+    }
+
+    /**
+     * Returns the index of sessions by expiry time, or {@code null} if the
+     * {@link #isSessionExpiryIndexEnabled() session expiry index} is disabled.
+     *
+     * @return the index of sessions by expiry time, or {@code null} if it is disabled.
+     * @since 1.4.1
+     */
+    protected SessionExpiryIndex getSessionExpiryIndex() {
+        if (!isSessionExpiryIndexEnabled()) {
+            return null;
+        }
+        SessionExpiryIndex index = this.sessionExpiryIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = this.sessionExpiryIndex;
+                if (index == null) {
+                    long resolution = getSessionValidationInterval();
+                    index = new SessionExpiryIndex(resolution > 0 ? resolution : DEFAULT_SESSION_VALIDATION_INTERVAL);
+                    this.sessionExpiryIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private void scheduleExpiry(Session session) {
+        SessionExpiryIndex index = getSessionExpiryIndex();
+        Serializable id = session.getId();
+        if (index == null || id == null) {
+            return;
+        }
+        long timeout = getTimeout(session);
+        if (timeout < 0) {
+            //never expires:
+            index.remove(id);
+            return;
+        }
+        Date lastAccessTime = session.getLastAccessTime();
+        long base = lastAccessTime != null ? lastAccessTime.getTime() : System.currentTimeMillis();
+        index.schedule(id, timeout > Long.MAX_VALUE - base ? Long.MAX_VALUE : base + timeout);
+    }
+
+    private void unscheduleExpiry(Session session) {
+        SessionExpiryIndex index = this.sessionExpiryIndex;
+        if (index != null && session.getId() != null) {
+            index.remove(session.getId());
+        }
+    }
+
     @Override
     protected final Session doGetSession(final SessionKey key) throws InvalidSessionException {
         enableSessionValidationIfNecessary();
@@ -138,13 +475,33 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
 
     protected abstract Session doCreateSession(SessionContext initData) throws AuthorizationException;
 
+    @Override
+    protected void applyGlobalSessionTimeout(Session session) {
+        super.applyGlobalSessionTimeout(session);
+        scheduleExpiry(session);
+    }
+
+    @Override
+    protected void afterTimeoutChanged(Session session) {
+        //a shorter timeout moves the expiry time earlier, so the session must be re-indexed right away:
+        scheduleExpiry(session);
+    }
+
+    @Override
+    protected void onStop(Session session, SessionKey key) {
+        unscheduleExpiry(session);
+        super.onStop(session, key);
+    }
+
     protected void validate(Session session, SessionKey key) throws InvalidSessionException {
         try {
             doValidate(session);
         } catch (ExpiredSessionException ese) {
+            unscheduleExpiry(session);
             onExpiration(session, ese, key);
             throw ese;
         } catch (InvalidSessionException ise) {
+            unscheduleExpiry(session);
             onInvalidation(session, ise, key);
             throw ise;
         }
@@ -265,49 +622,212 @@ public abstract class AbstractValidatingSessionManager extends AbstractNativeSes
 
     public void destroy() {
         disableSessionValidation();
+        synchronized (this) {
+            if (defaultSessionValidationExecutor != null) {
+                defaultSessionValidationExecutor.shutdownNow();
+                defaultSessionValidationExecutor = null;
+            }
+        }
     }
 
     /**
+     * Validates the active sessions, all of them unless the
+     * {@link #isSessionExpiryIndexEnabled() session expiry index} is enabled, in which case only the sessions due are
+     * validated, apart from a periodic {@link #getSessionExpiryIndexFullScanInterval() full scan}.  The active
+     * sessions are loaded a {@link #getSessionValidationPageSize() page} at a time if paging is supported, and
+     * validated in {@link #getSessionValidationBatchSize() batches}, in parallel if a
+     * {@link #getSessionValidationExecutor() session validation executor} is available.
+     *
      * @see ValidatingSessionManager#validateSessions()
      */
     public void validateSessions() {
+        SessionExpiryIndex index = getSessionExpiryIndex();
+        long now = System.currentTimeMillis();
+        long fullScanInterval = getSessionExpiryIndexFullScanInterval();
+        boolean fullScan = index == null || sessionValidationCursor != null || lastFullValidation == 0 ||
+                (fullScanInterval > 0 && now - lastFullValidation >= fullScanInterval);
+
         if (log.isInfoEnabled()) {
-            log.info("Validating all active sessions...");
+            String msg;
+            if (!fullScan) {
+                msg = "Validating sessions due to expire...";
+            } else if (sessionValidationCursor != null) {
+                msg = "Resuming validation of all active sessions...";
+            } else {
+                msg = "Validating all active sessions...";
+            }
+            log.info(msg);
         }
 
-        int invalidCount = 0;
+        SessionValidationResult result = new SessionValidationResult(now);
 
-        Collection<Session> activeSessions = getActiveSessions();
+        if (fullScan) {
+            if (sessionValidationCursor == null) {
+                lastFullValidation = now;
+            }
+            validateActiveSessions(result);
+        }
+        if (index != null) {
+            validateInBatches(index.pollDue(now), true, result);
+        }
+
+        result.completed(System.currentTimeMillis());
+        lastSessionValidationResult = result;
 
+        if (log.isInfoEnabled()) {
+            String msg = "Finished session validation: " + result + ".";
+            if (sessionValidationCursor != null) {
+                msg += "  Remaining sessions will be validated on the next run.";
+            }
+            log.info(msg);
+        }
+    }
+
+    private void validateActiveSessions(SessionValidationResult result) {
+        int pageSize = getSessionValidationPageSize();
+        if (pageSize > 0) {
+            Object cursor = sessionValidationCursor;
+            //forget the cursor until this run completes, so that a failure restarts from the first page:
+            sessionValidationCursor = null;
+            long budget = getSessionValidationTimeBudget();
+            SessionPage page;
+            while ((page = getActiveSessions(cursor, pageSize)) != null) {
+                validateInBatches(page.getSessions(), false, result);
+                cursor = page.getNextCursor();
+                if (cursor == null) {
+                    return;
+                }
+                if (budget > 0 && System.currentTimeMillis() - result.getStartTime() >= budget) {
+                    sessionValidationCursor = cursor;
+                    return;
+                }
+            }
+            //paging is not supported, fall back to loading all active sessions:
+        }
+
+        Collection<Session> activeSessions = getActiveSessions();
         if (activeSessions != null && !activeSessions.isEmpty()) {
-            for (Session s : activeSessions) {
-                try {
-                    //simulate a lookup key to satisfy the method signature.
-                    //this could probably stand to be cleaned up in future versions:
-                    SessionKey key = new DefaultSessionKey(s.getId());
-                    validate(s, key);
-                } catch (InvalidSessionException e) {
-                    if (log.isDebugEnabled()) {
-                        boolean expired = (e instanceof ExpiredSessionException);
-                        String msg = "Invalidated session with id [" + s.getId() + "]" +
-                                (expired ? " (expired)" : " (stopped)");
-                        log.debug(msg);
+            validateInBatches(activeSessions, false, result);
+        }
+    }
+
+    /**
+     * Validates the specified sessions, or the sessions with the specified ids, a batch at a time, in parallel if an
+     * executor is available.
+     */
+    private void validateInBatches(Collection<?> items, final boolean sessionIds, final SessionValidationResult result) {
+        if (items.isEmpty()) {
+            return;
+        }
+        int batchSize = Math.max(1, getSessionValidationBatchSize());
+        ExecutorService executor = getSessionValidationExecutor();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        List<Object> batch = new ArrayList<Object>(Math.min(batchSize, items.size()));
+        for (Object item : items) {
+            batch.add(item);
+            if (batch.size() >= batchSize) {
+                validateBatch(batch, sessionIds, result, executor, futures);
+                batch = new ArrayList<Object>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            validateBatch(batch, sessionIds, result, executor, futures);
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                log.error("Unable to validate a batch of sessions.", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<?> pending : futures) {
+                    pending.cancel(true);
+                }
+                return;
+            }
+        }
+    }
+
+    private void validateBatch(final List<Object> batch, final boolean sessionIds,
+                               final SessionValidationResult result, ExecutorService executor,
+                               List<Future<?>> futures) {
+        Runnable task = new Runnable() {
+            public void run() {
+                List<Session> sessions = new ArrayList<Session>(batch.size());
+                for (Object item : batch) {
+                    if (sessionIds) {
+                        try {
+                            Session s = retrieveSession(new DefaultSessionKey((Serializable) item));
+                            if (s != null) {
+                                sessions.add(s);
+                            }
+                        } catch (UnknownSessionException e) {
+                            //deleted since it was indexed, nothing to validate
+                        }
+                    } else {
+                        sessions.add((Session) item);
                     }
-                    invalidCount++;
                 }
+                validate(sessions, result);
             }
+        };
+        if (executor != null) {
+            futures.add(executor.submit(task));
+        } else {
+            task.run();
         }
+    }
 
-        if (log.isInfoEnabled()) {
-            String msg = "Finished session validation.";
-            if (invalidCount > 0) {
-                msg += "  [" + invalidCount + "] sessions were stopped.";
-            } else {
-                msg += "  No sessions were stopped.";
+    /**
+     * Validates the specified batch of sessions during a {@link #validateSessions() session validation} run,
+     * recording the outcome in the specified result.  This method may be invoked concurrently for different batches.
+     * <p/>
+     * This implementation {@link #validate(Session, SessionKey) validates} each session in turn; subclasses may
+     * override it to apply the changes made to the batch's invalid sessions together.
+     *
+     * @param sessions the sessions to validate.
+     * @param result   the result of the session validation run.
+     * @since 1.4.1
+     */
+    protected void validate(Collection<Session> sessions, SessionValidationResult result) {
+        for (Session s : sessions) {
+            result.scanned();
+            try {
+                //simulate a lookup key to satisfy the method signature.
+                //this could probably stand to be cleaned up in future versions:
+                SessionKey key = new DefaultSessionKey(s.getId());
+                validate(s, key);
+                scheduleExpiry(s);
+            } catch (InvalidSessionException e) {
+                boolean expired = (e instanceof ExpiredSessionException);
+                if (expired) {
+                    result.expired();
+                } else {
+                    result.stopped();
+                }
+                if (log.isDebugEnabled()) {
+                    String msg = "Invalidated session with id [" + s.getId() + "]" +
+                            (expired ? " (expired)" : " (stopped)");
+                    log.debug(msg);
+                }
             }
-            log.info(msg);
         }
     }
 
     protected abstract Collection<Session> getActiveSessions();
+
+    /**
+     * Returns the next page of at most {@code pageSize} active sessions, or {@code null} if the underlying data store
+     * does not support paging, in which case {@link #getActiveSessions()} is used instead.  This implementation
+     * returns {@code null}.
+     *
+     * @param cursor   the cursor of the previous page, or {@code null} to return the first page.
+     * @param pageSize the maximum number of sessions to return.
+     * @return the next page of active sessions, or {@code null} if paging is not supported.
+     * @see #setSessionValidationPageSize(int)
+     * @since 1.4.1
+     */
+    protected SessionPage getActiveSessions(Object cursor, int pageSize) {
+        return null;
+    }
 }
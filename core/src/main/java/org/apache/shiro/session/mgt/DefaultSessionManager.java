@@ -22,15 +22,21 @@ import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.cache.CacheManagerAware;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.eis.BatchSessionDAO;
+import org.apache.shiro.session.mgt.eis.DeltaSessionDAO;
 import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+import org.apache.shiro.session.mgt.eis.PagingSessionDAO;
 import org.apache.shiro.session.mgt.eis.SessionDAO;
+import org.apache.shiro.session.mgt.eis.SessionPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Default business-tier implementation of a {@link ValidatingSessionManager}.  All session CRUD operations are
@@ -52,8 +58,17 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
 
     private boolean deleteInvalidSessions;
 
+    private boolean sessionWriteBehindEnabled;
+
+    /**
+     * The sessions deleted by the session validation batch executing on the current thread, if batched deletes are
+     * supported by the {@code SessionDAO}.
+     */
+    private final ThreadLocal<List<Session>> batchedDeletes = new ThreadLocal<List<Session>>();
+
     public DefaultSessionManager() {
         this.deleteInvalidSessions = true;
+        this.sessionWriteBehindEnabled = false;
         this.sessionFactory = new SimpleSessionFactory();
         this.sessionDAO = new MemorySessionDAO();
     }
@@ -128,6 +143,42 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
         this.deleteInvalidSessions = deleteInvalidSessions;
     }
 
+    /**
+     * Returns {@code true} if the changes made to a session during a unit of work are persisted once, when the unit of
+     * work ends, {@code false} if each change is persisted immediately.  The default value is {@code false}.
+     *
+     * @return {@code true} if session changes are persisted when the unit of work that made them ends.
+     * @see #setSessionWriteBehindEnabled(boolean)
+     * @since 1.4.1
+     */
+    public boolean isSessionWriteBehindEnabled() {
+        return sessionWriteBehindEnabled;
+    }
+
+    /**
+     * Sets whether the changes made to a session during a unit of work are persisted once, when the unit of work ends,
+     * instead of each change being persisted immediately with a
+     * {@link SessionDAO#update(org.apache.shiro.session.Session) SessionDAO.update} call.
+     * <p/>
+     * A unit of work is the execution of a {@link org.apache.shiro.subject.support.SubjectCallable SubjectCallable}
+     * or {@link org.apache.shiro.subject.support.SubjectRunnable SubjectRunnable}, e.g. via
+     * {@link org.apache.shiro.subject.Subject#execute(java.util.concurrent.Callable) Subject.execute}, which in a
+     * web application spans the processing of a request.  When enabled, a request setting five session attributes
+     * costs a single {@code SessionDAO} update, performed when the request completes; the pending session is returned
+     * by any lookup made in the meantime.  The changes made by a unit of work can be persisted earlier with
+     * {@link DeferredSessionUpdates#flushBound()}.
+     * <p/>
+     * Stopping, expiring or deleting a session is always persisted immediately, and session changes made outside of a
+     * unit of work are persisted immediately as well.
+     *
+     * @param sessionWriteBehindEnabled whether session changes are persisted when the unit of work that made them ends.
+     * @see DeferredSessionUpdates
+     * @since 1.4.1
+     */
+    public void setSessionWriteBehindEnabled(boolean sessionWriteBehindEnabled) {
+        this.sessionWriteBehindEnabled = sessionWriteBehindEnabled;
+    }
+
     public void setCacheManager(CacheManager cacheManager) {
         this.cacheManager = cacheManager;
         applyCacheManagerToSessionDAO();
@@ -175,6 +226,7 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
             log.debug("Creating new EIS record for new session instance [" + session + "]");
         }
         sessionDAO.create(session);
+        enableDeltaTracking(session);
     }
 
     @Override
@@ -184,7 +236,7 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
             Date stopTs = ss.getStopTimestamp();
             ss.setLastAccessTime(stopTs);
         }
-        onChange(session);
+        updateImmediately(session);
     }
 
     @Override
@@ -198,7 +250,7 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
         if (session instanceof SimpleSession) {
             ((SimpleSession) session).setExpired(true);
         }
-        onChange(session);
+        updateImmediately(session);
     }
 
     @Override
@@ -209,7 +261,65 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
     }
 
     protected void onChange(Session session) {
+        DeferredSessionUpdates deferred = isSessionWriteBehindEnabled() ?
+                DeferredSessionUpdates.bindIfInUnitOfWork() : null;
+        if (deferred != null) {
+            deferred.defer(this, session);
+        } else {
+            update(session);
+        }
+    }
+
+    /**
+     * Persists the given session's current state to the underlying EIS.  This implementation delegates and calls
+     * <code>this.{@link SessionDAO sessionDAO}.{@link SessionDAO#update(org.apache.shiro.session.Session) update}(session);<code>
+     * <p/>
+     * If the {@code sessionDAO} is a {@link DeltaSessionDAO} and the changes made to the session since it was last
+     * persisted are tracked, only those changes are persisted with a
+     * {@link DeltaSessionDAO#update(Session, SessionDelta) DeltaSessionDAO.update(session, delta)} call instead,
+     * and nothing is persisted if the session has not changed.
+     *
+     * @param session the Session instance to persist to the underlying EIS.
+     * @since 1.4.1
+     */
+    protected void update(Session session) {
+        Date lastAccessTime = session.getLastAccessTime();
+        if (sessionDAO instanceof DeltaSessionDAO && session instanceof SimpleSession) {
+            SimpleSession simple = (SimpleSession) session;
+            SessionDelta delta = simple.takeDelta();
+            if (delta != null && !delta.isFull()) {
+                if (!delta.isEmpty()) {
+                    try {
+                        ((DeltaSessionDAO) sessionDAO).update(session, delta);
+                    } catch (RuntimeException e) {
+                        simple.deltaFailed();
+                        throw e;
+                    }
+                }
+                touchPersisted(session, lastAccessTime);
+                return;
+            }
+        }
         sessionDAO.update(session);
+        touchPersisted(session, lastAccessTime);
+    }
+
+    private void enableDeltaTracking(Session session) {
+        if (sessionDAO instanceof DeltaSessionDAO && session instanceof SimpleSession) {
+            ((SimpleSession) session).enableDeltaTracking();
+        }
+    }
+
+    private void updateImmediately(Session session) {
+        DeferredSessionUpdates deferred = getDeferredSessionUpdates();
+        if (deferred != null) {
+            deferred.remove(this, session);
+        }
+        update(session);
+    }
+
+    private DeferredSessionUpdates getDeferredSessionUpdates() {
+        return isSessionWriteBehindEnabled() ? DeferredSessionUpdates.getBound() : null;
     }
 
     protected Session retrieveSession(SessionKey sessionKey) throws UnknownSessionException {
@@ -233,16 +343,79 @@ public class DefaultSessionManager extends AbstractValidatingSessionManager impl
     }
 
     protected Session retrieveSessionFromDataSource(Serializable sessionId) throws UnknownSessionException {
-        return sessionDAO.readSession(sessionId);
+        DeferredSessionUpdates deferred = getDeferredSessionUpdates();
+        if (deferred != null) {
+            //a session changed earlier in this unit of work is more recent than its persisted state:
+            Session pending = deferred.get(this, sessionId);
+            if (pending != null) {
+                return pending;
+            }
+        }
+        Session session = sessionDAO.readSession(sessionId);
+        enableDeltaTracking(session);
+        return session;
     }
 
     protected void delete(Session session) {
+        DeferredSessionUpdates deferred = getDeferredSessionUpdates();
+        if (deferred != null) {
+            deferred.remove(this, session);
+        }
+        List<Session> batch = batchedDeletes.get();
+        if (batch != null) {
+            batch.add(session);
+            return;
+        }
         sessionDAO.delete(session);
     }
 
+    /**
+     * Validates the specified batch of sessions and, if the {@code SessionDAO} is a {@link BatchSessionDAO}, deletes
+     * the invalid ones with a single {@link BatchSessionDAO#delete(Collection) delete} call once the whole batch is
+     * validated.
+     *
+     * @param sessions the sessions to validate.
+     * @param result   the result of the session validation run.
+     * @since 1.4.1
+     */
+    @Override
+    protected void validate(Collection<Session> sessions, SessionValidationResult result) {
+        if (!(sessionDAO instanceof BatchSessionDAO)) {
+            super.validate(sessions, result);
+            return;
+        }
+        List<Session> deletes = new ArrayList<Session>();
+        batchedDeletes.set(deletes);
+        try {
+            super.validate(sessions, result);
+        } finally {
+            batchedDeletes.remove();
+            if (!deletes.isEmpty()) {
+                ((BatchSessionDAO) sessionDAO).delete(deletes);
+            }
+        }
+    }
+
     protected Collection<Session> getActiveSessions() {
         Collection<Session> active = sessionDAO.getActiveSessions();
         return active != null ? active : Collections.<Session>emptySet();
     }
 
+    /**
+     * Returns the next page of active sessions from the {@code SessionDAO} if it is a {@link PagingSessionDAO},
+     * {@code null} otherwise.
+     *
+     * @param cursor   the cursor of the previous page, or {@code null} to return the first page.
+     * @param pageSize the maximum number of sessions to return.
+     * @return the next page of active sessions, or {@code null} if the {@code SessionDAO} does not support paging.
+     * @since 1.4.1
+     */
+    @Override
+    protected SessionPage getActiveSessions(Object cursor, int pageSize) {
+        if (sessionDAO instanceof PagingSessionDAO) {
+            return ((PagingSessionDAO) sessionDAO).getActiveSessions(cursor, pageSize);
+        }
+        return null;
+    }
+
 }
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.util.ThreadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the sessions changed by a unit of work executing on a single thread, so that a
+ * {@link DefaultSessionManager} with {@link DefaultSessionManager#isSessionWriteBehindEnabled() write-behind} enabled
+ * persists each of them once, when the unit of work ends, instead of once per change.
+ * <p/>
+ * A unit of work is {@link #bindUnitOfWork(Object) marked} on the {@link ThreadContext ThreadContext} by
+ * {@link org.apache.shiro.subject.support.SubjectThreadState SubjectThreadState} when a subject is bound, i.e. for
+ * the duration of a {@link org.apache.shiro.subject.support.SubjectCallable SubjectCallable} or
+ * {@link org.apache.shiro.subject.support.SubjectRunnable SubjectRunnable} execution (which, in a web application,
+ * spans the processing of a request).  Marking it only binds a shared constant: an instance is created and bound by the
+ * session manager when it first defers a change, so that a unit of work changing no session, or running with
+ * write-behind disabled, costs no allocation, and the outermost thread state {@link #flush() flushes} it when it is
+ * restored.  Changes made outside of a unit of work are persisted immediately.
+ * <p/>
+ * Pending sessions are kept per session manager and session id, so that a session changed several times is persisted
+ * once, and looking it up again during the unit of work returns the pending instance rather than a stale copy read
+ * from the {@code SessionDAO}.  This class is not thread-safe, since instances are only ever accessed by the thread
+ * they are bound to.
+ *
+ * @see DefaultSessionManager#setSessionWriteBehindEnabled(boolean)
+ * @since 1.4.1
+ */
+public class DeferredSessionUpdates {
+
+    private static final Logger log = LoggerFactory.getLogger(DeferredSessionUpdates.class);
+
+    /**
+     * The {@link ThreadContext ThreadContext} key under which the current instance is bound.
+     */
+    public static final String THREAD_CONTEXT_KEY = DeferredSessionUpdates.class.getName() + "_THREAD_CONTEXT_KEY";
+
+    /**
+     * Bound under {@link #THREAD_CONTEXT_KEY} to mark a unit of work in which no change has been deferred yet.
+     */
+    private static final Object NO_UPDATES = new Object();
+
+    private Map<DefaultSessionManager, Map<Serializable, Session>> pending;
+
+    /**
+     * Returns the instance bound to the current thread, or {@code null} if there is none.
+     *
+     * @return the instance bound to the current thread, or {@code null} if there is none.
+     */
+    public static DeferredSessionUpdates getBound() {
+        Object bound = ThreadContext.get(THREAD_CONTEXT_KEY);
+        return bound instanceof DeferredSessionUpdates ? (DeferredSessionUpdates) bound : null;
+    }
+
+    /**
+     * {@link #flush() Flushes} the instance bound to the current thread, if any, so that the session changes made so
+     * far are persisted before the unit of work ends, e.g. before the response to a request is committed.
+     */
+    public static void flushBound() {
+        DeferredSessionUpdates bound = getBound();
+        if (bound != null) {
+            bound.flush();
+        }
+    }
+
+    /**
+     * Returns the unit of work marked on the current thread, to be passed back to
+     * {@link #bindUnitOfWork(Object) bindUnitOfWork} or {@link #flushUnitOfWork(Object) flushUnitOfWork}, or
+     * {@code null} if the current thread is not executing a unit of work.
+     *
+     * @return the unit of work marked on the current thread, or {@code null} if there is none.
+     */
+    public static Object getUnitOfWork() {
+        return ThreadContext.get(THREAD_CONTEXT_KEY);
+    }
+
+    /**
+     * Marks the current thread as executing the specified unit of work, as returned by
+     * {@link #getUnitOfWork() getUnitOfWork}, or a new one if it is {@code null}.
+     *
+     * @param unitOfWork the unit of work to bind, or {@code null} to start a new one.
+     */
+    public static void bindUnitOfWork(Object unitOfWork) {
+        ThreadContext.put(THREAD_CONTEXT_KEY, unitOfWork != null ? unitOfWork : NO_UPDATES);
+    }
+
+    /**
+     * {@link #flush() Flushes} the specified unit of work, as returned by {@link #getUnitOfWork() getUnitOfWork},
+     * if a change was deferred during it.
+     *
+     * @param unitOfWork the unit of work to flush, may be {@code null}.
+     */
+    public static void flushUnitOfWork(Object unitOfWork) {
+        if (unitOfWork instanceof DeferredSessionUpdates) {
+            ((DeferredSessionUpdates) unitOfWork).flush();
+        }
+    }
+
+    /**
+     * Returns the instance bound to the current thread, creating and binding one if the current thread is executing
+     * a unit of work in which no change was deferred yet, or {@code null} if it is not executing a unit of work.
+     *
+     * @return the instance bound to the current thread, or {@code null} if it is not executing a unit of work.
+     */
+    static DeferredSessionUpdates bindIfInUnitOfWork() {
+        Object bound = ThreadContext.get(THREAD_CONTEXT_KEY);
+        if (bound == null || bound instanceof DeferredSessionUpdates) {
+            return (DeferredSessionUpdates) bound;
+        }
+        DeferredSessionUpdates updates = new DeferredSessionUpdates();
+        ThreadContext.put(THREAD_CONTEXT_KEY, updates);
+        return updates;
+    }
+
+    /**
+     * Returns {@code true} if no session update is pending, {@code false} otherwise.
+     *
+     * @return {@code true} if no session update is pending, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        if (pending != null) {
+            for (Map<Serializable, Session> sessions : pending.values()) {
+                if (!sessions.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Persists every pending session with the session manager that changed it, in the order the sessions were first
+     * changed, and forgets them.  A failure to persist a session does not prevent the remaining sessions from being
+     * persisted: once they all have been attempted, the first failure is rethrown, as it would have been by the
+     * change itself without write-behind, and any further failure is logged.
+     *
+     * @throws RuntimeException the first failure to persist a session.
+     */
+    public void flush() {
+        if (pending == null) {
+            return;
+        }
+        List<Map.Entry<DefaultSessionManager, Map<Serializable, Session>>> managers =
+                new ArrayList<Map.Entry<DefaultSessionManager, Map<Serializable, Session>>>(pending.entrySet());
+        pending = null;
+        RuntimeException failure = null;
+        for (Map.Entry<DefaultSessionManager, Map<Serializable, Session>> entry : managers) {
+            DefaultSessionManager sessionManager = entry.getKey();
+            for (Session session : entry.getValue().values()) {
+                try {
+                    sessionManager.update(session);
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        log.error("Unable to persist the deferred update of session [" + session.getId() + "].", e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Records the specified session as changed by the specified session manager.
+     *
+     * @param sessionManager the session manager that changed the session.
+     * @param session        the changed session.
+     */
+    void defer(DefaultSessionManager sessionManager, Session session) {
+        if (pending == null) {
+            pending = new LinkedHashMap<DefaultSessionManager, Map<Serializable, Session>>(2);
+        }
+        Map<Serializable, Session> sessions = pending.get(sessionManager);
+        if (sessions == null) {
+            sessions = new LinkedHashMap<Serializable, Session>();
+            pending.put(sessionManager, sessions);
+        }
+        sessions.put(session.getId(), session);
+    }
+
+    /**
+     * Returns the pending session with the specified id changed by the specified session manager, or {@code null}.
+     *
+     * @param sessionManager the session manager that changed the session.
+     * @param sessionId      the id of the session.
+     * @return the pending session with the specified id, or {@code null} if it has no pending update.
+     */
+    Session get(DefaultSessionManager sessionManager, Serializable sessionId) {
+        Map<Serializable, Session> sessions = pending != null ? pending.get(sessionManager) : null;
+        return sessions != null ? sessions.get(sessionId) : null;
+    }
+
+    /**
+     * Forgets the pending update of the specified session, if any.
+     *
+     * @param sessionManager the session manager that changed the session.
+     * @param session        the session.
+     * @return {@code true} if an update of the session was pending, {@code false} otherwise.
+     */
+    boolean remove(DefaultSessionManager sessionManager, Session session) {
+        Map<Serializable, Session> sessions = pending != null ? pending.get(sessionManager) : null;
+        return sessions != null && sessions.remove(session.getId()) != null;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Describes the changes made to a {@link SimpleSession} since its state was last persisted, so that a
+ * {@link org.apache.shiro.session.mgt.eis.DeltaSessionDAO DeltaSessionDAO} can write only what changed instead of
+ * the whole session.
+ * <p/>
+ * Attribute changes are recorded per key: the {@link #getChangedAttributeKeys() changed} keys, whose current values
+ * are read from the session, and the {@link #getRemovedAttributeKeys() removed} keys.  Only changes made through
+ * {@link SimpleSession#setAttribute(Object, Object) setAttribute} and
+ * {@link SimpleSession#removeAttribute(Object) removeAttribute} are recorded, as with servlet container sessions an
+ * attribute value mutated in place must be set again for its change to be persisted.  Changes of the session's
+ * timestamps, timeout and expired flag are recorded as flags.  Any other change, such as replacing the whole attribute
+ * map or the session's id or host, makes the delta {@link #isFull() full}: the whole session must then be persisted.
+ *
+ * @see org.apache.shiro.session.mgt.eis.DeltaSessionDAO
+ * @since 1.4.1
+ */
+public class SessionDelta {
+
+    private Set<Object> changedAttributeKeys;
+    private Set<Object> removedAttributeKeys;
+    private boolean lastAccessTimeChanged;
+    private boolean stopTimestampChanged;
+    private boolean timeoutChanged;
+    private boolean expiredChanged;
+    private boolean full;
+
+    /**
+     * Returns the keys of the attributes set since the session was last persisted, in the order they were first set.
+     *
+     * @return the keys of the attributes set since the session was last persisted, never {@code null}.
+     */
+    public Set<Object> getChangedAttributeKeys() {
+        if (changedAttributeKeys == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(changedAttributeKeys);
+    }
+
+    /**
+     * Returns the keys of the attributes removed since the session was last persisted, in the order they were first
+     * removed.  A key set again after its removal is only part of the {@link #getChangedAttributeKeys() changed} keys.
+     *
+     * @return the keys of the attributes removed since the session was last persisted, never {@code null}.
+     */
+    public Set<Object> getRemovedAttributeKeys() {
+        if (removedAttributeKeys == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(removedAttributeKeys);
+    }
+
+    public boolean isLastAccessTimeChanged() {
+        return lastAccessTimeChanged;
+    }
+
+    public boolean isStopTimestampChanged() {
+        return stopTimestampChanged;
+    }
+
+    public boolean isTimeoutChanged() {
+        return timeoutChanged;
+    }
+
+    public boolean isExpiredChanged() {
+        return expiredChanged;
+    }
+
+    /**
+     * Returns {@code true} if the session changed in a way this delta cannot describe, in which case the whole
+     * session must be persisted, {@code false} otherwise.
+     *
+     * @return {@code true} if the whole session must be persisted, {@code false} otherwise.
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Returns {@code true} if the session has not changed since it was last persisted, {@code false} otherwise.
+     *
+     * @return {@code true} if the session has not changed since it was last persisted, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return !full && !lastAccessTimeChanged && !stopTimestampChanged && !timeoutChanged && !expiredChanged &&
+                (changedAttributeKeys == null || changedAttributeKeys.isEmpty()) &&
+                (removedAttributeKeys == null || removedAttributeKeys.isEmpty());
+    }
+
+    void attributeChanged(Object key) {
+        if (removedAttributeKeys != null) {
+            removedAttributeKeys.remove(key);
+        }
+        if (changedAttributeKeys == null) {
+            changedAttributeKeys = new LinkedHashSet<Object>();
+        }
+        changedAttributeKeys.add(key);
+    }
+
+    void attributeRemoved(Object key) {
+        if (changedAttributeKeys != null) {
+            changedAttributeKeys.remove(key);
+        }
+        if (removedAttributeKeys == null) {
+            removedAttributeKeys = new LinkedHashSet<Object>();
+        }
+        removedAttributeKeys.add(key);
+    }
+
+    void lastAccessTimeChanged() {
+        this.lastAccessTimeChanged = true;
+    }
+
+    void stopTimestampChanged() {
+        this.stopTimestampChanged = true;
+    }
+
+    void timeoutChanged() {
+        this.timeoutChanged = true;
+    }
+
+    void expiredChanged() {
+        this.expiredChanged = true;
+    }
+
+    void full() {
+        this.full = true;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An index of session ids by expiry time, so that session validation only needs to visit the sessions that may have
+ * expired rather than every active session.
+ * <p/>
+ * Sessions are kept in buckets (the slots of a timing wheel) covering {@link #getResolution() resolution}
+ * milliseconds each.  {@link #schedule(Serializable, long) Scheduling} a session whose expiry time stays within the
+ * same bucket, which is the common case for a session accessed repeatedly, is a single map lookup.  A
+ * {@link #pollDue(long) poll} only visits the buckets whose whole time range has elapsed, so its cost is proportional
+ * to the number of sessions due rather than the number of sessions indexed.
+ * <p/>
+ * The index holds ids only and is only a hint: a session whose expiry time moved later without being rescheduled is
+ * polled too early, and must then be checked and rescheduled by the caller.  This class is thread-safe.
+ *
+ * @see AbstractValidatingSessionManager#setSessionExpiryIndexEnabled(boolean)
+ * @since 1.4.1
+ */
+public class SessionExpiryIndex {
+
+    private final long resolution;
+    private final ConcurrentNavigableMap<Long, Set<Serializable>> buckets;
+    private final ConcurrentMap<Serializable, Long> bucketsById;
+
+    /**
+     * Creates an index whose buckets cover the specified number of milliseconds.
+     *
+     * @param resolution the time range covered by each bucket in milliseconds, typically the session validation
+     *                   interval.
+     */
+    public SessionExpiryIndex(long resolution) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("resolution must be positive.");
+        }
+        this.resolution = resolution;
+        this.buckets = new ConcurrentSkipListMap<Long, Set<Serializable>>();
+        this.bucketsById = new ConcurrentHashMap<Serializable, Long>();
+    }
+
+    /**
+     * Returns the time range covered by each bucket in milliseconds.  A session is polled at most this long (plus the
+     * time between two polls) after its expiry time.
+     *
+     * @return the time range covered by each bucket in milliseconds.
+     */
+    public long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Returns the number of indexed sessions.
+     *
+     * @return the number of indexed sessions.
+     */
+    public int size() {
+        return bucketsById.size();
+    }
+
+    /**
+     * Indexes (or re-indexes) the session with the specified id to be polled once the specified time has elapsed.
+     *
+     * @param sessionId  the id of the session.
+     * @param expiryTime the time in milliseconds at which the session expires unless accessed again.
+     */
+    public void schedule(Serializable sessionId, long expiryTime) {
+        Long bucket = expiryTime / resolution;
+        Long previous = bucketsById.put(sessionId, bucket);
+        if (bucket.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            Set<Serializable> ids = buckets.get(previous);
+            if (ids != null) {
+                ids.remove(sessionId);
+            }
+        }
+        for (;;) {
+            Set<Serializable> ids = buckets.get(bucket);
+            if (ids == null) {
+                Set<Serializable> created = Collections.newSetFromMap(new ConcurrentHashMap<Serializable, Boolean>());
+                ids = buckets.putIfAbsent(bucket, created);
+                if (ids == null) {
+                    ids = created;
+                }
+            }
+            ids.add(sessionId);
+            //retry if the bucket was polled concurrently, before the id was added to it:
+            if (buckets.get(bucket) == ids) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the session with the specified id from the index, e.g. once it has been stopped.
+     *
+     * @param sessionId the id of the session.
+     */
+    public void remove(Serializable sessionId) {
+        Long bucket = bucketsById.remove(sessionId);
+        if (bucket != null) {
+            Set<Serializable> ids = buckets.get(bucket);
+            if (ids != null) {
+                ids.remove(sessionId);
+            }
+        }
+    }
+
+    /**
+     * Removes from the index and returns the ids of the sessions whose expiry time elapsed before the specified time.
+     *
+     * @param now the current time in milliseconds.
+     * @return the ids of the sessions due, never {@code null}.
+     */
+    public Collection<Serializable> pollDue(long now) {
+        Collection<Serializable> due = new ArrayList<Serializable>();
+        //a bucket is due only once its whole time range has elapsed:
+        Long firstPending = now / resolution;
+        Map.Entry<Long, Set<Serializable>> entry;
+        while ((entry = buckets.firstEntry()) != null && entry.getKey() < firstPending) {
+            if (!buckets.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            for (Serializable sessionId : entry.getValue()) {
+                //ids rescheduled to another bucket since they were added to this one are not due:
+                if (bucketsById.remove(sessionId, entry.getKey())) {
+                    due.add(sessionId);
+                }
+            }
+        }
+        return due;
+    }
+}
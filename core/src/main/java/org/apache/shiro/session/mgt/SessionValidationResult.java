@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The outcome of a {@link ValidatingSessionManager#validateSessions() session validation} run: how many sessions it
+ * validated, how many of them had expired or had been stopped, and how long it took.  Counts are updated concurrently
+ * while a run validates sessions in parallel, and final once it completes.
+ *
+ * @see AbstractValidatingSessionManager#getLastSessionValidationResult()
+ * @since 1.4.1
+ */
+public class SessionValidationResult {
+
+    private final long startTime;
+    private final AtomicInteger scannedCount = new AtomicInteger();
+    private final AtomicInteger expiredCount = new AtomicInteger();
+    private final AtomicInteger stoppedCount = new AtomicInteger();
+    private volatile long duration = -1;
+
+    SessionValidationResult(long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * Returns the time in milliseconds at which the run started.
+     *
+     * @return the time in milliseconds at which the run started.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Returns the number of sessions validated.
+     *
+     * @return the number of sessions validated.
+     */
+    public int getScannedCount() {
+        return scannedCount.get();
+    }
+
+    /**
+     * Returns the number of sessions found expired.
+     *
+     * @return the number of sessions found expired.
+     */
+    public int getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * Returns the number of sessions found invalid for another reason than expiry, typically because they were
+     * stopped.
+     *
+     * @return the number of sessions found invalid for another reason than expiry.
+     */
+    public int getStoppedCount() {
+        return stoppedCount.get();
+    }
+
+    /**
+     * Returns the time in milliseconds the run took, or {@code -1} if it has not completed.
+     *
+     * @return the time in milliseconds the run took, or {@code -1} if it has not completed.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    void scanned() {
+        scannedCount.incrementAndGet();
+    }
+
+    void expired() {
+        expiredCount.incrementAndGet();
+    }
+
+    void stopped() {
+        stoppedCount.incrementAndGet();
+    }
+
+    void completed(long endTime) {
+        this.duration = endTime - startTime;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + getScannedCount() + "] sessions validated in [" + getDuration() + "] ms, [" + getExpiredCount() +
+                "] expired, [" + getStoppedCount() + "] stopped";
+    }
+}
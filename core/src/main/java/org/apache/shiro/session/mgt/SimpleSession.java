@@ -92,6 +92,20 @@ public class SimpleSession implements ValidatingSession, Serializable {
     private transient String host;
     private transient Map<Object, Object> attributes;
 
+    /**
+     * The last access time this session is known to have been persisted with, maintained by the session manager to
+     * throttle the persistence of {@link #touch() touches}.  Unlike the fields above, it is never serialized.
+     * @since 1.4.1
+     */
+    private transient Date persistedLastAccessTime;
+
+    /**
+     * The changes made since the session was last persisted, tracked for a {@code DeltaSessionDAO} once enabled by
+     * the session manager.  Never serialized either.
+     * @since 1.4.1
+     */
+    private transient SessionDelta delta;
+
     public SimpleSession() {
         this.timeout = DefaultSessionManager.DEFAULT_GLOBAL_SESSION_TIMEOUT; //TODO - remove concrete reference to DefaultSessionManager
         this.startTimestamp = new Date();
@@ -109,6 +123,9 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setId(Serializable id) {
         this.id = id;
+        if (delta != null) {
+            delta.full();
+        }
     }
 
     public Date getStartTimestamp() {
@@ -117,6 +134,9 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setStartTimestamp(Date startTimestamp) {
         this.startTimestamp = startTimestamp;
+        if (delta != null) {
+            delta.full();
+        }
     }
 
     /**
@@ -142,6 +162,9 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setStopTimestamp(Date stopTimestamp) {
         this.stopTimestamp = stopTimestamp;
+        if (delta != null) {
+            delta.stopTimestampChanged();
+        }
     }
 
     public Date getLastAccessTime() {
@@ -150,6 +173,57 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setLastAccessTime(Date lastAccessTime) {
         this.lastAccessTime = lastAccessTime;
+        if (delta != null) {
+            delta.lastAccessTimeChanged();
+        }
+    }
+
+    //since 1.4.1
+    Date getPersistedLastAccessTime() {
+        return persistedLastAccessTime;
+    }
+
+    //since 1.4.1
+    void setPersistedLastAccessTime(Date persistedLastAccessTime) {
+        this.persistedLastAccessTime = persistedLastAccessTime;
+    }
+
+    /**
+     * Starts tracking the changes made to this session, if not tracking them already.
+     *
+     * @since 1.4.1
+     */
+    void enableDeltaTracking() {
+        if (delta == null) {
+            delta = new SessionDelta();
+        }
+    }
+
+    /**
+     * Returns the changes made to this session since this method was last called, and starts recording the next ones,
+     * or returns {@code null} if changes are not {@link #enableDeltaTracking() tracked}.
+     *
+     * @return the changes made to this session since this method was last called, or {@code null}.
+     * @since 1.4.1
+     */
+    SessionDelta takeDelta() {
+        SessionDelta taken = delta;
+        if (taken != null) {
+            delta = new SessionDelta();
+        }
+        return taken;
+    }
+
+    /**
+     * Makes the tracked changes {@link SessionDelta#isFull() full} after a delta {@link #takeDelta() taken} from this
+     * session failed to be persisted, so that the next update persists the whole session.
+     *
+     * @since 1.4.1
+     */
+    void deltaFailed() {
+        if (delta != null) {
+            delta.full();
+        }
     }
 
     /**
@@ -164,6 +238,9 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setExpired(boolean expired) {
         this.expired = expired;
+        if (delta != null) {
+            delta.expiredChanged();
+        }
     }
 
     public long getTimeout() {
@@ -172,6 +249,9 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setTimeout(long timeout) {
         this.timeout = timeout;
+        if (delta != null) {
+            delta.timeoutChanged();
+        }
     }
 
     public String getHost() {
@@ -180,6 +260,9 @@ public class SimpleSession implements ValidatingSession, Serializable {
 
     public void setHost(String host) {
         this.host = host;
+        if (delta != null) {
+            delta.full();
+        }
     }
 
     public Map<Object, Object> getAttributes() {
@@ -187,16 +270,27 @@ public class SimpleSession implements ValidatingSession, Serializable {
     }
 
     public void setAttributes(Map<Object, Object> attributes) {
+        Map<Object, Object> previous = this.attributes;
         this.attributes = attributes;
+        //replacing no attributes with no attributes, e.g. when lazily creating the map, changes nothing:
+        if (delta != null && !(CollectionUtils.isEmpty(previous) && CollectionUtils.isEmpty(attributes))) {
+            delta.full();
+        }
     }
 
     public void touch() {
         this.lastAccessTime = new Date();
+        if (delta != null) {
+            delta.lastAccessTimeChanged();
+        }
     }
 
     public void stop() {
         if (this.stopTimestamp == null) {
             this.stopTimestamp = new Date();
+            if (delta != null) {
+                delta.stopTimestampChanged();
+            }
         }
     }
 
@@ -207,6 +301,9 @@ public class SimpleSession implements ValidatingSession, Serializable {
     protected void expire() {
         stop();
         this.expired = true;
+        if (delta != null) {
+            delta.expiredChanged();
+        }
     }
 
     /**
@@ -323,6 +420,9 @@ public class SimpleSession implements ValidatingSession, Serializable {
             removeAttribute(key);
         } else {
             getAttributesLazy().put(key, value);
+            if (delta != null) {
+                delta.attributeChanged(key);
+            }
         }
     }
 
@@ -331,7 +431,11 @@ public class SimpleSession implements ValidatingSession, Serializable {
         if (attributes == null) {
             return null;
         } else {
-            return attributes.remove(key);
+            Object removed = attributes.remove(key);
+            if (removed != null && delta != null) {
+                delta.attributeRemoved(key);
+            }
+            return removed;
         }
     }
 
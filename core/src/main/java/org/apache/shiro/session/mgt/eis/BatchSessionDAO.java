@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.session.Session;
+
+import java.util.Collection;
+
+/**
+ * A {@link SessionDAO} able to delete several sessions at once, e.g. with a single batched statement or a single
+ * round trip to a remote store, which is much faster than deleting them one by one.
+ * <p/>
+ * The {@link org.apache.shiro.session.mgt.DefaultSessionManager DefaultSessionManager} deletes the sessions found
+ * invalid by {@link org.apache.shiro.session.mgt.ValidatingSessionManager#validateSessions() session validation}
+ * with {@link #delete(Collection)}, a
+ * {@link org.apache.shiro.session.mgt.AbstractValidatingSessionManager#setSessionValidationBatchSize(int) batch} at a
+ * time.
+ *
+ * @since 1.4.1
+ */
+public interface BatchSessionDAO extends SessionDAO {
+
+    /**
+     * Deletes the specified sessions from the EIS.  Sessions that no longer exist are ignored.
+     *
+     * @param sessions the sessions to delete.
+     */
+    void delete(Collection<Session> sessions);
+}
@@ -23,11 +23,13 @@ import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.cache.CacheManagerAware;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.SessionDelta;
 import org.apache.shiro.session.mgt.ValidatingSession;
 
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 
 /**
  * An CachingSessionDAO is a SessionDAO that provides a transparent caching layer between the components that
@@ -42,10 +44,20 @@ import java.util.Collections;
  * All {@code SessionDAO} methods are implemented by this class to employ
  * caching behavior and delegates the actual EIS operations to respective do* methods to be implemented by
  * subclasses (doCreate, doRead, etc).
+ * <p/>
+ * As a {@link DeltaSessionDAO}, it lets subclasses whose EIS supports it persist only the changes made to a session
+ * by overriding {@link #doUpdate(Session, SessionDelta)}, which by default persists the whole session.  Likewise,
+ * as a {@link BatchSessionDAO}, it lets subclasses delete several sessions at once by overriding
+ * {@link #doDelete(Collection)}, which by default deletes them one by one.
+ * <p/>
+ * As a {@link PagingSessionDAO}, it returns the active sessions a page at a time.  The default implementation only
+ * pages over the sessions in the activeSessions cache, like {@link #getActiveSessions()}.  Subclasses whose EIS holds
+ * more sessions than the cache should override {@link #getActiveSessions(Object, int)} with a paged query.
  *
  * @since 0.2
  */
-public abstract class CachingSessionDAO extends AbstractSessionDAO implements CacheManagerAware {
+public abstract class CachingSessionDAO extends AbstractSessionDAO implements CacheManagerAware, DeltaSessionDAO,
+        BatchSessionDAO, PagingSessionDAO {
 
     /**
      * The default active sessions cache name, equal to {@code shiro-activeSessionCache}.
@@ -275,6 +287,26 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
      */
     public void update(Session session) throws UnknownSessionException {
         doUpdate(session);
+        cacheUpdated(session);
+    }
+
+    /**
+     * Updates the state of the given session to the EIS by first delegating to
+     * {@link #doUpdate(Session, SessionDelta)}, and then caches or uncaches it the same way as
+     * {@link #update(Session)}.
+     *
+     * @param session the session object to update in the EIS.
+     * @param delta   the changes made to the session since it was last persisted.
+     * @throws UnknownSessionException if no existing EIS session record exists with the
+     *                                 identifier of {@link Session#getId() session.getId()}
+     * @since 1.4.1
+     */
+    public void update(Session session, SessionDelta delta) throws UnknownSessionException {
+        doUpdate(session, delta);
+        cacheUpdated(session);
+    }
+
+    private void cacheUpdated(Session session) {
         if (session instanceof ValidatingSession) {
             if (((ValidatingSession) session).isValid()) {
                 cache(session, session.getId());
@@ -293,6 +325,18 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
      */
     protected abstract void doUpdate(Session session);
 
+    /**
+     * Subclass implementation hook to persist only the changes made to the {@code Session} to the underlying EIS.
+     * This default implementation persists the whole session by calling {@link #doUpdate(Session)}.
+     *
+     * @param session the session object whose changes will be propagated to the EIS.
+     * @param delta   the changes made to the session since it was last persisted.
+     * @since 1.4.1
+     */
+    protected void doUpdate(Session session, SessionDelta delta) {
+        doUpdate(session);
+    }
+
     /**
      * Removes the specified session from any cache and then permanently deletes the session from the EIS by
      * delegating to {@link #doDelete}.
@@ -311,6 +355,34 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
      */
     protected abstract void doDelete(Session session);
 
+    /**
+     * Removes the specified sessions from any cache and then permanently deletes them from the EIS by delegating to
+     * {@link #doDelete(Collection)}.
+     *
+     * @param sessions the sessions to remove from caches and permanently delete from the EIS.
+     * @since 1.4.1
+     */
+    public void delete(Collection<Session> sessions) {
+        for (Session session : sessions) {
+            uncache(session);
+        }
+        doDelete(sessions);
+    }
+
+    /**
+     * Subclass implementation hook to permanently delete the given Sessions from the underlying EIS, e.g. with a
+     * single batched statement.  This default implementation deletes them one by one by calling
+     * {@link #doDelete(Session)}.
+     *
+     * @param sessions the session instances to permanently delete from the EIS.
+     * @since 1.4.1
+     */
+    protected void doDelete(Collection<Session> sessions) {
+        for (Session session : sessions) {
+            doDelete(session);
+        }
+    }
+
     /**
      * Removes the specified Session from the cache.
      *
@@ -347,4 +419,31 @@ public abstract class CachingSessionDAO extends AbstractSessionDAO implements Ca
             return Collections.emptySet();
         }
     }
+
+    /**
+     * Returns the next page of active sessions.
+     * <p/>
+     * This implementation merely pages over the sessions returned by {@link #getActiveSessions()}, using an iterator
+     * over them as the cursor, so it bounds the size of each page but not the number of sessions loaded from the
+     * cache.  Subclass implementations backed by a large EIS should override this method to load a page at a time,
+     * e.g. with an RDBMS query ordered by session id whose cursor is the last id returned.
+     *
+     * @param cursor   the cursor of the previous page, or {@code null} to return the first page.
+     * @param pageSize the maximum number of sessions to return.
+     * @return the next page of active sessions.
+     * @throws IllegalArgumentException if the cursor was not returned by this instance.
+     * @since 1.4.1
+     */
+    @SuppressWarnings({"unchecked"})
+    public SessionPage getActiveSessions(Object cursor, int pageSize) throws IllegalArgumentException {
+        Iterator<Session> iterator;
+        if (cursor == null) {
+            iterator = getActiveSessions().iterator();
+        } else if (cursor instanceof Iterator) {
+            iterator = (Iterator<Session>) cursor;
+        } else {
+            throw new IllegalArgumentException("Invalid cursor [" + cursor + "].");
+        }
+        return SessionPage.fromIterator(iterator, pageSize);
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.SessionDelta;
+
+/**
+ * A {@link SessionDAO} able to persist only the changes made to a session since it was last persisted, e.g. to write
+ * only the session attributes that were set or removed rather than the whole attribute map.
+ * <p/>
+ * The {@link org.apache.shiro.session.mgt.DefaultSessionManager DefaultSessionManager} calls
+ * {@link #update(Session, SessionDelta)} instead of {@link #update(Session)} for the
+ * {@link org.apache.shiro.session.mgt.SimpleSession SimpleSession}s it tracks changes of, unless the changes cannot
+ * be described by a delta.
+ *
+ * @see SessionDelta
+ * @since 1.4.1
+ */
+public interface DeltaSessionDAO extends SessionDAO {
+
+    /**
+     * Updates (persists) the changes described by the specified delta of a previously created Session instance in the
+     * EIS identified by {@code {@link Session#getId() session.getId()}}.  The new values of the changed attributes and
+     * timestamps are those of the session argument.
+     * <p/>
+     * The delta is never {@link SessionDelta#isFull() full}, nor {@link SessionDelta#isEmpty() empty}.
+     *
+     * @param session the Session to update
+     * @param delta   the changes made to the session since it was last persisted
+     * @throws org.apache.shiro.session.UnknownSessionException
+     *          if no existing EIS session record exists with the
+     *          identifier of {@link Session#getId() session.getSessionId()}
+     */
+    void update(Session session, SessionDelta delta) throws UnknownSessionException;
+}
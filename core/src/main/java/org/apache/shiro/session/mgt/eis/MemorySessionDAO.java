@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -49,11 +50,19 @@ import java.util.concurrent.ConcurrentMap;
  * cache implementations that would expunge entries due to TTL settings, resulting in Sessions that would be randomly
  * (and permanently) lost.  The Shiro 1.0 release refactored this implementation to be 100% memory-based (without
  * {@code Cache} usage to avoid this problem.
+ * <h2>Paging</h2>
+ * As of 1.4.1, this implementation is a {@link PagingSessionDAO}: the cursor of a page is a live (weakly consistent)
+ * iterator over the stored sessions, so paging costs nothing more than iterating over them.  Sessions created while
+ * such an iteration is in progress may be missed by it, and are then only returned once paging starts over from the
+ * first page.
+ * <p/>
+ * It is also a {@link BatchSessionDAO}, so that the sessions found invalid by session validation are deleted a batch
+ * at a time.
  *
  * @see CachingSessionDAO
  * @since 0.1
  */
-public class MemorySessionDAO extends AbstractSessionDAO {
+public class MemorySessionDAO extends AbstractSessionDAO implements PagingSessionDAO, BatchSessionDAO {
 
     private static final Logger log = LoggerFactory.getLogger(MemorySessionDAO.class);
 
@@ -95,6 +104,18 @@ public class MemorySessionDAO extends AbstractSessionDAO {
         }
     }
 
+    /**
+     * Deletes the specified sessions.  Sessions that no longer exist are ignored.
+     *
+     * @param sessions the sessions to delete.
+     * @since 1.4.1
+     */
+    public void delete(Collection<Session> sessions) {
+        for (Session session : sessions) {
+            delete(session);
+        }
+    }
+
     public Collection<Session> getActiveSessions() {
         Collection<Session> values = sessions.values();
         if (CollectionUtils.isEmpty(values)) {
@@ -104,4 +125,31 @@ public class MemorySessionDAO extends AbstractSessionDAO {
         }
     }
 
+    /**
+     * Returns the next page of active sessions, whose cursor is an iterator over the stored sessions.
+     * <p/>
+     * The cursor is a live, weakly consistent iterator, which a paged session validation keeps between runs when it
+     * stops on its {@link org.apache.shiro.session.mgt.AbstractValidatingSessionManager#setSessionValidationTimeBudget(long)
+     * time budget}.  It never fails nor returns a session twice, but it may miss the sessions created since it was
+     * obtained, e.g. those stored behind its position: they are only seen by the next pass, which starts over from the
+     * first page.
+     *
+     * @param cursor   the cursor of the previous page, or {@code null} to return the first page.
+     * @param pageSize the maximum number of sessions to return.
+     * @return the next page of active sessions.
+     * @since 1.4.1
+     */
+    @SuppressWarnings({"unchecked"})
+    public SessionPage getActiveSessions(Object cursor, int pageSize) {
+        Iterator<Session> iterator;
+        if (cursor == null) {
+            iterator = sessions.values().iterator();
+        } else if (cursor instanceof Iterator) {
+            iterator = (Iterator<Session>) cursor;
+        } else {
+            throw new IllegalArgumentException("Invalid cursor [" + cursor + "].");
+        }
+        return SessionPage.fromIterator(iterator, pageSize);
+    }
+
 }
@@ -0,0 +1,599 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.io.Serializer;
+import org.apache.shiro.io.SimpleSessionSerializer;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.util.Destroyable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@code SessionDAO} storing sessions serialized outside of the Java heap, in direct {@link ByteBuffer}s, for
+ * applications keeping a very large number of mostly idle sessions in a single JVM, whose session objects would
+ * otherwise fill the old generation and lengthen garbage collection pauses.
+ * <p/>
+ * Sessions are serialized with the configured {@link #setSerializer(Serializer) serializer}, by default a compact
+ * {@link SimpleSessionSerializer}, and appended to fixed size {@link #setSlabSize(int) slabs} of off-heap memory.  Only
+ * an index of session ids to record addresses is kept on the heap.  Updating a session appends its new state and
+ * leaves the previous record dead: a slab whose records are all dead is recycled at once, which is the common case
+ * since sessions tend to be updated and to expire in the order they were created, and the live records of slabs left
+ * mostly dead are moved by an occasional {@link #compact() compaction}, so that the memory used stays proportional to
+ * the size of the live sessions.  The total off-heap memory may be {@link #setMaxMemory(long) bounded}.
+ * <p/>
+ * Every {@link #readSession read} deserializes a new copy of the session, so changes to a session are only stored by
+ * {@link #update(Session) updating} it, as with any {@code SessionDAO} backed by an external store.  For the same
+ * reason, validating every active session deserializes all of them: with this class, enable the session manager's
+ * {@link org.apache.shiro.session.mgt.AbstractValidatingSessionManager#setSessionExpiryIndexEnabled(boolean) expiry
+ * index}, so that only the sessions due are read, and its
+ * {@link org.apache.shiro.session.mgt.AbstractValidatingSessionManager#setSessionValidationPageSize(int) paged}
+ * validation, which this class supports.  Deleting the expired sessions is what lets their slabs be recycled; as a
+ * {@link BatchSessionDAO}, this class deletes each batch of them under a single lock.
+ * <p/>
+ * Reads run concurrently; writes are serialized by a lock, outside of which sessions are serialized and deserialized.
+ *
+ * @see SimpleSessionSerializer
+ * @since 1.4.1
+ */
+public class OffHeapSessionDAO extends AbstractSessionDAO implements PagingSessionDAO, BatchSessionDAO, Destroyable {
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapSessionDAO.class);
+
+    /**
+     * The default size of the slabs of off-heap memory (4 MB).
+     */
+    public static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The default fraction of live bytes under which a slab is compacted (0.5).
+     */
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    //record layout: the length of the serialized session, followed by the serialized session
+    private static final int HEADER_SIZE = 4;
+
+    private Serializer<Session> serializer;
+    private int slabSize;
+    private long maxMemory;
+    private double compactionThreshold;
+
+    private final ConcurrentMap<Serializable, Long> index;
+    private final ReadWriteLock lock;
+    //guarded by lock:
+    private final List<Slab> slabs;
+    private final LinkedList<ByteBuffer> freeBuffers;
+    private Slab current;
+    private long allocatedMemory;
+    private long deadBytes;
+    private boolean compacting;
+
+    private final Collection<Session> activeSessions;
+
+    public OffHeapSessionDAO() {
+        this.serializer = new SimpleSessionSerializer();
+        this.slabSize = DEFAULT_SLAB_SIZE;
+        this.maxMemory = 0;
+        this.compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+        this.index = new ConcurrentHashMap<Serializable, Long>();
+        this.lock = new ReentrantReadWriteLock();
+        this.slabs = new ArrayList<Slab>();
+        this.freeBuffers = new LinkedList<ByteBuffer>();
+        this.activeSessions = new ActiveSessions();
+    }
+
+    public Serializer<Session> getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Sets the serializer of the stored sessions.  This may only be set while no session is stored.
+     *
+     * @param serializer the serializer of the stored sessions.
+     */
+    public void setSerializer(Serializer<Session> serializer) {
+        if (serializer == null) {
+            throw new IllegalArgumentException("serializer argument cannot be null.");
+        }
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns the size in bytes of the slabs of off-heap memory sessions are stored in.  The default value is
+     * {@link #DEFAULT_SLAB_SIZE}.
+     *
+     * @return the size in bytes of the slabs of off-heap memory.
+     */
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * Sets the size in bytes of the slabs of off-heap memory sessions are stored in, which is also the maximum size
+     * of a serialized session.  This may only be set while no memory is allocated.
+     *
+     * @param slabSize the size in bytes of the slabs of off-heap memory.
+     * @throws IllegalStateException if memory is allocated.
+     */
+    public void setSlabSize(int slabSize) throws IllegalStateException {
+        if (slabSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("slabSize must be greater than " + HEADER_SIZE + ".");
+        }
+        lock.writeLock().lock();
+        try {
+            if (allocatedMemory > 0 || !freeBuffers.isEmpty()) {
+                throw new IllegalStateException("The slab size cannot be changed once memory is allocated.");
+            }
+            this.slabSize = slabSize;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum off-heap memory in bytes sessions may use, or {@code 0} if unbounded.  The default value is
+     * {@code 0}.
+     *
+     * @return the maximum off-heap memory in bytes sessions may use, or {@code 0} if unbounded.
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Sets the maximum off-heap memory in bytes sessions may use, rounded down to a number of slabs, the last of which
+     * is kept for compaction.  Once reached, storing a session first compacts the stored sessions, and fails if that
+     * does not free enough memory.
+     *
+     * @param maxMemory the maximum off-heap memory in bytes sessions may use, {@code 0} or less if unbounded.
+     */
+    public void setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Returns the fraction of live bytes under which a slab is compacted.  The default value is
+     * {@link #DEFAULT_COMPACTION_THRESHOLD}.
+     *
+     * @return the fraction of live bytes under which a slab is compacted.
+     */
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Sets the fraction of live bytes under which a slab is compacted.  A {@link #compact() compaction} is triggered
+     * automatically once dead records take this fraction of the allocated memory.
+     *
+     * @param compactionThreshold the fraction of live bytes under which a slab is compacted, between 0 and 1.
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        if (compactionThreshold < 0 || compactionThreshold > 1) {
+            throw new IllegalArgumentException("compactionThreshold must be between 0 and 1.");
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Returns the number of sessions stored.
+     *
+     * @return the number of sessions stored.
+     */
+    public int getActiveSessionCount() {
+        return index.size();
+    }
+
+    /**
+     * Returns the off-heap memory in bytes currently allocated, including recycled slabs.
+     *
+     * @return the off-heap memory in bytes currently allocated.
+     */
+    public long getAllocatedMemory() {
+        lock.readLock().lock();
+        try {
+            return allocatedMemory;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected Serializable doCreate(Session session) {
+        Serializable sessionId = generateSessionId(session);
+        assignSessionId(session, sessionId);
+        storeSession(sessionId, session);
+        return sessionId;
+    }
+
+    protected void storeSession(Serializable id, Session session) {
+        if (id == null) {
+            throw new NullPointerException("id argument cannot be null.");
+        }
+        byte[] bytes = serializer.serialize(session);
+        if (bytes.length > slabSize - HEADER_SIZE) {
+            String msg = "Serialized session with id [" + id + "] of " + bytes.length + " bytes does not fit in a " +
+                    "slab of " + slabSize + " bytes.  Increase the slab size.";
+            throw new IllegalArgumentException(msg);
+        }
+        lock.writeLock().lock();
+        try {
+            long address = write(bytes);
+            Long previous = index.put(id, address);
+            if (previous != null) {
+                release(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    protected Session doReadSession(Serializable sessionId) {
+        byte[] bytes;
+        lock.readLock().lock();
+        try {
+            Long address = index.get(sessionId);
+            if (address == null) {
+                return null;
+            }
+            bytes = read(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return serializer.deserialize(bytes);
+    }
+
+    public void update(Session session) throws UnknownSessionException {
+        storeSession(session.getId(), session);
+    }
+
+    public void delete(Session session) {
+        if (session == null) {
+            throw new NullPointerException("session argument cannot be null.");
+        }
+        Serializable id = session.getId();
+        if (id != null) {
+            lock.writeLock().lock();
+            try {
+                removeRecord(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Deletes the specified sessions, taking the write lock only once.  Sessions that no longer exist are ignored.
+     *
+     * @param sessions the sessions to delete.
+     */
+    public void delete(Collection<Session> sessions) {
+        lock.writeLock().lock();
+        try {
+            for (Session session : sessions) {
+                if (session == null) {
+                    throw new NullPointerException("sessions argument cannot contain null.");
+                }
+                Serializable id = session.getId();
+                if (id != null) {
+                    removeRecord(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeRecord(Serializable id) {
+        Long address = index.remove(id);
+        if (address != null) {
+            release(address);
+        }
+    }
+
+    /**
+     * Returns an unmodifiable view of the stored sessions, which deserializes each session as it is iterated over.
+     *
+     * @return an unmodifiable view of the stored sessions.
+     */
+    public Collection<Session> getActiveSessions() {
+        return activeSessions;
+    }
+
+    /**
+     * Returns the next page of active sessions, whose cursor is an iterator over the stored sessions.
+     * <p/>
+     * The cursor is a live, weakly consistent iterator, which a paged session validation keeps between runs when it
+     * stops on its {@link org.apache.shiro.session.mgt.AbstractValidatingSessionManager#setSessionValidationTimeBudget(long)
+     * time budget}.  It never fails nor returns a session twice, but it may miss the sessions created since it was
+     * obtained, e.g. those stored behind its position: they are only seen by the next pass, which starts over from the
+     * first page.
+     *
+     * @param cursor   the cursor of the previous page, or {@code null} to return the first page.
+     * @param pageSize the maximum number of sessions to return.
+     * @return the next page of active sessions.
+     */
+    public SessionPage getActiveSessions(Object cursor, int pageSize) {
+        Iterator<Session> iterator;
+        if (cursor == null) {
+            iterator = activeSessions.iterator();
+        } else if (cursor instanceof SessionIterator) {
+            iterator = (SessionIterator) cursor;
+        } else {
+            throw new IllegalArgumentException("Invalid cursor [" + cursor + "].");
+        }
+        return SessionPage.fromIterator(iterator, pageSize);
+    }
+
+    /**
+     * Moves the live records of the slabs whose fraction of live bytes is under the
+     * {@link #getCompactionThreshold() compaction threshold} to other slabs, and recycles those slabs.  This is
+     * triggered automatically, and blocks reads and writes while it runs.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            doCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Releases all stored sessions and off-heap memory.
+     */
+    public void destroy() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            slabs.clear();
+            freeBuffers.clear();
+            current = null;
+            allocatedMemory = 0;
+            deadBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long address(Slab slab, int offset) {
+        return ((long) slab.number << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private Slab slabOf(long address) {
+        return slabs.get((int) (address >>> 32));
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private byte[] read(long address) {
+        ByteBuffer buffer = slabOf(address).buffer.duplicate();
+        int offset = offsetOf(address);
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.position(offset + HEADER_SIZE);
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private long write(byte[] bytes) {
+        int length = HEADER_SIZE + bytes.length;
+        if (current == null || current.position + length > slabSize) {
+            if (current != null && current.liveBytes == 0) {
+                //release skips the current slab, so free it here once it is left with no live record:
+                freeSlab(current);
+            }
+            current = allocateSlab(length);
+        }
+        Slab slab = current;
+        int offset = slab.position;
+        slab.buffer.putInt(offset, bytes.length);
+        ByteBuffer buffer = slab.buffer.duplicate();
+        buffer.position(offset + HEADER_SIZE);
+        buffer.put(bytes);
+        slab.position += length;
+        slab.liveBytes += length;
+        return address(slab, offset);
+    }
+
+    private void release(long address) {
+        Slab slab = slabOf(address);
+        int length = HEADER_SIZE + slab.buffer.getInt(offsetOf(address));
+        slab.liveBytes -= length;
+        deadBytes += length;
+        if (slab.liveBytes == 0 && slab != current) {
+            freeSlab(slab);
+        } else if (!compacting && deadBytes > allocatedMemory * compactionThreshold && deadBytes >= 2L * slabSize) {
+            doCompact();
+        }
+    }
+
+    /**
+     * Returns whether a record of the given length can be written, in the current slab or in a new one.  Unless
+     * compacting, the last slab allowed by {@link #getMaxMemory() maxMemory} is kept for compaction, which needs room
+     * to move records to before it can free the slabs they were in.
+     */
+    private boolean canWrite(int length) {
+        if ((current != null && current.position + length <= slabSize) || !freeBuffers.isEmpty() || maxMemory <= 0) {
+            return true;
+        }
+        long limit = compacting ? maxMemory : maxMemory - slabSize;
+        return allocatedMemory + slabSize <= limit;
+    }
+
+    private Slab allocateSlab(int length) {
+        if (!canWrite(length)) {
+            doCompact();
+            if (current != null && current.position + length <= slabSize) {
+                //compaction moved records to a new current slab which still has room:
+                return current;
+            }
+            if (!canWrite(length)) {
+                throw new IllegalStateException("Unable to store the session: the off-heap session store is full " +
+                        "(" + allocatedMemory + " bytes allocated).  Increase maxMemory.");
+            }
+        }
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(slabSize);
+            allocatedMemory += slabSize;
+        }
+        //reuse the number of a freed slab if there is one, so that the slab list does not grow unbounded:
+        int number = slabs.indexOf(null);
+        if (number < 0) {
+            number = slabs.size();
+            slabs.add(null);
+        }
+        Slab slab = new Slab(number, buffer);
+        slabs.set(number, slab);
+        return slab;
+    }
+
+    private void freeSlab(Slab slab) {
+        slabs.set(slab.number, null);
+        deadBytes -= slab.position - slab.liveBytes;
+        if (slab == current) {
+            current = null;
+        }
+        freeBuffers.add(slab.buffer);
+    }
+
+    private void doCompact() {
+        List<Slab> sparse = new ArrayList<Slab>();
+        for (Slab slab : slabs) {
+            if (slab != null && slab != current && slab.liveBytes < slabSize * compactionThreshold) {
+                slab.sparse = true;
+                sparse.add(slab);
+            }
+        }
+        //slabs left empty have no record to move, so free them up front:
+        for (Iterator<Slab> i = sparse.iterator(); i.hasNext(); ) {
+            Slab slab = i.next();
+            if (slab.liveBytes == 0) {
+                slab.sparse = false;
+                freeSlab(slab);
+                i.remove();
+            }
+        }
+        if (sparse.isEmpty()) {
+            return;
+        }
+        //a single pass over the index moves the records of every sparse slab, each of which is freed once empty.
+        //If memory runs out first, the pass stops and the remaining records stay where they are:
+        int moved = 0;
+        compacting = true;
+        try {
+            for (Map.Entry<Serializable, Long> entry : index.entrySet()) {
+                long address = entry.getValue();
+                if (slabOf(address).sparse) {
+                    byte[] bytes = read(address);
+                    if (!canWrite(HEADER_SIZE + bytes.length)) {
+                        break;
+                    }
+                    entry.setValue(write(bytes));
+                    release(address);
+                    moved++;
+                }
+            }
+        } finally {
+            compacting = false;
+            for (Slab slab : sparse) {
+                slab.sparse = false;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Compacted " + sparse.size() + " slabs of the off-heap session store, moving " + moved +
+                    " sessions.");
+        }
+    }
+
+    private static final class Slab {
+        private final int number;
+        private final ByteBuffer buffer;
+        private int position;
+        private int liveBytes;
+        private boolean sparse;
+
+        private Slab(int number, ByteBuffer buffer) {
+            this.number = number;
+            this.buffer = buffer;
+        }
+    }
+
+    private final class ActiveSessions extends AbstractCollection<Session> {
+
+        @Override
+        public Iterator<Session> iterator() {
+            return new SessionIterator(index.keySet().iterator());
+        }
+
+        @Override
+        public int size() {
+            return index.size();
+        }
+    }
+
+    /**
+     * A weakly consistent iterator deserializing the stored sessions, skipping those deleted while iterating.
+     */
+    private final class SessionIterator implements Iterator<Session> {
+
+        private final Iterator<Serializable> ids;
+        private Session next;
+
+        private SessionIterator(Iterator<Serializable> ids) {
+            this.ids = ids;
+        }
+
+        public boolean hasNext() {
+            while (next == null && ids.hasNext()) {
+                next = doReadSession(ids.next());
+            }
+            return next != null;
+        }
+
+        public Session next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Session session = next;
+            next = null;
+            return session;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("The active sessions view is unmodifiable.");
+        }
+    }
+}
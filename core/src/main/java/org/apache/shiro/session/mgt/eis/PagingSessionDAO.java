@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+/**
+ * A {@link SessionDAO} able to return its active sessions a page at a time, so that they can be processed (e.g.
+ * {@link org.apache.shiro.session.mgt.ValidatingSessionManager#validateSessions() validated}) in bounded chunks
+ * instead of being loaded all at once by {@link #getActiveSessions()}.
+ * <p/>
+ * Paging is driven by an opaque cursor returned with each page, which the implementation may represent however suits
+ * its data store: the last session id returned (keyset paging), an offset, or even a live iterator over an in-memory
+ * store.  Iterating while sessions are created and deleted must neither fail nor return a session twice, but may or
+ * may not return the sessions created or deleted since the iteration started.
+ *
+ * @see org.apache.shiro.session.mgt.AbstractValidatingSessionManager#setSessionValidationPageSize(int)
+ * @since 1.4.1
+ */
+public interface PagingSessionDAO extends SessionDAO {
+
+    /**
+     * Returns the next page of at most {@code pageSize} active sessions.
+     *
+     * @param cursor   the {@link SessionPage#getNextCursor() cursor} of the previous page, or {@code null} to return
+     *                 the first page.
+     * @param pageSize the maximum number of sessions to return, which is positive.
+     * @return the next page of active sessions, never {@code null}.
+     * @throws IllegalArgumentException if the cursor was not returned by this instance.
+     */
+    SessionPage getActiveSessions(Object cursor, int pageSize) throws IllegalArgumentException;
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.session.Session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A page of active sessions returned by a {@link PagingSessionDAO}, along with the cursor to request the next page.
+ *
+ * @see PagingSessionDAO#getActiveSessions(Object, int)
+ * @since 1.4.1
+ */
+public class SessionPage {
+
+    private final Collection<Session> sessions;
+    private final Object nextCursor;
+
+    /**
+     * Creates a page of the specified sessions.
+     *
+     * @param sessions   the sessions of this page.
+     * @param nextCursor the cursor to request the next page, or {@code null} if this page is the last one.
+     */
+    public SessionPage(Collection<Session> sessions, Object nextCursor) {
+        this.sessions = sessions != null ? sessions : Collections.<Session>emptyList();
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates the next page of sessions taken from the specified iterator, which is also the page's cursor if it has
+     * more sessions, so that a DAO iterating over its own sessions can resume from it when the next page is requested.
+     *
+     * @param iterator the iterator over the sessions, positioned at the start of the page.
+     * @param pageSize the maximum number of sessions of the page.
+     * @return the next page of sessions, whose cursor is the iterator if it has more sessions, {@code null} otherwise.
+     */
+    public static SessionPage fromIterator(Iterator<Session> iterator, int pageSize) {
+        List<Session> page = new ArrayList<Session>(Math.min(Math.max(pageSize, 0), 1024));
+        while (page.size() < pageSize && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return new SessionPage(page, iterator.hasNext() ? iterator : null);
+    }
+
+    /**
+     * Returns the sessions of this page.
+     *
+     * @return the sessions of this page, never {@code null}.
+     */
+    public Collection<Session> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Returns the opaque cursor to pass to {@link PagingSessionDAO#getActiveSessions(Object, int)} to request the next
+     * page, or {@code null} if this page is the last one.
+     *
+     * @return the cursor to request the next page, or {@code null} if this page is the last one.
+     */
+    public Object getNextCursor() {
+        return nextCursor;
+    }
+}
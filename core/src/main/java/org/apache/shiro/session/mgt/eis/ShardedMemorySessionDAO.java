@@ -0,0 +1,439 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A memory-based {@code SessionDAO}, like the {@link MemorySessionDAO}, that bounds the number of sessions it stores
+ * so that a burst of session creations (e.g. by bots not sending the session cookie back) cannot exhaust the heap.
+ * <p/>
+ * Sessions are spread over a number of {@link #setShardCount(int) shards}, each a {@link ConcurrentHashMap} with its
+ * own session counter, so that reads never block and writes to different shards never contend.  When
+ * {@link #setMaxActiveSessions(int) maxActiveSessions} is positive, each shard holds at most its share of that number:
+ * storing a new session in a full shard first evicts another one, chosen among a
+ * {@link #setEvictionSampleSize(int) sample} of the shard's sessions, oldest first.  Anonymous sessions (those with no
+ * principals, see {@link #isAnonymous(Session)}) are evicted before the sessions of identified users, and sessions
+ * idle for longer before the recently accessed ones.  Sampled sessions that are not evicted move to the back of the
+ * shard's eviction queue, approximating a least recently used policy without any lock.  Evicted sessions simply
+ * disappear, as if they had been deleted, so a user holding one will have to start a new session.
+ * <p/>
+ * {@link #getActiveSessions()} returns a view of the stored sessions, which is never copied, and whose size is the sum
+ * of the shard counters.  This class is also a {@link PagingSessionDAO}, whose cursor is a live iterator over that
+ * view, and a {@link BatchSessionDAO}.
+ *
+ * @see MemorySessionDAO
+ * @since 1.4.1
+ */
+public class ShardedMemorySessionDAO extends AbstractSessionDAO implements PagingSessionDAO, BatchSessionDAO {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedMemorySessionDAO.class);
+
+    /**
+     * The default number of sessions considered for each eviction (8).
+     */
+    public static final int DEFAULT_EVICTION_SAMPLE_SIZE = 8;
+
+    private volatile Shard[] shards;
+    private int maxActiveSessions;
+    private int evictionSampleSize;
+    private final AtomicLong evictionCount;
+    private final Collection<Session> activeSessions;
+
+    public ShardedMemorySessionDAO() {
+        this.shards = createShards(defaultShardCount());
+        this.maxActiveSessions = 0;
+        this.evictionSampleSize = DEFAULT_EVICTION_SAMPLE_SIZE;
+        this.evictionCount = new AtomicLong();
+        this.activeSessions = new ActiveSessions();
+    }
+
+    private static int defaultShardCount() {
+        return Runtime.getRuntime().availableProcessors() * 4;
+    }
+
+    private static Shard[] createShards(int shardCount) {
+        //a power of two, so that a shard is selected by masking the session id's hash:
+        int count = 1;
+        while (count < shardCount) {
+            count <<= 1;
+        }
+        Shard[] shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard();
+        }
+        return shards;
+    }
+
+    /**
+     * Returns the number of shards sessions are spread over.  The default value is four times the number of
+     * available processors, rounded up to a power of two.
+     *
+     * @return the number of shards sessions are spread over.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Sets the number of shards sessions are spread over, rounded up to a power of two.  This may only be set while
+     * no session is stored.
+     *
+     * @param shardCount the number of shards sessions are spread over.
+     * @throws IllegalStateException if sessions are stored.
+     */
+    public void setShardCount(int shardCount) throws IllegalStateException {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive.");
+        }
+        if (getActiveSessionCount() > 0) {
+            throw new IllegalStateException("The shard count cannot be changed while sessions are stored.");
+        }
+        this.shards = createShards(shardCount);
+    }
+
+    /**
+     * Returns the maximum number of sessions stored, or {@code 0} if unbounded.  The default value is {@code 0}.
+     *
+     * @return the maximum number of sessions stored, or {@code 0} if unbounded.
+     */
+    public int getMaxActiveSessions() {
+        return maxActiveSessions;
+    }
+
+    /**
+     * Sets the maximum number of sessions stored, evenly divided among the shards: storing a session in a shard
+     * holding its share evicts another session of that shard first.  Since shards fill up independently, sessions may
+     * start being evicted slightly before this number is reached overall.
+     *
+     * @param maxActiveSessions the maximum number of sessions stored, {@code 0} or less if unbounded.
+     */
+    public void setMaxActiveSessions(int maxActiveSessions) {
+        this.maxActiveSessions = maxActiveSessions;
+    }
+
+    /**
+     * Returns the number of sessions considered for each eviction.  The default value is
+     * {@link #DEFAULT_EVICTION_SAMPLE_SIZE}.
+     *
+     * @return the number of sessions considered for each eviction.
+     */
+    public int getEvictionSampleSize() {
+        return evictionSampleSize;
+    }
+
+    /**
+     * Sets the number of sessions considered for each eviction.  Larger samples pick better candidates (idle,
+     * anonymous sessions) at the cost of a slower eviction.
+     *
+     * @param evictionSampleSize the number of sessions considered for each eviction.
+     */
+    public void setEvictionSampleSize(int evictionSampleSize) {
+        this.evictionSampleSize = evictionSampleSize;
+    }
+
+    /**
+     * Returns the number of sessions currently stored.
+     *
+     * @return the number of sessions currently stored.
+     */
+    public int getActiveSessionCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.size.get();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of sessions evicted since this instance was created.
+     *
+     * @return the number of sessions evicted since this instance was created.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns {@code true} if the specified session belongs to an anonymous user, in which case it is evicted before
+     * the sessions of identified users.  This implementation returns {@code true} if the session holds no principals.
+     *
+     * @param session the session to check.
+     * @return {@code true} if the specified session belongs to an anonymous user, {@code false} otherwise.
+     */
+    protected boolean isAnonymous(Session session) {
+        return session.getAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY) == null;
+    }
+
+    private Shard shardFor(Serializable id) {
+        Shard[] shards = this.shards;
+        int h = id.hashCode();
+        //spread the hash bits, as hash codes of consecutive ids often differ in their high bits only:
+        h ^= (h >>> 16);
+        h ^= (h >>> 8);
+        return shards[h & (shards.length - 1)];
+    }
+
+    protected Serializable doCreate(Session session) {
+        Serializable sessionId = generateSessionId(session);
+        assignSessionId(session, sessionId);
+        storeSession(sessionId, session);
+        return sessionId;
+    }
+
+    protected Session storeSession(Serializable id, Session session) {
+        if (id == null) {
+            throw new NullPointerException("id argument cannot be null.");
+        }
+        Shard shard = shardFor(id);
+        Session existing = shard.sessions.putIfAbsent(id, session);
+        if (existing == null) {
+            int size = shard.size.incrementAndGet();
+            shard.evictionQueue.offer(id);
+            purgeEvictionQueue(shard);
+            int capacity = getShardCapacity();
+            if (capacity > 0 && size > capacity) {
+                evict(shard, id);
+            }
+        }
+        return existing;
+    }
+
+    private int getShardCapacity() {
+        int max = getMaxActiveSessions();
+        if (max <= 0) {
+            return 0;
+        }
+        int shardCount = shards.length;
+        return Math.max(1, (max + shardCount - 1) / shardCount);
+    }
+
+    /**
+     * Rotates the head of the eviction queue of the specified shard, dropping the ids of deleted sessions.  Done on
+     * every insertion, this bounds the number of such ids in the queue to about the number of stored sessions.
+     */
+    private static void purgeEvictionQueue(Shard shard) {
+        for (int i = 0; i < 2; i++) {
+            Serializable id = shard.evictionQueue.poll();
+            if (id == null) {
+                return;
+            }
+            if (shard.sessions.containsKey(id)) {
+                shard.evictionQueue.offer(id);
+            }
+        }
+    }
+
+    /**
+     * Evicts a session of the specified shard, other than the one just stored, among a sample of its eviction queue.
+     */
+    private void evict(Shard shard, Serializable storedId) {
+        int sampleSize = Math.max(1, getEvictionSampleSize());
+        List<Serializable> sampled = new ArrayList<Serializable>(sampleSize);
+        Serializable victimId = null;
+        Session victim = null;
+        boolean victimAnonymous = false;
+        long victimLastAccess = Long.MAX_VALUE;
+        //bound the polls, since stale ids (of deleted sessions) are skipped:
+        int polls = sampleSize * 4;
+        while (sampled.size() < sampleSize && polls-- > 0) {
+            Serializable id = shard.evictionQueue.poll();
+            if (id == null) {
+                break;
+            }
+            Session session = shard.sessions.get(id);
+            if (session == null) {
+                //deleted since it was queued:
+                continue;
+            }
+            sampled.add(id);
+            if (id.equals(storedId)) {
+                continue;
+            }
+            boolean anonymous = isAnonymous(session);
+            Date lastAccessTime = session.getLastAccessTime();
+            long lastAccess = lastAccessTime != null ? lastAccessTime.getTime() : Long.MIN_VALUE;
+            if (victim == null || (anonymous && !victimAnonymous) ||
+                    (anonymous == victimAnonymous && lastAccess < victimLastAccess)) {
+                victimId = id;
+                victim = session;
+                victimAnonymous = anonymous;
+                victimLastAccess = lastAccess;
+            }
+        }
+        for (Serializable id : sampled) {
+            if (!id.equals(victimId)) {
+                shard.evictionQueue.offer(id);
+            }
+        }
+        if (victim != null && shard.sessions.remove(victimId, victim)) {
+            shard.size.decrementAndGet();
+            evictionCount.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Evicted " + (victimAnonymous ? "anonymous " : "") + "session with id [" + victimId +
+                        "] to stay within the maximum number of active sessions.");
+            }
+        }
+    }
+
+    protected Session doReadSession(Serializable sessionId) {
+        return shardFor(sessionId).sessions.get(sessionId);
+    }
+
+    public void update(Session session) throws UnknownSessionException {
+        storeSession(session.getId(), session);
+    }
+
+    public void delete(Session session) {
+        if (session == null) {
+            throw new NullPointerException("session argument cannot be null.");
+        }
+        Serializable id = session.getId();
+        if (id != null) {
+            Shard shard = shardFor(id);
+            if (shard.sessions.remove(id) != null) {
+                shard.size.decrementAndGet();
+                //the id is dropped from the eviction queue lazily, see purgeEvictionQueue
+            }
+        }
+    }
+
+    /**
+     * Deletes the specified sessions.  Sessions that no longer exist are ignored.
+     *
+     * @param sessions the sessions to delete.
+     */
+    public void delete(Collection<Session> sessions) {
+        for (Session session : sessions) {
+            delete(session);
+        }
+    }
+
+    /**
+     * Returns an unmodifiable view of the stored sessions, which reflects later changes.
+     *
+     * @return an unmodifiable view of the stored sessions.
+     */
+    public Collection<Session> getActiveSessions() {
+        return activeSessions;
+    }
+
+    /**
+     * Returns the next page of active sessions, whose cursor is an iterator over the stored sessions.
+     * <p/>
+     * The cursor is a live, weakly consistent iterator, which a paged session validation keeps between runs when it
+     * stops on its {@link org.apache.shiro.session.mgt.AbstractValidatingSessionManager#setSessionValidationTimeBudget(long)
+     * time budget}.  It never fails nor returns a session twice, but it may miss the sessions created since it was
+     * obtained, e.g. those stored behind its position: they are only seen by the next pass, which starts over from the
+     * first page.
+     *
+     * @param cursor   the cursor of the previous page, or {@code null} to return the first page.
+     * @param pageSize the maximum number of sessions to return.
+     * @return the next page of active sessions.
+     */
+    public SessionPage getActiveSessions(Object cursor, int pageSize) {
+        Iterator<Session> iterator;
+        if (cursor == null) {
+            iterator = activeSessions.iterator();
+        } else if (cursor instanceof SessionIterator) {
+            iterator = (SessionIterator) cursor;
+        } else {
+            throw new IllegalArgumentException("Invalid cursor [" + cursor + "].");
+        }
+        return SessionPage.fromIterator(iterator, pageSize);
+    }
+
+    private static final class Shard {
+        private final ConcurrentMap<Serializable, Session> sessions = new ConcurrentHashMap<Serializable, Session>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final Queue<Serializable> evictionQueue = new ConcurrentLinkedQueue<Serializable>();
+    }
+
+    private final class ActiveSessions extends AbstractCollection<Session> {
+
+        @Override
+        public Iterator<Session> iterator() {
+            return new SessionIterator(shards);
+        }
+
+        @Override
+        public int size() {
+            return getActiveSessionCount();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+    }
+
+    /**
+     * A weakly consistent iterator over the sessions of every shard in turn.
+     */
+    private static final class SessionIterator implements Iterator<Session> {
+
+        private final Shard[] shards;
+        private int next;
+        private Iterator<Session> current;
+
+        private SessionIterator(Shard[] shards) {
+            this.shards = shards;
+        }
+
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                if (next >= shards.length) {
+                    return false;
+                }
+                current = shards[next++].sessions.values().iterator();
+            }
+            return true;
+        }
+
+        public Session next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("The active sessions view is unmodifiable.");
+        }
+    }
+}
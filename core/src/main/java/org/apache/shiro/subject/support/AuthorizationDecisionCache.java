@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.subject.support;
+
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the outcome of the permission and role checks performed by a single {@link Subject Subject} for as long
+ * as that subject is bound to the current thread, so asking the same question repeatedly during one request (from
+ * annotations, JSP tags and filters alike) only consults the {@code SecurityManager} once.  Both positive and negative
+ * answers are remembered.
+ * <p/>
+ * An instance is {@link #bind bound} to the {@link ThreadContext ThreadContext} by {@link SubjectThreadState}
+ * when the subject is bound, i.e. for the duration of a {@link SubjectCallable} or {@link SubjectRunnable} execution,
+ * and is discarded along with the rest of the thread state when that state is restored.  It is only created for
+ * {@link DelegatingSubject}s whose {@link DelegatingSubject#isAuthorizationDecisionCachingEnabled() decision caching}
+ * is enabled, and only used by the subject it was created for.
+ * <p/>
+ * Decisions are remembered per {@link PrincipalCollection}, so assuming another identity via
+ * {@link Subject#runAs(PrincipalCollection) runAs} never reuses the decisions made for the original identity.  This
+ * class is not thread-safe, since instances are only ever accessed by the thread they are bound to.
+ *
+ * @see DelegatingSubject#setAuthorizationDecisionCachingEnabled(boolean)
+ * @since 1.4.1
+ */
+public class AuthorizationDecisionCache {
+
+    /**
+     * The {@link ThreadContext ThreadContext} key under which the current instance is bound.
+     */
+    public static final String THREAD_CONTEXT_KEY = AuthorizationDecisionCache.class.getName() + "_THREAD_CONTEXT_KEY";
+
+    private final Subject subject;
+    private final Map<Decision, Boolean> decisions = new HashMap<Decision, Boolean>();
+
+    /**
+     * Creates a new, empty, instance for the specified subject.
+     *
+     * @param subject the subject whose decisions will be remembered.
+     */
+    public AuthorizationDecisionCache(Subject subject) {
+        if (subject == null) {
+            throw new IllegalArgumentException("Subject argument cannot be null.");
+        }
+        this.subject = subject;
+    }
+
+    /**
+     * Returns the instance bound to the current thread for the specified subject, or {@code null} if there is no
+     * bound instance or it was created for another subject.
+     *
+     * @param subject the subject performing the authorization check.
+     * @return the instance bound to the current thread for the specified subject, or {@code null}.
+     */
+    public static AuthorizationDecisionCache getBound(Subject subject) {
+        Object bound = ThreadContext.get(THREAD_CONTEXT_KEY);
+        if (bound instanceof AuthorizationDecisionCache && ((AuthorizationDecisionCache) bound).subject == subject) {
+            return (AuthorizationDecisionCache) bound;
+        }
+        return null;
+    }
+
+    /**
+     * Binds this instance to the current thread, replacing any previously bound instance.
+     */
+    public void bind() {
+        ThreadContext.put(THREAD_CONTEXT_KEY, this);
+    }
+
+    /**
+     * Returns the subject whose decisions are remembered by this instance.
+     *
+     * @return the subject whose decisions are remembered by this instance.
+     */
+    public Subject getSubject() {
+        return subject;
+    }
+
+    /**
+     * Returns the remembered outcome of a permission check, or {@code null} if the permission has not been checked yet.
+     *
+     * @param principals the principals the check was performed for.
+     * @param permission the checked permission, either a {@code String} or a
+     *                   {@link org.apache.shiro.authz.Permission Permission}.
+     * @return the remembered outcome of the permission check, or {@code null} if unknown.
+     */
+    public Boolean getPermissionDecision(PrincipalCollection principals, Object permission) {
+        return decisions.get(new Decision(principals, false, permission));
+    }
+
+    /**
+     * Remembers the outcome of a permission check.
+     *
+     * @param principals the principals the check was performed for.
+     * @param permission the checked permission, either a {@code String} or a
+     *                   {@link org.apache.shiro.authz.Permission Permission}.
+     * @param permitted  whether the permission was granted.
+     */
+    public void putPermissionDecision(PrincipalCollection principals, Object permission, boolean permitted) {
+        decisions.put(new Decision(principals, false, permission), permitted);
+    }
+
+    /**
+     * Returns the remembered outcome of a role check, or {@code null} if the role has not been checked yet.
+     *
+     * @param principals     the principals the check was performed for.
+     * @param roleIdentifier the checked role.
+     * @return the remembered outcome of the role check, or {@code null} if unknown.
+     */
+    public Boolean getRoleDecision(PrincipalCollection principals, String roleIdentifier) {
+        return decisions.get(new Decision(principals, true, roleIdentifier));
+    }
+
+    /**
+     * Remembers the outcome of a role check.
+     *
+     * @param principals     the principals the check was performed for.
+     * @param roleIdentifier the checked role.
+     * @param hasRole        whether the subject has the role.
+     */
+    public void putRoleDecision(PrincipalCollection principals, String roleIdentifier, boolean hasRole) {
+        decisions.put(new Decision(principals, true, roleIdentifier), hasRole);
+    }
+
+    /**
+     * Forgets all remembered decisions.
+     */
+    public void clear() {
+        decisions.clear();
+    }
+
+    /**
+     * Returns the number of remembered decisions.
+     *
+     * @return the number of remembered decisions.
+     */
+    public int size() {
+        return decisions.size();
+    }
+
+    private static final class Decision {
+
+        private final PrincipalCollection principals;
+        private final boolean role;
+        private final Object target;
+        private final int hashCode;
+
+        private Decision(PrincipalCollection principals, boolean role, Object target) {
+            this.principals = principals;
+            this.role = role;
+            this.target = target;
+            int result = principals != null ? principals.hashCode() : 0;
+            result = 31 * result + (role ? 1 : 0);
+            result = 31 * result + (target != null ? target.hashCode() : 0);
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Decision)) {
+                return false;
+            }
+            Decision other = (Decision) o;
+            return role == other.role &&
+                    (principals != null ? principals.equals(other.principals) : other.principals == null) &&
+                    (target != null ? target.equals(other.target) : other.target == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
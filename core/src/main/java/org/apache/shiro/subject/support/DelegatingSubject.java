@@ -24,6 +24,7 @@ import org.apache.shiro.authc.HostAuthenticationToken;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.UnauthenticatedException;
+import org.apache.shiro.authz.UnauthorizedException;
 import org.apache.shiro.mgt.SecurityManager;
 import org.apache.shiro.session.InvalidSessionException;
 import org.apache.shiro.session.ProxiedSession;
@@ -39,6 +40,8 @@ import org.apache.shiro.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -65,6 +68,12 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * Applications from large and clustered to simple and JVM-local all benefit from
  * stateless architectures.  This implementation plays a part in the stateless programming
  * paradigm and should be used whenever possible.
+ * <p/>
+ * Within a single request, however, the same question is often asked many times (by annotations, JSP tags and filters
+ * alike).  If {@link #setAuthorizationDecisionCachingEnabled(boolean) authorizationDecisionCachingEnabled} is set, the
+ * outcome of the single-permission and single-role checks, of the {@code isPermittedAll} and {@code hasAllRoles}
+ * checks and of the successful {@code check*} calls is remembered for as long as this subject is bound to the thread
+ * (see {@link AuthorizationDecisionCache}), so repeated checks do not reach the {@code SecurityManager} again.
  *
  * @since 0.1
  */
@@ -83,6 +92,10 @@ public class DelegatingSubject implements Subject {
      * @since 1.2
      */
     protected boolean sessionCreationEnabled;
+    /**
+     * @since 1.4.1
+     */
+    protected boolean authorizationDecisionCachingEnabled;
 
     protected transient SecurityManager securityManager;
 
@@ -130,6 +143,102 @@ public class DelegatingSubject implements Subject {
         return !isEmpty(getPrincipals());
     }
 
+    /**
+     * Returns {@code true} if authorization decisions are remembered for as long as this subject is bound to the
+     * thread, {@code false} otherwise.  The default is {@code false}.
+     *
+     * @return {@code true} if authorization decisions are remembered for as long as this subject is bound to the
+     *         thread.
+     * @see AuthorizationDecisionCache
+     * @since 1.4.1
+     */
+    public boolean isAuthorizationDecisionCachingEnabled() {
+        return authorizationDecisionCachingEnabled;
+    }
+
+    /**
+     * Sets whether authorization decisions are remembered for as long as this subject is bound to the thread by a
+     * {@link SubjectThreadState}, for example during an {@link #execute(Callable) execute} call.  Decisions are never
+     * remembered when this subject is used without being bound.
+     *
+     * @param authorizationDecisionCachingEnabled
+     *         whether authorization decisions are remembered for as long as this subject is bound to the thread.
+     * @see AuthorizationDecisionCache
+     * @since 1.4.1
+     */
+    public void setAuthorizationDecisionCachingEnabled(boolean authorizationDecisionCachingEnabled) {
+        this.authorizationDecisionCachingEnabled = authorizationDecisionCachingEnabled;
+    }
+
+    private AuthorizationDecisionCache getDecisionCache() {
+        return authorizationDecisionCachingEnabled ? AuthorizationDecisionCache.getBound(this) : null;
+    }
+
+    private void clearDecisionCache() {
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private boolean isPermitted(PrincipalCollection principals, Object permission, AuthorizationDecisionCache cache) {
+        Boolean permitted = cache.getPermissionDecision(principals, permission);
+        if (permitted == null) {
+            if (permission instanceof Permission) {
+                permitted = securityManager.isPermitted(principals, (Permission) permission);
+            } else {
+                permitted = securityManager.isPermitted(principals, (String) permission);
+            }
+            cache.putPermissionDecision(principals, permission, permitted);
+        }
+        return permitted;
+    }
+
+    /**
+     * Returns {@code true} if all of the specified permissions are remembered as granted, {@code false} if one of
+     * them is remembered as denied, or {@code null} if this cannot be decided from the remembered decisions alone.
+     */
+    private static Boolean isPermittedAll(PrincipalCollection principals, Collection<?> permissions,
+                                          AuthorizationDecisionCache cache) {
+        Boolean all = Boolean.TRUE;
+        for (Object permission : permissions) {
+            Boolean permitted = cache.getPermissionDecision(principals, permission);
+            if (permitted == null) {
+                all = null;
+            } else if (!permitted) {
+                return Boolean.FALSE;
+            }
+        }
+        return all;
+    }
+
+    private boolean hasRole(PrincipalCollection principals, String roleIdentifier, AuthorizationDecisionCache cache) {
+        Boolean hasRole = cache.getRoleDecision(principals, roleIdentifier);
+        if (hasRole == null) {
+            hasRole = securityManager.hasRole(principals, roleIdentifier);
+            cache.putRoleDecision(principals, roleIdentifier, hasRole);
+        }
+        return hasRole;
+    }
+
+    /**
+     * Returns {@code true} if all of the specified roles are remembered as assigned, {@code false} if one of them is
+     * remembered as not assigned, or {@code null} if this cannot be decided from the remembered decisions alone.
+     */
+    private static Boolean hasAllRoles(PrincipalCollection principals, Collection<String> roleIdentifiers,
+                                       AuthorizationDecisionCache cache) {
+        Boolean all = Boolean.TRUE;
+        for (String roleIdentifier : roleIdentifiers) {
+            Boolean hasRole = cache.getRoleDecision(principals, roleIdentifier);
+            if (hasRole == null) {
+                all = null;
+            } else if (!hasRole) {
+                return Boolean.FALSE;
+            }
+        }
+        return all;
+    }
+
     /**
      * Returns the host name or IP associated with the client who created/is interacting with this Subject.
      *
@@ -159,11 +268,25 @@ public class DelegatingSubject implements Subject {
     }
 
     public boolean isPermitted(String permission) {
-        return hasPrincipals() && securityManager.isPermitted(getPrincipals(), permission);
+        if (!hasPrincipals()) {
+            return false;
+        }
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache != null) {
+            return isPermitted(getPrincipals(), permission, cache);
+        }
+        return securityManager.isPermitted(getPrincipals(), permission);
     }
 
     public boolean isPermitted(Permission permission) {
-        return hasPrincipals() && securityManager.isPermitted(getPrincipals(), permission);
+        if (!hasPrincipals()) {
+            return false;
+        }
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache != null) {
+            return isPermitted(getPrincipals(), permission, cache);
+        }
+        return securityManager.isPermitted(getPrincipals(), permission);
     }
 
     public boolean[] isPermitted(String... permissions) {
@@ -183,11 +306,57 @@ public class DelegatingSubject implements Subject {
     }
 
     public boolean isPermittedAll(String... permissions) {
-        return hasPrincipals() && securityManager.isPermittedAll(getPrincipals(), permissions);
+        if (!hasPrincipals()) {
+            return false;
+        }
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache != null && permissions != null && permissions.length > 0) {
+            PrincipalCollection principals = getPrincipals();
+            Boolean all = isPermittedAll(principals, Arrays.asList(permissions), cache);
+            if (all == null) {
+                List<String> unknown = new ArrayList<String>(permissions.length);
+                for (String permission : permissions) {
+                    if (cache.getPermissionDecision(principals, permission) == null) {
+                        unknown.add(permission);
+                    }
+                }
+                boolean[] permitted = securityManager.isPermitted(principals, unknown.toArray(new String[unknown.size()]));
+                all = Boolean.TRUE;
+                for (int i = 0; i < permitted.length; i++) {
+                    cache.putPermissionDecision(principals, unknown.get(i), permitted[i]);
+                    all = all && permitted[i];
+                }
+            }
+            return all;
+        }
+        return securityManager.isPermittedAll(getPrincipals(), permissions);
     }
 
     public boolean isPermittedAll(Collection<Permission> permissions) {
-        return hasPrincipals() && securityManager.isPermittedAll(getPrincipals(), permissions);
+        if (!hasPrincipals()) {
+            return false;
+        }
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache != null && permissions != null && !permissions.isEmpty()) {
+            PrincipalCollection principals = getPrincipals();
+            Boolean all = isPermittedAll(principals, permissions, cache);
+            if (all == null) {
+                List<Permission> unknown = new ArrayList<Permission>(permissions.size());
+                for (Permission permission : permissions) {
+                    if (cache.getPermissionDecision(principals, permission) == null) {
+                        unknown.add(permission);
+                    }
+                }
+                boolean[] permitted = securityManager.isPermitted(principals, unknown);
+                all = Boolean.TRUE;
+                for (int i = 0; i < permitted.length; i++) {
+                    cache.putPermissionDecision(principals, unknown.get(i), permitted[i]);
+                    all = all && permitted[i];
+                }
+            }
+            return all;
+        }
+        return securityManager.isPermittedAll(getPrincipals(), permissions);
     }
 
     protected void assertAuthzCheckPossible() throws AuthorizationException {
@@ -206,26 +375,87 @@ public class DelegatingSubject implements Subject {
 
     public void checkPermission(String permission) throws AuthorizationException {
         assertAuthzCheckPossible();
-        securityManager.checkPermission(getPrincipals(), permission);
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache == null) {
+            securityManager.checkPermission(getPrincipals(), permission);
+            return;
+        }
+        PrincipalCollection principals = getPrincipals();
+        if (Boolean.TRUE.equals(cache.getPermissionDecision(principals, permission))) {
+            return;
+        }
+        try {
+            securityManager.checkPermission(principals, permission);
+        } catch (UnauthorizedException e) {
+            cache.putPermissionDecision(principals, permission, false);
+            throw e;
+        }
+        cache.putPermissionDecision(principals, permission, true);
     }
 
     public void checkPermission(Permission permission) throws AuthorizationException {
         assertAuthzCheckPossible();
-        securityManager.checkPermission(getPrincipals(), permission);
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache == null) {
+            securityManager.checkPermission(getPrincipals(), permission);
+            return;
+        }
+        PrincipalCollection principals = getPrincipals();
+        if (Boolean.TRUE.equals(cache.getPermissionDecision(principals, permission))) {
+            return;
+        }
+        try {
+            securityManager.checkPermission(principals, permission);
+        } catch (UnauthorizedException e) {
+            cache.putPermissionDecision(principals, permission, false);
+            throw e;
+        }
+        cache.putPermissionDecision(principals, permission, true);
     }
 
     public void checkPermissions(String... permissions) throws AuthorizationException {
         assertAuthzCheckPossible();
-        securityManager.checkPermissions(getPrincipals(), permissions);
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache == null || permissions == null) {
+            securityManager.checkPermissions(getPrincipals(), permissions);
+            return;
+        }
+        PrincipalCollection principals = getPrincipals();
+        if (Boolean.TRUE.equals(isPermittedAll(principals, Arrays.asList(permissions), cache))) {
+            return;
+        }
+        securityManager.checkPermissions(principals, permissions);
+        for (String permission : permissions) {
+            cache.putPermissionDecision(principals, permission, true);
+        }
     }
 
     public void checkPermissions(Collection<Permission> permissions) throws AuthorizationException {
         assertAuthzCheckPossible();
-        securityManager.checkPermissions(getPrincipals(), permissions);
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache == null || permissions == null) {
+            securityManager.checkPermissions(getPrincipals(), permissions);
+            return;
+        }
+        PrincipalCollection principals = getPrincipals();
+        if (Boolean.TRUE.equals(isPermittedAll(principals, permissions, cache))) {
+            return;
+        }
+        securityManager.checkPermissions(principals, permissions);
+        for (Permission permission : permissions) {
+            cache.putPermissionDecision(principals, permission, true);
+        }
     }
 
     public boolean hasRole(String roleIdentifier) {
-        return hasPrincipals() && securityManager.hasRole(getPrincipals(), roleIdentifier);
+        if (!hasPrincipals()) {
+            return false;
+        }
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache != null) {
+            return hasRole(getPrincipals(), roleIdentifier, cache);
+        }
+        return securityManager.hasRole(getPrincipals(), roleIdentifier);
     }
 
     public boolean[] hasRoles(List<String> roleIdentifiers) {
@@ -237,26 +467,85 @@ public class DelegatingSubject implements Subject {
     }
 
     public boolean hasAllRoles(Collection<String> roleIdentifiers) {
-        return hasPrincipals() && securityManager.hasAllRoles(getPrincipals(), roleIdentifiers);
+        if (!hasPrincipals()) {
+            return false;
+        }
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache != null && roleIdentifiers != null && !roleIdentifiers.isEmpty()) {
+            PrincipalCollection principals = getPrincipals();
+            Boolean all = hasAllRoles(principals, roleIdentifiers, cache);
+            if (all == null) {
+                List<String> unknown = new ArrayList<String>(roleIdentifiers.size());
+                for (String roleIdentifier : roleIdentifiers) {
+                    if (cache.getRoleDecision(principals, roleIdentifier) == null) {
+                        unknown.add(roleIdentifier);
+                    }
+                }
+                boolean[] hasRoles = securityManager.hasRoles(principals, unknown);
+                all = Boolean.TRUE;
+                for (int i = 0; i < hasRoles.length; i++) {
+                    cache.putRoleDecision(principals, unknown.get(i), hasRoles[i]);
+                    all = all && hasRoles[i];
+                }
+            }
+            return all;
+        }
+        return securityManager.hasAllRoles(getPrincipals(), roleIdentifiers);
     }
 
     public void checkRole(String role) throws AuthorizationException {
         assertAuthzCheckPossible();
-        securityManager.checkRole(getPrincipals(), role);
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache == null) {
+            securityManager.checkRole(getPrincipals(), role);
+            return;
+        }
+        PrincipalCollection principals = getPrincipals();
+        if (Boolean.TRUE.equals(cache.getRoleDecision(principals, role))) {
+            return;
+        }
+        try {
+            securityManager.checkRole(principals, role);
+        } catch (UnauthorizedException e) {
+            cache.putRoleDecision(principals, role, false);
+            throw e;
+        }
+        cache.putRoleDecision(principals, role, true);
     }
 
     public void checkRoles(String... roleIdentifiers) throws AuthorizationException {
         assertAuthzCheckPossible();
-        securityManager.checkRoles(getPrincipals(), roleIdentifiers);
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache == null || roleIdentifiers == null) {
+            securityManager.checkRoles(getPrincipals(), roleIdentifiers);
+            return;
+        }
+        checkRoles(getPrincipals(), Arrays.asList(roleIdentifiers), cache);
     }
 
     public void checkRoles(Collection<String> roles) throws AuthorizationException {
         assertAuthzCheckPossible();
-        securityManager.checkRoles(getPrincipals(), roles);
+        AuthorizationDecisionCache cache = getDecisionCache();
+        if (cache == null || roles == null) {
+            securityManager.checkRoles(getPrincipals(), roles);
+            return;
+        }
+        checkRoles(getPrincipals(), roles, cache);
+    }
+
+    private void checkRoles(PrincipalCollection principals, Collection<String> roles, AuthorizationDecisionCache cache) {
+        if (Boolean.TRUE.equals(hasAllRoles(principals, roles, cache))) {
+            return;
+        }
+        securityManager.checkRoles(principals, roles);
+        for (String role : roles) {
+            cache.putRoleDecision(principals, role, true);
+        }
     }
 
     public void login(AuthenticationToken token) throws AuthenticationException {
         clearRunAsIdentitiesInternal();
+        clearDecisionCache();
         Subject subject = securityManager.login(this, token);
 
         PrincipalCollection principals;
@@ -364,6 +653,7 @@ public class DelegatingSubject implements Subject {
     public void logout() {
         try {
             clearRunAsIdentitiesInternal();
+            clearDecisionCache();
             this.securityManager.logout(this);
         } finally {
             this.session = null;
@@ -19,6 +19,7 @@
 package org.apache.shiro.subject.support;
 
 import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.session.mgt.DeferredSessionUpdates;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.util.ThreadContext;
@@ -36,6 +37,11 @@ import java.util.Map;
  * from the {@code ThreadContext} later by any
  * {@code SecurityUtils.}{@link org.apache.shiro.SecurityUtils#getSubject() getSubject()} calls that might occur during
  * the thread's execution.
+ * <p/>
+ * If the subject is a {@link DelegatingSubject} with
+ * {@link DelegatingSubject#isAuthorizationDecisionCachingEnabled() authorization decision caching} enabled, a new,
+ * empty {@link AuthorizationDecisionCache} is bound as well, which is discarded when the thread state is
+ * {@link #restore restored}.
  *
  * @since 1.0
  */
@@ -45,6 +51,7 @@ public class SubjectThreadState implements ThreadState {
 
     private final Subject subject;
     private transient SecurityManager securityManager;
+    private transient boolean outermostUnitOfWork;
 
     /**
      * Creates a new {@code SubjectThreadState} that will bind and unbind the specified {@code Subject} to the
@@ -85,6 +92,12 @@ public class SubjectThreadState implements ThreadState {
      * <p/>
      * Prior to binding, the {@code ThreadContext}'s existing {@link ThreadContext#getResources() resources} are
      * retained so they can be restored later via the {@link #restore restore} call.
+     * <p/>
+     * The thread is also marked as executing a {@link DeferredSessionUpdates#bindUnitOfWork(Object) unit of work},
+     * in which a session manager with write-behind enabled defers session changes until the {@link #restore restore}
+     * call.  If one is already marked, e.g. when a subject is bound during the execution of another one, it is marked
+     * again instead, so that the nested unit of work sees the sessions changed by the enclosing one, and only the
+     * outermost thread state flushes them.
      */
     public void bind() {
         SecurityManager securityManager = this.securityManager;
@@ -93,23 +106,45 @@ public class SubjectThreadState implements ThreadState {
             securityManager = ThreadContext.getSecurityManager();
         }
         this.originalResources = ThreadContext.getResources();
+        Object enclosingUnitOfWork = DeferredSessionUpdates.getUnitOfWork();
         ThreadContext.remove();
 
         ThreadContext.bind(this.subject);
         if (securityManager != null) {
             ThreadContext.bind(securityManager);
         }
+        if (this.subject instanceof DelegatingSubject &&
+                ((DelegatingSubject) this.subject).isAuthorizationDecisionCachingEnabled()) {
+            new AuthorizationDecisionCache(this.subject).bind();
+        }
+        this.outermostUnitOfWork = enclosingUnitOfWork == null;
+        DeferredSessionUpdates.bindUnitOfWork(enclosingUnitOfWork);
     }
 
     /**
      * {@link ThreadContext#remove Remove}s all thread-state that was bound by this instance.  If any previous
      * thread-bound resources existed prior to the {@link #bind bind} call, they are restored back to the
      * {@code ThreadContext} to ensure the thread state is exactly as it was before binding.
+     * <p/>
+     * Any session change deferred while this instance was bound is {@link DeferredSessionUpdates#flush() flushed}
+     * first, unless this instance was bound within another one, which flushes them when it is restored.  A failure to
+     * persist a session change is rethrown once the thread state has been restored.
      */
     public void restore() {
-        ThreadContext.remove();
-        if (!CollectionUtils.isEmpty(this.originalResources)) {
-            ThreadContext.setResources(this.originalResources);
+        Object unitOfWork = DeferredSessionUpdates.getUnitOfWork();
+        try {
+            if (this.outermostUnitOfWork) {
+                DeferredSessionUpdates.flushUnitOfWork(unitOfWork);
+            }
+        } finally {
+            ThreadContext.remove();
+            if (!CollectionUtils.isEmpty(this.originalResources)) {
+                ThreadContext.setResources(this.originalResources);
+            }
+            if (!this.outermostUnitOfWork) {
+                //hand the changes deferred since this nested unit of work started back to the enclosing one:
+                DeferredSessionUpdates.bindUnitOfWork(unitOfWork);
+            }
         }
     }
 
@@ -117,8 +152,18 @@ public class SubjectThreadState implements ThreadState {
      * Completely {@link ThreadContext#remove removes} the {@code ThreadContext} state.  Typically this method should
      * only be called in special cases - it is more 'correct' to {@link #restore restore} a thread to its previous
      * state than to clear it entirely.
+     * <p/>
+     * Any session change deferred while this instance was bound is {@link DeferredSessionUpdates#flush() flushed}
+     * first, unless this instance was bound within another one, which flushes them when it is restored.  A failure to
+     * persist a session change is rethrown once the thread state has been cleared.
      */
     public void clear() {
-        ThreadContext.remove();
+        try {
+            if (this.outermostUnitOfWork) {
+                DeferredSessionUpdates.flushUnitOfWork(DeferredSessionUpdates.getUnitOfWork());
+            }
+        } finally {
+            ThreadContext.remove();
+        }
     }
 }
@@ -18,6 +18,9 @@
  */
 package org.apache.shiro.util;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * <p>PathMatcher implementation for Ant-style path patterns.
  * Examples are provided below.</p>
@@ -66,8 +69,17 @@ public class AntPathMatcher implements PatternMatcher {
      */
     public static final String DEFAULT_PATH_SEPARATOR = "/";
 
+    /**
+     * Maximum number of distinct patterns whose parsed representation is cached: 10000.
+     *
+     * @since 1.4.1
+     */
+    public static final int PATTERN_CACHE_LIMIT = 10000;
+
     private String pathSeparator = DEFAULT_PATH_SEPARATOR;
 
+    private final ConcurrentMap<String, PathPattern> patternCache = new ConcurrentHashMap<String, PathPattern>();
+
 
     /**
      * Set the path separator to use for pattern parsing.
@@ -75,6 +87,18 @@ public class AntPathMatcher implements PatternMatcher {
      */
     public void setPathSeparator(String pathSeparator) {
         this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
+        this.patternCache.clear();
+    }
+
+    /**
+     * Returns the path separator used for pattern parsing.
+     * Default is "/", as in Ant.
+     *
+     * @return the path separator used for pattern parsing.
+     * @since 1.4.1
+     */
+    public String getPathSeparator() {
+        return pathSeparator;
     }
 
 
@@ -97,6 +121,9 @@ public class AntPathMatcher implements PatternMatcher {
 
     /**
      * Actually match the given <code>path</code> against the given <code>pattern</code>.
+     * <p/>
+     * The pattern is parsed once and then cached (see {@link #getPathPattern(String)}), and the path is matched
+     * segment by segment using offsets into the original string, so matching does not create any substrings.
      *
      * @param pattern   the pattern to match against
      * @param path      the path String to test
@@ -106,25 +133,25 @@ public class AntPathMatcher implements PatternMatcher {
      *         <code>false</code> if it didn't
      */
     protected boolean doMatch(String pattern, String path, boolean fullMatch) {
-        if (path.startsWith(this.pathSeparator) != pattern.startsWith(this.pathSeparator)) {
+        PathPattern pathPattern = getPathPattern(pattern);
+        if (path.startsWith(this.pathSeparator) != pathPattern.startsWithSeparator) {
             return false;
         }
 
-        String[] pattDirs = StringUtils.tokenizeToStringArray(pattern, this.pathSeparator);
-        String[] pathDirs = StringUtils.tokenizeToStringArray(path, this.pathSeparator);
+        //start and end offsets of each path segment: segment i spans pathDirs[2 * i] to pathDirs[2 * i + 1]
+        int[] pathDirs = tokenize(path);
 
         int pattIdxStart = 0;
-        int pattIdxEnd = pattDirs.length - 1;
+        int pattIdxEnd = pathPattern.tokens.length - 1;
         int pathIdxStart = 0;
-        int pathIdxEnd = pathDirs.length - 1;
+        int pathIdxEnd = pathDirs.length / 2 - 1;
 
         // Match all elements up to the first **
         while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-            String patDir = pattDirs[pattIdxStart];
-            if ("**".equals(patDir)) {
+            if (pathPattern.isDoubleStar(pattIdxStart)) {
                 break;
             }
-            if (!matchStrings(patDir, pathDirs[pathIdxStart])) {
+            if (!matchSegment(pathPattern, pattIdxStart, path, pathDirs, pathIdxStart)) {
                 return false;
             }
             pattIdxStart++;
@@ -134,37 +161,31 @@ public class AntPathMatcher implements PatternMatcher {
         if (pathIdxStart > pathIdxEnd) {
             // Path is exhausted, only match if rest of pattern is * or **'s
             if (pattIdxStart > pattIdxEnd) {
-                return (pattern.endsWith(this.pathSeparator) ?
+                return (pathPattern.endsWithSeparator ?
                         path.endsWith(this.pathSeparator) : !path.endsWith(this.pathSeparator));
             }
             if (!fullMatch) {
                 return true;
             }
-            if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") &&
+            if (pattIdxStart == pattIdxEnd && pathPattern.isSingleStar(pattIdxStart) &&
                     path.endsWith(this.pathSeparator)) {
                 return true;
             }
-            for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-                if (!pattDirs[i].equals("**")) {
-                    return false;
-                }
-            }
-            return true;
+            return pathPattern.isDoubleStars(pattIdxStart, pattIdxEnd);
         } else if (pattIdxStart > pattIdxEnd) {
             // String not exhausted, but pattern is. Failure.
             return false;
-        } else if (!fullMatch && "**".equals(pattDirs[pattIdxStart])) {
+        } else if (!fullMatch && pathPattern.isDoubleStar(pattIdxStart)) {
             // Path start definitely matches due to "**" part in pattern.
             return true;
         }
 
         // up to last '**'
         while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-            String patDir = pattDirs[pattIdxEnd];
-            if (patDir.equals("**")) {
+            if (pathPattern.isDoubleStar(pattIdxEnd)) {
                 break;
             }
-            if (!matchStrings(patDir, pathDirs[pathIdxEnd])) {
+            if (!matchSegment(pathPattern, pattIdxEnd, path, pathDirs, pathIdxEnd)) {
                 return false;
             }
             pattIdxEnd--;
@@ -172,18 +193,13 @@ public class AntPathMatcher implements PatternMatcher {
         }
         if (pathIdxStart > pathIdxEnd) {
             // String is exhausted
-            for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-                if (!pattDirs[i].equals("**")) {
-                    return false;
-                }
-            }
-            return true;
+            return pathPattern.isDoubleStars(pattIdxStart, pattIdxEnd);
         }
 
         while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
             int patIdxTmp = -1;
             for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
-                if (pattDirs[i].equals("**")) {
+                if (pathPattern.isDoubleStar(i)) {
                     patIdxTmp = i;
                     break;
                 }
@@ -202,9 +218,7 @@ public class AntPathMatcher implements PatternMatcher {
             strLoop:
             for (int i = 0; i <= strLength - patLength; i++) {
                 for (int j = 0; j < patLength; j++) {
-                    String subPat = (String) pattDirs[pattIdxStart + j + 1];
-                    String subStr = (String) pathDirs[pathIdxStart + i + j];
-                    if (!matchStrings(subPat, subStr)) {
+                    if (!matchSegment(pathPattern, pattIdxStart + j + 1, path, pathDirs, pathIdxStart + i + j)) {
                         continue strLoop;
                     }
                 }
@@ -220,13 +234,85 @@ public class AntPathMatcher implements PatternMatcher {
             pathIdxStart = foundIdx + patLength;
         }
 
-        for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-            if (!pattDirs[i].equals("**")) {
-                return false;
+        return pathPattern.isDoubleStars(pattIdxStart, pattIdxEnd);
+    }
+
+    /**
+     * Returns the parsed representation of the specified pattern, parsing it first if it has not been parsed yet.
+     * Parsed patterns are cached, up to {@link #PATTERN_CACHE_LIMIT} distinct patterns; further patterns are parsed
+     * each time they are matched.
+     *
+     * @param pattern the pattern to parse
+     * @return the parsed representation of the specified pattern
+     */
+    private PathPattern getPathPattern(String pattern) {
+        PathPattern pathPattern = this.patternCache.get(pattern);
+        if (pathPattern == null) {
+            pathPattern = new PathPattern(pattern, this.pathSeparator);
+            if (this.patternCache.size() < PATTERN_CACHE_LIMIT) {
+                this.patternCache.put(pattern, pathPattern);
             }
         }
+        return pathPattern;
+    }
 
-        return true;
+    /**
+     * Splits the given path the same way
+     * <code>StringUtils.{@link StringUtils#tokenizeToStringArray(String, String) tokenizeToStringArray}</code> does
+     * (trimming tokens and omitting empty ones), but returns the start and end offsets of the tokens instead of the
+     * tokens themselves.
+     *
+     * @param path the path to split
+     * @return the start (inclusive) and end (exclusive) offsets of each token, in pairs
+     */
+    private int[] tokenize(String path) {
+        int[] offsets = new int[8];
+        int count = 0;
+        int length = path.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isSeparator(path.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && !isSeparator(path.charAt(i))) {
+                i++;
+            }
+            int end = i;
+            // trim the token as String.trim() does
+            while (start < end && path.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && path.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start < end) {
+                if (count == offsets.length) {
+                    int[] grown = new int[count * 2];
+                    System.arraycopy(offsets, 0, grown, 0, count);
+                    offsets = grown;
+                }
+                offsets[count++] = start;
+                offsets[count++] = end;
+            }
+        }
+        if (count == offsets.length) {
+            return offsets;
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(offsets, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    private boolean isSeparator(char c) {
+        // like StringTokenizer, each character of the separator is a delimiter on its own
+        return this.pathSeparator.indexOf(c) != -1;
+    }
+
+    private static boolean matchSegment(PathPattern pathPattern, int patternIndex, String path, int[] pathDirs,
+                                        int pathIndex) {
+        return matchStrings(pathPattern.tokens[patternIndex], pathPattern.containsStar[patternIndex], path,
+                pathDirs[2 * pathIndex], pathDirs[2 * pathIndex + 1]);
     }
 
     /**
@@ -235,39 +321,32 @@ public class AntPathMatcher implements PatternMatcher {
      * '*' means zero or more characters<br>
      * '?' means one and only one character
      *
-     * @param pattern pattern to match against.
-     *                Must not be <code>null</code>.
-     * @param str     string which must be matched against the pattern.
-     *                Must not be <code>null</code>.
+     * @param patArr       pattern to match against.
+     *                     Must not be <code>null</code>.
+     * @param containsStar whether the pattern contains a '*'.
+     * @param str          string containing the characters which must be matched against the pattern.
+     *                     Must not be <code>null</code>.
+     * @param from         the offset of the first character to match in <code>str</code>.
+     * @param to           the offset after the last character to match in <code>str</code>.
      * @return <code>true</code> if the string matches against the
      *         pattern, or <code>false</code> otherwise.
      */
-    private boolean matchStrings(String pattern, String str) {
-        char[] patArr = pattern.toCharArray();
-        char[] strArr = str.toCharArray();
+    private static boolean matchStrings(char[] patArr, boolean containsStar, String str, int from, int to) {
         int patIdxStart = 0;
         int patIdxEnd = patArr.length - 1;
-        int strIdxStart = 0;
-        int strIdxEnd = strArr.length - 1;
+        int strIdxStart = from;
+        int strIdxEnd = to - 1;
         char ch;
 
-        boolean containsStar = false;
-        for (char aPatArr : patArr) {
-            if (aPatArr == '*') {
-                containsStar = true;
-                break;
-            }
-        }
-
         if (!containsStar) {
             // No '*'s, so we make a shortcut
-            if (patIdxEnd != strIdxEnd) {
+            if (patIdxEnd != strIdxEnd - from) {
                 return false; // Pattern and string do not have the same size
             }
             for (int i = 0; i <= patIdxEnd; i++) {
                 ch = patArr[i];
                 if (ch != '?') {
-                    if (ch != strArr[i]) {
+                    if (ch != str.charAt(from + i)) {
                         return false;// Character mismatch
                     }
                 }
@@ -283,7 +362,7 @@ public class AntPathMatcher implements PatternMatcher {
         // Process characters before first star
         while ((ch = patArr[patIdxStart]) != '*' && strIdxStart <= strIdxEnd) {
             if (ch != '?') {
-                if (ch != strArr[strIdxStart]) {
+                if (ch != str.charAt(strIdxStart)) {
                     return false;// Character mismatch
                 }
             }
@@ -293,18 +372,13 @@ public class AntPathMatcher implements PatternMatcher {
         if (strIdxStart > strIdxEnd) {
             // All characters in the string are used. Check if only '*'s are
             // left in the pattern. If so, we succeeded. Otherwise failure.
-            for (int i = patIdxStart; i <= patIdxEnd; i++) {
-                if (patArr[i] != '*') {
-                    return false;
-                }
-            }
-            return true;
+            return onlyStars(patArr, patIdxStart, patIdxEnd);
         }
 
         // Process characters after last star
         while ((ch = patArr[patIdxEnd]) != '*' && strIdxStart <= strIdxEnd) {
             if (ch != '?') {
-                if (ch != strArr[strIdxEnd]) {
+                if (ch != str.charAt(strIdxEnd)) {
                     return false;// Character mismatch
                 }
             }
@@ -314,12 +388,7 @@ public class AntPathMatcher implements PatternMatcher {
         if (strIdxStart > strIdxEnd) {
             // All characters in the string are used. Check if only '*'s are
             // left in the pattern. If so, we succeeded. Otherwise failure.
-            for (int i = patIdxStart; i <= patIdxEnd; i++) {
-                if (patArr[i] != '*') {
-                    return false;
-                }
-            }
-            return true;
+            return onlyStars(patArr, patIdxStart, patIdxEnd);
         }
 
         // process pattern between stars. padIdxStart and patIdxEnd point
@@ -347,7 +416,7 @@ public class AntPathMatcher implements PatternMatcher {
                 for (int j = 0; j < patLength; j++) {
                     ch = patArr[patIdxStart + j + 1];
                     if (ch != '?') {
-                        if (ch != strArr[strIdxStart + i + j]) {
+                        if (ch != str.charAt(strIdxStart + i + j)) {
                             continue strLoop;
                         }
                     }
@@ -367,12 +436,15 @@ public class AntPathMatcher implements PatternMatcher {
 
         // All characters in the string are used. Check if only '*'s are left
         // in the pattern. If so, we succeeded. Otherwise failure.
-        for (int i = patIdxStart; i <= patIdxEnd; i++) {
+        return onlyStars(patArr, patIdxStart, patIdxEnd);
+    }
+
+    private static boolean onlyStars(char[] patArr, int from, int to) {
+        for (int i = from; i <= to; i++) {
             if (patArr[i] != '*') {
                 return false;
             }
         }
-
         return true;
     }
 
@@ -422,4 +494,46 @@ public class AntPathMatcher implements PatternMatcher {
         return buffer.toString();
     }
 
+    /**
+     * A pattern split into its path segments, as matched by {@link #doMatch(String, String, boolean) doMatch}.
+     */
+    private static final class PathPattern {
+
+        private final boolean startsWithSeparator;
+        private final boolean endsWithSeparator;
+        private final char[][] tokens;
+        private final boolean[] containsStar;
+        private final boolean[] doubleStar;
+
+        private PathPattern(String pattern, String pathSeparator) {
+            this.startsWithSeparator = pattern.startsWith(pathSeparator);
+            this.endsWithSeparator = pattern.endsWith(pathSeparator);
+            String[] pattDirs = StringUtils.tokenizeToStringArray(pattern, pathSeparator);
+            this.tokens = new char[pattDirs.length][];
+            this.containsStar = new boolean[pattDirs.length];
+            this.doubleStar = new boolean[pattDirs.length];
+            for (int i = 0; i < pattDirs.length; i++) {
+                this.tokens[i] = pattDirs[i].toCharArray();
+                this.containsStar[i] = pattDirs[i].indexOf('*') != -1;
+                this.doubleStar[i] = "**".equals(pattDirs[i]);
+            }
+        }
+
+        private boolean isDoubleStar(int index) {
+            return doubleStar[index];
+        }
+
+        private boolean isSingleStar(int index) {
+            return tokens[index].length == 1 && tokens[index][0] == '*';
+        }
+
+        private boolean isDoubleStars(int from, int to) {
+            for (int i = from; i <= to; i++) {
+                if (!doubleStar[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
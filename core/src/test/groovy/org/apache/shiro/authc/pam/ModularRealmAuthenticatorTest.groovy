@@ -19,8 +19,13 @@
 package org.apache.shiro.authc.pam
 
 import org.apache.shiro.realm.Realm
+import org.apache.shiro.realm.SimpleAccountRealm
 import org.apache.shiro.subject.PrincipalCollection
 import org.apache.shiro.authc.*
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
 import static org.easymock.EasyMock.*
 
 /**
@@ -190,6 +195,81 @@ class ModularRealmAuthenticatorTest extends GroovyTestCase {
         verify realm1, realm1Info, realm2, token, aggregate, strategy
     }
 
+    void testParallelMultiRealmAuthenticationShortCircuits() {
+
+        def release = new CountDownLatch(1)
+        def realm = new SimpleAccountRealm()
+        realm.addAccount("jsmith", "secret")
+        def token = new UsernamePasswordToken("jsmith", "secret")
+
+        ModularRealmAuthenticator mra = new ModularRealmAuthenticator()
+        mra.authenticationStrategy = new FirstSuccessfulStrategy()
+        mra.realms = [realm, new BlockingRealm(release)]
+        def executor = Executors.newFixedThreadPool(2)
+        try {
+            mra.executorService = executor
+
+            // no realm timeout: returns without waiting for the blocking realm once the first realm succeeds
+            def info = mra.doAuthenticate(token)
+            assertEquals "jsmith", info.principals.primaryPrincipal
+        } finally {
+            release.countDown()
+            executor.shutdownNow()
+        }
+    }
+
+    void testParallelMultiRealmAuthenticationTimeout() {
+
+        def release = new CountDownLatch(1)
+        def realm = new SimpleAccountRealm()
+        realm.addAccount("jsmith", "secret")
+        def token = new UsernamePasswordToken("jsmith", "secret")
+
+        ModularRealmAuthenticator mra = new ModularRealmAuthenticator()
+        mra.authenticationStrategy = new AllSuccessfulStrategy()
+        mra.realms = [new BlockingRealm(release), realm]
+        def executor = Executors.newFixedThreadPool(2)
+        try {
+            mra.executorService = executor
+            mra.realmTimeout = 100
+            try {
+                mra.doAuthenticate(token)
+                fail "AllSuccessfulStrategy should fail when a realm does not respond in time."
+            } catch (AuthenticationException expected) {
+            }
+
+            // with a strategy that tolerates failures, the timed out realm is simply ignored:
+            mra.authenticationStrategy = new AtLeastOneSuccessfulStrategy()
+            assertEquals "jsmith", mra.doAuthenticate(token).principals.primaryPrincipal
+        } finally {
+            release.countDown()
+            executor.shutdownNow()
+        }
+    }
+
+    void testParallelMultiRealmAuthenticationFailFast() {
+
+        def release = new CountDownLatch(1)
+        def token = new UsernamePasswordToken("jsmith", "secret")
+
+        ModularRealmAuthenticator mra = new ModularRealmAuthenticator()
+        mra.authenticationStrategy = new AllSuccessfulStrategy()
+        // the second realm does not know the account: the attempt fails without waiting for the first realm
+        mra.realms = [new BlockingRealm(release), new SimpleAccountRealm()]
+        def executor = Executors.newFixedThreadPool(2)
+        try {
+            mra.executorService = executor
+            try {
+                mra.doAuthenticate(token)
+                fail "AllSuccessfulStrategy should fail as soon as any realm fails."
+            } catch (AuthenticationException expected) {
+            }
+        } finally {
+            release.countDown()
+            executor.shutdownNow()
+        }
+    }
+
     void testOnLogout() {
 
         def realm = createStrictMock(LogoutAwareRealm)
@@ -209,4 +289,32 @@ class ModularRealmAuthenticatorTest extends GroovyTestCase {
     private static interface LogoutAwareRealm extends Realm, LogoutAware {
 
     }
+
+    /**
+     * A realm that blocks until released or interrupted and never finds any account data.
+     */
+    private static class BlockingRealm implements Realm {
+
+        final CountDownLatch release
+
+        BlockingRealm(CountDownLatch release) {
+            this.release = release
+        }
+
+        String getName() {
+            return "blocking"
+        }
+
+        boolean supports(AuthenticationToken token) {
+            return true
+        }
+
+        AuthenticationInfo getAuthenticationInfo(AuthenticationToken token) {
+            try {
+                release.await()
+            } catch (InterruptedException ignored) {
+            }
+            return null
+        }
+    }
 }
@@ -18,10 +18,18 @@
  */
 package org.apache.shiro.authz;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Assert;
 
@@ -29,9 +37,11 @@ import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
+import org.apache.shiro.authz.permission.WildcardPermission;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.junit.Test;
 
 public class ModularRealmAuthorizerTest
@@ -95,6 +105,127 @@ public class ModularRealmAuthorizerTest
         
     }
     
+    @Test
+    public void testBatchPermissionChecksLoadAuthorizationInfoOncePerRealm()
+    {
+        CountingAuthorizingRealm realm1 = new CountingAuthorizingRealm( "printer:*" );
+        CountingAuthorizingRealm realm2 = new CountingAuthorizingRealm( "newsletter:read" );
+        Collection<Realm> realms = new ArrayList<Realm>();
+        realms.add( realm1 );
+        realms.add( realm2 );
+        ModularRealmAuthorizer modRealmAuthz = new ModularRealmAuthorizer( realms );
+        PrincipalCollection principals = new SimplePrincipalCollection( "user", "realm" );
+
+        List<Permission> permissions = new ArrayList<Permission>();
+        for ( int i = 0; i < 50; i++ )
+        {
+            permissions.add( new WildcardPermission( "printer:print:" + i ) );
+            permissions.add( new WildcardPermission( "newsletter:read:" + i ) );
+            permissions.add( new WildcardPermission( "newsletter:write:" + i ) );
+        }
+
+        boolean[] result = modRealmAuthz.isPermitted( principals, permissions );
+        assertEquals( permissions.size(), result.length );
+        for ( int i = 0; i < result.length; i++ )
+        {
+            assertEquals( "permission " + permissions.get( i ), i % 3 != 2, result[i] );
+        }
+        assertEquals( 1, realm1.count );
+        assertEquals( 1, realm2.count );
+
+        assertArrayEquals( new boolean[]{ true, false, true },
+                modRealmAuthz.isPermitted( principals, "printer:query", "newsletter:write", "newsletter:read" ) );
+        assertFalse( modRealmAuthz.isPermittedAll( principals, permissions ) );
+        assertTrue( modRealmAuthz.isPermittedAll( principals, "printer:query", "newsletter:read" ) );
+        assertEquals( 4, realm1.count );
+        assertEquals( 4, realm2.count );
+
+        try
+        {
+            modRealmAuthz.checkPermissions( principals, "printer:query", "newsletter:write", "newsletter:delete" );
+            fail( "expected an UnauthorizedException" );
+        }
+        catch ( UnauthorizedException expected )
+        {
+            assertEquals( "Subject does not have permission [newsletter:write]", expected.getMessage() );
+        }
+    }
+
+    @Test
+    public void testConcurrentRealmChecks() throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch( 1 );
+        MockAuthorizingRealm blockingRealm = new CountingAuthorizingRealm( "newsletter:*" )
+        {
+            @Override
+            protected AuthorizationInfo doGetAuthorizationInfo( PrincipalCollection principals )
+            {
+                try
+                {
+                    release.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return super.doGetAuthorizationInfo( principals );
+            }
+        };
+        Collection<Realm> realms = new ArrayList<Realm>();
+        realms.add( blockingRealm );
+        realms.add( new CountingAuthorizingRealm( "printer:*" ) );
+        ModularRealmAuthorizer modRealmAuthz = new ModularRealmAuthorizer( realms );
+        PrincipalCollection principals = new SimplePrincipalCollection( "user", "realm" );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            modRealmAuthz.setExecutorService( executor );
+            modRealmAuthz.setRealmTimeout( 200 );
+
+            // granted by the second realm without waiting for the first one:
+            assertTrue( modRealmAuthz.isPermitted( principals, "printer:print" ) );
+            assertArrayEquals( new boolean[]{ true, true },
+                    modRealmAuthz.isPermitted( principals, "printer:print", "printer:query" ) );
+
+            // the first realm times out and is treated as denying the check:
+            assertFalse( modRealmAuthz.isPermitted( principals, "newsletter:read" ) );
+            assertArrayEquals( new boolean[]{ true, false },
+                    modRealmAuthz.isPermitted( principals, "printer:print", "newsletter:read" ) );
+
+            release.countDown();
+            modRealmAuthz.setRealmTimeout( 0 );
+            assertArrayEquals( new boolean[]{ true, true, false },
+                    modRealmAuthz.isPermitted( principals, "printer:print", "newsletter:read", "file:read" ) );
+            assertTrue( modRealmAuthz.isPermittedAll( principals, "printer:print", "newsletter:read" ) );
+        }
+        finally
+        {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    class CountingAuthorizingRealm extends MockAuthorizingRealm
+    {
+        private final String permission;
+        private int count;
+
+        CountingAuthorizingRealm( String permission )
+        {
+            this.permission = permission;
+        }
+
+        @Override
+        protected AuthorizationInfo doGetAuthorizationInfo( PrincipalCollection principals )
+        {
+            count++;
+            SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+            info.addStringPermission( permission );
+            return info;
+        }
+    }
+
     class MockAuthorizingRealm extends AuthorizingRealm
     {
 
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that {@link InternedWildcardPermission} behaves exactly like {@link WildcardPermission}.
+ *
+ * @since 1.4.1
+ */
+public class InternedWildcardPermissionTest {
+
+    private static final String[] TOKENS = {"a", "b", "c", "*", "a,b", "b,c", "a,b,c", "c,*", "A", ",a", "x,a"};
+
+    @Test
+    public void testBasics() {
+        InternedWildcardPermission p1 = new InternedWildcardPermission("newsletter:*:*");
+        assertTrue(p1.implies(new InternedWildcardPermission("newsletter")));
+        assertTrue(p1.implies(new InternedWildcardPermission("Newsletter:edit:12")));
+        assertFalse(p1.implies(new InternedWildcardPermission("printer:edit")));
+        assertFalse(new InternedWildcardPermission("newsletter:edit").implies(p1));
+        assertTrue(new InternedWildcardPermission("a,b,c:d").implies(new InternedWildcardPermission("c,a:d:e")));
+        assertFalse(new InternedWildcardPermission("a,b:d").implies(new InternedWildcardPermission("c,a:d")));
+        assertFalse(new InternedWildcardPermission("Foo", true).implies(new InternedWildcardPermission("foo", true)));
+    }
+
+    @Test
+    public void testEqualsPlainPermission() {
+        WildcardPermission plain = new WildcardPermission("newsletter:edit,view:12");
+        InternedWildcardPermission interned = new InternedWildcardPermission("newsletter:edit,view:12");
+        assertEquals(plain, interned);
+        assertEquals(interned, plain);
+        assertEquals(plain.hashCode(), interned.hashCode());
+        assertEquals(plain.toString(), interned.toString());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        InternedWildcardPermission p = new InternedWildcardPermission("newsletter:edit,view:*");
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(p);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        InternedWildcardPermission copy = (InternedWildcardPermission) ois.readObject();
+
+        assertEquals(p, copy);
+        assertTrue(copy.implies(new InternedWildcardPermission("newsletter:view:12")));
+        assertFalse(copy.implies(new InternedWildcardPermission("newsletter:delete:12")));
+    }
+
+    /**
+     * Compares every combination of interned and plain permissions against the plain {@link WildcardPermission}
+     * result for randomly generated permission pairs.
+     */
+    @Test
+    public void testMatchesWildcardPermission() {
+        Random random = new Random(20161017L);
+        for (int i = 0; i < 20000; i++) {
+            String granted = randomWildcardString(random);
+            String requested = randomWildcardString(random);
+
+            boolean expected = new WildcardPermission(granted).implies(new WildcardPermission(requested));
+            String msg = "[" + granted + "] implies [" + requested + "]";
+
+            assertEquals(msg, expected,
+                    new InternedWildcardPermission(granted).implies(new InternedWildcardPermission(requested)));
+            assertEquals(msg, expected,
+                    new InternedWildcardPermission(granted).implies(new WildcardPermission(requested)));
+            assertEquals(msg, expected,
+                    new WildcardPermission(granted).implies(new InternedWildcardPermission(requested)));
+        }
+    }
+
+    private static String randomWildcardString(Random random) {
+        int parts = 1 + random.nextInt(5);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts; i++) {
+            if (i > 0) {
+                sb.append(WildcardPermission.PART_DIVIDER_TOKEN);
+            }
+            sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.authz.permission;
+
+import org.apache.shiro.authz.Permission;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 1.4.1
+ */
+public class WildcardPermissionIndexTest {
+
+    private static final String[] TOKENS = {"a", "b", "c", "*", "a,b", "b,c", "a,*"};
+
+    @Test
+    public void testEmpty() {
+        WildcardPermissionIndex index = new WildcardPermissionIndex(null);
+        assertFalse(index.implies(new WildcardPermission("a")));
+        index = new WildcardPermissionIndex(Collections.<Permission>emptyList());
+        assertFalse(index.implies(new WildcardPermission("*")));
+    }
+
+    @Test
+    public void testWildcards() {
+        WildcardPermissionIndex index = new WildcardPermissionIndex(Arrays.<Permission>asList(
+                new WildcardPermission("newsletter:*:*"),
+                new WildcardPermission("printer:print,query:lp7200")));
+
+        assertTrue(index.implies(new WildcardPermission("newsletter")));
+        assertTrue(index.implies(new WildcardPermission("newsletter:edit")));
+        assertTrue(index.implies(new WildcardPermission("newsletter:edit:12:13")));
+        assertTrue(index.implies(new WildcardPermission("printer:print,query:lp7200")));
+        assertTrue(index.implies(new WildcardPermission("printer:query:lp7200:tray1")));
+        assertFalse(index.implies(new WildcardPermission("printer:print")));
+        assertFalse(index.implies(new WildcardPermission("printer:print,manage:lp7200")));
+        assertFalse(index.implies(new WildcardPermission("*")));
+    }
+
+    @Test
+    public void testUnindexedPermissions() {
+        WildcardPermissionIndex index = new WildcardPermissionIndex(Arrays.<Permission>asList(
+                new WildcardPermission("newsletter:read"),
+                new AllPermission()));
+        assertTrue(index.implies(new WildcardPermission("printer:print")));
+        assertTrue(index.implies(new Permission() {
+            public boolean implies(Permission p) {
+                return false;
+            }
+        }));
+    }
+
+    @Test
+    public void testOverriddenImplies() {
+        Permission never = new WildcardPermission("*") {
+            @Override
+            public boolean implies(Permission p) {
+                return false;
+            }
+        };
+        WildcardPermissionIndex index = new WildcardPermissionIndex(Collections.singletonList(never));
+        assertFalse(index.implies(new WildcardPermission("printer:print")));
+    }
+
+    /**
+     * Compares the index against a linear scan of {@link WildcardPermission#implies} for randomly generated
+     * permission sets.
+     */
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(20161017L);
+        for (int run = 0; run < 200; run++) {
+            List<Permission> granted = new ArrayList<Permission>();
+            int size = random.nextInt(20);
+            for (int i = 0; i < size; i++) {
+                granted.add(randomPermission(random));
+            }
+            WildcardPermissionIndex index = new WildcardPermissionIndex(granted);
+            for (int i = 0; i < 50; i++) {
+                Permission requested = randomPermission(random);
+                boolean expected = false;
+                for (Permission p : granted) {
+                    if (p.implies(requested)) {
+                        expected = true;
+                        break;
+                    }
+                }
+                assertEquals("Granted " + granted + ", requested " + requested, expected, index.implies(requested));
+            }
+        }
+    }
+
+    private static Permission randomPermission(Random random) {
+        int parts = 1 + random.nextInt(4);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts; i++) {
+            if (i > 0) {
+                sb.append(WildcardPermission.PART_DIVIDER_TOKEN);
+            }
+            sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+        }
+        return new WildcardPermission(sb.toString());
+    }
+}
@@ -20,8 +20,12 @@ package org.apache.shiro.authz.permission;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.cache.LruCache;
 import org.junit.Test;
 
 public class WildcardPermissionResolverTest {
@@ -70,4 +74,39 @@ public class WildcardPermissionResolverTest {
         assertFalse( "Sensitivity should be false", resolver.isCaseSensitive());
     }
 
+    @Test
+    public void testInterned()
+    {
+        WildcardPermissionResolver resolver = new WildcardPermissionResolver();
+        assertFalse( "Default interned should be false", resolver.isInterned());
+        assertFalse( resolver.resolvePermission( "foo:*" ) instanceof InternedWildcardPermission );
+        resolver.setInterned( true );
+        Permission permission = resolver.resolvePermission( "Foo:*" );
+        assertTrue( permission instanceof InternedWildcardPermission );
+        assertEquals( "string should be lowercase", "foo:*", permission.toString());
+    }
+
+    @Test
+    public void testPermissionCache()
+    {
+        WildcardPermissionResolver resolver = new WildcardPermissionResolver();
+        assertEquals( "Caching should be disabled by default", 0, resolver.getPermissionCacheSize());
+        assertNotSame( resolver.resolvePermission( "foo:bar" ), resolver.resolvePermission( "foo:bar" ));
+
+        resolver.setPermissionCacheSize( 2 );
+        LruCache<String, Permission> cache = resolver.getPermissionCache();
+        Permission permission = resolver.resolvePermission( "foo:bar" );
+        assertSame( permission, resolver.resolvePermission( "foo:bar" ));
+        assertEquals( 1, cache.getHitCount());
+        assertEquals( 1, cache.getMissCount());
+
+        resolver.resolvePermission( "foo:baz" );
+        resolver.resolvePermission( "foo:qux" );
+        assertTrue( "cache should be bounded", cache.size() <= 2);
+
+        resolver.setCaseSensitive( true );
+        assertEquals( "changing case sensitivity should clear the cache", 0, cache.size());
+        assertEquals( "Foo:Bar", resolver.resolvePermission( "Foo:Bar" ).toString());
+    }
+
 }
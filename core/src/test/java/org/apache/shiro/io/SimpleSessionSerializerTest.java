@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.io;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link SimpleSessionSerializer} class.
+ *
+ * @since 1.4.1
+ */
+public class SimpleSessionSerializerTest {
+
+    private SimpleSessionSerializer serializer;
+
+    @Before
+    public void setup() {
+        serializer = new SimpleSessionSerializer();
+    }
+
+    private static SimpleSession createSession() {
+        SimpleSession session = new SimpleSession("192.168.1.10");
+        session.setId(UUID.randomUUID().toString());
+        session.setLastAccessTime(new Date(session.getStartTimestamp().getTime() + 12345));
+        SimplePrincipalCollection principals = new SimplePrincipalCollection("jsmith", "iniRealm");
+        principals.add(42L, "jdbcRealm");
+        session.setAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY, principals);
+        session.setAttribute(DefaultSubjectContext.AUTHENTICATED_SESSION_KEY, Boolean.TRUE);
+        return session;
+    }
+
+    private static void assertSessionEquals(SimpleSession expected, Session actual) {
+        assertTrue(actual instanceof SimpleSession);
+        SimpleSession session = (SimpleSession) actual;
+        assertEquals(expected.getId(), session.getId());
+        assertEquals(expected.getStartTimestamp(), session.getStartTimestamp());
+        assertEquals(expected.getStopTimestamp(), session.getStopTimestamp());
+        assertEquals(expected.getLastAccessTime(), session.getLastAccessTime());
+        assertEquals(expected.getTimeout(), session.getTimeout());
+        assertEquals(expected.isExpired(), session.isExpired());
+        assertEquals(expected.getHost(), session.getHost());
+        assertEquals(expected.getAttributes(), session.getAttributes());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        SimpleSession session = createSession();
+        session.setAttribute("count", 7);
+        session.setAttribute("negative", Integer.MIN_VALUE);
+        session.setAttribute("visits", Long.MAX_VALUE);
+        session.setAttribute("since", new Date(0));
+        session.setAttribute("flag", Boolean.FALSE);
+        session.setAttribute("unicode", "héllo 世界");
+        session.setAttribute("copy", "jsmith");
+        session.setAttribute(1, "integer key");
+        session.setAttribute("price", new Price("EUR", 1999));
+
+        SimpleSession deserialized = (SimpleSession) serializer.deserialize(serializer.serialize(session));
+        assertSessionEquals(session, deserialized);
+    }
+
+    @Test
+    public void testRoundTripBytes() {
+        SimpleSession session = createSession();
+        byte[] bytes = {1, 2, 3, -1};
+        session.setAttribute("bytes", bytes);
+
+        Session deserialized = serializer.deserialize(serializer.serialize(session));
+        assertTrue(Arrays.equals(bytes, (byte[]) deserialized.getAttribute("bytes")));
+    }
+
+    @Test
+    public void testRoundTripStoppedSession() {
+        SimpleSession session = createSession();
+        session.setTimeout(-1);
+        session.stop();
+        session.setExpired(true);
+        assertSessionEquals(session, serializer.deserialize(serializer.serialize(session)));
+    }
+
+    @Test
+    public void testRoundTripEmptySession() {
+        SimpleSession session = new SimpleSession();
+        session.setStartTimestamp(null);
+        session.setLastAccessTime(null);
+        session.setTimeout(0);
+        assertSessionEquals(session, serializer.deserialize(serializer.serialize(session)));
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() {
+        SimpleSession session = createSession();
+        byte[] compact = serializer.serialize(session);
+        byte[] java = new DefaultSerializer<Session>().serialize(session);
+        assertTrue(compact.length * 2 < java.length);
+    }
+
+    @Test
+    public void testAttributeCodec() {
+        serializer.setAttributeCodecs(Collections.<SessionAttributeCodec<?>>singletonList(new PointCodec()));
+        SimpleSession session = createSession();
+        session.setAttribute("point", new Point(3, -4));
+
+        byte[] serialized = serializer.serialize(session);
+        assertSessionEquals(session, serializer.deserialize(serialized));
+
+        //a serializer without the codec cannot read the value:
+        try {
+            new SimpleSessionSerializer().deserialize(serialized);
+            fail("SerializationException expected");
+        } catch (SerializationException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateAttributeCodecNames() {
+        serializer.setAttributeCodecs(Arrays.<SessionAttributeCodec<?>>asList(new PointCodec(), new PointCodec()));
+    }
+
+    @Test
+    public void testJavaSerializationDisabled() {
+        SimpleSession session = createSession();
+        session.setAttribute("price", new Price("EUR", 1999));
+        byte[] serialized = serializer.serialize(session);
+
+        serializer.setJavaSerializationEnabled(false);
+        try {
+            serializer.serialize(session);
+            fail("SerializationException expected");
+        } catch (SerializationException expected) {
+        }
+        try {
+            serializer.deserialize(serialized);
+            fail("SerializationException expected");
+        } catch (SerializationException expected) {
+        }
+        session.removeAttribute("price");
+        assertSessionEquals(session, serializer.deserialize(serializer.serialize(session)));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testUnsupportedVersion() {
+        byte[] serialized = serializer.serialize(createSession());
+        serialized[0] = SimpleSessionSerializer.VERSION + 1;
+        serializer.deserialize(serialized);
+    }
+
+    @Test
+    public void testTruncated() {
+        byte[] serialized = serializer.serialize(createSession());
+        for (int length = 0; length < serialized.length; length++) {
+            byte[] truncated = new byte[length];
+            System.arraycopy(serialized, 0, truncated, 0, length);
+            try {
+                serializer.deserialize(truncated);
+                fail("SerializationException expected for a length of " + length);
+            } catch (SerializationException expected) {
+            }
+        }
+    }
+
+    @Test(expected = SerializationException.class)
+    public void testTrailingData() {
+        byte[] serialized = serializer.serialize(createSession());
+        byte[] padded = new byte[serialized.length + 1];
+        System.arraycopy(serialized, 0, padded, 0, serialized.length);
+        serializer.deserialize(padded);
+    }
+
+    private static class Price implements Serializable {
+
+        private final String currency;
+        private final int cents;
+
+        Price(String currency, int cents) {
+            this.currency = currency;
+            this.cents = cents;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Price && ((Price) o).currency.equals(currency) && ((Price) o).cents == cents;
+        }
+
+        @Override
+        public int hashCode() {
+            return currency.hashCode() * 31 + cents;
+        }
+    }
+
+    private static class PointCodec implements SessionAttributeCodec<Point> {
+
+        public String getName() {
+            return "point";
+        }
+
+        public boolean supports(Object value) {
+            return value instanceof Point;
+        }
+
+        public void write(Point value, SimpleSessionSerializer.Output out) {
+            out.writeSignedVarLong(value.x);
+            out.writeSignedVarLong(value.y);
+        }
+
+        public Point read(SimpleSessionSerializer.Input in) {
+            return new Point((int) in.readSignedVarLong(), (int) in.readSignedVarLong());
+        }
+    }
+}
@@ -22,10 +22,12 @@ import org.apache.shiro.authc.*;
 import org.apache.shiro.authc.credential.AllowAllCredentialsMatcher;
 import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.ResolvedAuthorizationInfo;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
 import org.apache.shiro.authz.UnauthorizedException;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.subject.SimplePrincipalCollection;
 import org.junit.After;
@@ -33,6 +35,10 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.security.Principal;
 import java.util.*;
 
@@ -214,6 +220,118 @@ public class AuthorizingRealmTest {
         assertTrue( realm.isPermitted( pCollection, "other:bar:foo" ) );
     }
 
+    @Test
+    public void testPermissionIndex() {
+        Principal principal = new UsernamePrincipal("permissionIndex");
+        PrincipalCollection pCollection = new SimplePrincipalCollection(principal, "testPermissionIndex");
+
+        AuthorizingRealm realm = new AllowAllRealm() {
+            @Override
+            protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+                SimpleAuthorizationInfo info = (SimpleAuthorizationInfo) super.doGetAuthorizationInfo(principals);
+                info.addStringPermission("newsletter:view,edit");
+                info.addStringPermission("printer:*:lp7200");
+                info.addObjectPermission(new WildcardPermission("document:read"));
+                return info;
+            }
+        };
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setPermissionIndexEnabled(true);
+        realm.setRolePermissionResolver(new RolePermissionResolver() {
+            public Collection<Permission> resolvePermissionsInRole(String roleString) {
+                return Collections.<Permission>singleton(new WildcardPermission(roleString + ":*"));
+            }
+        });
+
+        assertTrue(realm.isPermitted(pCollection, "newsletter:edit"));
+        assertTrue(realm.isPermitted(pCollection, "newsletter:view,edit:12"));
+        assertFalse(realm.isPermitted(pCollection, "newsletter:delete"));
+        assertTrue(realm.isPermitted(pCollection, "printer:print:lp7200"));
+        assertFalse(realm.isPermitted(pCollection, "printer:print:epsoncolor"));
+        assertTrue(realm.isPermitted(pCollection, "document:read"));
+        assertFalse(realm.isPermitted(pCollection, "document"));
+        assertTrue(realm.isPermitted(pCollection, ROLE + ":anything:at:all"));
+        assertTrue(realm.isPermitted(pCollection, ROLE));
+
+        Object cached = realm.getAuthorizationCache().get(pCollection);
+        assertTrue(cached instanceof ResolvedAuthorizationInfo);
+        assertNotNull(((ResolvedAuthorizationInfo) cached).getPermissionIndex());
+    }
+
+    @Test
+    public void testResolvedPermissionsCaching() {
+        Principal principal = new UsernamePrincipal("resolvedPermissions");
+        PrincipalCollection pCollection = new SimplePrincipalCollection(principal, "testResolvedPermissions");
+        final int[] resolutions = new int[1];
+
+        AuthorizingRealm realm = new AllowAllRealm();
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setResolvedPermissionsCachingEnabled(true);
+        realm.setRolePermissionResolver(new RolePermissionResolver() {
+            public Collection<Permission> resolvePermissionsInRole(String roleString) {
+                resolutions[0]++;
+                return Collections.<Permission>singleton(new WildcardPermission(roleString + ":perm1"));
+            }
+        });
+
+        assertTrue(realm.isPermitted(pCollection, ROLE + ":perm1"));
+        assertFalse(realm.isPermitted(pCollection, ROLE + ":perm2"));
+        assertTrue(realm.hasRole(pCollection, ROLE));
+        assertEquals(1, resolutions[0]);
+
+        ResolvedAuthorizationInfo cached = (ResolvedAuthorizationInfo) realm.getAuthorizationCache().get(pCollection);
+        assertNull(cached.getPermissionIndex());
+        assertEquals(1, cached.getPermissions().size());
+        assertEquals(Collections.singleton(ROLE), cached.getRoles());
+
+        realm.clearCachedAuthorizationInfo(pCollection);
+        assertTrue(realm.isPermitted(pCollection, ROLE + ":perm1"));
+        assertEquals(2, resolutions[0]);
+    }
+
+    @Test
+    public void testRoleBitSet() throws Exception {
+        Principal principal = new UsernamePrincipal("roleBitSet");
+        PrincipalCollection pCollection = new SimplePrincipalCollection(principal, "testRoleBitSet");
+
+        AuthorizingRealm realm = new AllowAllRealm() {
+            protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+                SimpleAuthorizationInfo info = (SimpleAuthorizationInfo) super.doGetAuthorizationInfo(principals);
+                info.addRole("user");
+                return info;
+            }
+        };
+        realm.setCacheManager(new MemoryConstrainedCacheManager());
+        realm.setRoleBitSetEnabled(true);
+
+        assertTrue(realm.hasRole(pCollection, ROLE));
+        assertFalse(realm.hasRole(pCollection, "guest"));
+        assertTrue(realm.hasAllRoles(pCollection, Arrays.asList(ROLE, "user")));
+        assertFalse(realm.hasAllRoles(pCollection, Arrays.asList(ROLE, "guest")));
+        assertArrayEquals(new boolean[]{true, false, true},
+                realm.hasRoles(pCollection, Arrays.asList("user", "guest", ROLE)));
+        realm.checkRoles(pCollection, ROLE, "user");
+
+        ResolvedAuthorizationInfo cached = (ResolvedAuthorizationInfo) realm.getAuthorizationCache().get(pCollection);
+        assertEquals(new HashSet<String>(Arrays.asList(ROLE, "user")), cached.getRoles());
+        // the role names of the realm's info are not retained:
+        assertNull(cached.getAuthorizationInfo().getRoles());
+        assertEquals(2, realm.getRoleDictionary().size());
+        // unknown roles are never registered by checks:
+        assertEquals(-1, realm.getRoleDictionary().getId("guest"));
+
+        // role ids are local to the realm, the roles are serialized by name:
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(cached);
+        oos.close();
+        ResolvedAuthorizationInfo copy = (ResolvedAuthorizationInfo)
+                new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())).readObject();
+        assertEquals(cached.getRoles(), copy.getRoles());
+        assertTrue(copy.hasAllRoles(Arrays.asList(ROLE, "user")));
+        assertFalse(copy.hasRole("guest"));
+    }
+
     private void assertArrayEquals(boolean[] expected, boolean[] actual) {
         if (expected.length != actual.length) {
             fail("Expected array of length [" + expected.length + "] but received array of length [" + actual.length + "]");
@@ -21,6 +21,9 @@ package org.apache.shiro.realm.text;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.config.Ini;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
@@ -66,4 +69,31 @@ public class IniRealmTest {
         realm.init();
         assertTrue(realm.roleExists("admin"));
     }
+
+    @Test
+    public void testAuthorizationSnapshot() {
+        Ini ini = new Ini();
+        ini.setSectionProperty("users", "jsmith", "secret, printers");
+        ini.setSectionProperty("roles", "printers", "printer:print, printer:query:*");
+        IniRealm realm = new IniRealm(ini);
+        realm.setAuthorizationSnapshotEnabled(true);
+        PrincipalCollection principals = new SimplePrincipalCollection("jsmith", realm.getName());
+
+        assertTrue(realm.hasRole(principals, "printers"));
+        assertTrue(realm.isPermitted(principals, "printer:print"));
+        assertTrue(realm.isPermitted(principals, "printer:query:lp1"));
+        assertFalse(realm.isPermitted(principals, "printer:delete"));
+
+        // reloaded definitions replace the snapshot:
+        PrincipalCollection bob = new SimplePrincipalCollection("bob", realm.getName());
+        ini.setSectionProperty("users", "bob", "secret");
+        realm.processUserDefinitions(ini.getSection("users"));
+        assertFalse(realm.hasRole(bob, "printers"));
+        assertFalse(realm.isPermitted(bob, "printer:print"));
+        ini.setSectionProperty("users", "bob", "secret, printers");
+        realm.processUserDefinitions(ini.getSection("users"));
+        assertTrue(realm.hasRole(bob, "printers"));
+        assertTrue(realm.isPermitted(bob, "printer:print"));
+        assertFalse(realm.isPermitted(bob, "printer:delete"));
+    }
 }
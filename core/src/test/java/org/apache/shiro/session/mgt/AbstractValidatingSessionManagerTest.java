@@ -23,13 +23,21 @@ import org.apache.shiro.session.Session;
 import org.apache.shiro.session.SessionListener;
 import org.apache.shiro.session.SessionListenerAdapter;
 import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.eis.BatchSessionDAO;
+import org.apache.shiro.session.mgt.eis.EnterpriseCacheSessionDAO;
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+import org.apache.shiro.session.mgt.eis.SessionPage;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
@@ -135,4 +143,246 @@ public class AbstractValidatingSessionManagerTest {
 
         assertEquals(0, sessionManager.getActiveSessions().size());
     }
+
+    /**
+     * Tests that with the session expiry index enabled, only the first validation visits every active session, and the
+     * following ones only validate the sessions due.
+     */
+    @Test
+    public void testValidateSessionsWithExpiryIndex() throws Exception {
+        final AtomicInteger expirationCount = new AtomicInteger();
+        final AtomicInteger fullScanCount = new AtomicInteger();
+
+        final AtomicInteger retrieveCount = new AtomicInteger();
+
+        DefaultSessionManager sessionManager = new DefaultSessionManager() {
+            @Override
+            protected Collection<Session> getActiveSessions() {
+                fullScanCount.incrementAndGet();
+                return super.getActiveSessions();
+            }
+
+            @Override
+            protected Session retrieveSession(SessionKey sessionKey) throws UnknownSessionException {
+                retrieveCount.incrementAndGet();
+                return super.retrieveSession(sessionKey);
+            }
+        };
+        sessionManager.setSessionValidationSchedulerEnabled(false);
+        sessionManager.setSessionValidationInterval(10);
+        sessionManager.setSessionExpiryIndexEnabled(true);
+        sessionManager.setSessionListeners(Arrays.asList((SessionListener) new SessionListenerAdapter() {
+            @Override
+            public void onExpiration(Session session) {
+                expirationCount.incrementAndGet();
+            }
+        }));
+
+        Session expiring = sessionManager.start(null);
+        retrieveCount.set(0);
+        expiring.setTimeout(200);
+        //the session is re-indexed without being looked up again:
+        assertEquals(1, retrieveCount.get());
+        Session active = sessionManager.start(null);
+        Session eternal = sessionManager.start(null);
+        eternal.setTimeout(-1);
+        assertEquals(2, sessionManager.getSessionExpiryIndex().size());
+
+        sessionManager.validateSessions();
+        assertEquals(1, fullScanCount.get());
+        assertEquals(0, expirationCount.get());
+
+        Thread.sleep(250);
+        sessionManager.validateSessions();
+        assertEquals(1, fullScanCount.get());
+        assertEquals(1, expirationCount.get());
+        assertEquals(2, sessionManager.getSessionDAO().getActiveSessions().size());
+        assertEquals(1, sessionManager.getSessionExpiryIndex().size());
+        assertNotNull(sessionManager.getSession(new DefaultSessionKey(active.getId())));
+
+        sessionManager.setSessionExpiryIndexFullScanInterval(1);
+        sessionManager.validateSessions();
+        assertEquals(2, fullScanCount.get());
+        assertEquals(1, expirationCount.get());
+    }
+
+    /**
+     * Tests that paged validation loads a page at a time and, with a time budget, resumes on the next run where the
+     * previous one stopped.
+     */
+    @Test
+    public void testPagedValidateSessions() throws Exception {
+        final AtomicInteger expirationCount = new AtomicInteger();
+        final AtomicInteger pageCount = new AtomicInteger();
+
+        DefaultSessionManager sessionManager = new DefaultSessionManager() {
+            @Override
+            protected Collection<Session> getActiveSessions() {
+                throw new UnsupportedOperationException("Should not be called in this test.");
+            }
+
+            @Override
+            protected SessionPage getActiveSessions(Object cursor, int pageSize) {
+                pageCount.incrementAndGet();
+                try {
+                    //exceed the time budget with every page:
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getActiveSessions(cursor, pageSize);
+            }
+        };
+        sessionManager.setSessionValidationSchedulerEnabled(false);
+        sessionManager.setSessionValidationPageSize(2);
+        sessionManager.setSessionValidationTimeBudget(1);
+        sessionManager.setSessionListeners(Arrays.asList((SessionListener) new SessionListenerAdapter() {
+            @Override
+            public void onExpiration(Session session) {
+                expirationCount.incrementAndGet();
+            }
+        }));
+
+        for (int i = 0; i < 5; i++) {
+            sessionManager.start(null).setTimeout(0);
+        }
+        Thread.sleep(2);
+
+        sessionManager.validateSessions();
+        assertEquals(1, pageCount.get());
+        assertEquals(2, expirationCount.get());
+
+        sessionManager.validateSessions();
+        sessionManager.validateSessions();
+        assertEquals(3, pageCount.get());
+        assertEquals(5, expirationCount.get());
+        assertEquals(0, sessionManager.getSessionDAO().getActiveSessions().size());
+
+        //a new pass starts from the first page:
+        sessionManager.validateSessions();
+        assertEquals(4, pageCount.get());
+    }
+
+    /**
+     * Tests that sessions are validated in batches on the session validation executor, that invalid sessions are
+     * deleted a batch at a time by a {@link BatchSessionDAO}, and that the run is reported.
+     */
+    @Test
+    public void testParallelValidateSessions() throws Exception {
+        BatchMemorySessionDAO sessionDAO = new BatchMemorySessionDAO();
+        DefaultSessionManager sessionManager = new DefaultSessionManager();
+        sessionManager.setSessionDAO(sessionDAO);
+        sessionManager.setSessionValidationSchedulerEnabled(false);
+        sessionManager.setSessionValidationBatchSize(3);
+        sessionManager.setSessionValidationThreads(4);
+
+        for (int i = 0; i < 10; i++) {
+            sessionManager.start(null).setTimeout(0);
+        }
+        sessionManager.start(null);
+        sessionManager.start(null);
+        Thread.sleep(2);
+
+        try {
+            sessionManager.validateSessions();
+        } finally {
+            sessionManager.destroy();
+        }
+
+        SessionValidationResult result = sessionManager.getLastSessionValidationResult();
+        assertEquals(12, result.getScannedCount());
+        assertEquals(10, result.getExpiredCount());
+        assertEquals(0, result.getStoppedCount());
+        assertTrue(result.getDuration() >= 0);
+        assertEquals(2, sessionManager.getSessionDAO().getActiveSessions().size());
+
+        int deleted = 0;
+        for (int size : sessionDAO.deleteBatchSizes) {
+            assertTrue(size <= 3);
+            deleted += size;
+        }
+        assertEquals(10, deleted);
+        for (String threadName : sessionDAO.threadNames) {
+            assertTrue(threadName.startsWith("SessionValidationWorker-"));
+        }
+    }
+
+    /**
+     * Tests that a {@link org.apache.shiro.session.mgt.eis.CachingSessionDAO CachingSessionDAO} deletes the invalid
+     * sessions of each validation batch with a single call to its batch delete hook.
+     */
+    @Test
+    public void testCachingSessionDAOBatchDeletes() throws Exception {
+        final List<Integer> deleteBatchSizes = new ArrayList<Integer>();
+        final AtomicInteger singleDeleteCount = new AtomicInteger();
+        EnterpriseCacheSessionDAO sessionDAO = new EnterpriseCacheSessionDAO() {
+            @Override
+            protected void doDelete(Session session) {
+                singleDeleteCount.incrementAndGet();
+            }
+
+            @Override
+            protected void doDelete(Collection<Session> sessions) {
+                deleteBatchSizes.add(sessions.size());
+            }
+        };
+        DefaultSessionManager sessionManager = new DefaultSessionManager();
+        sessionManager.setSessionDAO(sessionDAO);
+        sessionManager.setSessionValidationSchedulerEnabled(false);
+        sessionManager.setSessionValidationBatchSize(3);
+
+        for (int i = 0; i < 12; i++) {
+            sessionManager.start(null).setTimeout(0);
+        }
+        Thread.sleep(2);
+        sessionManager.validateSessions();
+
+        assertEquals(Arrays.asList(3, 3, 3, 3), deleteBatchSizes);
+        assertEquals(0, singleDeleteCount.get());
+        assertEquals(0, sessionDAO.getActiveSessions().size());
+    }
+
+    /**
+     * Tests that the sessions of a {@link org.apache.shiro.session.mgt.eis.CachingSessionDAO CachingSessionDAO} are
+     * validated a page at a time through its paging hook.
+     */
+    @Test
+    public void testCachingSessionDAOPagedValidateSessions() throws Exception {
+        final AtomicInteger pageCount = new AtomicInteger();
+        EnterpriseCacheSessionDAO sessionDAO = new EnterpriseCacheSessionDAO() {
+            @Override
+            public SessionPage getActiveSessions(Object cursor, int pageSize) {
+                pageCount.incrementAndGet();
+                assertEquals(2, pageSize);
+                return super.getActiveSessions(cursor, pageSize);
+            }
+        };
+        DefaultSessionManager sessionManager = new DefaultSessionManager();
+        sessionManager.setSessionDAO(sessionDAO);
+        sessionManager.setSessionValidationSchedulerEnabled(false);
+        sessionManager.setSessionValidationPageSize(2);
+
+        for (int i = 0; i < 5; i++) {
+            sessionManager.start(null).setTimeout(0);
+        }
+        Thread.sleep(2);
+        sessionManager.validateSessions();
+
+        assertEquals(3, pageCount.get());
+        assertEquals(0, sessionDAO.getActiveSessions().size());
+    }
+
+    private static class BatchMemorySessionDAO extends MemorySessionDAO implements BatchSessionDAO {
+
+        private final List<Integer> deleteBatchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        private final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+
+        public void delete(Collection<Session> sessions) {
+            deleteBatchSizes.add(sessions.size());
+            threadNames.add(Thread.currentThread().getName());
+            for (Session session : sessions) {
+                delete(session);
+            }
+        }
+    }
 }
@@ -23,14 +23,26 @@ import org.apache.shiro.session.InvalidSessionException;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.SessionListener;
 import org.apache.shiro.session.SessionListenerAdapter;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
+import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
+import org.apache.shiro.session.mgt.eis.OffHeapSessionDAO;
 import org.apache.shiro.session.mgt.eis.SessionDAO;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.SubjectThreadState;
 import org.apache.shiro.util.ThreadContext;
+import org.apache.shiro.util.ThreadState;
 import org.easymock.EasyMock;
 import org.easymock.IArgumentMatcher;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 import static org.easymock.EasyMock.*;
@@ -196,6 +208,294 @@ public class DefaultSessionManagerTest {
         verify(sessionDAO); //verify that the delete call was actually made on the DAO
     }
 
+    @Test
+    public void testTouchPersistenceInterval() {
+        sm.setTouchPersistenceInterval(60 * 1000);
+
+        SessionDAO sessionDAO = createMock(SessionDAO.class);
+        sm.setSessionDAO(sessionDAO);
+
+        String sessionId = UUID.randomUUID().toString();
+        SimpleSession session = new SimpleSession();
+        session.setId(sessionId);
+        session.setTimeout(30 * 60 * 1000);
+        DefaultSessionKey key = new DefaultSessionKey(sessionId);
+
+        //touched within the interval: only applied in memory
+        expect(sessionDAO.readSession(sessionId)).andReturn(session).anyTimes();
+        replay(sessionDAO);
+        Date before = session.getLastAccessTime();
+        sleep(5);
+        sm.touch(key);
+        assertTrue(session.getLastAccessTime().after(before));
+        verify(sessionDAO);
+        reset(sessionDAO);
+
+        //the last persisted touch is older than the interval: persisted
+        session.setPersistedLastAccessTime(new Date(System.currentTimeMillis() - 61 * 1000));
+        expect(sessionDAO.readSession(sessionId)).andReturn(session).anyTimes();
+        sessionDAO.update(session);
+        replay(sessionDAO);
+        sm.touch(key);
+        sm.touch(key);
+        verify(sessionDAO);
+        reset(sessionDAO);
+
+        //the interval never exceeds a tenth of the session timeout:
+        session.setTimeout(1000);
+        session.setPersistedLastAccessTime(new Date(System.currentTimeMillis() - 150));
+        expect(sessionDAO.readSession(sessionId)).andReturn(session).anyTimes();
+        sessionDAO.update(session);
+        replay(sessionDAO);
+        sm.touch(key);
+        verify(sessionDAO);
+        reset(sessionDAO);
+
+        //a touch whose persistence failed is not recorded as persisted, so the next touch retries it:
+        session.setTimeout(30 * 60 * 1000);
+        Date persisted = new Date(System.currentTimeMillis() - 61 * 1000);
+        session.setPersistedLastAccessTime(persisted);
+        RuntimeException failure = new RuntimeException("unavailable");
+        expect(sessionDAO.readSession(sessionId)).andReturn(session).anyTimes();
+        sessionDAO.update(session);
+        expectLastCall().andThrow(failure);
+        sessionDAO.update(session);
+        replay(sessionDAO);
+        try {
+            sm.touch(key);
+            fail("The failure to persist the touch should have been propagated.");
+        } catch (RuntimeException expected) {
+            assertSame(failure, expected);
+        }
+        assertSame(persisted, session.getPersistedLastAccessTime());
+        sm.touch(key);
+        assertEquals(session.getLastAccessTime(), session.getPersistedLastAccessTime());
+        verify(sessionDAO);
+    }
+
+    @Test
+    public void testSessionWriteBehind() {
+        sm.setSessionWriteBehindEnabled(true);
+
+        SessionDAO sessionDAO = createStrictMock(SessionDAO.class);
+        sm.setSessionDAO(sessionDAO);
+
+        String sessionId = UUID.randomUUID().toString();
+        SimpleSession session = new SimpleSession();
+        session.setId(sessionId);
+        DefaultSessionKey key = new DefaultSessionKey(sessionId);
+
+        //read once, then served from the pending updates, and persisted once when the thread state is restored:
+        expect(sessionDAO.readSession(sessionId)).andReturn(session);
+        sessionDAO.update(session);
+        replay(sessionDAO);
+
+        ThreadState threadState = new SubjectThreadState(createNiceMock(Subject.class));
+        threadState.bind();
+        try {
+            for (int i = 0; i < 5; i++) {
+                sm.setAttribute(key, "attribute" + i, i);
+            }
+            sm.touch(key);
+            assertEquals(4, sm.getAttribute(key, "attribute4"));
+            assertFalse(DeferredSessionUpdates.getBound().isEmpty());
+        } finally {
+            threadState.restore();
+        }
+
+        verify(sessionDAO);
+    }
+
+    @Test
+    public void testSessionWriteBehindBindsLazily() {
+        Session session = sm.start(null);
+        DefaultSessionKey key = new DefaultSessionKey(session.getId());
+
+        ThreadState threadState = new SubjectThreadState(createNiceMock(Subject.class));
+        threadState.bind();
+        try {
+            //nothing is allocated for a unit of work with write-behind disabled:
+            sm.setAttribute(key, "attribute", "value");
+            assertNull(DeferredSessionUpdates.getBound());
+
+            sm.setSessionWriteBehindEnabled(true);
+            sm.getAttribute(key, "attribute");
+            assertNull(DeferredSessionUpdates.getBound());
+            sm.setAttribute(key, "attribute", "changed");
+            assertNotNull(DeferredSessionUpdates.getBound());
+        } finally {
+            threadState.restore();
+        }
+        assertNull(DeferredSessionUpdates.getUnitOfWork());
+    }
+
+    @Test
+    public void testSessionWriteBehindFailure() {
+        sm.setSessionWriteBehindEnabled(true);
+
+        SessionDAO sessionDAO = createMock(SessionDAO.class);
+        sm.setSessionDAO(sessionDAO);
+
+        SimpleSession first = new SimpleSession();
+        first.setId("first");
+        SimpleSession second = new SimpleSession();
+        second.setId("second");
+        expect(sessionDAO.readSession("first")).andReturn(first);
+        expect(sessionDAO.readSession("second")).andReturn(second);
+        IllegalStateException failure = new IllegalStateException("Store unavailable");
+        sessionDAO.update(first);
+        expectLastCall().andThrow(failure);
+        //the remaining sessions are still persisted:
+        sessionDAO.update(second);
+        replay(sessionDAO);
+
+        ThreadState threadState = new SubjectThreadState(createNiceMock(Subject.class));
+        threadState.bind();
+        try {
+            sm.setAttribute(new DefaultSessionKey("first"), "attribute", "value");
+            sm.setAttribute(new DefaultSessionKey("second"), "attribute", "value");
+        } finally {
+            try {
+                threadState.restore();
+                fail("The failure to persist a session should be rethrown.");
+            } catch (IllegalStateException expected) {
+                assertSame(failure, expected);
+            }
+        }
+
+        verify(sessionDAO);
+        assertNull(DeferredSessionUpdates.getUnitOfWork());
+    }
+
+    @Test
+    public void testSessionWriteBehindStop() {
+        sm.setSessionWriteBehindEnabled(true);
+
+        SessionDAO sessionDAO = createStrictMock(SessionDAO.class);
+        sm.setSessionDAO(sessionDAO);
+
+        String sessionId = UUID.randomUUID().toString();
+        SimpleSession session = new SimpleSession();
+        session.setId(sessionId);
+        DefaultSessionKey key = new DefaultSessionKey(sessionId);
+
+        //stopping is persisted immediately, and the stopped session is not persisted again afterwards:
+        expect(sessionDAO.readSession(sessionId)).andReturn(session);
+        sessionDAO.update(session);
+        sessionDAO.delete(session);
+        replay(sessionDAO);
+
+        ThreadState threadState = new SubjectThreadState(createNiceMock(Subject.class));
+        threadState.bind();
+        try {
+            sm.setAttribute(key, "attribute", "value");
+            sm.stop(key);
+            assertTrue(DeferredSessionUpdates.getBound().isEmpty());
+        } finally {
+            threadState.restore();
+        }
+
+        verify(sessionDAO);
+    }
+
+    @Test
+    public void testNestedSessionWriteBehind() {
+        sm.setSessionWriteBehindEnabled(true);
+        //every read returns a new copy of the session:
+        OffHeapSessionDAO sessionDAO = new OffHeapSessionDAO();
+        sm.setSessionDAO(sessionDAO);
+
+        Session session = sm.start(null);
+        SessionKey key = new DefaultSessionKey(session.getId());
+
+        ThreadState outer = new SubjectThreadState(createNiceMock(Subject.class));
+        outer.bind();
+        try {
+            sm.setAttribute(key, "outer", 1);
+            ThreadState inner = new SubjectThreadState(createNiceMock(Subject.class));
+            inner.bind();
+            try {
+                //the nested unit of work sees the pending change of the enclosing one:
+                assertEquals(1, sm.getAttribute(key, "outer"));
+                sm.setAttribute(key, "inner", 2);
+            } finally {
+                inner.restore();
+            }
+            //only the outermost thread state flushes:
+            assertNull(sessionDAO.readSession(session.getId()).getAttribute("inner"));
+            assertFalse(DeferredSessionUpdates.getBound().isEmpty());
+        } finally {
+            outer.restore();
+        }
+
+        Session stored = sessionDAO.readSession(session.getId());
+        assertEquals(1, stored.getAttribute("outer"));
+        assertEquals(2, stored.getAttribute("inner"));
+        sessionDAO.destroy();
+    }
+
+    @Test
+    public void testDeltaSessionUpdates() {
+        RecordingSessionDAO sessionDAO = new RecordingSessionDAO();
+        sessionDAO.setCacheManager(new MemoryConstrainedCacheManager());
+        sm.setSessionDAO(sessionDAO);
+
+        Session session = sm.start(null);
+        SessionKey key = new DefaultSessionKey(session.getId());
+        assertEquals(1, sessionDAO.deltas.size());
+        assertTrue(sessionDAO.deltas.get(0).isTimeoutChanged());
+
+        sm.setAttribute(key, "a", "1");
+        sm.setAttribute(key, "b", "2");
+        sm.removeAttribute(key, "a");
+        sm.removeAttribute(key, "c");
+        sm.touch(key);
+        assertEquals(5, sessionDAO.deltas.size());
+        SessionDelta set = sessionDAO.deltas.get(2);
+        assertEquals(Collections.singleton("b"), set.getChangedAttributeKeys());
+        assertTrue(set.getRemovedAttributeKeys().isEmpty());
+        assertFalse(set.isLastAccessTimeChanged());
+        SessionDelta removed = sessionDAO.deltas.get(3);
+        assertTrue(removed.getChangedAttributeKeys().isEmpty());
+        assertEquals(Collections.singleton("a"), removed.getRemovedAttributeKeys());
+        assertTrue(sessionDAO.deltas.get(4).isLastAccessTimeChanged());
+        assertEquals(0, sessionDAO.fullUpdates);
+
+        //changes a delta cannot describe are persisted in full:
+        ((SimpleSession) sessionDAO.readSession(session.getId())).setHost("localhost");
+        sm.setAttribute(key, "b", "3");
+        assertEquals(5, sessionDAO.deltas.size());
+        assertEquals(1, sessionDAO.fullUpdates);
+    }
+
+    @Test
+    public void testDeltaSessionUpdatesWithWriteBehind() {
+        sm.setSessionWriteBehindEnabled(true);
+        RecordingSessionDAO sessionDAO = new RecordingSessionDAO();
+        sessionDAO.setCacheManager(new MemoryConstrainedCacheManager());
+        sm.setSessionDAO(sessionDAO);
+
+        Session session = sm.start(null);
+        SessionKey key = new DefaultSessionKey(session.getId());
+        sessionDAO.deltas.clear();
+
+        ThreadState threadState = new SubjectThreadState(createNiceMock(Subject.class));
+        threadState.bind();
+        try {
+            sm.setAttribute(key, "a", "1");
+            sm.setAttribute(key, "b", "2");
+            sm.setAttribute(key, "c", "3");
+            sm.removeAttribute(key, "b");
+        } finally {
+            threadState.restore();
+        }
+
+        assertEquals(1, sessionDAO.deltas.size());
+        SessionDelta delta = sessionDAO.deltas.get(0);
+        assertEquals(Arrays.<Object>asList("a", "c"), new ArrayList<Object>(delta.getChangedAttributeKeys()));
+        assertEquals(Collections.singleton("b"), delta.getRemovedAttributeKeys());
+    }
+
     /**
      * Tests a bug introduced by SHIRO-443, where a custom sessionValidationScheduler would not be started.
      */
@@ -242,4 +542,36 @@ public class DefaultSessionManagerTest {
             return o instanceof Session && ((Session) o).getTimeout() == this.timeout;
         }
     }
+
+    private static class RecordingSessionDAO extends CachingSessionDAO {
+
+        private final List<SessionDelta> deltas = new ArrayList<SessionDelta>();
+        private int fullUpdates;
+
+        @Override
+        protected Serializable doCreate(Session session) {
+            Serializable sessionId = generateSessionId(session);
+            assignSessionId(session, sessionId);
+            return sessionId;
+        }
+
+        @Override
+        protected Session doReadSession(Serializable sessionId) {
+            return null;
+        }
+
+        @Override
+        protected void doUpdate(Session session) {
+            fullUpdates++;
+        }
+
+        @Override
+        protected void doUpdate(Session session, SessionDelta delta) {
+            deltas.add(delta);
+        }
+
+        @Override
+        protected void doDelete(Session session) {
+        }
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link SessionExpiryIndex} class.
+ *
+ * @since 1.4.1
+ */
+public class SessionExpiryIndexTest {
+
+    @Test
+    public void testPollDue() {
+        SessionExpiryIndex index = new SessionExpiryIndex(100);
+        index.schedule("a", 1050);
+        index.schedule("b", 1150);
+        index.schedule("c", 1250);
+        index.schedule("d", 1099);
+        assertEquals(4, index.size());
+
+        //the bucket [1000, 1100) is only due once its whole range has elapsed:
+        assertTrue(index.pollDue(1099).isEmpty());
+        Collection<Serializable> due = index.pollDue(1100);
+        assertEquals(new HashSet<Serializable>(Arrays.asList("a", "d")), new HashSet<Serializable>(due));
+        assertEquals(2, index.size());
+
+        assertEquals(Arrays.<Serializable>asList("b", "c"), index.pollDue(5000));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testReschedule() {
+        SessionExpiryIndex index = new SessionExpiryIndex(100);
+        index.schedule("a", 1050);
+        index.schedule("a", 1060);
+        index.schedule("a", 1350);
+        assertEquals(1, index.size());
+        assertTrue(index.pollDue(1300).isEmpty());
+        assertEquals(Arrays.<Serializable>asList("a"), index.pollDue(1400));
+    }
+
+    @Test
+    public void testRemove() {
+        SessionExpiryIndex index = new SessionExpiryIndex(100);
+        index.schedule("a", 1050);
+        index.schedule("b", 1050);
+        index.remove("a");
+        index.remove("unknown");
+        assertEquals(Arrays.<Serializable>asList("b"), index.pollDue(2000));
+    }
+}
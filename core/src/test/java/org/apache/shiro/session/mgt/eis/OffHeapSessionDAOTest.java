@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link OffHeapSessionDAO} class.
+ *
+ * @since 1.4.1
+ */
+public class OffHeapSessionDAOTest {
+
+    private static final int SLAB_SIZE = 4096;
+
+    private OffHeapSessionDAO sessionDAO;
+
+    @Before
+    public void setup() {
+        sessionDAO = new OffHeapSessionDAO();
+        sessionDAO.setSlabSize(SLAB_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        sessionDAO.destroy();
+    }
+
+    private Session createSession() {
+        SimpleSession session = new SimpleSession("192.168.1.10");
+        session.setAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY,
+                new SimplePrincipalCollection("jsmith", "iniRealm"));
+        sessionDAO.create(session);
+        return session;
+    }
+
+    private List<Session> createSessions(int count) {
+        List<Session> sessions = new ArrayList<Session>(count);
+        for (int i = 0; i < count; i++) {
+            sessions.add(createSession());
+        }
+        return sessions;
+    }
+
+    @Test
+    public void testCreateReadUpdateDelete() {
+        Session session = createSession();
+        Session read = sessionDAO.readSession(session.getId());
+        assertNotSame(session, read);
+        assertEquals(session.getId(), read.getId());
+        assertEquals(session.getStartTimestamp(), read.getStartTimestamp());
+        assertEquals(session.getAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY),
+                read.getAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY));
+
+        //changes are only stored by updating the session:
+        read.setAttribute("count", 1);
+        assertNull(sessionDAO.readSession(session.getId()).getAttribute("count"));
+        sessionDAO.update(read);
+        assertEquals(1, sessionDAO.readSession(session.getId()).getAttribute("count"));
+        assertEquals(1, sessionDAO.getActiveSessionCount());
+
+        sessionDAO.delete(read);
+        assertEquals(0, sessionDAO.getActiveSessionCount());
+        try {
+            sessionDAO.readSession(session.getId());
+            fail("UnknownSessionException expected");
+        } catch (UnknownSessionException expected) {
+        }
+    }
+
+    @Test
+    public void testDeletedSlabsAreRecycled() {
+        List<Session> sessions = createSessions(200);
+        long allocated = sessionDAO.getAllocatedMemory();
+        assertTrue(allocated > SLAB_SIZE);
+
+        for (Session session : sessions) {
+            sessionDAO.delete(session);
+        }
+        createSessions(200);
+        assertEquals(allocated, sessionDAO.getAllocatedMemory());
+    }
+
+    @Test
+    public void testEmptySlabsAreReused() {
+        sessionDAO.setSlabSize(1024);
+        for (int i = 0; i < 2000; i++) {
+            sessionDAO.delete(createSession());
+        }
+        assertEquals(0, sessionDAO.getActiveSessionCount());
+        assertEquals(1024, sessionDAO.getAllocatedMemory());
+    }
+
+    @Test
+    public void testCompaction() {
+        List<Session> sessions = createSessions(400);
+
+        //delete every other session, so that no slab is entirely freed:
+        Set<Serializable> remaining = new HashSet<Serializable>();
+        for (int i = 0; i < sessions.size(); i++) {
+            if (i % 2 == 0) {
+                sessionDAO.delete(sessions.get(i));
+            } else {
+                remaining.add(sessions.get(i).getId());
+            }
+        }
+        sessionDAO.setCompactionThreshold(0.75);
+        sessionDAO.compact();
+
+        //the slabs freed by compaction are reused before allocating more:
+        long allocated = sessionDAO.getAllocatedMemory();
+        createSessions(150);
+        assertEquals(allocated, sessionDAO.getAllocatedMemory());
+        for (Serializable id : remaining) {
+            assertEquals(id, sessionDAO.readSession(id).getId());
+        }
+        assertEquals(350, sessionDAO.getActiveSessionCount());
+    }
+
+    @Test
+    public void testMaxMemory() {
+        sessionDAO.setMaxMemory(4 * SLAB_SIZE);
+        List<Session> sessions = new ArrayList<Session>();
+        try {
+            while (true) {
+                sessions.add(createSession());
+            }
+        } catch (IllegalStateException expected) {
+        }
+        //the last slab is kept for compaction:
+        assertEquals(3 * SLAB_SIZE, sessionDAO.getAllocatedMemory());
+        assertEquals(sessions.size(), sessionDAO.getActiveSessionCount());
+
+        //deleting sessions without freeing whole slabs still makes room for new ones, by compaction:
+        for (int i = 0; i < sessions.size(); i += 2) {
+            sessionDAO.delete(sessions.get(i));
+        }
+        createSessions(sessions.size() / 4);
+        assertTrue(sessionDAO.getAllocatedMemory() <= 4 * SLAB_SIZE);
+    }
+
+    @Test
+    public void testPaging() {
+        Set<Serializable> ids = new HashSet<Serializable>();
+        for (Session session : createSessions(25)) {
+            ids.add(session.getId());
+        }
+        Set<Serializable> paged = new HashSet<Serializable>();
+        Object cursor = null;
+        int pages = 0;
+        do {
+            SessionPage page = sessionDAO.getActiveSessions(cursor, 10);
+            for (Session session : page.getSessions()) {
+                paged.add(session.getId());
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(3, pages);
+        assertEquals(ids, paged);
+        assertEquals(25, sessionDAO.getActiveSessions().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSessionLargerThanSlab() {
+        SimpleSession session = new SimpleSession();
+        session.setAttribute("data", new byte[SLAB_SIZE]);
+        sessionDAO.create(session);
+    }
+}
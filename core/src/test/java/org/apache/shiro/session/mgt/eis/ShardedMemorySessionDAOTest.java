@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.session.mgt.eis;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.support.DefaultSubjectContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link ShardedMemorySessionDAO} class.
+ *
+ * @since 1.4.1
+ */
+public class ShardedMemorySessionDAOTest {
+
+    private ShardedMemorySessionDAO sessionDAO;
+
+    @Before
+    public void setup() {
+        sessionDAO = new ShardedMemorySessionDAO();
+    }
+
+    private Session createSession(long lastAccessTime, boolean anonymous) {
+        SimpleSession session = new SimpleSession();
+        session.setLastAccessTime(new Date(lastAccessTime));
+        if (!anonymous) {
+            session.setAttribute(DefaultSubjectContext.PRINCIPALS_SESSION_KEY,
+                    new SimplePrincipalCollection("jsmith", "iniRealm"));
+        }
+        sessionDAO.create(session);
+        return session;
+    }
+
+    @Test
+    public void testCreateReadDelete() {
+        Session session = createSession(1000, true);
+        assertSame(session, sessionDAO.readSession(session.getId()));
+        assertEquals(1, sessionDAO.getActiveSessionCount());
+        assertEquals(1, sessionDAO.getActiveSessions().size());
+
+        sessionDAO.delete(session);
+        assertEquals(0, sessionDAO.getActiveSessionCount());
+        assertTrue(sessionDAO.getActiveSessions().isEmpty());
+        try {
+            sessionDAO.readSession(session.getId());
+            fail("UnknownSessionException expected");
+        } catch (UnknownSessionException expected) {
+        }
+    }
+
+    @Test
+    public void testEvictsIdleAnonymousSessionsFirst() {
+        sessionDAO.setShardCount(1);
+        sessionDAO.setMaxActiveSessions(3);
+
+        Session authenticated = createSession(1000, false);
+        Session idle = createSession(2000, true);
+        Session recent = createSession(3000, true);
+        Session created = createSession(4000, true);
+
+        assertEquals(3, sessionDAO.getActiveSessionCount());
+        assertEquals(1, sessionDAO.getEvictionCount());
+        assertNotNull(sessionDAO.readSession(authenticated.getId()));
+        assertNotNull(sessionDAO.readSession(recent.getId()));
+        assertNotNull(sessionDAO.readSession(created.getId()));
+        try {
+            sessionDAO.readSession(idle.getId());
+            fail("UnknownSessionException expected");
+        } catch (UnknownSessionException expected) {
+        }
+    }
+
+    @Test
+    public void testBoundedCapacity() {
+        sessionDAO.setShardCount(4);
+        sessionDAO.setMaxActiveSessions(100);
+        for (int i = 0; i < 10000; i++) {
+            createSession(i, true);
+        }
+        assertEquals(100, sessionDAO.getActiveSessionCount());
+        assertEquals(9900, sessionDAO.getEvictionCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testShardCountCannotChangeWithSessions() {
+        createSession(1000, true);
+        sessionDAO.setShardCount(2);
+    }
+
+    @Test
+    public void testPaging() {
+        sessionDAO.setShardCount(4);
+        for (int i = 0; i < 10; i++) {
+            createSession(i, true);
+        }
+        Set<Serializable> ids = new HashSet<Serializable>();
+        int pages = 0;
+        Object cursor = null;
+        do {
+            SessionPage page = sessionDAO.getActiveSessions(cursor, 3);
+            assertTrue(page.getSessions().size() <= 3);
+            for (Session session : page.getSessions()) {
+                assertTrue(ids.add(session.getId()));
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(10, ids.size());
+        assertEquals(4, pages);
+    }
+}
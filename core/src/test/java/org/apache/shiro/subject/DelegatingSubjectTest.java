@@ -25,6 +25,7 @@ import org.apache.shiro.config.IniSecurityManagerFactory;
 import org.apache.shiro.mgt.DefaultSecurityManager;
 import org.apache.shiro.mgt.SecurityManager;
 import org.apache.shiro.session.Session;
+import org.apache.shiro.subject.support.AuthorizationDecisionCache;
 import org.apache.shiro.subject.support.DelegatingSubject;
 import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.util.LifecycleUtils;
@@ -36,7 +37,12 @@ import org.junit.Test;
 import java.io.Serializable;
 import java.util.concurrent.Callable;
 
+import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.same;
+import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.*;
 
 
@@ -113,6 +119,37 @@ public class DelegatingSubjectTest {
         assertNull(ThreadContext.getSecurityManager());
     }
 
+    @Test
+    public void testAuthorizationDecisionCaching() {
+
+        SecurityManager securityManager = createMock(SecurityManager.class);
+        final PrincipalCollection identity = new SimplePrincipalCollection("jsmith", "testRealm");
+        expect(securityManager.isPermitted(same(identity), same("printer:print"))).andReturn(true).once();
+        expect(securityManager.isPermitted(same(identity), same("printer:delete"))).andReturn(false).once();
+        expect(securityManager.hasRole(same(identity), same("admin"))).andReturn(false).once();
+        replay(securityManager);
+
+        final DelegatingSubject subject = new DelegatingSubject(identity, true, null, null, securityManager);
+        subject.setAuthorizationDecisionCachingEnabled(true);
+
+        subject.execute(new Runnable() {
+            public void run() {
+                for (int i = 0; i < 3; i++) {
+                    assertTrue(subject.isPermitted("printer:print"));
+                    assertFalse(subject.isPermitted("printer:delete"));
+                    assertFalse(subject.isPermittedAll("printer:print", "printer:delete"));
+                    assertFalse(subject.hasRole("admin"));
+                    subject.checkPermission("printer:print");
+                }
+                assertNotNull(AuthorizationDecisionCache.getBound(subject));
+            }
+        });
+
+        verify(securityManager);
+        // discarded when the thread state is restored:
+        assertNull(ThreadContext.get(AuthorizationDecisionCache.THREAD_CONTEXT_KEY));
+    }
+
     @Test
     public void testExecuteRunnable() {
 
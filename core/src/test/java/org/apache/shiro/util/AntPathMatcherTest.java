@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AntPathMatcher}, including a differential test against the original implementation, which
+ * tokenized both the pattern and the path into substrings on every match.
+ *
+ * @since 1.4.1
+ */
+public class AntPathMatcherTest {
+
+    private static final String[] PATTERN_PARTS = {"a", "b", "ab", "abc", "*", "**", "?", "a*", "*b", "a?c", "*a*",
+            "**b", "a**", "***", "/", "/", "/", "//", " ", " a", ".", "x.jsp", "*.jsp"};
+
+    private static final String[] PATH_PARTS = {"a", "b", "ab", "abc", "aXc", "ba", "/", "/", "/", "//", " ", "a ",
+            ".", "x.jsp", "y.jsp", "*", "?"};
+
+    @Test
+    public void testMatch() {
+        AntPathMatcher matcher = new AntPathMatcher();
+        assertTrue(matcher.match("/index.html", "/index.html"));
+        assertFalse(matcher.match("/index.html", "index.html"));
+        assertFalse(matcher.match("/index.html", "/index.html/"));
+        assertTrue(matcher.match("/com/t?st.jsp", "/com/test.jsp"));
+        assertTrue(matcher.match("/com/*.jsp", "/com/foo.jsp"));
+        assertFalse(matcher.match("/com/*.jsp", "/com/foo/bar.jsp"));
+        assertTrue(matcher.match("/com/**/test.jsp", "/com/test.jsp"));
+        assertTrue(matcher.match("/com/**/test.jsp", "/com/a/b/test.jsp"));
+        assertTrue(matcher.match("/org/**/servlet/bla.jsp", "/org/apache/shiro/servlet/bla.jsp"));
+        assertTrue(matcher.match("/docs/*", "/docs/"));
+        assertFalse(matcher.match("/docs/*", "/docs"));
+        assertTrue(matcher.match("/docs/**", "/docs"));
+        assertTrue(matcher.match("/a//b", "/a/b"));
+        assertTrue(matcher.matchStart("/a/**/c", "/a/b"));
+        assertFalse(matcher.matchStart("/a/b/c", "/a/c"));
+    }
+
+    @Test
+    public void testMatchWithCustomPathSeparator() {
+        AntPathMatcher matcher = new AntPathMatcher();
+        assertTrue(matcher.match("a.*.c", "a.b.c"));
+        matcher.setPathSeparator(".");
+        assertFalse(matcher.match("a.*.c", "a.b.b.c"));
+        assertTrue(matcher.match("a.**.c", "a.b.b.c"));
+    }
+
+    @Test
+    public void testMatchesOriginalImplementation() {
+        assertSameMatches("/");
+        assertSameMatches(".");
+        //multi-character separators are matched as a whole when testing for leading and trailing separators, but each
+        //character is a separator on its own when splitting:
+        assertSameMatches("/.");
+    }
+
+    private static void assertSameMatches(String pathSeparator) {
+        AntPathMatcher matcher = new AntPathMatcher();
+        matcher.setPathSeparator(pathSeparator);
+        AntPathMatcher original = new TokenizingAntPathMatcher();
+        original.setPathSeparator(pathSeparator);
+        Random random = new Random(pathSeparator.hashCode());
+        for (int i = 0; i < 20000; i++) {
+            String pattern = randomPath(random, PATTERN_PARTS, pathSeparator);
+            String path = randomPath(random, PATH_PARTS, pathSeparator);
+            String message = "pattern [" + pattern + "], path [" + path + "], separator [" + pathSeparator + "]";
+            assertEquals(message, original.match(pattern, path), matcher.match(pattern, path));
+            assertEquals(message, original.matchStart(pattern, path), matcher.matchStart(pattern, path));
+            //matching a path against itself involves literal segments only:
+            assertEquals(message, original.match(path, path), matcher.match(path, path));
+        }
+    }
+
+    private static String randomPath(Random random, String[] parts, String pathSeparator) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(7);
+        for (int i = 0; i < length; i++) {
+            String part = parts[random.nextInt(parts.length)];
+            sb.append("/".equals(part) ? pathSeparator : part);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The original {@link AntPathMatcher#doMatch(String, String, boolean)} implementation.
+     */
+    private static class TokenizingAntPathMatcher extends AntPathMatcher {
+
+        @Override
+        protected boolean doMatch(String pattern, String path, boolean fullMatch) {
+            if (path.startsWith(getPathSeparator()) != pattern.startsWith(getPathSeparator())) {
+                return false;
+            }
+
+            String[] pattDirs = StringUtils.tokenizeToStringArray(pattern, getPathSeparator());
+            String[] pathDirs = StringUtils.tokenizeToStringArray(path, getPathSeparator());
+
+            int pattIdxStart = 0;
+            int pattIdxEnd = pattDirs.length - 1;
+            int pathIdxStart = 0;
+            int pathIdxEnd = pathDirs.length - 1;
+
+            // Match all elements up to the first **
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                String patDir = pattDirs[pattIdxStart];
+                if ("**".equals(patDir)) {
+                    break;
+                }
+                if (!matchStrings(patDir, pathDirs[pathIdxStart])) {
+                    return false;
+                }
+                pattIdxStart++;
+                pathIdxStart++;
+            }
+
+            if (pathIdxStart > pathIdxEnd) {
+                // Path is exhausted, only match if rest of pattern is * or **'s
+                if (pattIdxStart > pattIdxEnd) {
+                    return (pattern.endsWith(getPathSeparator()) ?
+                            path.endsWith(getPathSeparator()) : !path.endsWith(getPathSeparator()));
+                }
+                if (!fullMatch) {
+                    return true;
+                }
+                if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") &&
+                        path.endsWith(getPathSeparator())) {
+                    return true;
+                }
+                for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+                    if (!pattDirs[i].equals("**")) {
+                        return false;
+                    }
+                }
+                return true;
+            } else if (pattIdxStart > pattIdxEnd) {
+                // String not exhausted, but pattern is. Failure.
+                return false;
+            } else if (!fullMatch && "**".equals(pattDirs[pattIdxStart])) {
+                // Path start definitely matches due to "**" part in pattern.
+                return true;
+            }
+
+            // up to last '**'
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                String patDir = pattDirs[pattIdxEnd];
+                if (patDir.equals("**")) {
+                    break;
+                }
+                if (!matchStrings(patDir, pathDirs[pathIdxEnd])) {
+                    return false;
+                }
+                pattIdxEnd--;
+                pathIdxEnd--;
+            }
+            if (pathIdxStart > pathIdxEnd) {
+                // String is exhausted
+                for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+                    if (!pattDirs[i].equals("**")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                int patIdxTmp = -1;
+                for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+                    if (pattDirs[i].equals("**")) {
+                        patIdxTmp = i;
+                        break;
+                    }
+                }
+                if (patIdxTmp == pattIdxStart + 1) {
+                    // '**/**' situation, so skip one
+                    pattIdxStart++;
+                    continue;
+                }
+                // Find the pattern between padIdxStart & padIdxTmp in str between
+                // strIdxStart & strIdxEnd
+                int patLength = (patIdxTmp - pattIdxStart - 1);
+                int strLength = (pathIdxEnd - pathIdxStart + 1);
+                int foundIdx = -1;
+
+                strLoop:
+                for (int i = 0; i <= strLength - patLength; i++) {
+                    for (int j = 0; j < patLength; j++) {
+                        String subPat = (String) pattDirs[pattIdxStart + j + 1];
+                        String subStr = (String) pathDirs[pathIdxStart + i + j];
+                        if (!matchStrings(subPat, subStr)) {
+                            continue strLoop;
+                        }
+                    }
+                    foundIdx = pathIdxStart + i;
+                    break;
+                }
+
+                if (foundIdx == -1) {
+                    return false;
+                }
+
+                pattIdxStart = patIdxTmp;
+                pathIdxStart = foundIdx + patLength;
+            }
+
+            for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+                if (!pattDirs[i].equals("**")) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private boolean matchStrings(String pattern, String str) {
+            char[] patArr = pattern.toCharArray();
+            char[] strArr = str.toCharArray();
+            int patIdxStart = 0;
+            int patIdxEnd = patArr.length - 1;
+            int strIdxStart = 0;
+            int strIdxEnd = strArr.length - 1;
+            char ch;
+
+            boolean containsStar = false;
+            for (char aPatArr : patArr) {
+                if (aPatArr == '*') {
+                    containsStar = true;
+                    break;
+                }
+            }
+
+            if (!containsStar) {
+                // No '*'s, so we make a shortcut
+                if (patIdxEnd != strIdxEnd) {
+                    return false; // Pattern and string do not have the same size
+                }
+                for (int i = 0; i <= patIdxEnd; i++) {
+                    ch = patArr[i];
+                    if (ch != '?') {
+                        if (ch != strArr[i]) {
+                            return false;// Character mismatch
+                        }
+                    }
+                }
+                return true; // String matches against pattern
+            }
+
+
+            if (patIdxEnd == 0) {
+                return true; // Pattern contains only '*', which matches anything
+            }
+
+            // Process characters before first star
+            while ((ch = patArr[patIdxStart]) != '*' && strIdxStart <= strIdxEnd) {
+                if (ch != '?') {
+                    if (ch != strArr[strIdxStart]) {
+                        return false;// Character mismatch
+                    }
+                }
+                patIdxStart++;
+                strIdxStart++;
+            }
+            if (strIdxStart > strIdxEnd) {
+                // All characters in the string are used. Check if only '*'s are
+                // left in the pattern. If so, we succeeded. Otherwise failure.
+                for (int i = patIdxStart; i <= patIdxEnd; i++) {
+                    if (patArr[i] != '*') {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            // Process characters after last star
+            while ((ch = patArr[patIdxEnd]) != '*' && strIdxStart <= strIdxEnd) {
+                if (ch != '?') {
+                    if (ch != strArr[strIdxEnd]) {
+                        return false;// Character mismatch
+                    }
+                }
+                patIdxEnd--;
+                strIdxEnd--;
+            }
+            if (strIdxStart > strIdxEnd) {
+                // All characters in the string are used. Check if only '*'s are
+                // left in the pattern. If so, we succeeded. Otherwise failure.
+                for (int i = patIdxStart; i <= patIdxEnd; i++) {
+                    if (patArr[i] != '*') {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            // process pattern between stars. padIdxStart and patIdxEnd point
+            // always to a '*'.
+            while (patIdxStart != patIdxEnd && strIdxStart <= strIdxEnd) {
+                int patIdxTmp = -1;
+                for (int i = patIdxStart + 1; i <= patIdxEnd; i++) {
+                    if (patArr[i] == '*') {
+                        patIdxTmp = i;
+                        break;
+                    }
+                }
+                if (patIdxTmp == patIdxStart + 1) {
+                    // Two stars next to each other, skip the first one.
+                    patIdxStart++;
+                    continue;
+                }
+                // Find the pattern between padIdxStart & padIdxTmp in str between
+                // strIdxStart & strIdxEnd
+                int patLength = (patIdxTmp - patIdxStart - 1);
+                int strLength = (strIdxEnd - strIdxStart + 1);
+                int foundIdx = -1;
+                strLoop:
+                for (int i = 0; i <= strLength - patLength; i++) {
+                    for (int j = 0; j < patLength; j++) {
+                        ch = patArr[patIdxStart + j + 1];
+                        if (ch != '?') {
+                            if (ch != strArr[strIdxStart + i + j]) {
+                                continue strLoop;
+                            }
+                        }
+                    }
+
+                    foundIdx = strIdxStart + i;
+                    break;
+                }
+
+                if (foundIdx == -1) {
+                    return false;
+                }
+
+                patIdxStart = patIdxTmp;
+                strIdxStart = foundIdx + patLength;
+            }
+
+            // All characters in the string are used. Check if only '*'s are left
+            // in the pattern. If so, we succeeded. Otherwise failure.
+            for (int i = patIdxStart; i <= patIdxEnd; i++) {
+                if (patArr[i] != '*') {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
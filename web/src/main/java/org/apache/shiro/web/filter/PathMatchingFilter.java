@@ -36,6 +36,9 @@ import static org.apache.shiro.util.StringUtils.split;
 
 /**
  * <p>Base class for Filters that will process only specified paths and allow all others to pass through.</p>
+ * <p/>
+ * If the request has a {@link #MATCHED_PATH_ATTRIBUTE} attribute naming one of this filter's
+ * {@link #appliedPaths applied paths}, that path is used without matching the request path against any applied path.
  *
  * @since 0.9
  */
@@ -46,6 +49,23 @@ public abstract class PathMatchingFilter extends AdviceFilter implements PathCon
      */
     private static final Logger log = LoggerFactory.getLogger(PathMatchingFilter.class);
 
+    /**
+     * The name of the request attribute holding the path pattern already matched against the current request, if
+     * any.  When this attribute names one of the filter's {@link #appliedPaths applied paths}, the filter processes
+     * the request with the configuration of that path directly, instead of matching the request path against each
+     * applied path in turn.
+     * <p/>
+     * The attribute is set by the
+     * {@link org.apache.shiro.web.filter.mgt.PathMatchingFilterChainResolver PathMatchingFilterChainResolver} when its
+     * {@link org.apache.shiro.web.filter.mgt.PathMatchingFilterChainResolver#setMatchedPathAttributeEnabled(boolean)
+     * matchedPathAttributeEnabled} property is {@code true}: the chain names of a
+     * {@link org.apache.shiro.web.filter.mgt.DefaultFilterChainManager DefaultFilterChainManager} are the paths its
+     * filters are configured with.
+     *
+     * @since 1.4.1
+     */
+    public static final String MATCHED_PATH_ATTRIBUTE = PathMatchingFilter.class.getName() + ".MATCHED_PATH";
+
     /**
      * PatternMatcher used in determining which paths to react to for a given request.
      */
@@ -169,6 +189,15 @@ public abstract class PathMatchingFilter extends AdviceFilter implements PathCon
             return true;
         }
 
+        Object matchedPath = request.getAttribute(MATCHED_PATH_ATTRIBUTE);
+        if (matchedPath instanceof String && this.appliedPaths.containsKey(matchedPath)) {
+            //the request path has already been matched against the path this filter was configured with:
+            log.trace("Current request already matched pattern '{}'.  Determining filter chain execution...",
+                    matchedPath);
+            Object config = this.appliedPaths.get(matchedPath);
+            return isFilterChainContinued(request, response, (String) matchedPath, config);
+        }
+
         for (String path : this.appliedPaths.keySet()) {
             // If the path does match, then pass on to the subclass implementation for specific checks
             //(first match 'wins'):
@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default {@link FilterChainManager} implementation maintaining a map of {@link Filter Filter} instances
@@ -54,6 +55,8 @@ public class DefaultFilterChainManager implements FilterChainManager {
 
     private Map<String, NamedFilterList> filterChains; //key: chain name, value: chain
 
+    private final AtomicLong modificationCount = new AtomicLong();
+
     public DefaultFilterChainManager() {
         this.filters = new LinkedHashMap<String, Filter>();
         this.filterChains = new LinkedHashMap<String, NamedFilterList>();
@@ -101,6 +104,23 @@ public class DefaultFilterChainManager implements FilterChainManager {
     @SuppressWarnings({"UnusedDeclaration"})
     public void setFilterChains(Map<String, NamedFilterList> filterChains) {
         this.filterChains = filterChains;
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of times the filter chain configuration has been modified through this instance, that is,
+     * the number of chains created, filters added to a chain and {@link #setFilterChains(java.util.Map) setFilterChains}
+     * calls.  Components deriving data from the chain configuration, such as the
+     * {@link PathMatchingFilterChainResolver}, compare this number to know when to rebuild that data.
+     * <p/>
+     * Modifications made directly to the map returned by {@link #getFilterChains()} or to an existing chain are not
+     * counted.
+     *
+     * @return the number of times the filter chain configuration has been modified through this instance.
+     * @since 1.4.1
+     */
+    public long getModificationCount() {
+        return modificationCount.get();
     }
 
     public Filter getFilter(String name) {
@@ -271,6 +291,7 @@ public class DefaultFilterChainManager implements FilterChainManager {
 
         NamedFilterList chain = ensureChain(chainName);
         chain.add(filter);
+        modificationCount.incrementAndGet();
     }
 
     protected void applyChainConfig(String chainName, Filter filter, String chainSpecificFilterConfig) {
@@ -298,6 +319,7 @@ public class DefaultFilterChainManager implements FilterChainManager {
         if (chain == null) {
             chain = new SimpleNamedFilterList(chainName);
             this.filterChains.put(chainName, chain);
+            modificationCount.incrementAndGet();
         }
         return chain;
     }
@@ -18,8 +18,10 @@
  */
 package org.apache.shiro.web.filter.mgt;
 
+import org.apache.shiro.cache.LruCache;
 import org.apache.shiro.util.AntPathMatcher;
 import org.apache.shiro.util.PatternMatcher;
+import org.apache.shiro.web.filter.PathMatchingFilter;
 import org.apache.shiro.web.util.WebUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +30,7 @@ import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import java.util.BitSet;
 
 /**
  * A {@code FilterChainResolver} that resolves {@link FilterChain}s based on url path
@@ -36,6 +39,19 @@ import javax.servlet.ServletResponse;
  * This implementation functions by consulting a {@link org.apache.shiro.web.filter.mgt.FilterChainManager} for all configured filter chains (keyed
  * by configured path pattern).  If an incoming Request path matches one of the configured path patterns (via
  * the {@code PathMatcher}, the corresponding configured {@code FilterChain} is returned.
+ * <p/>
+ * Path patterns are tried in the order they were configured and the first matching one wins.  By default every
+ * pattern is tried in turn, so resolving a chain costs time proportional to the number of configured chains.  If
+ * {@link #setCompiledMatchingEnabled(boolean) compiled matching} is enabled, the configured patterns are compiled
+ * into a trie of path segments instead, so that only the patterns that may match the request path are tried.
+ * <p/>
+ * If a {@link #setChainCacheSize(int) chain cache size} is configured, the pattern matched by each request path is
+ * also kept in a bounded {@link LruCache LruCache} keyed by that (normalized) path, so that frequently requested
+ * paths are only matched once.
+ * <p/>
+ * If the {@link #setMatchedPathAttributeEnabled(boolean) matchedPathAttributeEnabled} property is {@code true}, the
+ * matched path pattern is also exposed to the filters of the resolved chain, so that {@link PathMatchingFilter}s do not
+ * match the request path against their own configured paths again.
  *
  * @since 1.0
  */
@@ -47,6 +63,16 @@ public class PathMatchingFilterChainResolver implements FilterChainResolver {
 
     private PatternMatcher pathMatcher;
 
+    private boolean compiledMatchingEnabled;
+
+    private volatile PathPatternTrie compiledPatterns;
+
+    private LruCache<String, String> chainCache;
+
+    private volatile long chainCacheModifications;
+
+    private boolean matchedPathAttributeEnabled;
+
     public PathMatchingFilterChainResolver() {
         this.pathMatcher = new AntPathMatcher();
         this.filterChainManager = new DefaultFilterChainManager();
@@ -79,6 +105,8 @@ public class PathMatchingFilterChainResolver implements FilterChainResolver {
      */
     public void setPathMatcher(PatternMatcher pathMatcher) {
         this.pathMatcher = pathMatcher;
+        this.compiledPatterns = null;
+        clearChainCache();
     }
 
     public FilterChainManager getFilterChainManager() {
@@ -88,6 +116,126 @@ public class PathMatchingFilterChainResolver implements FilterChainResolver {
     @SuppressWarnings({"UnusedDeclaration"})
     public void setFilterChainManager(FilterChainManager filterChainManager) {
         this.filterChainManager = filterChainManager;
+        this.compiledPatterns = null;
+        clearChainCache();
+    }
+
+    /**
+     * Returns {@code true} if the configured path patterns are compiled into a trie of path segments, so that
+     * resolving a chain only tries the patterns that may match the request path, {@code false} if every pattern is
+     * tried in turn.  The default is {@code false}.
+     *
+     * @return {@code true} if the configured path patterns are compiled into a trie of path segments.
+     * @see #setCompiledMatchingEnabled(boolean)
+     * @since 1.4.1
+     */
+    public boolean isCompiledMatchingEnabled() {
+        return compiledMatchingEnabled;
+    }
+
+    /**
+     * Sets whether the configured path patterns are compiled into a trie of path segments, so that resolving a
+     * chain costs time proportional to the depth of the request path rather than to the number of configured chains.
+     * The first matching pattern still wins, exactly as when every pattern is tried in turn.
+     * <p/>
+     * Compiled matching only applies when the {@link #getPathMatcher() pathMatcher} is an {@link AntPathMatcher} and
+     * the {@link #getFilterChainManager() filterChainManager} is a {@link DefaultFilterChainManager}, whose
+     * {@link DefaultFilterChainManager#getModificationCount() modification count} tells when the patterns must be
+     * compiled again; every pattern is tried in turn otherwise.  Subclasses overriding
+     * {@link #pathMatches(String, String) pathMatches} to match more paths than the {@code AntPathMatcher} should not
+     * enable it.
+     *
+     * @param compiledMatchingEnabled whether the configured path patterns are compiled into a trie of path segments.
+     * @since 1.4.1
+     */
+    public void setCompiledMatchingEnabled(boolean compiledMatchingEnabled) {
+        this.compiledMatchingEnabled = compiledMatchingEnabled;
+        this.compiledPatterns = null;
+    }
+
+    /**
+     * Returns the maximum number of request paths whose matching path pattern is cached by this resolver, or
+     * {@code 0} if caching is disabled.
+     * <p/>
+     * The default value is {@code 0}.
+     *
+     * @return the maximum number of request paths whose matching path pattern is cached, or {@code 0} if disabled.
+     * @since 1.4.1
+     */
+    public int getChainCacheSize() {
+        return chainCache != null ? chainCache.getMaxSize() : 0;
+    }
+
+    /**
+     * Sets the maximum number of request paths whose matching path pattern is cached by this resolver.  A value of
+     * {@code 0} (the default) or less disables caching.  Setting this property discards any previously cached paths
+     * and statistics.
+     * <p/>
+     * The cache only applies when the {@link #getFilterChainManager() filterChainManager} is a
+     * {@link DefaultFilterChainManager}, and is cleared whenever its
+     * {@link DefaultFilterChainManager#getModificationCount() chain configuration changes}, e.g. when a chain is
+     * created or a filter is added to a chain.
+     *
+     * @param chainCacheSize the maximum number of request paths whose matching path pattern is cached.
+     * @since 1.4.1
+     */
+    public void setChainCacheSize(int chainCacheSize) {
+        if (chainCacheSize > 0) {
+            this.chainCache = new LruCache<String, String>(getClass().getName() + ".chainCache", chainCacheSize);
+        } else {
+            this.chainCache = null;
+        }
+    }
+
+    /**
+     * Returns the cache of matched path patterns, keyed by request path, or {@code null} if caching is disabled.
+     * The returned cache exposes hit and miss statistics.  Request paths that do not match any path pattern are
+     * cached as well, mapped to an empty string.
+     *
+     * @return the cache of matched path patterns, or {@code null} if caching is disabled.
+     * @since 1.4.1
+     */
+    public LruCache<String, String> getChainCache() {
+        return chainCache;
+    }
+
+    /**
+     * Returns {@code true} if the path pattern matched by a request is exposed as the
+     * {@link PathMatchingFilter#MATCHED_PATH_ATTRIBUTE} request attribute, {@code false} otherwise.  The default is
+     * {@code false}.
+     *
+     * @return {@code true} if the path pattern matched by a request is exposed as a request attribute.
+     * @see #setMatchedPathAttributeEnabled(boolean)
+     * @since 1.4.1
+     */
+    public boolean isMatchedPathAttributeEnabled() {
+        return matchedPathAttributeEnabled;
+    }
+
+    /**
+     * Sets whether the path pattern matched by a request is exposed as the
+     * {@link PathMatchingFilter#MATCHED_PATH_ATTRIBUTE} request attribute (the attribute is removed if no pattern
+     * matches).  Every {@link PathMatchingFilter} of the resolved chain then processes the request with the
+     * configuration it was given for that chain, found with a single map lookup, instead of matching the request path
+     * against each of its configured paths again.
+     * <p/>
+     * This assumes the filters' configured paths are the chain names, as configured by the
+     * {@link DefaultFilterChainManager}.  Filters overriding {@code pathsMatch} to customize which of their paths
+     * applies to a request should not be used with this property enabled.
+     *
+     * @param matchedPathAttributeEnabled whether the path pattern matched by a request is exposed as a request
+     *                                    attribute.
+     * @since 1.4.1
+     */
+    public void setMatchedPathAttributeEnabled(boolean matchedPathAttributeEnabled) {
+        this.matchedPathAttributeEnabled = matchedPathAttributeEnabled;
+    }
+
+    private void clearChainCache() {
+        LruCache<String, String> cache = this.chainCache;
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
     public FilterChain getChain(ServletRequest request, ServletResponse response, FilterChain originalChain) {
@@ -98,23 +246,110 @@ public class PathMatchingFilterChainResolver implements FilterChainResolver {
 
         String requestURI = getPathWithinApplication(request);
 
+        String pathPattern = getMatchingPathPattern(filterChainManager, requestURI);
+        if (isMatchedPathAttributeEnabled()) {
+            if (pathPattern != null) {
+                request.setAttribute(PathMatchingFilter.MATCHED_PATH_ATTRIBUTE, pathPattern);
+            } else {
+                request.removeAttribute(PathMatchingFilter.MATCHED_PATH_ATTRIBUTE);
+            }
+        }
+        if (pathPattern == null) {
+            return null;
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Matched path pattern [" + pathPattern + "] for requestURI [" + requestURI + "].  " +
+                    "Utilizing corresponding filter chain...");
+        }
+        return filterChainManager.proxy(originalChain, pathPattern);
+    }
+
+    /**
+     * Returns the first configured path pattern matching the specified request path, from the
+     * {@link #getChainCache() chain cache} if it is enabled, or {@code null} if no path pattern matches.
+     *
+     * @param filterChainManager the manager whose chain names are the path patterns to match.
+     * @param requestURI         the request path within the application.
+     * @return the first configured path pattern matching the request path, or {@code null} if none matches.
+     */
+    private String getMatchingPathPattern(FilterChainManager filterChainManager, String requestURI) {
+        LruCache<String, String> cache = this.chainCache;
+        if (cache == null || requestURI == null || !(filterChainManager instanceof DefaultFilterChainManager)) {
+            return findMatchingPathPattern(filterChainManager, requestURI);
+        }
+
+        long modifications = ((DefaultFilterChainManager) filterChainManager).getModificationCount();
+        if (modifications != this.chainCacheModifications) {
+            cache.clear();
+            this.chainCacheModifications = modifications;
+        }
+        String cached = cache.get(requestURI);
+        if (cached != null) {
+            return cached.length() > 0 ? cached : null;
+        }
+
+        String pathPattern = findMatchingPathPattern(filterChainManager, requestURI);
+        //don't cache a pattern matched against a chain configuration that has changed meanwhile:
+        if (modifications == ((DefaultFilterChainManager) filterChainManager).getModificationCount()) {
+            cache.put(requestURI, pathPattern != null ? pathPattern : "");
+        }
+        return pathPattern;
+    }
+
+    private String findMatchingPathPattern(FilterChainManager filterChainManager, String requestURI) {
+        PathPatternTrie compiledPatterns = getCompiledPatterns(filterChainManager);
+        if (compiledPatterns != null) {
+            //the trie may return patterns that differ from the path by a leading or trailing separator only, so each
+            //candidate is still verified, in configuration order:
+            BitSet candidates = compiledPatterns.getCandidates(requestURI);
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                String pathPattern = compiledPatterns.getPattern(i);
+                if (pathMatches(pathPattern, requestURI)) {
+                    return pathPattern;
+                }
+            }
+            return null;
+        }
+
         //the 'chain names' in this implementation are actually path patterns defined by the user.  We just use them
         //as the chain name for the FilterChainManager's requirements
         for (String pathPattern : filterChainManager.getChainNames()) {
 
             // If the path does match, then pass on to the subclass implementation for specific checks:
             if (pathMatches(pathPattern, requestURI)) {
-                if (log.isTraceEnabled()) {
-                    log.trace("Matched path pattern [" + pathPattern + "] for requestURI [" + requestURI + "].  " +
-                            "Utilizing corresponding filter chain...");
-                }
-                return filterChainManager.proxy(originalChain, pathPattern);
+                return pathPattern;
             }
         }
 
         return null;
     }
 
+    /**
+     * Returns the compiled path patterns of the specified manager, compiling them first if the chain configuration
+     * changed since they were last compiled, or {@code null} if compiled matching is disabled or does not apply.
+     *
+     * @param filterChainManager the manager whose chain names are the path patterns to compile.
+     * @return the compiled path patterns, or {@code null} if every pattern must be tried in turn.
+     */
+    private PathPatternTrie getCompiledPatterns(FilterChainManager filterChainManager) {
+        if (!isCompiledMatchingEnabled() || !(filterChainManager instanceof DefaultFilterChainManager) ||
+                !(getPathMatcher() instanceof AntPathMatcher)) {
+            return null;
+        }
+        AntPathMatcher pathMatcher = (AntPathMatcher) getPathMatcher();
+        long modifications = ((DefaultFilterChainManager) filterChainManager).getModificationCount();
+        PathPatternTrie compiled = this.compiledPatterns;
+        if (compiled == null || compiled.getModifications() != modifications ||
+                compiled.getPathMatcher() != pathMatcher) {
+            //compiled from the chains as of 'modifications': if another change happens meanwhile, the patterns are
+            //simply compiled again on the next call
+            compiled = new PathPatternTrie(filterChainManager.getChainNames(), pathMatcher, modifications);
+            this.compiledPatterns = compiled;
+            log.debug("Compiled {} filter chain path patterns.", filterChainManager.getChainNames().size());
+        }
+        return compiled;
+    }
+
     /**
      * Returns {@code true} if an incoming request path (the {@code path} argument)
      * matches a configured filter chain path (the {@code pattern} argument), {@code false} otherwise.
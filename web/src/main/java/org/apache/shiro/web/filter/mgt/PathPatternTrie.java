@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.web.filter.mgt;
+
+import org.apache.shiro.util.AntPathMatcher;
+import org.apache.shiro.util.StringUtils;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable trie of {@link AntPathMatcher Ant-style} path patterns, keyed by path segment, used by the
+ * {@link PathMatchingFilterChainResolver} to find the filter chains that may match a request path without trying
+ * every configured pattern.
+ * <p/>
+ * Each pattern is split into segments the same way the {@code AntPathMatcher} splits it, and each segment becomes an
+ * edge of the trie: a literal edge, a {@code *} edge (any single segment), a {@code **} edge (any number of segments)
+ * or a segment pattern edge (e.g. {@code *.jsp}).  Looking up a path therefore costs time proportional to the depth
+ * of the path, not to the number of patterns.
+ * <p/>
+ * The trie only considers path segments and ignores leading and trailing path separators, so the patterns it returns
+ * are <em>candidates</em>: every pattern that matches the path is returned, but a returned pattern must still be
+ * verified against the path with the {@code AntPathMatcher} itself.
+ *
+ * @since 1.4.1
+ */
+final class PathPatternTrie {
+
+    private static final String ANY_SEGMENT = "*";
+    private static final String ANY_SEGMENTS = "**";
+
+    private final AntPathMatcher pathMatcher;
+    private final long modifications;
+    private final String[] patterns;
+    private final Node root = new Node();
+
+    /**
+     * Compiles the specified patterns, in iteration order.
+     *
+     * @param patterns      the patterns to compile.
+     * @param pathMatcher   the path matcher defining the pattern syntax.
+     * @param modifications the {@link DefaultFilterChainManager#getModificationCount() modification count} of the
+     *                      filter chain configuration the patterns were taken from.
+     */
+    PathPatternTrie(Collection<String> patterns, AntPathMatcher pathMatcher, long modifications) {
+        this.pathMatcher = pathMatcher;
+        this.modifications = modifications;
+        this.patterns = patterns.toArray(new String[patterns.size()]);
+        for (int i = 0; i < this.patterns.length; i++) {
+            Node node = root;
+            for (String segment : StringUtils.tokenizeToStringArray(this.patterns[i], pathMatcher.getPathSeparator())) {
+                node = node.child(segment);
+            }
+            node.patterns.set(i);
+        }
+    }
+
+    AntPathMatcher getPathMatcher() {
+        return pathMatcher;
+    }
+
+    long getModifications() {
+        return modifications;
+    }
+
+    /**
+     * Returns the pattern with the specified index, patterns being indexed in the order they were compiled.
+     *
+     * @param index the index of the pattern.
+     * @return the pattern with the specified index.
+     */
+    String getPattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * Returns the indexes of the patterns that may match the specified path.
+     *
+     * @param path the path to look up.
+     * @return the indexes of the patterns that may match the specified path, never {@code null}.
+     */
+    BitSet getCandidates(String path) {
+        BitSet candidates = new BitSet(patterns.length);
+        collect(root, StringUtils.tokenizeToStringArray(path, pathMatcher.getPathSeparator()), 0, candidates);
+        return candidates;
+    }
+
+    private void collect(Node node, String[] segments, int index, BitSet candidates) {
+        if (node.anySegments != null) {
+            //'**' matches zero or more segments:
+            for (int i = index; i <= segments.length; i++) {
+                collect(node.anySegments, segments, i, candidates);
+            }
+        }
+        if (index == segments.length) {
+            candidates.or(node.patterns);
+            //the AntPathMatcher lets a trailing '*' match the empty segment after a trailing path separator:
+            if (node.anySegment != null) {
+                candidates.or(node.anySegment.patterns);
+            }
+            return;
+        }
+        String segment = segments[index];
+        if (node.literals != null) {
+            Node child = node.literals.get(segment);
+            if (child != null) {
+                collect(child, segments, index + 1, candidates);
+            }
+        }
+        if (node.anySegment != null) {
+            collect(node.anySegment, segments, index + 1, candidates);
+        }
+        if (node.segmentPatterns != null) {
+            for (Map.Entry<String, Node> entry : node.segmentPatterns.entrySet()) {
+                if (pathMatcher.match(entry.getKey(), segment)) {
+                    collect(entry.getValue(), segments, index + 1, candidates);
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private final BitSet patterns = new BitSet();
+        private Map<String, Node> literals;
+        private Map<String, Node> segmentPatterns;
+        private Node anySegment;
+        private Node anySegments;
+
+        private Node child(String segment) {
+            if (ANY_SEGMENTS.equals(segment)) {
+                if (anySegments == null) {
+                    anySegments = new Node();
+                }
+                return anySegments;
+            }
+            if (ANY_SEGMENT.equals(segment)) {
+                if (anySegment == null) {
+                    anySegment = new Node();
+                }
+                return anySegment;
+            }
+            if (segment.indexOf('*') != -1 || segment.indexOf('?') != -1) {
+                if (segmentPatterns == null) {
+                    segmentPatterns = new LinkedHashMap<String, Node>();
+                }
+                return child(segmentPatterns, segment);
+            }
+            if (literals == null) {
+                literals = new HashMap<String, Node>();
+            }
+            return child(literals, segment);
+        }
+
+        private static Node child(Map<String, Node> children, String segment) {
+            Node child = children.get(segment);
+            if (child == null) {
+                child = new Node();
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
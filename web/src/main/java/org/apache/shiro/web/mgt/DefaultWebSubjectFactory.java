@@ -64,8 +64,10 @@ public class DefaultWebSubjectFactory extends DefaultSubjectFactory {
         ServletRequest request = wsc.resolveServletRequest();
         ServletResponse response = wsc.resolveServletResponse();
 
-        return new WebDelegatingSubject(principals, authenticated, host, session, sessionEnabled,
-                request, response, securityManager);
+        WebDelegatingSubject subject = new WebDelegatingSubject(principals, authenticated, host, session,
+                sessionEnabled, request, response, securityManager);
+        subject.setAuthorizationDecisionCachingEnabled(isAuthorizationDecisionCachingEnabled());
+        return subject;
     }
 
     /**
@@ -26,9 +26,14 @@ import org.apache.shiro.web.filter.mgt.FilterChainResolver;
 import org.apache.shiro.web.mgt.DefaultWebSecurityManager;
 import org.apache.shiro.web.mgt.WebSecurityManager;
 import org.apache.shiro.web.subject.WebSubject;
+import org.apache.shiro.web.subject.support.LazyWebSubject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
@@ -77,6 +82,18 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
 
     private static final String STATIC_INIT_PARAM_NAME = "staticSecurityManagerEnabled";
 
+    private static final String ASYNC_INIT_PARAM_NAME = "asyncSupportEnabled";
+
+    private static final String LAZY_SUBJECT_INIT_PARAM_NAME = "lazySubjectEnabled";
+
+    private static final String FLUSH_SESSION_UPDATES_INIT_PARAM_NAME = "flushSessionUpdatesOnCommit";
+
+    /**
+     * The name of the request attribute holding the {@code Subject} of a request whose asynchronous processing has
+     * been started, re-bound when the request is dispatched again to the container.
+     */
+    private static final String ASYNC_SUBJECT_ATTRIBUTE = AbstractShiroFilter.class.getName() + ".ASYNC_SUBJECT";
+
     // Reference to the security manager used by this filter
     private WebSecurityManager securityManager;
 
@@ -90,8 +107,29 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
      */
     private boolean staticSecurityManagerEnabled;
 
+    /**
+     * Whether or not asynchronous request processing (Servlet 3.0 and later) is supported.
+     * @since 1.4.1
+     */
+    private boolean asyncSupportEnabled;
+
+    /**
+     * Whether or not the {@code Subject} of a request is only built when first used.
+     * @since 1.4.1
+     */
+    private boolean lazySubjectEnabled;
+
+    /**
+     * Whether or not deferred session changes are persisted before the response is committed.
+     * @since 1.4.1
+     */
+    private boolean flushSessionUpdatesOnCommit;
+
     protected AbstractShiroFilter() {
         this.staticSecurityManagerEnabled = false;
+        this.asyncSupportEnabled = false;
+        this.lazySubjectEnabled = false;
+        this.flushSessionUpdatesOnCommit = true;
     }
 
     public WebSecurityManager getSecurityManager() {
@@ -146,9 +184,114 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
         this.staticSecurityManagerEnabled = staticSecurityManagerEnabled;
     }
 
+    /**
+     * Returns {@code true} if asynchronous request processing, as introduced by Servlet 3.0, is supported by this
+     * filter, {@code false} otherwise.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if asynchronous request processing is supported by this filter.
+     * @see #setAsyncSupportEnabled(boolean)
+     * @since 1.4.1
+     */
+    public boolean isAsyncSupportEnabled() {
+        return asyncSupportEnabled;
+    }
+
+    /**
+     * Sets whether asynchronous request processing, as introduced by Servlet 3.0, is supported by this filter.  This
+     * may also be configured with the {@code asyncSupportEnabled} filter init-param.  When enabled and a request's
+     * asynchronous processing has been started by the time its filter chain returns:
+     * <ul>
+     * <li>the request's {@code Subject} is remembered, and bound again instead of creating a new {@code Subject} when
+     * the request is {@link AsyncContext#dispatch() dispatched} back to the container (this requires the filter to be
+     * mapped to the {@link DispatcherType#ASYNC ASYNC} dispatcher type, and the filter's servlet container
+     * registration to support asynchronous processing);</li>
+     * <li>the {@link #updateSessionLastAccessTime(ServletRequest, ServletResponse) session last access time} is
+     * updated once more, with the {@code Subject} bound, when the asynchronous processing completes, so that a long
+     * running request does not leave its session looking idle since the request started.</li>
+     * </ul>
+     * Independently of this property, tasks {@link AsyncContext#start(Runnable) started} through the
+     * {@code AsyncContext} of a {@link ShiroHttpServletRequest} always run with the request's {@code Subject} bound.
+     * <p/>
+     * This property must not be enabled in a Servlet container older than 3.0.
+     *
+     * @param asyncSupportEnabled whether asynchronous request processing is supported by this filter.
+     * @since 1.4.1
+     */
+    public void setAsyncSupportEnabled(boolean asyncSupportEnabled) {
+        this.asyncSupportEnabled = asyncSupportEnabled;
+    }
+
+    /**
+     * Returns {@code true} if the {@code Subject} of a request is only built when first used, {@code false} if it is
+     * built before the request's filter chain executes.
+     * <p/>
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if the {@code Subject} of a request is only built when first used.
+     * @see #setLazySubjectEnabled(boolean)
+     * @since 1.4.1
+     */
+    public boolean isLazySubjectEnabled() {
+        return lazySubjectEnabled;
+    }
+
+    /**
+     * Sets whether the {@code Subject} of a request is only built when first used.  This may also be configured with
+     * the {@code lazySubjectEnabled} filter init-param.
+     * <p/>
+     * When enabled, {@link #createSubject(ServletRequest, ServletResponse) createSubject} returns a
+     * {@link LazyWebSubject}: resolving the request's session, restoring a remembered identity and saving the
+     * subject's state are deferred until a filter or the application first consults the {@code Subject}, and skipped
+     * entirely for requests that never do (e.g. requests for static resources mapped to the {@code anon} filter).  The
+     * {@link #updateSessionLastAccessTime(ServletRequest, ServletResponse) session last access time} is then only
+     * updated, after the filter chain executes, for requests whose {@code Subject} was used.
+     *
+     * @param lazySubjectEnabled whether the {@code Subject} of a request is only built when first used.
+     * @since 1.4.1
+     */
+    public void setLazySubjectEnabled(boolean lazySubjectEnabled) {
+        this.lazySubjectEnabled = lazySubjectEnabled;
+    }
+
+    /**
+     * Returns {@code true} if session changes deferred by a session manager with
+     * {@link org.apache.shiro.session.mgt.DefaultSessionManager#setSessionWriteBehindEnabled(boolean) write-behind}
+     * enabled are persisted before the response is committed, {@code false} if they are only persisted when the
+     * request completes.
+     * <p/>
+     * The default value is {@code true}.
+     *
+     * @return {@code true} if deferred session changes are persisted before the response is committed.
+     * @see #setFlushSessionUpdatesOnCommit(boolean)
+     * @since 1.4.1
+     */
+    public boolean isFlushSessionUpdatesOnCommit() {
+        return flushSessionUpdatesOnCommit;
+    }
+
+    /**
+     * Sets whether session changes deferred by a session manager with write-behind enabled are persisted before the
+     * response is committed, so that a client receiving it never sees an older session.  This may also be configured
+     * with the {@code flushSessionUpdatesOnCommit} filter init-param.  It only applies to native sessions, whose
+     * responses are wrapped in a {@link ShiroHttpServletResponse}: see
+     * {@link ShiroHttpServletResponse#setFlushSessionUpdatesOnCommit(boolean)} for the commit points covered.
+     *
+     * @param flushSessionUpdatesOnCommit whether deferred session changes are persisted before the response is
+     *                                    committed.
+     * @since 1.4.1
+     */
+    public void setFlushSessionUpdatesOnCommit(boolean flushSessionUpdatesOnCommit) {
+        this.flushSessionUpdatesOnCommit = flushSessionUpdatesOnCommit;
+    }
+
     protected final void onFilterConfigSet() throws Exception {
         //added in 1.2 for SHIRO-287:
         applyStaticSecurityManagerEnabledConfig();
+        applyAsyncSupportEnabledConfig();
+        applyLazySubjectEnabledConfig();
+        applyFlushSessionUpdatesOnCommitConfig();
         init();
         ensureSecurityManager();
         //added in 1.2 for SHIRO-287:
@@ -174,6 +317,46 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
         }
     }
 
+    /**
+     * Checks if the init-param that configures asynchronous request processing support has been configured, and if
+     * so, sets the {@link #setAsyncSupportEnabled(boolean)} attribute with the configured value.
+     *
+     * @since 1.4.1
+     */
+    private void applyAsyncSupportEnabledConfig() {
+        String value = getInitParam(ASYNC_INIT_PARAM_NAME);
+        if (value != null) {
+            setAsyncSupportEnabled(Boolean.valueOf(value));
+        }
+    }
+
+    /**
+     * Checks if the init-param that configures lazy subject creation has been configured, and if so, sets the
+     * {@link #setLazySubjectEnabled(boolean)} attribute with the configured value.
+     *
+     * @since 1.4.1
+     */
+    private void applyLazySubjectEnabledConfig() {
+        String value = getInitParam(LAZY_SUBJECT_INIT_PARAM_NAME);
+        if (value != null) {
+            setLazySubjectEnabled(Boolean.valueOf(value));
+        }
+    }
+
+    /**
+     * Checks if the init-param that configures persisting deferred session changes before the response is committed
+     * has been configured, and if so, sets the {@link #setFlushSessionUpdatesOnCommit(boolean)} attribute with the
+     * configured value.
+     *
+     * @since 1.4.1
+     */
+    private void applyFlushSessionUpdatesOnCommitConfig() {
+        String value = getInitParam(FLUSH_SESSION_UPDATES_INIT_PARAM_NAME);
+        if (value != null) {
+            setFlushSessionUpdatesOnCommit(Boolean.valueOf(value));
+        }
+    }
+
     public void init() throws Exception {
     }
 
@@ -246,7 +429,9 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
      * @since 1.0
      */
     protected ServletResponse wrapServletResponse(HttpServletResponse orig, ShiroHttpServletRequest request) {
-        return new ShiroHttpServletResponse(orig, getServletContext(), request);
+        ShiroHttpServletResponse response = new ShiroHttpServletResponse(orig, getServletContext(), request);
+        response.setFlushSessionUpdatesOnCommit(isFlushSessionUpdatesOnCommit());
+        return response;
     }
 
     /**
@@ -282,6 +467,9 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
     /**
      * Creates a {@link WebSubject} instance to associate with the incoming request/response pair which will be used
      * throughout the request/response execution.
+     * <p/>
+     * If {@link #isLazySubjectEnabled() lazy subject creation} is enabled, this implementation returns a
+     * {@link LazyWebSubject} that builds the actual {@code WebSubject} when first used.
      *
      * @param request  the incoming {@code ServletRequest}
      * @param response the outgoing {@code ServletResponse}
@@ -289,13 +477,18 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
      * @since 1.0
      */
     protected WebSubject createSubject(ServletRequest request, ServletResponse response) {
+        if (isLazySubjectEnabled()) {
+            return new LazyWebSubject(getSecurityManager(), request, response);
+        }
         return new WebSubject.Builder(getSecurityManager(), request, response).buildWebSubject();
     }
 
     /**
      * Updates any 'native'  Session's last access time that might exist to the timestamp when this method is called.
      * If native sessions are not enabled (that is, standard Servlet container sessions are being used) or there is no
-     * session ({@code subject.getSession(false) == null}), this method does nothing.
+     * session ({@code subject.getSession(false) == null}), this method does nothing.  It also does nothing if the
+     * subject is a {@link LazyWebSubject} that has not been used yet, so that the session is not resolved just to be
+     * touched.
      * <p/>This method implementation merely calls
      * <code>Session.{@link org.apache.shiro.session.Session#touch() touch}()</code> on the session.
      *
@@ -308,7 +501,7 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
         if (!isHttpSessions()) { //'native' sessions
             Subject subject = SecurityUtils.getSubject();
             //Subject should never _ever_ be null, but just in case:
-            if (subject != null) {
+            if (subject != null && !isUnresolved(subject)) {
                 Session session = subject.getSession(false);
                 if (session != null) {
                     try {
@@ -356,13 +549,25 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
             final ServletRequest request = prepareServletRequest(servletRequest, servletResponse, chain);
             final ServletResponse response = prepareServletResponse(request, servletResponse, chain);
 
-            final Subject subject = createSubject(request, response);
+            //a request dispatched again after its asynchronous processing started keeps its subject:
+            final Subject asyncSubject = getAsyncSubject(request);
+            final Subject subject = asyncSubject != null ? asyncSubject : createSubject(request, response);
 
             //noinspection unchecked
             subject.execute(new Callable() {
                 public Object call() throws Exception {
-                    updateSessionLastAccessTime(request, response);
+                    //a lazy subject is only touched once the chain has used it:
+                    boolean unresolved = isUnresolved(subject);
+                    if (asyncSubject == null && !unresolved) {
+                        updateSessionLastAccessTime(request, response);
+                    }
                     executeChain(request, response, chain);
+                    if (asyncSubject == null && unresolved && !isUnresolved(subject)) {
+                        updateSessionLastAccessTime(request, response);
+                    }
+                    if (asyncSubject == null && isAsyncSupportEnabled() && request.isAsyncStarted()) {
+                        onAsyncStarted(subject, request, response);
+                    }
                     return null;
                 }
             });
@@ -385,6 +590,46 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
         }
     }
 
+    private static boolean isUnresolved(Subject subject) {
+        return subject instanceof LazyWebSubject && !((LazyWebSubject) subject).isResolved();
+    }
+
+    /**
+     * Returns the {@code Subject} of the specified request if it is being
+     * {@link AsyncContext#dispatch() dispatched} after its asynchronous processing started, or {@code null} if a
+     * {@code Subject} must be {@link #createSubject(ServletRequest, ServletResponse) created} for the request.
+     *
+     * @param request the incoming ServletRequest
+     * @return the {@code Subject} of the request if it is being dispatched after its asynchronous processing started.
+     * @since 1.4.1
+     */
+    private Subject getAsyncSubject(ServletRequest request) {
+        if (!isAsyncSupportEnabled() || request.getDispatcherType() != DispatcherType.ASYNC) {
+            return null;
+        }
+        Object subject = request.getAttribute(ASYNC_SUBJECT_ATTRIBUTE);
+        return subject instanceof Subject ? (Subject) subject : null;
+    }
+
+    /**
+     * Called with the request's {@code Subject} bound when the asynchronous processing of a request has been started
+     * by its filter chain, if {@link #isAsyncSupportEnabled() async support} is enabled.
+     * <p/>
+     * This implementation remembers the {@code Subject} for any subsequent dispatch of the request, and registers an
+     * {@link AsyncListener} that updates the
+     * {@link #updateSessionLastAccessTime(ServletRequest, ServletResponse) session last access time} when the
+     * asynchronous processing completes.
+     *
+     * @param subject  the {@code Subject} of the request
+     * @param request  the incoming ServletRequest
+     * @param response the outgoing ServletResponse
+     * @since 1.4.1
+     */
+    protected void onAsyncStarted(Subject subject, ServletRequest request, ServletResponse response) {
+        request.setAttribute(ASYNC_SUBJECT_ATTRIBUTE, subject);
+        request.getAsyncContext().addListener(new AsyncCompletionListener(subject, request, response));
+    }
+
     /**
      * Returns the {@code FilterChain} to execute for the given request.
      * <p/>
@@ -448,4 +693,43 @@ public abstract class AbstractShiroFilter extends OncePerRequestFilter {
         FilterChain chain = getExecutionChain(request, response, origChain);
         chain.doFilter(request, response);
     }
+
+    /**
+     * Updates the session last access time, with the request's {@code Subject} bound, when the asynchronous
+     * processing of a request completes.  A listener is only notified of the completion of the asynchronous cycle it
+     * was registered in, so it registers itself again whenever the asynchronous processing is restarted.
+     *
+     * @since 1.4.1
+     */
+    private class AsyncCompletionListener implements AsyncListener {
+
+        private final Subject subject;
+        private final ServletRequest request;
+        private final ServletResponse response;
+
+        private AsyncCompletionListener(Subject subject, ServletRequest request, ServletResponse response) {
+            this.subject = subject;
+            this.request = request;
+            this.response = response;
+        }
+
+        public void onComplete(AsyncEvent event) throws IOException {
+            request.removeAttribute(ASYNC_SUBJECT_ATTRIBUTE);
+            subject.execute(new Runnable() {
+                public void run() {
+                    updateSessionLastAccessTime(request, response);
+                }
+            });
+        }
+
+        public void onTimeout(AsyncEvent event) throws IOException {
+        }
+
+        public void onError(AsyncEvent event) throws IOException {
+        }
+
+        public void onStartAsync(AsyncEvent event) throws IOException {
+            event.getAsyncContext().addListener(this);
+        }
+    }
 }
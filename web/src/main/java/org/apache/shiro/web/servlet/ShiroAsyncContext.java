@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.web.servlet;
+
+import org.apache.shiro.subject.Subject;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+/**
+ * An {@link AsyncContext} wrapper that {@link Subject#associateWith(Runnable) associates} the {@link Subject} of the
+ * request that started asynchronous processing with the tasks {@link #start(Runnable) started} through it, so that
+ * those tasks run with the same {@code Subject} (and {@code SecurityManager}) bound to their thread as the request.
+ * All other methods delegate to the wrapped context.
+ *
+ * @see ShiroHttpServletRequest#startAsync()
+ * @since 1.4.1
+ */
+public class ShiroAsyncContext implements AsyncContext {
+
+    private final AsyncContext context;
+    private final Subject subject;
+
+    public ShiroAsyncContext(AsyncContext context, Subject subject) {
+        if (context == null) {
+            throw new IllegalArgumentException("AsyncContext argument cannot be null.");
+        }
+        if (subject == null) {
+            throw new IllegalArgumentException("Subject argument cannot be null.");
+        }
+        this.context = context;
+        this.subject = subject;
+    }
+
+    /**
+     * Returns the wrapped {@code AsyncContext}.
+     *
+     * @return the wrapped {@code AsyncContext}.
+     */
+    public AsyncContext getAsyncContext() {
+        return context;
+    }
+
+    /**
+     * Returns the {@code Subject} associated with the tasks started through this context.
+     *
+     * @return the {@code Subject} associated with the tasks started through this context.
+     */
+    public Subject getSubject() {
+        return subject;
+    }
+
+    public ServletRequest getRequest() {
+        return context.getRequest();
+    }
+
+    public ServletResponse getResponse() {
+        return context.getResponse();
+    }
+
+    public boolean hasOriginalRequestAndResponse() {
+        return context.hasOriginalRequestAndResponse();
+    }
+
+    public void dispatch() {
+        context.dispatch();
+    }
+
+    public void dispatch(String path) {
+        context.dispatch(path);
+    }
+
+    public void dispatch(ServletContext servletContext, String path) {
+        context.dispatch(servletContext, path);
+    }
+
+    public void complete() {
+        context.complete();
+    }
+
+    /**
+     * Starts the specified task through the wrapped context, with this context's {@code Subject} bound to the thread
+     * executing it.
+     *
+     * @param run the task to start.
+     */
+    public void start(Runnable run) {
+        context.start(subject.associateWith(run));
+    }
+
+    public void addListener(AsyncListener listener) {
+        context.addListener(listener);
+    }
+
+    public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+        context.addListener(listener, servletRequest, servletResponse);
+    }
+
+    public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+        return context.createListener(clazz);
+    }
+
+    public void setTimeout(long timeout) {
+        context.setTimeout(timeout);
+    }
+
+    public long getTimeout() {
+        return context.getTimeout();
+    }
+}
@@ -22,9 +22,13 @@ import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.subject.support.DisabledSessionException;
+import org.apache.shiro.util.ThreadContext;
 import org.apache.shiro.web.util.WebUtils;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpSession;
@@ -221,6 +225,46 @@ public class ShiroHttpServletRequest extends HttpServletRequestWrapper {
         return isRequestedSessionIdFromURL();
     }
 
+    /**
+     * Starts asynchronous processing, returning a {@link ShiroAsyncContext} so that the tasks
+     * {@link AsyncContext#start(Runnable) started} through it run with the current {@code Subject} bound.
+     *
+     * @since 1.4.1
+     */
+    public AsyncContext startAsync() throws IllegalStateException {
+        return associateWithSubject(super.startAsync());
+    }
+
+    /**
+     * Starts asynchronous processing, returning a {@link ShiroAsyncContext} so that the tasks
+     * {@link AsyncContext#start(Runnable) started} through it run with the current {@code Subject} bound.
+     *
+     * @since 1.4.1
+     */
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse)
+            throws IllegalStateException {
+        return associateWithSubject(super.startAsync(servletRequest, servletResponse));
+    }
+
+    /**
+     * Returns the request's {@code AsyncContext} as a {@link ShiroAsyncContext}, so that the tasks
+     * {@link AsyncContext#start(Runnable) started} through it run with the current {@code Subject} bound.
+     *
+     * @since 1.4.1
+     */
+    public AsyncContext getAsyncContext() {
+        return associateWithSubject(super.getAsyncContext());
+    }
+
+    private AsyncContext associateWithSubject(AsyncContext context) {
+        //only the subject already bound to the thread, if any: never create one here
+        Subject subject = ThreadContext.getSubject();
+        if (context == null || subject == null || context instanceof ShiroAsyncContext) {
+            return context;
+        }
+        return new ShiroAsyncContext(context, subject);
+    }
+
     private class ObjectPrincipal implements java.security.Principal {
         private Object object = null;
 
@@ -18,12 +18,18 @@
  */
 package org.apache.shiro.web.servlet;
 
+import org.apache.shiro.session.mgt.DeferredSessionUpdates;
+
 import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
@@ -36,6 +42,9 @@ import java.net.URLEncoder;
  * already performs url encoding of its own session ids, instances of this class are only needed when using Shiro
  * native sessions.
  * <p/>
+ * It also persists the session changes a session manager with write-behind enabled has deferred before the response
+ * is committed, see {@link #setFlushSessionUpdatesOnCommit(boolean)}.
+ * <p/>
  * Note that this implementation relies in part on source code from the Tomcat 6.x distribution for
  * encoding URLs for session ID URL Rewriting (we didn't want to re-invent the wheel).  Since Shiro is also
  * Apache 2.0 license, all regular licenses and conditions have remained in tact.
@@ -52,6 +61,12 @@ public class ShiroHttpServletResponse extends HttpServletResponseWrapper {
     //the associated request
     private ShiroHttpServletRequest request = null;
 
+    private boolean flushSessionUpdatesOnCommit = true;
+    //bytes written to the body since the buffer was last reset, to flush before the container commits a full buffer:
+    private long written;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
     public ShiroHttpServletResponse(HttpServletResponse wrapped, ServletContext context, ShiroHttpServletRequest request) {
         super(wrapped);
         this.context = context;
@@ -68,6 +83,39 @@ public class ShiroHttpServletResponse extends HttpServletResponseWrapper {
         this.context = context;
     }
 
+    /**
+     * Returns {@code true} if {@link DeferredSessionUpdates deferred session changes} are persisted before this
+     * response is committed, {@code false} if they are only persisted when the request completes.  The default value
+     * is {@code true}.
+     *
+     * @return {@code true} if deferred session changes are persisted before this response is committed.
+     * @see #setFlushSessionUpdatesOnCommit(boolean)
+     * @since 1.4.1
+     */
+    public boolean isFlushSessionUpdatesOnCommit() {
+        return flushSessionUpdatesOnCommit;
+    }
+
+    /**
+     * Sets whether {@link DeferredSessionUpdates deferred session changes} are persisted before this response is
+     * committed, so that a client receiving the response, e.g. following a redirect, never sees a session older than
+     * the one the response was produced with.
+     * <p/>
+     * When enabled, the changes are persisted before the response is committed by
+     * {@link #sendRedirect(String) sendRedirect}, {@link #sendError(int) sendError}, {@link #flushBuffer()
+     * flushBuffer}, by flushing or closing its {@link #getWriter() writer} or {@link #getOutputStream() output stream},
+     * and before a write that may fill the {@link #getBufferSize() buffer}, which the container commits when full.
+     * Writes through the writer are counted as four bytes per character, the maximum of common encodings, so that the
+     * changes are persisted before rather than after the buffer fills.
+     *
+     * @param flushSessionUpdatesOnCommit whether deferred session changes are persisted before this response is
+     *                                    committed.
+     * @since 1.4.1
+     */
+    public void setFlushSessionUpdatesOnCommit(boolean flushSessionUpdatesOnCommit) {
+        this.flushSessionUpdatesOnCommit = flushSessionUpdatesOnCommit;
+    }
+
     public ShiroHttpServletRequest getRequest() {
         return request;
     }
@@ -120,6 +168,186 @@ public class ShiroHttpServletResponse extends HttpServletResponseWrapper {
         return encodeURL(s);
     }
 
+    /**
+     * Persists any {@link DeferredSessionUpdates deferred session change} before the redirect commits the response,
+     * since the client may follow the redirect before the request completes.
+     *
+     * @see #setFlushSessionUpdatesOnCommit(boolean)
+     * @since 1.4.1
+     */
+    public void sendRedirect(String location) throws IOException {
+        flushSessionUpdates();
+        super.sendRedirect(location);
+    }
+
+    /**
+     * Persists any {@link DeferredSessionUpdates deferred session change} before the error commits the response.
+     *
+     * @see #setFlushSessionUpdatesOnCommit(boolean)
+     * @since 1.4.1
+     */
+    public void sendError(int sc) throws IOException {
+        flushSessionUpdates();
+        super.sendError(sc);
+    }
+
+    /**
+     * Persists any {@link DeferredSessionUpdates deferred session change} before the error commits the response.
+     *
+     * @see #setFlushSessionUpdatesOnCommit(boolean)
+     * @since 1.4.1
+     */
+    public void sendError(int sc, String msg) throws IOException {
+        flushSessionUpdates();
+        super.sendError(sc, msg);
+    }
+
+    /**
+     * Persists any {@link DeferredSessionUpdates deferred session change} before the buffer flush commits the
+     * response.
+     *
+     * @see #setFlushSessionUpdatesOnCommit(boolean)
+     * @since 1.4.1
+     */
+    public void flushBuffer() throws IOException {
+        flushSessionUpdates();
+        super.flushBuffer();
+    }
+
+    /**
+     * Returns the response's output stream, wrapped so that {@link DeferredSessionUpdates deferred session changes}
+     * are persisted before writing to it commits the response.
+     *
+     * @see #setFlushSessionUpdatesOnCommit(boolean)
+     * @since 1.4.1
+     */
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (!flushSessionUpdatesOnCommit) {
+            return super.getOutputStream();
+        }
+        if (outputStream == null) {
+            outputStream = new SessionFlushingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    /**
+     * Returns the response's writer, wrapped so that {@link DeferredSessionUpdates deferred session changes} are
+     * persisted before writing to it commits the response.
+     *
+     * @see #setFlushSessionUpdatesOnCommit(boolean)
+     * @since 1.4.1
+     */
+    public PrintWriter getWriter() throws IOException {
+        if (!flushSessionUpdatesOnCommit) {
+            return super.getWriter();
+        }
+        if (writer == null) {
+            writer = new PrintWriter(new SessionFlushingWriter(super.getWriter()));
+        }
+        return writer;
+    }
+
+    public void resetBuffer() {
+        super.resetBuffer();
+        written = 0;
+    }
+
+    public void reset() {
+        super.reset();
+        written = 0;
+    }
+
+    private void flushSessionUpdates() {
+        if (flushSessionUpdatesOnCommit) {
+            DeferredSessionUpdates.flushBound();
+        }
+    }
+
+    private void beforeWrite(long bytes) {
+        int bufferSize = getBufferSize();
+        if (written < bufferSize && written + bytes >= bufferSize) {
+            //the container commits the response once its buffer is full:
+            flushSessionUpdates();
+        }
+        written += bytes;
+    }
+
+    /**
+     * Output stream persisting deferred session changes before it commits the response.
+     */
+    private final class SessionFlushingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream out;
+
+        private SessionFlushingOutputStream(ServletOutputStream out) {
+            this.out = out;
+        }
+
+        public void write(int b) throws IOException {
+            beforeWrite(1);
+            out.write(b);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            beforeWrite(len);
+            out.write(b, off, len);
+        }
+
+        public void flush() throws IOException {
+            flushSessionUpdates();
+            out.flush();
+        }
+
+        public void close() throws IOException {
+            flushSessionUpdates();
+            out.close();
+        }
+
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        public void setWriteListener(WriteListener writeListener) {
+            out.setWriteListener(writeListener);
+        }
+    }
+
+    /**
+     * Writer persisting deferred session changes before it commits the response.
+     */
+    private final class SessionFlushingWriter extends Writer {
+
+        //the maximum number of bytes a character is encoded to by common encodings:
+        private static final int MAX_BYTES_PER_CHAR = 4;
+
+        private final Writer out;
+
+        private SessionFlushingWriter(Writer out) {
+            this.out = out;
+        }
+
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            beforeWrite((long) len * MAX_BYTES_PER_CHAR);
+            out.write(cbuf, off, len);
+        }
+
+        public void write(String str, int off, int len) throws IOException {
+            beforeWrite((long) len * MAX_BYTES_PER_CHAR);
+            out.write(str, off, len);
+        }
+
+        public void flush() throws IOException {
+            flushSessionUpdates();
+            out.flush();
+        }
+
+        public void close() throws IOException {
+            flushSessionUpdates();
+            out.close();
+        }
+    }
+
     /**
      * Return <code>true</code> if the specified URL should be encoded with
      * a session identifier.  This will be true if all of the following
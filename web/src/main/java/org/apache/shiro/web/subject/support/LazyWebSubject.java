@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.web.subject.support;
+
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.subject.ExecutionException;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.support.AuthorizationDecisionCache;
+import org.apache.shiro.subject.support.DelegatingSubject;
+import org.apache.shiro.subject.support.SubjectCallable;
+import org.apache.shiro.subject.support.SubjectRunnable;
+import org.apache.shiro.subject.support.SubjectThreadState;
+import org.apache.shiro.util.ThreadContext;
+import org.apache.shiro.web.subject.WebSubject;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link WebSubject WebSubject} that defers building the actual {@code WebSubject} of a request/response pair until
+ * it is first used.
+ * <p/>
+ * Building a {@code WebSubject} resolves the request's session (possibly reading it from the {@code SessionDAO}),
+ * attempts to restore a remembered identity (decrypting the remember me cookie) and saves the subject's state with
+ * the {@code SubjectDAO}.  A request that never consults its {@code Subject}, such as a request for a static resource
+ * mapped to the {@code anon} filter, pays none of these costs when it is bound to an instance of this class instead.
+ * <p/>
+ * {@link #getServletRequest()}, {@link #getServletResponse()}, {@link #execute(Callable) execute} and
+ * {@link #associateWith(Callable) associateWith} do not build the actual subject: the latter bind this instance (and
+ * its {@code SecurityManager}) to the thread.  Every other method builds the actual subject, once, and delegates to
+ * it.  This class is thread-safe.
+ *
+ * @see org.apache.shiro.web.servlet.AbstractShiroFilter#setLazySubjectEnabled(boolean)
+ * @since 1.4.1
+ */
+public class LazyWebSubject implements WebSubject {
+
+    private final SecurityManager securityManager;
+    private final ServletRequest servletRequest;
+    private final ServletResponse servletResponse;
+
+    private volatile WebSubject subject;
+
+    public LazyWebSubject(SecurityManager securityManager, ServletRequest request, ServletResponse response) {
+        if (securityManager == null) {
+            throw new IllegalArgumentException("SecurityManager argument cannot be null.");
+        }
+        if (request == null) {
+            throw new IllegalArgumentException("ServletRequest argument cannot be null.");
+        }
+        if (response == null) {
+            throw new IllegalArgumentException("ServletResponse argument cannot be null.");
+        }
+        this.securityManager = securityManager;
+        this.servletRequest = request;
+        this.servletResponse = response;
+    }
+
+    public SecurityManager getSecurityManager() {
+        return securityManager;
+    }
+
+    public ServletRequest getServletRequest() {
+        return servletRequest;
+    }
+
+    public ServletResponse getServletResponse() {
+        return servletResponse;
+    }
+
+    /**
+     * Returns {@code true} if the actual subject has been built, {@code false} otherwise.
+     *
+     * @return {@code true} if the actual subject has been built, {@code false} otherwise.
+     */
+    public boolean isResolved() {
+        return subject != null;
+    }
+
+    /**
+     * Returns the actual subject, building it first if it has not been built yet.
+     * <p/>
+     * If this instance is bound to the current thread when the actual subject is built, an
+     * {@link AuthorizationDecisionCache} is bound for it as well when its
+     * {@link DelegatingSubject#isAuthorizationDecisionCachingEnabled() decision caching} is enabled, as would have
+     * been done had the actual subject been bound instead of this instance.
+     *
+     * @return the actual subject.
+     */
+    public WebSubject resolve() {
+        WebSubject resolved = subject;
+        if (resolved == null) {
+            synchronized (this) {
+                resolved = subject;
+                if (resolved == null) {
+                    resolved = createSubject();
+                    subject = resolved;
+                    if (ThreadContext.getSubject() == this && resolved instanceof DelegatingSubject &&
+                            ((DelegatingSubject) resolved).isAuthorizationDecisionCachingEnabled()) {
+                        new AuthorizationDecisionCache(resolved).bind();
+                    }
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Builds the actual subject.  This implementation uses a {@link WebSubject.Builder WebSubject.Builder} for the
+     * {@code SecurityManager}, request and response of this instance.
+     *
+     * @return the actual subject.
+     */
+    protected WebSubject createSubject() {
+        return new WebSubject.Builder(securityManager, servletRequest, servletResponse).buildWebSubject();
+    }
+
+    public Object getPrincipal() {
+        return resolve().getPrincipal();
+    }
+
+    public PrincipalCollection getPrincipals() {
+        return resolve().getPrincipals();
+    }
+
+    public boolean isPermitted(String permission) {
+        return resolve().isPermitted(permission);
+    }
+
+    public boolean isPermitted(Permission permission) {
+        return resolve().isPermitted(permission);
+    }
+
+    public boolean[] isPermitted(String... permissions) {
+        return resolve().isPermitted(permissions);
+    }
+
+    public boolean[] isPermitted(List<Permission> permissions) {
+        return resolve().isPermitted(permissions);
+    }
+
+    public boolean isPermittedAll(String... permissions) {
+        return resolve().isPermittedAll(permissions);
+    }
+
+    public boolean isPermittedAll(Collection<Permission> permissions) {
+        return resolve().isPermittedAll(permissions);
+    }
+
+    public void checkPermission(String permission) throws AuthorizationException {
+        resolve().checkPermission(permission);
+    }
+
+    public void checkPermission(Permission permission) throws AuthorizationException {
+        resolve().checkPermission(permission);
+    }
+
+    public void checkPermissions(String... permissions) throws AuthorizationException {
+        resolve().checkPermissions(permissions);
+    }
+
+    public void checkPermissions(Collection<Permission> permissions) throws AuthorizationException {
+        resolve().checkPermissions(permissions);
+    }
+
+    public boolean hasRole(String roleIdentifier) {
+        return resolve().hasRole(roleIdentifier);
+    }
+
+    public boolean[] hasRoles(List<String> roleIdentifiers) {
+        return resolve().hasRoles(roleIdentifiers);
+    }
+
+    public boolean hasAllRoles(Collection<String> roleIdentifiers) {
+        return resolve().hasAllRoles(roleIdentifiers);
+    }
+
+    public void checkRole(String roleIdentifier) throws AuthorizationException {
+        resolve().checkRole(roleIdentifier);
+    }
+
+    public void checkRoles(Collection<String> roleIdentifiers) throws AuthorizationException {
+        resolve().checkRoles(roleIdentifiers);
+    }
+
+    public void checkRoles(String... roleIdentifiers) throws AuthorizationException {
+        resolve().checkRoles(roleIdentifiers);
+    }
+
+    public void login(AuthenticationToken token) throws AuthenticationException {
+        resolve().login(token);
+    }
+
+    public boolean isAuthenticated() {
+        return resolve().isAuthenticated();
+    }
+
+    public boolean isRemembered() {
+        return resolve().isRemembered();
+    }
+
+    public Session getSession() {
+        return resolve().getSession();
+    }
+
+    public Session getSession(boolean create) {
+        return resolve().getSession(create);
+    }
+
+    public void logout() {
+        resolve().logout();
+    }
+
+    public <V> V execute(Callable<V> callable) throws ExecutionException {
+        Callable<V> associated = associateWith(callable);
+        try {
+            return associated.call();
+        } catch (Throwable t) {
+            throw new ExecutionException(t);
+        }
+    }
+
+    public void execute(Runnable runnable) {
+        Runnable associated = associateWith(runnable);
+        associated.run();
+    }
+
+    public <V> Callable<V> associateWith(Callable<V> callable) {
+        return new SubjectCallable<V>(new LazySubjectThreadState(this), callable) {
+        };
+    }
+
+    public Runnable associateWith(Runnable runnable) {
+        if (runnable instanceof Thread) {
+            String msg = "This implementation does not support Thread arguments because of JDK ThreadLocal " +
+                    "inheritance mechanisms required by Shiro.  Instead, the method argument should be a non-Thread " +
+                    "Runnable and the return value from this method can then be given to an ExecutorService or " +
+                    "another Thread.";
+            throw new UnsupportedOperationException(msg);
+        }
+        return new SubjectRunnable(new LazySubjectThreadState(this), runnable) {
+        };
+    }
+
+    public void runAs(PrincipalCollection principals) throws NullPointerException, IllegalStateException {
+        resolve().runAs(principals);
+    }
+
+    public boolean isRunAs() {
+        return resolve().isRunAs();
+    }
+
+    public PrincipalCollection getPreviousPrincipals() {
+        return resolve().getPreviousPrincipals();
+    }
+
+    public PrincipalCollection releaseRunAs() {
+        return resolve().releaseRunAs();
+    }
+
+    /**
+     * Binds a {@code LazyWebSubject} along with its own {@code SecurityManager}, which a {@link SubjectThreadState}
+     * only knows how to obtain from a {@link DelegatingSubject}.
+     */
+    private static final class LazySubjectThreadState extends SubjectThreadState {
+
+        private final SecurityManager securityManager;
+
+        private LazySubjectThreadState(LazyWebSubject subject) {
+            super(subject);
+            this.securityManager = subject.getSecurityManager();
+        }
+
+        @Override
+        public void bind() {
+            super.bind();
+            ThreadContext.bind(securityManager);
+        }
+    }
+}
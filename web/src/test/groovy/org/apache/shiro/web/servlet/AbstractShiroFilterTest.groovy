@@ -18,11 +18,22 @@
  */
 package org.apache.shiro.web.servlet
 
+import java.util.concurrent.Callable
+import javax.servlet.AsyncContext
+import javax.servlet.AsyncListener
+import javax.servlet.DispatcherType
+import javax.servlet.FilterChain
 import javax.servlet.FilterConfig
 import javax.servlet.ServletContext
+import javax.servlet.ServletRequest
+import javax.servlet.ServletResponse
 import org.apache.shiro.SecurityUtils
 import org.apache.shiro.UnavailableSecurityManagerException
 import org.apache.shiro.web.mgt.WebSecurityManager
+import org.apache.shiro.web.subject.WebSubject
+import org.apache.shiro.web.subject.support.LazyWebSubject
+import org.easymock.Capture
+import org.easymock.IAnswer
 import static org.easymock.EasyMock.*
 
 /**
@@ -40,6 +51,9 @@ class AbstractShiroFilterTest extends GroovyTestCase {
 
         expect(filterConfig.servletContext).andReturn servletContext
         expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.STATIC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.ASYNC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.LAZY_SUBJECT_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.FLUSH_SESSION_UPDATES_INIT_PARAM_NAME))).andReturn null
 
         replay securityManager, filterConfig, servletContext
 
@@ -67,6 +81,9 @@ class AbstractShiroFilterTest extends GroovyTestCase {
 
         expect(filterConfig.servletContext).andReturn servletContext
         expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.STATIC_INIT_PARAM_NAME))).andReturn "true"
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.ASYNC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.LAZY_SUBJECT_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.FLUSH_SESSION_UPDATES_INIT_PARAM_NAME))).andReturn null
 
         replay securityManager, filterConfig, servletContext
 
@@ -84,4 +101,114 @@ class AbstractShiroFilterTest extends GroovyTestCase {
         }
     }
 
+    void testInitWithAsyncSupport() {
+
+        def filterConfig = createStrictMock(FilterConfig)
+        def servletContext = createStrictMock(ServletContext)
+
+        expect(filterConfig.servletContext).andReturn servletContext
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.STATIC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.ASYNC_INIT_PARAM_NAME))).andReturn "true"
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.LAZY_SUBJECT_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.FLUSH_SESSION_UPDATES_INIT_PARAM_NAME))).andReturn null
+
+        replay filterConfig, servletContext
+
+        AbstractShiroFilter filter = new AbstractShiroFilter() {}
+        filter.securityManager = createMock(WebSecurityManager)
+
+        filter.init(filterConfig)
+
+        assertTrue filter.asyncSupportEnabled
+
+        verify filterConfig, servletContext
+    }
+
+    void testAsyncDispatchReusesSubject() {
+
+        def securityManager = createNiceMock(WebSecurityManager)
+        def subject = createMock(WebSubject)
+        def request = createMock(ServletRequest)
+        def response = createMock(ServletResponse)
+        def chain = createMock(FilterChain)
+        def asyncContext = createMock(AsyncContext)
+        def listener = new Capture<AsyncListener>()
+
+        expect(subject.execute((Callable) isA(Callable))).andAnswer({ getCurrentArguments()[0].call() } as IAnswer).times(2)
+        subject.execute((Runnable) isA(Runnable))
+        expectLastCall().andAnswer({ getCurrentArguments()[0].run(); null } as IAnswer)
+        chain.doFilter(request, response)
+        expectLastCall().times(2)
+
+        //initial dispatch, starting asynchronous processing:
+        expect(request.dispatcherType).andReturn DispatcherType.REQUEST
+        expect(request.asyncStarted).andReturn true
+        request.setAttribute(eq(AbstractShiroFilter.ASYNC_SUBJECT_ATTRIBUTE), same(subject))
+        expect(request.asyncContext).andReturn asyncContext
+        asyncContext.addListener(capture(listener))
+        //async dispatch:
+        expect(request.dispatcherType).andReturn DispatcherType.ASYNC
+        expect(request.getAttribute(eq(AbstractShiroFilter.ASYNC_SUBJECT_ATTRIBUTE))).andReturn subject
+        //completion:
+        request.removeAttribute(eq(AbstractShiroFilter.ASYNC_SUBJECT_ATTRIBUTE))
+
+        replay securityManager, subject, request, response, chain, asyncContext
+
+        int created = 0
+        int touched = 0
+        AbstractShiroFilter filter = new AbstractShiroFilter() {
+            @Override
+            protected WebSubject createSubject(ServletRequest servletRequest, ServletResponse servletResponse) {
+                created++
+                return subject
+            }
+
+            @Override
+            protected void updateSessionLastAccessTime(ServletRequest servletRequest, ServletResponse servletResponse) {
+                touched++
+            }
+        }
+        filter.securityManager = securityManager
+        filter.asyncSupportEnabled = true
+
+        filter.doFilterInternal(request, response, chain)
+        assertEquals 1, created
+        assertEquals 1, touched
+
+        filter.doFilterInternal(request, response, chain)
+        assertEquals 1, created
+        assertEquals 1, touched
+
+        listener.value.onComplete(null)
+        assertEquals 2, touched
+
+        verify subject, request, response, chain, asyncContext
+    }
+
+    void testLazySubject() {
+
+        def securityManager = createMock(WebSecurityManager)
+        def request = createNiceMock(ServletRequest)
+        def response = createMock(ServletResponse)
+        def chain = createMock(FilterChain)
+
+        //the chain never uses the subject, so the security manager is never asked to create it:
+        expect(securityManager.httpSessionMode).andReturn(false).anyTimes()
+        chain.doFilter(request, response)
+        expectLastCall().andAnswer({
+            assertTrue SecurityUtils.subject instanceof LazyWebSubject
+            assertFalse SecurityUtils.subject.resolved
+            null
+        } as IAnswer)
+
+        replay securityManager, request, response, chain
+
+        AbstractShiroFilter filter = new AbstractShiroFilter() {}
+        filter.securityManager = securityManager
+        filter.lazySubjectEnabled = true
+
+        filter.doFilterInternal(request, response, chain)
+
+        verify securityManager, request, response, chain
+    }
 }
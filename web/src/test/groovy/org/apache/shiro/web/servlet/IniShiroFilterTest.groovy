@@ -37,6 +37,9 @@ class IniShiroFilterTest extends GroovyTestCase {
 
         expect(filterConfig.getServletContext()).andReturn(servletContext).anyTimes()
         expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.STATIC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.ASYNC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.LAZY_SUBJECT_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.FLUSH_SESSION_UPDATES_INIT_PARAM_NAME))).andReturn null
         expect(filterConfig.getInitParameter(eq(IniShiroFilter.CONFIG_INIT_PARAM_NAME))).andReturn null
         expect(filterConfig.getInitParameter(eq(IniShiroFilter.CONFIG_PATH_INIT_PARAM_NAME))).andReturn null
         //simulate the servlet context resource of /WEB-INF/shiro.ini to be our test file above:
@@ -56,6 +59,9 @@ class IniShiroFilterTest extends GroovyTestCase {
 
         expect(filterConfig.getServletContext()).andReturn(servletContext).anyTimes()
         expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.STATIC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.ASYNC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.LAZY_SUBJECT_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.FLUSH_SESSION_UPDATES_INIT_PARAM_NAME))).andReturn null
         expect(filterConfig.getInitParameter(eq(IniShiroFilter.CONFIG_INIT_PARAM_NAME))).andReturn null
         expect(filterConfig.getInitParameter(eq(IniShiroFilter.CONFIG_PATH_INIT_PARAM_NAME))).andReturn "classpath:IniShiroFilterTest.ini"
 
@@ -74,6 +80,9 @@ class IniShiroFilterTest extends GroovyTestCase {
 
         expect(filterConfig.getServletContext()).andReturn(servletContext).anyTimes()
         expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.STATIC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.ASYNC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.LAZY_SUBJECT_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.FLUSH_SESSION_UPDATES_INIT_PARAM_NAME))).andReturn null
         expect(filterConfig.getInitParameter(eq(IniShiroFilter.CONFIG_INIT_PARAM_NAME))).andReturn null
         expect(filterConfig.getInitParameter(eq(IniShiroFilter.CONFIG_PATH_INIT_PARAM_NAME))).andReturn nonExistentResource
         expect(servletContext.getResourceAsStream(eq(nonExistentResource))).andReturn(null)
@@ -97,6 +106,9 @@ class IniShiroFilterTest extends GroovyTestCase {
 
         expect(filterConfig.getServletContext()).andReturn servletContext
         expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.STATIC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.ASYNC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.LAZY_SUBJECT_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.FLUSH_SESSION_UPDATES_INIT_PARAM_NAME))).andReturn null
         expect(filterConfig.getInitParameter(IniShiroFilter.CONFIG_INIT_PARAM_NAME)).andReturn null
         expect(filterConfig.getInitParameter(IniShiroFilter.CONFIG_PATH_INIT_PARAM_NAME)).andReturn null
         expect(servletContext.getResourceAsStream(IniShiroFilter.DEFAULT_WEB_INI_RESOURCE_PATH)).andReturn null
@@ -120,6 +132,9 @@ class IniShiroFilterTest extends GroovyTestCase {
 
         expect(filterConfig.getServletContext()).andReturn(servletContext).anyTimes()
         expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.STATIC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.ASYNC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.LAZY_SUBJECT_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.FLUSH_SESSION_UPDATES_INIT_PARAM_NAME))).andReturn null
         expect(filterConfig.getInitParameter(eq(IniShiroFilter.CONFIG_INIT_PARAM_NAME))).andReturn config
         expect(filterConfig.getInitParameter(eq(IniShiroFilter.CONFIG_PATH_INIT_PARAM_NAME))).andReturn null
 
@@ -41,6 +41,9 @@ class ShiroFilterTest extends GroovyTestCase {
 
         expect(filterConfig.servletContext).andReturn(servletContext).anyTimes()
         expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.STATIC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.ASYNC_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.LAZY_SUBJECT_INIT_PARAM_NAME))).andReturn null
+        expect(filterConfig.getInitParameter(eq(AbstractShiroFilter.FLUSH_SESSION_UPDATES_INIT_PARAM_NAME))).andReturn null
         expect(servletContext.getAttribute(eq(EnvironmentLoader.ENVIRONMENT_ATTRIBUTE_KEY))).andReturn webEnvironment
         expect(webEnvironment.webSecurityManager).andReturn webSecurityManager
         expect(webEnvironment.filterChainResolver).andReturn filterChainResolver
@@ -18,9 +18,21 @@
  */
 package org.apache.shiro.web.servlet
 
+import org.apache.shiro.session.Session
+import org.apache.shiro.session.mgt.DefaultSessionKey
+import org.apache.shiro.session.mgt.DefaultSessionManager
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO
+import org.apache.shiro.subject.Subject
+import org.apache.shiro.subject.support.SubjectThreadState
+import org.apache.shiro.util.ThreadState
+import org.junit.After
+import org.junit.Before
 import org.junit.Test
 
 import javax.servlet.ServletContext
+import javax.servlet.ServletOutputStream
+import javax.servlet.WriteListener
+import javax.servlet.http.HttpServletRequest
 import javax.servlet.http.HttpServletResponse
 import javax.servlet.http.HttpSession
 
@@ -34,6 +46,106 @@ class ShiroHttpServletResponseTest {
 
     private static String URL_SESSION_ID = "url_session_id"
 
+    private DefaultSessionManager sessionManager
+    private CountingSessionDAO sessionDAO
+    private DefaultSessionKey sessionKey
+    private ThreadState threadState
+
+    @Before
+    void setUp() {
+        sessionDAO = new CountingSessionDAO()
+        sessionManager = new DefaultSessionManager(sessionDAO: sessionDAO, sessionWriteBehindEnabled: true,
+                sessionValidationSchedulerEnabled: false)
+        sessionKey = new DefaultSessionKey(sessionManager.start(null).id)
+        threadState = new SubjectThreadState(createNiceMock(Subject))
+        threadState.bind()
+        sessionDAO.updates = 0
+    }
+
+    @After
+    void tearDown() {
+        threadState.restore()
+        sessionManager.destroy()
+    }
+
+    private ShiroHttpServletResponse createFlushingResponse(int bufferSize, boolean flushOnCommit) {
+        def httpServletResponse = createNiceMock(HttpServletResponse)
+        expect(httpServletResponse.getBufferSize()).andReturn(bufferSize).anyTimes()
+        expect(httpServletResponse.getWriter()).andReturn(new PrintWriter(new StringWriter())).anyTimes()
+        expect(httpServletResponse.getOutputStream()).andReturn(new DiscardingOutputStream()).anyTimes()
+        replay httpServletResponse
+        def servletContext = createNiceMock(ServletContext)
+        def request = new ShiroHttpServletRequest(createNiceMock(HttpServletRequest), servletContext, false)
+        def response = new ShiroHttpServletResponse(httpServletResponse, servletContext, request)
+        response.flushSessionUpdatesOnCommit = flushOnCommit
+        return response
+    }
+
+    private void changeSession() {
+        int updates = sessionDAO.updates
+        sessionManager.setAttribute(sessionKey, "attribute", UUID.randomUUID().toString())
+        //the change is deferred:
+        assertEquals updates, sessionDAO.updates
+    }
+
+    @Test
+    void testWriterFlushPersistsSessionUpdates() {
+        def response = createFlushingResponse(8192, true)
+        changeSession()
+        response.writer.print("hello")
+        assertEquals 0, sessionDAO.updates
+        response.writer.flush()
+        assertEquals 1, sessionDAO.updates
+    }
+
+    @Test
+    void testOutputStreamFlushAndClosePersistSessionUpdates() {
+        def response = createFlushingResponse(8192, true)
+        changeSession()
+        response.outputStream.flush()
+        assertEquals 1, sessionDAO.updates
+        changeSession()
+        response.outputStream.close()
+        assertEquals 2, sessionDAO.updates
+    }
+
+    @Test
+    void testFullBufferPersistsSessionUpdates() {
+        def response = createFlushingResponse(16, true)
+        changeSession()
+        response.outputStream.write(new byte[8])
+        assertEquals 0, sessionDAO.updates
+        //the next write fills the buffer, which the container commits:
+        response.outputStream.write(new byte[8])
+        assertEquals 1, sessionDAO.updates
+
+        //characters are counted as the maximum number of bytes they may be encoded to:
+        response = createFlushingResponse(16, true)
+        changeSession()
+        response.writer.print("abc")
+        assertEquals 1, sessionDAO.updates
+        response.writer.print("d")
+        assertEquals 2, sessionDAO.updates
+    }
+
+    @Test
+    void testRedirectPersistsSessionUpdates() {
+        def response = createFlushingResponse(8192, true)
+        changeSession()
+        response.sendRedirect("/login")
+        assertEquals 1, sessionDAO.updates
+    }
+
+    @Test
+    void testFlushOnCommitDisabled() {
+        def response = createFlushingResponse(16, false)
+        changeSession()
+        response.outputStream.write(new byte[32])
+        response.writer.flush()
+        response.sendRedirect("/login")
+        assertEquals 0, sessionDAO.updates
+    }
+
     @Test
     void testEncodeURLNoSessionId() {
 
@@ -151,6 +263,31 @@ class ShiroHttpServletResponseTest {
     }
 
 
+    private static class CountingSessionDAO extends MemorySessionDAO {
+        int updates
+
+        @Override
+        void update(Session session) {
+            updates++
+            super.update(session)
+        }
+    }
+
+    private static class DiscardingOutputStream extends ServletOutputStream {
+        @Override
+        void write(int b) {
+        }
+
+        @Override
+        boolean isReady() {
+            return true
+        }
+
+        @Override
+        void setWriteListener(WriteListener writeListener) {
+        }
+    }
+
     private static ShiroHttpServletRequest setupRequestMock() {
         def shiroHttpServletRequest = createMock(ShiroHttpServletRequest)
 
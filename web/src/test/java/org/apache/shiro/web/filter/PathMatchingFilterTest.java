@@ -121,5 +121,40 @@ public class PathMatchingFilterTest {
         verify(request);
     }
 
+    @Test
+    public void testMatchedPathAttribute() throws Exception {
+        filter.processPathConfig(DISABLED_PATH, null);
+        filter.processPathConfig(ENABLED_PATH, null);
+
+        HttpServletRequest request = createNiceMock(HttpServletRequest.class);
+        ServletResponse response = createNiceMock(ServletResponse.class);
+
+        //the request path is not matched again, so the attribute alone decides the applied path:
+        expect(request.getAttribute(PathMatchingFilter.MATCHED_PATH_ATTRIBUTE)).andReturn(ENABLED_PATH).anyTimes();
+        expect(request.getContextPath()).andReturn(CONTEXT_PATH).anyTimes();
+        expect(request.getRequestURI()).andReturn(DISABLED_PATH).anyTimes();
+        replay(request);
+
+        assertFalse("FilterChain should NOT continue.", filter.preHandle(request, response));
+
+        verify(request);
+    }
 
+    @Test
+    public void testMatchedPathAttributeForAnotherPath() throws Exception {
+        filter.processPathConfig(ENABLED_PATH, null);
+
+        HttpServletRequest request = createNiceMock(HttpServletRequest.class);
+        ServletResponse response = createNiceMock(ServletResponse.class);
+
+        //a path this filter is not configured with falls back to matching the request path:
+        expect(request.getAttribute(PathMatchingFilter.MATCHED_PATH_ATTRIBUTE)).andReturn("/other/**").anyTimes();
+        expect(request.getContextPath()).andReturn(CONTEXT_PATH).anyTimes();
+        expect(request.getRequestURI()).andReturn(ENABLED_PATH).anyTimes();
+        replay(request);
+
+        assertFalse("FilterChain should NOT continue.", filter.preHandle(request, response));
+
+        verify(request);
+    }
 }
@@ -20,6 +20,7 @@ package org.apache.shiro.web.filter.mgt;
 
 import org.apache.shiro.util.AntPathMatcher;
 import org.apache.shiro.web.WebTest;
+import org.apache.shiro.web.filter.PathMatchingFilter;
 import org.apache.shiro.web.util.WebUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +31,9 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 import static org.easymock.EasyMock.*;
 import static org.junit.Assert.*;
@@ -163,4 +167,141 @@ public class PathMatchingFilterChainResolverTest extends WebTest {
         assertNull(resolved);
         verify(request);
     }
+
+    @Test
+    public void testMatchedPathAttribute() {
+        HttpServletRequest request = createNiceMock(HttpServletRequest.class);
+        HttpServletResponse response = createNiceMock(HttpServletResponse.class);
+        FilterChain chain = createNiceMock(FilterChain.class);
+
+        resolver.setMatchedPathAttributeEnabled(true);
+        resolver.getFilterChainManager().addToChain("/index.html", "authcBasic");
+
+        expect(request.getAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE)).andReturn(null).anyTimes();
+        expect(request.getContextPath()).andReturn("").anyTimes();
+        expect(request.getRequestURI()).andReturn("/index.html").once().andReturn("/").once();
+        request.setAttribute(PathMatchingFilter.MATCHED_PATH_ATTRIBUTE, "/index.html");
+        request.removeAttribute(PathMatchingFilter.MATCHED_PATH_ATTRIBUTE);
+        replay(request);
+
+        assertNotNull(resolver.getChain(request, response, chain));
+        assertNull(resolver.getChain(request, response, chain));
+        verify(request);
+    }
+
+    @Test
+    public void testCompiledMatching() {
+        List<String> patterns = Arrays.asList("/index.html", "/login.jsp", "/static/**", "/static/*.css", "/api/*/items",
+                "/api/**/admin/**", "/api/v?/users/*", "/docs/", "/docs/*", "/a/**/b/**/c", "**/*.jsp", "/**/*.gif",
+                "*.html", "/", "/**");
+        List<String> paths = Arrays.asList("/", "/index.html", "/index.html/", "/login.jsp", "/foo/login.jsp",
+                "/static", "/static/", "/static/site.css", "/static/img/x.gif", "/api/v1/items", "/api/v1/items/",
+                "/api/v1/x/admin", "/api/v1/admin/users", "/api/v2/users/joe", "/api/v10/users/joe", "/docs",
+                "/docs/", "/docs/guide", "/docs/guide/", "/a/b/c", "/a/x/b/y/z/c", "/a/b/c/d", "index.html", "x.jsp",
+                "//api//v1//items", "/unknown/path");
+
+        for (int skip = 0; skip < patterns.size(); skip++) {
+            RecordingResolver linear = new RecordingResolver();
+            RecordingResolver compiled = new RecordingResolver();
+            compiled.setCompiledMatchingEnabled(true);
+            for (int i = 0; i < patterns.size(); i++) {
+                //also resolve with each pattern left out, so later patterns get a chance to match:
+                if (i != skip) {
+                    linear.getFilterChainManager().addToChain(patterns.get(i), "anon");
+                    compiled.getFilterChainManager().addToChain(patterns.get(i), "anon");
+                }
+            }
+            for (String path : paths) {
+                assertEquals("path [" + path + "]", linear.resolve(path), compiled.resolve(path));
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledMatchingAfterChainChanges() {
+        RecordingResolver compiled = new RecordingResolver();
+        compiled.setCompiledMatchingEnabled(true);
+        compiled.getFilterChainManager().addToChain("/admin/**", "authcBasic");
+        assertEquals("/admin/**", compiled.resolve("/admin/users"));
+        assertNull(compiled.resolve("/users"));
+
+        compiled.getFilterChainManager().createChain("/users/**", "authcBasic");
+        assertEquals("/users/**", compiled.resolve("/users"));
+
+        compiled.setFilterChainManager(new RecordingFilterChainManager());
+        assertNull(compiled.resolve("/users"));
+    }
+
+    @Test
+    public void testChainCache() {
+        RecordingResolver cached = new RecordingResolver();
+        cached.setChainCacheSize(100);
+        assertEquals(100, cached.getChainCacheSize());
+        cached.getFilterChainManager().addToChain("/admin/**", "authcBasic");
+
+        assertEquals("/admin/**", cached.resolve("/admin/users"));
+        assertEquals("/admin/**", cached.resolve("/admin/users"));
+        assertEquals(1, cached.getChainCache().getHitCount());
+        assertEquals(1, cached.getChainCache().getMissCount());
+
+        //paths without a matching chain are cached too:
+        assertNull(cached.resolve("/users"));
+        assertNull(cached.resolve("/users"));
+        assertEquals(2, cached.getChainCache().getHitCount());
+        assertEquals(2, cached.getChainCache().size());
+
+        //creating a chain invalidates the cache:
+        cached.getFilterChainManager().createChain("/users", "anon");
+        assertEquals("/users", cached.resolve("/users"));
+        assertEquals(2, cached.getChainCache().getHitCount());
+        assertEquals(1, cached.getChainCache().size());
+
+        //as does replacing all chains:
+        cached.getFilterChainManager().setFilterChains(new LinkedHashMap<String, NamedFilterList>());
+        assertNull(cached.resolve("/users"));
+
+        cached.setChainCacheSize(0);
+        assertNull(cached.getChainCache());
+        cached.getFilterChainManager().addToChain("/admin/**", "authcBasic");
+        assertEquals("/admin/**", cached.resolve("/admin/users"));
+    }
+
+    private static class RecordingResolver extends PathMatchingFilterChainResolver {
+
+        private String path;
+
+        private RecordingResolver() {
+            setFilterChainManager(new RecordingFilterChainManager());
+        }
+
+        private String resolve(String path) {
+            this.path = path;
+            RecordingFilterChainManager manager = getFilterChainManager();
+            manager.proxied = null;
+            getChain(createNiceMock(HttpServletRequest.class), createNiceMock(HttpServletResponse.class),
+                    createNiceMock(FilterChain.class));
+            return manager.proxied;
+        }
+
+        @Override
+        public RecordingFilterChainManager getFilterChainManager() {
+            return (RecordingFilterChainManager) super.getFilterChainManager();
+        }
+
+        @Override
+        protected String getPathWithinApplication(ServletRequest request) {
+            return path;
+        }
+    }
+
+    private static class RecordingFilterChainManager extends DefaultFilterChainManager {
+
+        private String proxied;
+
+        @Override
+        public FilterChain proxy(FilterChain original, String chainName) {
+            proxied = chainName;
+            return super.proxy(original, chainName);
+        }
+    }
 }
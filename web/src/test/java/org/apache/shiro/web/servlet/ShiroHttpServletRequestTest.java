@@ -20,6 +20,7 @@ package org.apache.shiro.web.servlet;
 
 import static org.easymock.EasyMock.*;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 
@@ -75,4 +76,41 @@ public class ShiroHttpServletRequestTest extends TestCase {
         assertNotNull(request.getSession(true));
         verify(mockSubject);
     }
+
+    @Test
+    public void testStartAsync() throws Exception {
+        AsyncContext asyncContext = createMock(AsyncContext.class);
+        Runnable task = createMock(Runnable.class);
+        Runnable associated = createMock(Runnable.class);
+
+        expect(mockRequest.startAsync()).andReturn(asyncContext);
+        expect(mockSubject.associateWith(task)).andReturn(associated);
+        asyncContext.start(associated);
+        asyncContext.complete();
+        replay(mockRequest, mockSubject, asyncContext);
+
+        AsyncContext started = request.startAsync();
+        assertTrue(started instanceof ShiroAsyncContext);
+        assertSame(asyncContext, ((ShiroAsyncContext) started).getAsyncContext());
+        assertSame(mockSubject, ((ShiroAsyncContext) started).getSubject());
+
+        started.start(task);
+        started.complete();
+        verify(mockRequest, mockSubject, asyncContext);
+    }
+
+    @Test
+    public void testGetAsyncContextWithoutSubject() throws Exception {
+        AsyncContext asyncContext = createMock(AsyncContext.class);
+        expect(mockRequest.getAsyncContext()).andReturn(asyncContext);
+        replay(mockRequest);
+
+        ThreadContext.unbindSubject();
+        try {
+            assertSame(asyncContext, request.getAsyncContext());
+        } finally {
+            ThreadContext.bind(mockSubject);
+        }
+        verify(mockRequest);
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.shiro.web.subject.support;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.util.ThreadContext;
+import org.apache.shiro.web.mgt.WebSecurityManager;
+import org.apache.shiro.web.subject.WebSubject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link LazyWebSubject} implementation.
+ *
+ * @since 1.4.1
+ */
+public class LazyWebSubjectTest {
+
+    private WebSecurityManager securityManager;
+    private ServletRequest request;
+    private ServletResponse response;
+    private WebSubject actual;
+    private int created;
+
+    @Before
+    public void setUp() {
+        ThreadContext.remove();
+        securityManager = createMock(WebSecurityManager.class);
+        request = createMock(ServletRequest.class);
+        response = createMock(ServletResponse.class);
+        actual = createMock(WebSubject.class);
+        created = 0;
+    }
+
+    @After
+    public void tearDown() {
+        ThreadContext.remove();
+    }
+
+    private LazyWebSubject createTestInstance() {
+        return new LazyWebSubject(securityManager, request, response) {
+            @Override
+            protected WebSubject createSubject() {
+                created++;
+                return actual;
+            }
+        };
+    }
+
+    @Test
+    public void testExecuteDoesNotResolve() {
+        replay(securityManager, request, response, actual);
+
+        final LazyWebSubject subject = createTestInstance();
+        subject.execute(new Runnable() {
+            public void run() {
+                assertSame(subject, SecurityUtils.getSubject());
+                assertSame(securityManager, SecurityUtils.getSecurityManager());
+                assertSame(request, subject.getServletRequest());
+                assertSame(response, subject.getServletResponse());
+            }
+        });
+
+        assertFalse(subject.isResolved());
+        assertEquals(0, created);
+        assertNull(ThreadContext.getSubject());
+        verify(securityManager, request, response, actual);
+    }
+
+    @Test
+    public void testResolvesOnce() {
+        expect(actual.isAuthenticated()).andReturn(true);
+        expect(actual.hasRole("admin")).andReturn(false);
+        expect(actual.getPrincipal()).andReturn("jsmith");
+        replay(securityManager, request, response, actual);
+
+        LazyWebSubject subject = createTestInstance();
+        assertTrue(subject.isAuthenticated());
+        assertTrue(subject.isResolved());
+        assertFalse(subject.hasRole("admin"));
+        assertEquals("jsmith", subject.getPrincipal());
+        assertSame(actual, subject.resolve());
+
+        assertEquals(1, created);
+        verify(securityManager, request, response, actual);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullSecurityManager() {
+        new LazyWebSubject(null, request, response);
+    }
+}